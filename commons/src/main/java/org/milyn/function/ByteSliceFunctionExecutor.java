@@ -0,0 +1,162 @@
+/*
+ * Milyn - Copyright (C) 2006 - 2010
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (version 2.1) as published by the Free Software
+ * Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details:
+ * http://www.gnu.org/licenses/lgpl.txt
+ */
+
+package org.milyn.function;
+
+import org.milyn.assertion.AssertArgument;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Executes a StringFunction definition on a slice of single byte encoded data.
+ * <p/>
+ * The leading trim functions of the definition (trim, left_trim and right_trim) are applied directly to the byte
+ * slice (see {@link #trim(byte[], int[])}), so the trimmed characters are never decoded.  The remaining functions
+ * (if any) are applied to the decoded String (see {@link #executeRemaining(String)}).  The result is the same as
+ * executing the full definition on the decoded String.
+ */
+public class ByteSliceFunctionExecutor {
+
+    private final StringFunction[] trimFunctions;
+    private final StringFunction[] remainingFunctions;
+    private final boolean[] isTrimChar = new boolean[256];
+    private final boolean[] isWhitespace = new boolean[256];
+
+    /**
+     * Public constructor.
+     * @param executor The StringFunction executor.
+     * @param encoding The single byte encoding of the data.
+     */
+    public ByteSliceFunctionExecutor(StringFunctionExecutor executor, Charset encoding) {
+        AssertArgument.isNotNull(executor, "executor");
+        AssertArgument.isNotNull(encoding, "encoding");
+
+        List<StringFunction> functions = executor.getFunctions();
+        List<StringFunction> trimFunctions = new ArrayList<StringFunction>();
+        int i = 0;
+
+        while(i < functions.size() && isTrimFunction(functions.get(i))) {
+            trimFunctions.add(functions.get(i));
+            i++;
+        }
+        this.trimFunctions = trimFunctions.toArray(new StringFunction[trimFunctions.size()]);
+        this.remainingFunctions = functions.subList(i, functions.size()).toArray(new StringFunction[functions.size() - i]);
+
+        char[] decodeTable = decodeTable(encoding);
+        for(int b = 0; b < 256; b++) {
+            isTrimChar[b] = (decodeTable[b] <= ' ');
+            isWhitespace[b] = Character.isWhitespace(decodeTable[b]);
+        }
+    }
+
+    /**
+     * Build the byte to char decode table for a single byte encoding.
+     * @param encoding The encoding.
+     * @return The decode table (indexed by the unsigned byte value).
+     * @throws IllegalArgumentException The encoding is not a single byte encoding.
+     */
+    public static char[] decodeTable(Charset encoding) throws IllegalArgumentException {
+        if(!isSingleByte(encoding)) {
+            throw new IllegalArgumentException("Encoding '" + encoding.name() + "' is not a single byte encoding.");
+        }
+
+        byte[] bytes = new byte[256];
+        for(int b = 0; b < 256; b++) {
+            bytes[b] = (byte) b;
+        }
+
+        return new String(bytes, encoding).toCharArray();
+    }
+
+    /**
+     * Is the supplied encoding a single byte encoding.
+     * @param encoding The encoding.
+     * @return True if the encoding is a single byte encoding, otherwise false.
+     */
+    public static boolean isSingleByte(Charset encoding) {
+        if(!encoding.canEncode() || encoding.newEncoder().maxBytesPerChar() != 1.0f) {
+            return false;
+        }
+
+        byte[] bytes = new byte[256];
+        for(int b = 0; b < 256; b++) {
+            bytes[b] = (byte) b;
+        }
+
+        return (new String(bytes, encoding).length() == 256);
+    }
+
+    /**
+     * Does the definition contain functions that need to be applied to the decoded String.
+     * @return True if there are functions to be applied to the decoded String, otherwise false.
+     */
+    public boolean hasRemainingFunctions() {
+        return (remainingFunctions.length > 0);
+    }
+
+    /**
+     * Apply the leading trim functions to a byte slice.
+     * @param bytes The data.
+     * @param slice The slice start (inclusive) and end (exclusive) offsets.  Updated to the trimmed slice.
+     */
+    public void trim(byte[] bytes, int[] slice) {
+        int start = slice[0];
+        int end = slice[1];
+
+        for(StringFunction function : trimFunctions) {
+            if(function instanceof TrimFunction) {
+                // As String.trim()...
+                while(start < end && isTrimChar[bytes[start] & 0xFF]) {
+                    start++;
+                }
+                while(end > start && isTrimChar[bytes[end - 1] & 0xFF]) {
+                    end--;
+                }
+            } else if(function instanceof LeftTrimFunction) {
+                while(start < end && isWhitespace[bytes[start] & 0xFF]) {
+                    start++;
+                }
+            } else {
+                // As RightTrimFunction i.e. never trims the first character...
+                while(end - 1 > start && isWhitespace[bytes[end - 1] & 0xFF]) {
+                    end--;
+                }
+            }
+        }
+
+        slice[0] = start;
+        slice[1] = end;
+    }
+
+    /**
+     * Apply the remaining (non leading trim) functions to the decoded String.
+     * @param input The decoded String.
+     * @return The result String.
+     */
+    public String executeRemaining(String input) {
+        for(StringFunction function : remainingFunctions) {
+            input = function.execute(input);
+        }
+
+        return input;
+    }
+
+    private static boolean isTrimFunction(StringFunction function) {
+        return (function instanceof TrimFunction || function instanceof LeftTrimFunction || function instanceof RightTrimFunction);
+    }
+}
@@ -56,6 +56,10 @@ public class StringFunctionExecutor {
         this.functions = functions;
     }
 
+    List<StringFunction> getFunctions() {
+        return functions;
+    }
+
     /**
      * Takes a StringFunction definition and executes it on a string
      *
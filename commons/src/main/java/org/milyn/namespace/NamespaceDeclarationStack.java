@@ -159,6 +159,29 @@ public class NamespaceDeclarationStack {
         return readerStack.pop();
     }
 
+    /**
+     * Create a copy of the namespace declarations on this stack.
+     * <p/>
+     * The copy does not share any state with this stack and its reader stack is empty,
+     * so it can be used to resolve namespace prefixes (e.g. on another thread) while
+     * this stack moves on.
+     *
+     * @return A copy of the namespace declarations on this stack.
+     */
+    public NamespaceDeclarationStack copyNamespaces() {
+        NamespaceDeclarationStack copy = new NamespaceDeclarationStack();
+
+        for (Map<String, String> nsMap : namespaceStack) {
+            if(nsMap.isEmpty()) {
+                copy.namespaceStack.push(Collections.EMPTY_MAP);
+            } else {
+                copy.namespaceStack.push(new LinkedHashMap<String, String>(nsMap));
+            }
+        }
+
+        return copy;
+    }
+
     public String getPrefix(String uri) {
         int stackDepth = namespaceStack.size();
 
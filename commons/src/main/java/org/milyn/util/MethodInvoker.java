@@ -0,0 +1,343 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.util;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtMethod;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.milyn.assertion.AssertArgument;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Method invoker.
+ * <p/>
+ * Invokes a no-arg or single-arg instance method (bean getters and setters etc).
+ * Invokers created by the {@link Factory} are generated classes that call the target method directly, avoiding
+ * the cost of {@link Method#invoke(Object, Object[])} on every call.  The {@link Factory} falls back to a
+ * reflective invoker for methods that cannot be called from a generated class (non-public methods or declaring
+ * classes), or when the {@link #REFLECTIVE_SYSKEY} system property is set to "true".
+ * <p/>
+ * Generating an invoker class costs far more than a single reflective call, so only use invokers for methods
+ * called repeatedly (e.g. binding setters).  One-shot calls (e.g. config injection) are better off using
+ * reflection directly.
+ * <p/>
+ * As with {@link Method#invoke(Object, Object[])}, an invalid instance or argument results in an
+ * {@link IllegalArgumentException} (or a {@link NullPointerException} for a null instance), while exceptions
+ * thrown by the target method are wrapped in an {@link InvocationTargetException}.
+ */
+public abstract class MethodInvoker {
+
+    /**
+     * System property key for turning off generated invokers.  Set to "true" to use reflection for all
+     * method invocations.
+     */
+    public static final String REFLECTIVE_SYSKEY = "org.milyn.util.invoker.reflective";
+
+    private final Method method;
+
+    protected MethodInvoker(Method method) {
+        this.method = method;
+    }
+
+    /**
+     * Get the target method.
+     * @return The target method.
+     */
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Invoke a no-arg target method.
+     * @param instance The target instance.
+     * @return The method return value, or null if the method is void.
+     * @throws IllegalAccessException Target method not accessible.
+     * @throws InvocationTargetException The target method threw an exception.
+     */
+    public Object invoke(Object instance) throws IllegalAccessException, InvocationTargetException {
+        return invoke(instance, null);
+    }
+
+    /**
+     * Invoke the target method.
+     * @param instance The target instance.
+     * @param arg The method argument.  Ignored for no-arg methods.  Primitive arguments must be supplied in their
+     * wrapper type.
+     * @return The method return value (primitives are returned in their wrapper type), or null if the method is void.
+     * @throws IllegalAccessException Target method not accessible.
+     * @throws InvocationTargetException The target method threw an exception.
+     */
+    public abstract Object invoke(Object instance, Object arg) throws IllegalAccessException, InvocationTargetException;
+
+    /**
+     * Create the exception thrown for an invalid instance or argument value.
+     * @param argName The argument name.
+     * @param value The argument value.
+     * @return The exception.
+     */
+    protected IllegalArgumentException invalidArgument(String argName, Object value) {
+        String valueType = (value != null ? value.getClass().getName() : "null");
+        return new IllegalArgumentException("Invalid '" + argName + "' arg value of type '" + valueType + "' for method '" + method + "'.");
+    }
+
+    /**
+     * {@link MethodInvoker} factory.
+     */
+    public static class Factory {
+
+        private static Log logger = LogFactory.getLog(MethodInvoker.class);
+        /**
+         * Generated invokers, keyed weakly on the declaring class so the cache doesn't pin ClassLoaders.  The
+         * values only hold weak references to the invoker and its generated class (which lives as long as the
+         * declaring class' ClassLoader), so a collected invoker is recreated without regenerating its class.
+         */
+        private static final Map<Class<?>, Map<String, GeneratedInvoker>> generatedInvokers = new WeakHashMap<Class<?>, Map<String, GeneratedInvoker>>();
+        private static final AtomicInteger classCount = new AtomicInteger();
+        private static final Map<Class<?>, Class<?>> primitiveWrappers = new HashMap<Class<?>, Class<?>>();
+
+        static {
+            primitiveWrappers.put(Boolean.TYPE, Boolean.class);
+            primitiveWrappers.put(Byte.TYPE, Byte.class);
+            primitiveWrappers.put(Character.TYPE, Character.class);
+            primitiveWrappers.put(Short.TYPE, Short.class);
+            primitiveWrappers.put(Integer.TYPE, Integer.class);
+            primitiveWrappers.put(Long.TYPE, Long.class);
+            primitiveWrappers.put(Float.TYPE, Float.class);
+            primitiveWrappers.put(Double.TYPE, Double.class);
+        }
+
+        /**
+         * Create a {@link MethodInvoker} for the supplied method.
+         * <p/>
+         * Generated invokers are cached, so repeated calls for the same method return the same invoker.
+         *
+         * @param method The target method.
+         * @return The method invoker.
+         */
+        public static MethodInvoker create(Method method) {
+            AssertArgument.isNotNull(method, "method");
+
+            if(Boolean.getBoolean(REFLECTIVE_SYSKEY) || !isGeneratable(method)) {
+                return new ReflectiveInvoker(method);
+            }
+
+            Class<?> declaringClass = method.getDeclaringClass();
+            Map<String, GeneratedInvoker> classInvokers;
+
+            synchronized (generatedInvokers) {
+                classInvokers = generatedInvokers.get(declaringClass);
+                if(classInvokers == null) {
+                    classInvokers = new HashMap<String, GeneratedInvoker>();
+                    generatedInvokers.put(declaringClass, classInvokers);
+                }
+            }
+
+            // Keyed on the method signature.  Method instances reference the declaring class...
+            String methodKey = method.toString();
+            synchronized (classInvokers) {
+                GeneratedInvoker generatedInvoker = classInvokers.get(methodKey);
+                MethodInvoker invoker = (generatedInvoker != null ? generatedInvoker.getInvoker(method) : null);
+
+                if(invoker == null) {
+                    invoker = generate(method);
+                    // A failed generation is recorded too, so it's not retried on every call...
+                    classInvokers.put(methodKey, new GeneratedInvoker(invoker));
+                    if(invoker == null) {
+                        return new ReflectiveInvoker(method);
+                    }
+                }
+
+                return invoker;
+            }
+        }
+
+        private static boolean isGeneratable(Method method) {
+            Class<?> declaringClass = method.getDeclaringClass();
+            ClassLoader classLoader = declaringClass.getClassLoader();
+
+            if(method.getParameterTypes().length > 1 || classLoader == null) {
+                return false;
+            }
+            if(!Modifier.isPublic(method.getModifiers()) || Modifier.isStatic(method.getModifiers()) || !Modifier.isPublic(declaringClass.getModifiers())) {
+                return false;
+            }
+
+            // The generated class is defined in the target class' ClassLoader, so that ClassLoader must see
+            // this MethodInvoker class...
+            try {
+                return (Class.forName(MethodInvoker.class.getName(), false, classLoader) == MethodInvoker.class);
+            } catch (ClassNotFoundException e) {
+                return false;
+            }
+        }
+
+        private static MethodInvoker generate(Method method) {
+            Class<?> declaringClass = method.getDeclaringClass();
+            String invokerClassName = declaringClass.getName() + "$$MethodInvoker" + classCount.incrementAndGet();
+            ClassPool pool = new ClassPool(true);
+            CtClass invokerClass;
+
+            pool.insertClassPath(new LoaderClassPath(declaringClass.getClassLoader()));
+            invokerClass = pool.makeClass(invokerClassName);
+            try {
+                invokerClass.setSuperclass(pool.get(MethodInvoker.class.getName()));
+                invokerClass.addConstructor(CtNewConstructor.make("public " + invokerClass.getSimpleName() + "(java.lang.reflect.Method method) { super(method); }", invokerClass));
+
+                CtMethod invokeMethod = CtNewMethod.make(createInvokeSource(method), invokerClass);
+                invokerClass.addMethod(invokeMethod);
+
+                Class<?> generatedClass = invokerClass.toClass(declaringClass.getClassLoader(), declaringClass.getProtectionDomain());
+                return (MethodInvoker) generatedClass.getConstructor(Method.class).newInstance(method);
+            } catch (Exception e) {
+                logger.debug("Unable to generate MethodInvoker for method '" + method + "'.  Using reflection.", e);
+                return null;
+            } finally {
+                invokerClass.detach();
+            }
+        }
+
+        private static String createInvokeSource(Method method) {
+            StringBuilder source = new StringBuilder();
+            StringBuilder call = new StringBuilder();
+            String declaringType = toSourceName(method.getDeclaringClass());
+            Class<?>[] paramTypes = method.getParameterTypes();
+            Class<?> returnType = method.getReturnType();
+
+            // Validate the instance and argument up front (as Method.invoke does), so only exceptions thrown by
+            // the target method get wrapped in an InvocationTargetException...
+            source.append("public Object invoke(Object instance, Object arg) throws java.lang.reflect.InvocationTargetException {\n");
+            source.append("    if(instance == null) {\n");
+            source.append("        throw new NullPointerException(\"null 'instance' arg.\");\n");
+            source.append("    }\n");
+            source.append("    if(!(instance instanceof ").append(declaringType).append(")) {\n");
+            source.append("        throw invalidArgument(\"instance\", instance);\n");
+            source.append("    }\n");
+
+            call.append("((").append(declaringType).append(") instance).").append(method.getName()).append("(");
+            if(paramTypes.length == 1) {
+                if(paramTypes[0].isPrimitive()) {
+                    String wrapperType = primitiveWrappers.get(paramTypes[0]).getName();
+
+                    source.append("    if(!(arg instanceof ").append(wrapperType).append(")) {\n");
+                    call.append("((").append(wrapperType).append(") arg).").append(paramTypes[0].getName()).append("Value()");
+                } else {
+                    String paramType = toSourceName(paramTypes[0]);
+
+                    source.append("    if(arg != null && !(arg instanceof ").append(paramType).append(")) {\n");
+                    call.append("(").append(paramType).append(") arg");
+                }
+                source.append("        throw invalidArgument(\"arg\", arg);\n");
+                source.append("    }\n");
+            }
+            call.append(")");
+
+            source.append("    try {\n");
+            if(returnType == Void.TYPE) {
+                source.append("        ").append(call).append(";\n");
+                source.append("        return null;\n");
+            } else if(returnType.isPrimitive()) {
+                source.append("        return ").append(primitiveWrappers.get(returnType).getName()).append(".valueOf(").append(call).append(");\n");
+            } else {
+                source.append("        return ").append(call).append(";\n");
+            }
+            source.append("    } catch (Throwable t) {\n");
+            source.append("        throw new java.lang.reflect.InvocationTargetException(t);\n");
+            source.append("    }\n");
+            source.append("}");
+
+            return source.toString();
+        }
+
+        private static String toSourceName(Class<?> type) {
+            if(type.isArray()) {
+                return toSourceName(type.getComponentType()) + "[]";
+            }
+            return type.getName();
+        }
+    }
+
+    /**
+     * Weakly referenced generated invoker, and its generated class.  No invoker (a null invoker class) if the
+     * invoker class could not be generated, in which case reflection is used.
+     */
+    private static class GeneratedInvoker {
+
+        private final WeakReference<Class<?>> invokerClass;
+        private WeakReference<MethodInvoker> invoker;
+
+        private GeneratedInvoker(MethodInvoker invoker) {
+            if(invoker != null) {
+                this.invokerClass = new WeakReference<Class<?>>(invoker.getClass());
+                this.invoker = new WeakReference<MethodInvoker>(invoker);
+            } else {
+                this.invokerClass = null;
+            }
+        }
+
+        private MethodInvoker getInvoker(Method method) {
+            if(invokerClass == null) {
+                return new ReflectiveInvoker(method);
+            }
+
+            MethodInvoker methodInvoker = invoker.get();
+
+            if(methodInvoker == null) {
+                Class<?> generatedClass = invokerClass.get();
+                if(generatedClass == null) {
+                    return null;
+                }
+
+                try {
+                    methodInvoker = (MethodInvoker) generatedClass.getConstructor(Method.class).newInstance(method);
+                } catch (Exception e) {
+                    return null;
+                }
+                invoker = new WeakReference<MethodInvoker>(methodInvoker);
+            }
+
+            return methodInvoker;
+        }
+    }
+
+    private static class ReflectiveInvoker extends MethodInvoker {
+
+        private ReflectiveInvoker(Method method) {
+            super(method);
+        }
+
+        public Object invoke(Object instance, Object arg) throws IllegalAccessException, InvocationTargetException {
+            Method method = getMethod();
+
+            if(method.getParameterTypes().length == 0) {
+                return method.invoke(instance);
+            }
+            return method.invoke(instance, arg);
+        }
+    }
+}
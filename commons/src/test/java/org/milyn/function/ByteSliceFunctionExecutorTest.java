@@ -0,0 +1,87 @@
+/*
+ * Milyn - Copyright (C) 2006 - 2010
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (version 2.1) as published by the Free Software
+ * Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details:
+ * http://www.gnu.org/licenses/lgpl.txt
+ */
+
+package org.milyn.function;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.nio.charset.Charset;
+
+public class ByteSliceFunctionExecutorTest {
+
+	@Test
+    public void test_isSingleByte() {
+        assertTrue(ByteSliceFunctionExecutor.isSingleByte(Charset.forName("ISO-8859-1")));
+        assertTrue(ByteSliceFunctionExecutor.isSingleByte(Charset.forName("Cp1047")));
+        assertFalse(ByteSliceFunctionExecutor.isSingleByte(Charset.forName("UTF-8")));
+        assertFalse(ByteSliceFunctionExecutor.isSingleByte(Charset.forName("UTF-16")));
+    }
+
+	@Test
+    public void test_decodeTable() {
+        char[] decodeTable = ByteSliceFunctionExecutor.decodeTable(Charset.forName("Cp1047"));
+
+        assertEquals('A', decodeTable[0xC1]);
+        assertEquals(' ', decodeTable[0x40]);
+        assertEquals('\n', decodeTable[0x15]);
+    }
+
+	@Test(expected = IllegalArgumentException.class)
+    public void test_decodeTable_multibyte() {
+        ByteSliceFunctionExecutor.decodeTable(Charset.forName("UTF-8"));
+    }
+
+	@Test
+    public void test_execute_iso() {
+        Charset encoding = Charset.forName("ISO-8859-1");
+
+        assertSameAsString("trim", "  zz zz  ", encoding);
+        assertSameAsString("left_trim", "  zz zz  ", encoding);
+        assertSameAsString("right_trim", "  zz zz  ", encoding);
+        assertSameAsString("right_trim", " ", encoding);
+        assertSameAsString("trim", "     ", encoding);
+        assertSameAsString("trim.upper_case", "  zz zz  ", encoding);
+        assertSameAsString("upper_case.trim", "  zz zz  ", encoding);
+        assertSameAsString("left_trim.right_trim.capitalize", "\t zz zz\t ", encoding);
+    }
+
+	@Test
+    public void test_execute_ebcdic() {
+        Charset encoding = Charset.forName("Cp1047");
+
+        assertSameAsString("trim", "  zz zz  ", encoding);
+        assertSameAsString("right_trim.lower_case", "ZZ ZZ   ", encoding);
+    }
+
+    private void assertSameAsString(String definition, String input, Charset encoding) {
+        StringFunctionExecutor executor = StringFunctionExecutor.getInstance(definition);
+        ByteSliceFunctionExecutor byteSliceExecutor = new ByteSliceFunctionExecutor(executor, encoding);
+        char[] decodeTable = ByteSliceFunctionExecutor.decodeTable(encoding);
+        byte[] bytes = ("xx" + input + "xx").getBytes(encoding);
+        int[] slice = new int[] {2, bytes.length - 2};
+
+        byteSliceExecutor.trim(bytes, slice);
+
+        StringBuilder value = new StringBuilder();
+        for(int i = slice[0]; i < slice[1]; i++) {
+            value.append(decodeTable[bytes[i] & 0xFF]);
+        }
+
+        assertEquals(executor.execute(input), byteSliceExecutor.executeRemaining(value.toString()));
+    }
+
+}
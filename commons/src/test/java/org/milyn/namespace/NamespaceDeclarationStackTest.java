@@ -106,6 +106,26 @@ public class NamespaceDeclarationStackTest {
 		assertEquals("[start:b:nsb, start:a:nsa, end:b, end:a]", handler.history.toString());
 	}
 
+	@Test
+	public void testCopyNamespaces() throws Exception {
+		MockContentHandler handler = new MockContentHandler();
+		NamespaceDeclarationStack nds = new NamespaceDeclarationStack();
+        nds.pushReader(new MockXMLReader(handler));
+		nds.pushNamespaces("a:element", "nsa", null);
+		nds.pushNamespaces("b:element", "nsb", null);
+
+		NamespaceDeclarationStack copy = nds.copyNamespaces();
+		nds.popNamespaces();
+		assertEquals(null, nds.getPrefix("nsb"));
+		assertEquals("a", copy.getPrefix("nsa"));
+		assertEquals("b", copy.getPrefix("nsb"));
+
+		// The copy has no readers, so no prefix mapping events...
+		copy.pushNamespaces("c:element", "nsc", null);
+		copy.popNamespaces();
+		assertEquals("[start:a:nsa, start:b:nsb, end:b]", handler.history.toString());
+	}
+
     private class MockXMLReader implements XMLReader {
 
         private ContentHandler contentHandler;
@@ -0,0 +1,203 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.util;
+
+import org.junit.Test;
+import org.milyn.io.StreamUtils;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationTargetException;
+
+import static org.junit.Assert.*;
+
+public class MethodInvokerTest {
+
+    @Test
+    public void test_generated() throws Exception {
+        MethodInvoker setName = MethodInvoker.Factory.create(TestBean.class.getMethod("setName", String.class));
+        MethodInvoker getName = MethodInvoker.Factory.create(TestBean.class.getMethod("getName"));
+        TestBean bean = new TestBean();
+
+        assertTrue(setName.getClass().getName().startsWith(TestBean.class.getName() + "$$MethodInvoker"));
+        assertSame(setName, MethodInvoker.Factory.create(TestBean.class.getMethod("setName", String.class)));
+
+        assertNull(setName.invoke(bean, "x"));
+        assertEquals("x", bean.getName());
+        assertEquals("x", getName.invoke(bean));
+    }
+
+    @Test
+    public void test_generated_primitives() throws Exception {
+        MethodInvoker setCount = MethodInvoker.Factory.create(TestBean.class.getMethod("setCount", Integer.TYPE));
+        MethodInvoker getCount = MethodInvoker.Factory.create(TestBean.class.getMethod("getCount"));
+        MethodInvoker setNames = MethodInvoker.Factory.create(TestBean.class.getMethod("setNames", String[].class));
+        TestBean bean = new TestBean();
+
+        setCount.invoke(bean, 5);
+        assertEquals(5, bean.count);
+        assertEquals(5, getCount.invoke(bean));
+
+        setNames.invoke(bean, new String[] {"a", "b"});
+        assertEquals(2, bean.names.length);
+    }
+
+    @Test
+    public void test_target_exception() throws Exception {
+        MethodInvoker fail = MethodInvoker.Factory.create(TestBean.class.getMethod("fail"));
+
+        try {
+            fail.invoke(new TestBean());
+            fail("Expected InvocationTargetException");
+        } catch (InvocationTargetException e) {
+            assertEquals("fail", e.getTargetException().getMessage());
+        }
+    }
+
+    @Test
+    public void test_invalid_arguments() throws Exception {
+        MethodInvoker setName = MethodInvoker.Factory.create(TestBean.class.getMethod("setName", String.class));
+        MethodInvoker setCount = MethodInvoker.Factory.create(TestBean.class.getMethod("setCount", Integer.TYPE));
+        MethodInvoker getName = MethodInvoker.Factory.create(TestBean.class.getMethod("getName"));
+        TestBean bean = new TestBean();
+
+        assertTrue(setCount.getClass().getName().startsWith(TestBean.class.getName() + "$$MethodInvoker"));
+        assertInvalidArgument(setName, bean, 5);
+        assertInvalidArgument(setCount, bean, "5");
+        assertInvalidArgument(setCount, bean, null);
+        assertInvalidArgument(getName, "not a TestBean", null);
+        try {
+            getName.invoke(null);
+            fail("Expected NullPointerException");
+        } catch (NullPointerException e) {
+            // Expected...
+        }
+
+        // A null reference arg is valid...
+        setName.invoke(bean, null);
+        assertNull(bean.getName());
+    }
+
+    @Test
+    public void test_classloader_not_pinned() throws Exception {
+        WeakReference<ClassLoader> classLoader = createInvokerInIsolatedClassLoader();
+
+        for(int i = 0; i < 20 && classLoader.get() != null; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        assertNull("MethodInvoker cache is pinning the ClassLoader.", classLoader.get());
+    }
+
+    @Test
+    public void test_reflective() throws Exception {
+        System.setProperty(MethodInvoker.REFLECTIVE_SYSKEY, "true");
+        try {
+            MethodInvoker setName = MethodInvoker.Factory.create(TestBean.class.getMethod("setName", String.class));
+            TestBean bean = new TestBean();
+
+            assertFalse(setName.getClass().getName().startsWith(TestBean.class.getName()));
+            setName.invoke(bean, "x");
+            assertEquals("x", bean.getName());
+        } finally {
+            System.getProperties().remove(MethodInvoker.REFLECTIVE_SYSKEY);
+        }
+    }
+
+    private void assertInvalidArgument(MethodInvoker invoker, Object instance, Object arg) throws Exception {
+        try {
+            invoker.invoke(instance, arg);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // Expected...
+        }
+    }
+
+    private WeakReference<ClassLoader> createInvokerInIsolatedClassLoader() throws Exception {
+        ClassLoader classLoader = new IsolatingClassLoader();
+        Class<?> beanClass = classLoader.loadClass(TestBean.class.getName());
+        MethodInvoker setName = MethodInvoker.Factory.create(beanClass.getMethod("setName", String.class));
+        Object bean = beanClass.newInstance();
+
+        assertSame(classLoader, setName.getClass().getClassLoader());
+        setName.invoke(bean, "x");
+        assertEquals("x", MethodInvoker.Factory.create(beanClass.getMethod("getName")).invoke(bean));
+
+        return new WeakReference<ClassLoader>(classLoader);
+    }
+
+    /**
+     * Loads its own copy of {@link TestBean}, delegating everything else to the parent.
+     */
+    private static class IsolatingClassLoader extends ClassLoader {
+
+        private IsolatingClassLoader() {
+            super(MethodInvokerTest.class.getClassLoader());
+        }
+
+        @Override
+        protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if(!name.equals(TestBean.class.getName())) {
+                return super.loadClass(name, resolve);
+            }
+
+            Class<?> loadedClass = findLoadedClass(name);
+            if(loadedClass == null) {
+                byte[] classBytes;
+
+                try {
+                    classBytes = StreamUtils.readStream(getParent().getResourceAsStream(name.replace('.', '/') + ".class"));
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+                loadedClass = defineClass(name, classBytes, 0, classBytes.length);
+            }
+
+            return loadedClass;
+        }
+    }
+
+    public static class TestBean {
+
+        private String name;
+        private int count;
+        private String[] names;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public void setCount(int count) {
+            this.count = count;
+        }
+
+        public void setNames(String[] names) {
+            this.names = names;
+        }
+
+        public void fail() {
+            throw new IllegalStateException("fail");
+        }
+    }
+}
@@ -31,11 +31,19 @@ import org.xml.sax.InputSource;
 
 /**
  * Buffered EDI Stream Segment reader.
+ * <p/>
+ * The EDI stream is read in blocks into a character window.  Segments are then copied out of the window
+ * in runs of characters, only dropping back to char-by-char processing on the characters that can change the
+ * state of the segment (the last segment delimiter char, the escape char, and CR/LF when new lines are being
+ * ignored).  The current segment is held in a reusable character buffer and exposed as a {@link CharSequence}
+ * view (see {@link #getCurrentSegment()}).
+ *
  * @author tfennelly
  */
 public class BufferedSegmentReader {
 
     private static final int MAX_MARK_READ = 512;
+    private static final int READ_BUFFER_SIZE = 16384;
 
     private static Log logger = LogFactory.getLog(BufferedSegmentReader.class);
 
@@ -45,7 +53,12 @@ public class BufferedSegmentReader {
     private boolean marked = false;
     private Charset readEncoding;
     private Reader reader;
-    private StringBuffer segmentBuffer = new StringBuffer(512);
+    private char[] readBuffer = new char[READ_BUFFER_SIZE];
+    private int readBufferPosition = 0;
+    private int readBufferLength = 0;
+    private char[] segment = new char[512];
+    private int segmentLength = 0;
+    private SegmentBuffer segmentBuffer = new SegmentBuffer();
     private String[] currentSegmentFields = null;
     private int currentSegmentNumber = 0;
     private Stack<Delimiters> delimitersStack = new Stack<Delimiters>();
@@ -53,6 +66,7 @@ public class BufferedSegmentReader {
     private BufferedSegmentListener segmentListener;
     private boolean ignoreNewLines;
     private int charReadCount = 0;
+    private StringBuilder captureBuffer;
 
 
     /**
@@ -123,9 +137,12 @@ public class BufferedSegmentReader {
             return readEncoding;
         }
 
-        // Create a new reader and skip passed the already read characters...
+        // Create a new reader and skip passed the already read characters.  Anything already
+        // in the read buffer was decoded using the old encoding, so drop it...
         reader = new InputStreamReader(underlyingByteStream, encoding);
         underlyingByteStream.skip(charReadCount);
+        readBufferPosition = 0;
+        readBufferLength = 0;
         try {
             return readEncoding;
         } finally {
@@ -180,6 +197,27 @@ public class BufferedSegmentReader {
         this.ignoreNewLines = ignoreNewLines;
     }
 
+    /**
+     * Start capturing the raw characters read from the EDI stream.
+     * <p/>
+     * Every character read from the stream from here on (including delimiters, escape
+     * characters and ignored new lines) is appended to the supplied buffer, until
+     * {@link #stopCapture()} is called.
+     *
+     * @param captureBuffer The capture buffer.
+     */
+    public void startCapture(StringBuilder captureBuffer) {
+        this.captureBuffer = captureBuffer;
+    }
+
+    /**
+     * Stop capturing the raw characters read from the EDI stream.
+     * @see #startCapture(StringBuilder)
+     */
+    public void stopCapture() {
+        captureBuffer = null;
+    }
+
     /**
      * Read a fixed number of characters from the input source.
      * @param numChars The number of characters to read.
@@ -189,11 +227,11 @@ public class BufferedSegmentReader {
      * @throws IOException Error reading from input source.
      */
     public String read(int numChars) throws IOException {
-        segmentBuffer.setLength(0);
+        segmentLength = 0;
         try {
             return peek(numChars);
         } finally {
-            segmentBuffer.setLength(0);
+            segmentLength = 0;
         }
     }
 
@@ -233,7 +271,7 @@ public class BufferedSegmentReader {
         // as a feature on the parser (the later is the preferred method)...
         ignoreCRLF = (currentDelimiters.ignoreCRLF() || ignoreNewLines);
 
-        if(segmentBuffer.length() < numChars) {
+        if(segmentLength < numChars) {
             int c;
 
             if(ignoreLeadingWhitespace) {
@@ -248,8 +286,8 @@ public class BufferedSegmentReader {
                     continue;
                 }
 
-                segmentBuffer.append((char)c);
-                if(segmentBuffer.length() == numChars) {
+                append((char)c);
+                if(segmentLength == numChars) {
                     break;
                 }
 
@@ -257,9 +295,9 @@ public class BufferedSegmentReader {
             }
         }
 
-        int endIndex = Math.min(numChars, segmentBuffer.length());
+        int endIndex = Math.min(numChars, segmentLength);
 
-        return segmentBuffer.substring(0, endIndex);
+        return new String(segment, 0, endIndex);
     }
 
     /**
@@ -293,8 +331,9 @@ public class BufferedSegmentReader {
     public boolean moveToNextSegment(boolean clearBuffer) throws IOException {
         char[] segmentDelimiter = currentDelimiters.getSegmentDelimiter();
         int delimiterLen = segmentDelimiter.length;
+        int delimiterEnd = (delimiterLen > 0 ? segmentDelimiter[delimiterLen - 1] : -1);
         String escape = currentDelimiters.getEscape();
-        int escapeLen = escape != null ? escape.length() : 0;
+        int escapeChar = (escape != null && escape.length() == 1 ? escape.charAt(0) : -1);
         boolean ignoreCRLF;
 
         int c = readChar();
@@ -304,7 +343,7 @@ public class BufferedSegmentReader {
         ignoreCRLF = (currentDelimiters.ignoreCRLF() || ignoreNewLines);
 
         if(clearBuffer) {
-            segmentBuffer.setLength(0);
+            segmentLength = 0;
         }
         currentSegmentFields = null;
 
@@ -328,24 +367,26 @@ public class BufferedSegmentReader {
                 continue;
             }
 
-            segmentBuffer.append((char)c);
+            append(theChar);
 
-            int segLen = segmentBuffer.length();
+            int segLen = segmentLength;
             if(segLen >= delimiterLen) {
                 boolean reachedSegEnd = true;
 
                 for(int i = 0; i < delimiterLen; i++) {
-                    char segChar = segmentBuffer.charAt(segLen - 1 - i);
+                    char segChar = segment[segLen - 1 - i];
                     char delimChar = segmentDelimiter[delimiterLen - 1 - i];
 
                     if (escapingMode) {
                         if (segChar == delimChar) {
-                            segmentBuffer = segmentBuffer.delete(segLen - 2, segLen - 1);
+                            // Drop the escape char...
+                            System.arraycopy(segment, segLen - 1, segment, segLen - 2, 1);
+                            segmentLength--;
                         }
                         escapingMode = false;
                         reachedSegEnd = false;
                         break;
-                    } else if (escape != null && escape.equals(Character.toString(segChar))) {
+                    } else if (segChar == escapeChar) {
                         escapingMode = true;
                     }
 
@@ -360,11 +401,17 @@ public class BufferedSegmentReader {
                 // We've reached the end of a segment...
                 if(reachedSegEnd) {
                     // Trim off the delimiter and break out...
-                    segmentBuffer.setLength(segLen - delimiterLen);
+                    segmentLength = segLen - delimiterLen;
                     break;
                 }
             }
 
+            // Copy the run of characters up to the next char that could change the segment
+            // state straight out of the read buffer...
+            if(!escapingMode && delimiterLen > 0) {
+                appendRun(delimiterEnd, escapeChar, ignoreCRLF);
+            }
+
             c = readChar();
         }
 
@@ -389,18 +436,44 @@ public class BufferedSegmentReader {
         if(segmentListener != null) {
             return segmentListener.onSegment(this);
         } else {
-            return segmentBuffer.length() != 0;
+            return segmentLength != 0;
         }
     }
 
     /**
      * Get the segment buffer.
+     * <p/>
+     * Returns a copy of the current segment.  Changes to the returned buffer are not seen by the reader (use
+     * {@link #clearSegmentBuffer()} to clear the segment buffer).
+     *
      * @return The segment buffer.
+     * @deprecated Use {@link #getCurrentSegment()}, which doesn't copy the segment.
      */
+    @Deprecated
     public StringBuffer getSegmentBuffer() {
+        return new StringBuffer(segmentBuffer);
+    }
+
+    /**
+     * Get the current segment.
+     * <p/>
+     * The returned {@link CharSequence} is a live view on the reader's segment buffer i.e. it is
+     * not a copy, and its content changes as the reader moves through the EDI stream.  Use
+     * {@link Object#toString()} to take a copy of the current segment.
+     *
+     * @return The current segment.
+     */
+    public CharSequence getCurrentSegment() {
         return segmentBuffer;
     }
 
+    /**
+     * Clear the segment buffer.
+     */
+    public void clearSegmentBuffer() {
+        segmentLength = 0;
+    }
+
     /**
      * Get the current EDI segment fields.
      * @return The current EDI segment fields array.
@@ -453,10 +526,90 @@ public class BufferedSegmentReader {
     }
 
     private int readChar() throws IOException {
-        try {
-            return reader.read();
-        } finally {
-            charReadCount++;
+        charReadCount++;
+        if(readBufferPosition == readBufferLength && !fillReadBuffer()) {
+            return -1;
+        }
+
+        char c = readBuffer[readBufferPosition++];
+        if(captureBuffer != null) {
+            captureBuffer.append(c);
+        }
+
+        return c;
+    }
+
+    private boolean fillReadBuffer() throws IOException {
+        int readLength = readBuffer.length;
+
+        if(marked && charReadCount < MAX_MARK_READ) {
+            // Keep the reads small while the stream encoding can still be changed, so as to
+            // avoid pulling more bytes through the underlying stream than the mark allows...
+            readLength = MAX_MARK_READ;
+        }
+
+        int readCount;
+        do {
+            readCount = reader.read(readBuffer, 0, readLength);
+        } while(readCount == 0);
+
+        readBufferPosition = 0;
+        if(readCount == -1) {
+            readBufferLength = 0;
+            return false;
+        }
+        readBufferLength = readCount;
+
+        return true;
+    }
+
+    private void appendRun(int delimiterEnd, int escapeChar, boolean ignoreCRLF) {
+        char[] buffer = readBuffer;
+        int start = readBufferPosition;
+        int end = readBufferLength;
+        int i = start;
+
+        if(ignoreCRLF) {
+            while(i < end) {
+                char c = buffer[i];
+                if(c == delimiterEnd || c == escapeChar || c == '\n' || c == '\r') {
+                    break;
+                }
+                i++;
+            }
+        } else {
+            while(i < end) {
+                char c = buffer[i];
+                if(c == delimiterEnd || c == escapeChar) {
+                    break;
+                }
+                i++;
+            }
+        }
+
+        int runLength = i - start;
+        if(runLength > 0) {
+            ensureSegmentCapacity(runLength);
+            System.arraycopy(buffer, start, segment, segmentLength, runLength);
+            segmentLength += runLength;
+            if(captureBuffer != null) {
+                captureBuffer.append(buffer, start, runLength);
+            }
+            readBufferPosition = i;
+            charReadCount += runLength;
+        }
+    }
+
+    private void append(char c) {
+        ensureSegmentCapacity(1);
+        segment[segmentLength++] = c;
+    }
+
+    private void ensureSegmentCapacity(int count) {
+        if(segmentLength + count > segment.length) {
+            char[] newSegment = new char[Math.max(segment.length * 2, segmentLength + count)];
+            System.arraycopy(segment, 0, newSegment, 0, segmentLength);
+            segment = newSegment;
         }
     }
 
@@ -464,10 +617,39 @@ public class BufferedSegmentReader {
      * Assert that there is a current segment.
      */
     private void assertCurrentSegmentExists() {
-        if(segmentBuffer.length() == 0) {
+        if(segmentLength == 0) {
             throw new IllegalStateException("No current segment available.  Possible conditions: \n"
                     + "\t\t1. A call to moveToNextSegment() was not made, or \n"
                     + "\t\t2. The last call to moveToNextSegment() returned false.");
         }
     }
+
+    /**
+     * {@link CharSequence} view on the current segment.
+     */
+    private class SegmentBuffer implements CharSequence {
+
+        public int length() {
+            return segmentLength;
+        }
+
+        public char charAt(int index) {
+            if(index < 0 || index >= segmentLength) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + segmentLength);
+            }
+            return segment[index];
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            if(start < 0 || end > segmentLength || start > end) {
+                throw new IndexOutOfBoundsException("Start: " + start + ", End: " + end + ", Length: " + segmentLength);
+            }
+            return new String(segment, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(segment, 0, segmentLength);
+        }
+    }
 }
@@ -26,7 +26,6 @@ import java.net.URISyntaxException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.milyn.assertion.AssertArgument;
@@ -40,7 +39,7 @@ import org.milyn.edisax.model.internal.Segment;
 import org.milyn.edisax.model.internal.SegmentGroup;
 import org.milyn.edisax.model.internal.SubComponent;
 import org.milyn.edisax.model.internal.ValueNode;
-import org.milyn.edisax.util.EDIUtils;
+import org.milyn.edisax.util.ValueSplitter;
 import org.milyn.javabean.DataDecodeException;
 import org.milyn.lang.MutableInt;
 import org.milyn.namespace.NamespaceDeclarationStack;
@@ -160,6 +159,12 @@ public class EDIParser implements XMLReader {
     private BufferedSegmentReader segmentReader;
     private Boolean ignoreEmptyNodes;
 
+    // Reused for splitting every field, component and sub-component value...
+    private ValueSplitter fieldRepeatSplitter = new ValueSplitter();
+    private ValueSplitter componentSplitter = new ValueSplitter();
+    private ValueSplitter subComponentSplitter = new ValueSplitter();
+    private char[] valueBuffer = new char[256];
+
     /**
      * Set the {@link NamespaceDeclarationStack} to be used by the reader instance.
      * @param nsStack The {@link NamespaceDeclarationStack} to be used by the reader instance.
@@ -429,9 +434,9 @@ public class EDIParser implements XMLReader {
 
 			// If we reach the end of the mapping model and we still have more EDI segments in the message....     		
 		    while (segmentReader.hasCurrentSegment()) {
-                if (!EMPTY_LINE.matcher(segmentReader.getSegmentBuffer().toString()).matches()
+                if (!EMPTY_LINE.matcher(segmentReader.getCurrentSegment().toString()).matches()
                         && !ignoreUnmappedSegment) {
-		            throw new EDIParseException(edifactModel.getEdimap(), "Reached end of mapping model but there are more EDI segments in the incoming message.  Read " + segmentReader.getCurrentSegmentNumber() + " segment(s). Current EDI segment is [" + segmentReader.getSegmentBuffer() + "]");
+		            throw new EDIParseException(edifactModel.getEdimap(), "Reached end of mapping model but there are more EDI segments in the incoming message.  Read " + segmentReader.getCurrentSegmentNumber() + " segment(s). Current EDI segment is [" + segmentReader.getCurrentSegment() + "]");
 		        }
 		        segmentReader.moveToNextSegment();
 		    }
@@ -493,10 +498,10 @@ public class EDIParser implements XMLReader {
             }
             
             // If the current segment being read from the incoming message doesn't match the expected
-            // segment code....
+            // segment code.  Literal segment codes are only matched on the segment code.  The segcode
+            // regex is only applied for pattern segcodes....
             if(!currentSegmentFields[0].equals(expectedSegmentGroup.getSegcode())) {
-                Matcher matcher = expectedSegmentGroup.getSegcodePattern().matcher(segmentReader.getSegmentBuffer());
-                if (!matcher.matches()) {
+                if (expectedSegmentGroup.isSegcodeLiteral() || !expectedSegmentGroup.getSegcodePattern().matcher(segmentReader.getCurrentSegment()).matches()) {
                     if (segmentProcessingCount < minOccurs) {
                         // check if strict segment matching is inforced
                         if (!ignoreUnmappedSegment) {
@@ -598,9 +603,9 @@ public class EDIParser implements XMLReader {
 			Field expectedField = expectedFields.get(i);
 
 			if(fieldRepeat != null) {
-				String[] repeatedFields = EDIUtils.split(fieldMessageVal, fieldRepeat, delimiters.getEscape());
-				for(String repeatedField : repeatedFields) {
-					mapField(repeatedField, expectedField, i, segmentCode);
+				int numRepeatedFields = fieldRepeatSplitter.split(fieldMessageVal, fieldRepeat, delimiters.getEscape());
+				for(int j = 0; j < numRepeatedFields; j++) {
+					mapField(fieldRepeatSplitter.get(j), expectedField, i, segmentCode);
 				}
 			} else {			
 				mapField(fieldMessageVal, expectedField, i, segmentCode);
@@ -622,15 +627,15 @@ public class EDIParser implements XMLReader {
 		// If there are components defined on this field...
 		if(expectedComponents.size() != 0) {
             Delimiters delimiters = segmentReader.getDelimiters();
-			String[] currentFieldComponents = EDIUtils.split(fieldMessageVal, delimiters.getComponent(), delimiters.getEscape());
+			int numComponents = componentSplitter.split(fieldMessageVal, delimiters.getComponent(), delimiters.getEscape());
 
-            assertComponentsOK(expectedField, fieldIndex, segmentCode, expectedComponents, currentFieldComponents);
+            assertComponentsOK(expectedField, fieldIndex, segmentCode, expectedComponents, componentSplitter);
 
-            if (currentFieldComponents.length > 0 || !ignoreEmptyNodes()) {
+            if (numComponents > 0 || !ignoreEmptyNodes()) {
             	startElement(expectedField, true);
 	            // Iterate over the field components and map them...
-				for(int i = 0; i < currentFieldComponents.length; i++) {
-					String componentMessageVal = currentFieldComponents[i];
+				for(int i = 0; i < numComponents; i++) {
+					String componentMessageVal = componentSplitter.get(i);
 					Component expectedComponent = expectedComponents.get(i);
 	
 					mapComponent(componentMessageVal, expectedComponent, fieldIndex, i, segmentCode, expectedField.getXmltag());
@@ -665,19 +670,21 @@ public class EDIParser implements XMLReader {
 
 		if(expectedSubComponents.size() != 0) {
             Delimiters delimiters = segmentReader.getDelimiters();
-			String[] currentComponentSubComponents = EDIUtils.split(componentMessageVal, delimiters.getSubComponent(), delimiters.getEscape());
+			int numSubComponents = subComponentSplitter.split(componentMessageVal, delimiters.getSubComponent(), delimiters.getEscape());
 
-            assertSubComponentsOK(expectedComponent, fieldIndex, componentIndex, segmentCode, field, expectedSubComponents, currentComponentSubComponents);
+            assertSubComponentsOK(expectedComponent, fieldIndex, componentIndex, segmentCode, field, expectedSubComponents, subComponentSplitter);
 
-            if (currentComponentSubComponents.length > 0 || !ignoreEmptyNodes()) {
+            if (numSubComponents > 0 || !ignoreEmptyNodes()) {
                 startElement(expectedComponent, true);
-                for(int i = 0; i < currentComponentSubComponents.length; i++) {
-                    if(expectedSubComponents.get(i).isRequired() && currentComponentSubComponents[i].length() == 0) {
+                for(int i = 0; i < numSubComponents; i++) {
+                    String subComponentMessageVal = subComponentSplitter.get(i);
+
+                    if(expectedSubComponents.get(i).isRequired() && subComponentMessageVal.length() == 0) {
                         throw new EDIParseException(edifactModel.getEdimap(), "Segment [" + segmentCode + "], field " + (fieldIndex + 1) + " (" + field + "), component " + (componentIndex + 1) + " (" + expectedComponent.getXmltag() + "), sub-component " + (i + 1) + " (" + expectedSubComponents.get(i).getXmltag() + ") expected to contain a value.  Currently at segment number " + segmentReader.getCurrentSegmentNumber() + ".", expectedSubComponents.get(i), segmentReader.getCurrentSegmentNumber(), segmentReader.getCurrentSegmentFields());
                     }
 
                     startElement(expectedSubComponents.get(i), true);
-                    writeToContentHandler(currentComponentSubComponents[i]);
+                    writeToContentHandler(subComponentMessageVal);
                     endElement(expectedSubComponents.get(i), false);
                 }
                 endElement(expectedComponent, true);
@@ -745,8 +752,8 @@ public class EDIParser implements XMLReader {
         }
     }
 
-    private void assertComponentsOK(Field expectedField, int fieldIndex, String segmentCode, List<Component> expectedComponents, String[] currentFieldComponents) throws EDIParseException {
-        if (currentFieldComponents.length != expectedComponents.size()) {
+    private void assertComponentsOK(Field expectedField, int fieldIndex, String segmentCode, List<Component> expectedComponents, ValueSplitter currentFieldComponents) throws EDIParseException {
+        if (currentFieldComponents.size() != expectedComponents.size()) {
             boolean throwException = false;
 
             if (expectedField.isTruncatable()){
@@ -754,11 +761,11 @@ public class EDIParser implements XMLReader {
                 //When there are no Components in Field it should not throw exception, since
                 //the Field is just created (with Field-separator) for satisfying requirement for Fields
                 //that are required later in Segment.
-                if (currentFieldComponents.length == 0) {
+                if (currentFieldComponents.size() == 0) {
                     return;
                 }
 
-                int numComponentsMissing = expectedComponents.size() - currentFieldComponents.length;
+                int numComponentsMissing = expectedComponents.size() - currentFieldComponents.size();
                 for (int i = expectedComponents.size() - 1; i > (expectedComponents.size() - numComponentsMissing - 1); i--)
                 {
                     if (expectedComponents.get(i).isRequired()) {
@@ -771,20 +778,20 @@ public class EDIParser implements XMLReader {
             }
 
             if (throwException) {
-                throw new EDIParseException(edifactModel.getEdimap(), "Segment [" + segmentCode + "], field " + (fieldIndex + 1) + " (" + expectedField.getXmltag() + ") expected to contain " + expectedComponents.size() + " components.  Actually contains " + currentFieldComponents.length + " components.  Currently at segment number " + segmentReader.getCurrentSegmentNumber() + ".", expectedField, segmentReader.getCurrentSegmentNumber(), segmentReader.getCurrentSegmentFields());
+                throw new EDIParseException(edifactModel.getEdimap(), "Segment [" + segmentCode + "], field " + (fieldIndex + 1) + " (" + expectedField.getXmltag() + ") expected to contain " + expectedComponents.size() + " components.  Actually contains " + currentFieldComponents.size() + " components.  Currently at segment number " + segmentReader.getCurrentSegmentNumber() + ".", expectedField, segmentReader.getCurrentSegmentNumber(), segmentReader.getCurrentSegmentFields());
             }
         }
 
-        for (int i = 0; i < currentFieldComponents.length; i++) {
+        for (int i = 0; i < currentFieldComponents.size(); i++) {
             Component component = expectedComponents.get(i);
-            if (component.getSubComponents().size() == 0 && (!currentFieldComponents[i].equals(""))) {
-                validateValueNode(component, currentFieldComponents[i]);
+            if (component.getSubComponents().size() == 0 && (!currentFieldComponents.get(i).equals(""))) {
+                validateValueNode(component, currentFieldComponents.get(i));
             }
         }
     }
 
-    private void assertSubComponentsOK(Component expectedComponent, int fieldIndex, int componentIndex, String segmentCode, String field, List<SubComponent> expectedSubComponents, String[] currentComponentSubComponents) throws EDIParseException {
-        if (currentComponentSubComponents.length != expectedSubComponents.size()) {
+    private void assertSubComponentsOK(Component expectedComponent, int fieldIndex, int componentIndex, String segmentCode, String field, List<SubComponent> expectedSubComponents, ValueSplitter currentComponentSubComponents) throws EDIParseException {
+        if (currentComponentSubComponents.size() != expectedSubComponents.size()) {
             boolean throwException = false;
 
             if (expectedComponent.isTruncatable()) {
@@ -792,11 +799,11 @@ public class EDIParser implements XMLReader {
                 //When there are no SubComponents in field it should not throw exception, since
                 //the Component is just created (with Component-separator) for satisfying requirement
                 //for Components that are required later in Field.
-                if (currentComponentSubComponents.length == 0) {
+                if (currentComponentSubComponents.size() == 0) {
                     return;
                 }
 
-                int numSubComponentsMissing = expectedSubComponents.size() - currentComponentSubComponents.length;
+                int numSubComponentsMissing = expectedSubComponents.size() - currentComponentSubComponents.size();
                 for (int i = expectedSubComponents.size() - 1; i > (expectedSubComponents.size() - numSubComponentsMissing - 1); i--)
                 {
                     if (expectedSubComponents.get(i).isRequired()) {
@@ -809,14 +816,14 @@ public class EDIParser implements XMLReader {
             }
 
             if (throwException) {
-                throw new EDIParseException(edifactModel.getEdimap(), "Segment [" + segmentCode + "], field " + (fieldIndex + 1) + " (" + field + "), component " + (componentIndex + 1) + " (" + expectedComponent.getXmltag() + ") expected to contain " + expectedSubComponents.size() + " sub-components.  Actually contains " + currentComponentSubComponents.length + " sub-components.  Currently at segment number " + segmentReader.getCurrentSegmentNumber() + ".", expectedComponent, segmentReader.getCurrentSegmentNumber(), segmentReader.getCurrentSegmentFields());
+                throw new EDIParseException(edifactModel.getEdimap(), "Segment [" + segmentCode + "], field " + (fieldIndex + 1) + " (" + field + "), component " + (componentIndex + 1) + " (" + expectedComponent.getXmltag() + ") expected to contain " + expectedSubComponents.size() + " sub-components.  Actually contains " + currentComponentSubComponents.size() + " sub-components.  Currently at segment number " + segmentReader.getCurrentSegmentNumber() + ".", expectedComponent, segmentReader.getCurrentSegmentNumber(), segmentReader.getCurrentSegmentFields());
             }
         }
 
-        for (int i = 0; i < currentComponentSubComponents.length; i++) {
+        for (int i = 0; i < currentComponentSubComponents.size(); i++) {
             SubComponent subComponent = expectedSubComponents.get(i);
-            if (!currentComponentSubComponents[i].equals("")) {
-                validateValueNode(subComponent, currentComponentSubComponents[i]);
+            if (!currentComponentSubComponents.get(i).equals("")) {
+                validateValueNode(subComponent, currentComponentSubComponents.get(i));
             }
         }
     }
@@ -937,9 +944,17 @@ public class EDIParser implements XMLReader {
     private void writeToContentHandler(String messageVal) throws SAXException {
         if (edifactModel.getDelimiters() != null && edifactModel.getDelimiters().getEscape() != null) {
             String escapeDelimiter = edifactModel.getDelimiters().getEscape();
-            messageVal = messageVal.replace(escapeDelimiter+escapeDelimiter, escapeDelimiter);
+            if (messageVal.indexOf(escapeDelimiter) != -1) {
+                messageVal = messageVal.replace(escapeDelimiter+escapeDelimiter, escapeDelimiter);
+            }
+        }
+
+        int length = messageVal.length();
+        if (valueBuffer.length < length) {
+            valueBuffer = new char[Math.max(valueBuffer.length * 2, length)];
         }
-        contentHandler.characters(messageVal.toCharArray(), 0, messageVal.length());
+        messageVal.getChars(0, length, valueBuffer, 0);
+        contentHandler.characters(valueBuffer, 0, length);
     }
 
     public Map<String, Boolean> getFeatures() {
@@ -27,8 +27,11 @@ import org.milyn.edisax.registry.MappingsRegistry;
 import org.milyn.lang.MutableInt;
 import org.milyn.namespace.NamespaceDeclarationStack;
 import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.Map;
 
 /**
@@ -50,6 +53,7 @@ public class InterchangeContext {
     private MappingsRegistry registry;
     private NamespaceDeclarationStack namespaceDeclarationStack;
     private boolean containerManagedNamespaceStack = false;
+    private InterchangeMessageDispatcher messageDispatcher;
 
     /**
 	 * Public constructor.
@@ -94,6 +98,10 @@ public class InterchangeContext {
     }
 
     public ControlBlockHandler getControlBlockHandler(String segCode) throws SAXException {
+        if(!segCode.equals("UNH")) {
+            // Other control blocks write straight to the content handler...
+            flushMessages();
+        }
         return controlBlockHandlerFactory.getControlBlockHandler(segCode);
     }
 
@@ -131,18 +139,61 @@ public class InterchangeContext {
 		return parser;
 	}
 
+    /**
+     * Create a context for parsing a single interchange message, independently of this context.
+     * <p/>
+     * The message context has its own segment reader (on the supplied message text), content handler
+     * and namespace stack, but otherwise inherits the settings of this context (including the current
+     * delimiters and indent depth).  This allows the message to be parsed on a different thread.
+     *
+     * @param messageText The raw message text (UNH to UNT).
+     * @param messageContentHandler The content handler for the message events.
+     * @param messageNamespaceStack The namespace stack for the message.
+     * @return The message context.
+     */
+    public InterchangeContext newMessageContext(String messageText, ContentHandler messageContentHandler, NamespaceDeclarationStack messageNamespaceStack) {
+        BufferedSegmentReader messageReader = new BufferedSegmentReader(new InputSource(new StringReader(messageText)), segmentReader.getDelimiters());
+        Boolean ignoreNewLines = features.get(EDIParser.FEATURE_IGNORE_NEWLINES);
+
+        messageReader.setIgnoreNewLines(ignoreNewLines != null && ignoreNewLines);
+
+        InterchangeContext messageContext = new InterchangeContext(messageReader, registry, messageContentHandler, features, controlBlockHandlerFactory, messageNamespaceStack, validate);
+        messageContext.indentDepth.value = indentDepth.value;
+
+        return messageContext;
+    }
+
+    /**
+     * Get the dispatcher for parsing the interchange messages in parallel.
+     * @return The message dispatcher, or null if the interchange messages are to be parsed in sequence.
+     */
+    public InterchangeMessageDispatcher getMessageDispatcher() {
+        return messageDispatcher;
+    }
+
+    /**
+     * Set the dispatcher for parsing the interchange messages in parallel.
+     * @param messageDispatcher The message dispatcher, or null if the interchange messages are to
+     * be parsed in sequence.
+     */
+    public void setMessageDispatcher(InterchangeMessageDispatcher messageDispatcher) {
+        this.messageDispatcher = messageDispatcher;
+    }
+
     public EDIParser getControlSegmentParser() {
 		return controlSegmentParser;
 	}
 
     public void mapControlSegment(Segment controlSegment, boolean clearSegmentBuffer) throws SAXException {
+        flushMessages();
+
 		controlSegmentParser.startElement(controlSegment, true);
 		controlSegmentParser.mapFields(segmentReader.getCurrentSegmentFields(), controlSegment);
 		controlSegmentParser.endElement(controlSegment, true);
 
 		// And clear the buffer... we're finished with this data...
 		if(clearSegmentBuffer) {
-			segmentReader.getSegmentBuffer().setLength(0);
+			segmentReader.clearSegmentBuffer();
 		}
 	}
 
@@ -166,4 +217,14 @@ public class InterchangeContext {
     public boolean isContainerManagedNamespaceStack() {
         return containerManagedNamespaceStack;
     }
+
+    private void flushMessages() throws SAXException {
+        if(messageDispatcher != null) {
+            try {
+                messageDispatcher.flush();
+            } catch (IOException e) {
+                throw new SAXException("Error parsing interchange message.", e);
+            }
+        }
+    }
 }
@@ -0,0 +1,167 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.edisax.interchange;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.DefaultHandler2;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parsed interchange message.
+ * <p/>
+ * Records the SAX events produced by parsing a single interchange message (UNH to UNT), so they can
+ * be {@link #replay(ContentHandler) replayed} later on a different thread e.g. merged back into the
+ * interchange event stream, in interchange order, by the {@link InterchangeMessageDispatcher}.
+ */
+public class InterchangeMessage extends DefaultHandler2 {
+
+    private static final Attributes EMPTY_ATTRIBS = new AttributesImpl();
+
+    private int messageNumber;
+    private String messageName;
+    private List<Event> events = new ArrayList<Event>();
+    private char[] text = new char[256];
+    private int textLength = 0;
+
+    /**
+     * Public constructor.
+     * @param messageNumber The message number i.e. the position of the message in the interchange
+     * stream.  The first message is message number 1.
+     * @param messageName The message name (from the UNH segment) e.g. "INVOIC".
+     */
+    public InterchangeMessage(int messageNumber, String messageName) {
+        this.messageNumber = messageNumber;
+        this.messageName = messageName;
+    }
+
+    /**
+     * Get the message number.
+     * @return The message number i.e. the position of the message in the interchange stream.
+     */
+    public int getMessageNumber() {
+        return messageNumber;
+    }
+
+    /**
+     * Get the message name.
+     * @return The message name (from the UNH segment).
+     */
+    public String getMessageName() {
+        return messageName;
+    }
+
+    /**
+     * Replay the recorded message events, in order.
+     * @param contentHandler The content handler on which the events are to be replayed.
+     * @throws SAXException Error replaying an event.
+     */
+    public void replay(ContentHandler contentHandler) throws SAXException {
+        for(Event event : events) {
+            event.replay(contentHandler);
+        }
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        if(attributes == null || attributes.getLength() == 0) {
+            events.add(new StartElement(uri, localName, qName, EMPTY_ATTRIBS));
+        } else {
+            events.add(new StartElement(uri, localName, qName, new AttributesImpl(attributes)));
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        events.add(new EndElement(uri, localName, qName));
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        if(textLength + length > text.length) {
+            char[] newText = new char[Math.max(text.length * 2, textLength + length)];
+            System.arraycopy(text, 0, newText, 0, textLength);
+            text = newText;
+        }
+        System.arraycopy(ch, start, text, textLength, length);
+        events.add(new Characters(textLength, length));
+        textLength += length;
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        characters(ch, start, length);
+    }
+
+    private static abstract class Event {
+        abstract void replay(ContentHandler contentHandler) throws SAXException;
+    }
+
+    private static class StartElement extends Event {
+
+        private String uri;
+        private String localName;
+        private String qName;
+        private Attributes attributes;
+
+        private StartElement(String uri, String localName, String qName, Attributes attributes) {
+            this.uri = uri;
+            this.localName = localName;
+            this.qName = qName;
+            this.attributes = attributes;
+        }
+
+        void replay(ContentHandler contentHandler) throws SAXException {
+            contentHandler.startElement(uri, localName, qName, attributes);
+        }
+    }
+
+    private static class EndElement extends Event {
+
+        private String uri;
+        private String localName;
+        private String qName;
+
+        private EndElement(String uri, String localName, String qName) {
+            this.uri = uri;
+            this.localName = localName;
+            this.qName = qName;
+        }
+
+        void replay(ContentHandler contentHandler) throws SAXException {
+            contentHandler.endElement(uri, localName, qName);
+        }
+    }
+
+    private class Characters extends Event {
+
+        private int start;
+        private int length;
+
+        private Characters(int start, int length) {
+            this.start = start;
+            this.length = length;
+        }
+
+        void replay(ContentHandler contentHandler) throws SAXException {
+            contentHandler.characters(text, start, length);
+        }
+    }
+}
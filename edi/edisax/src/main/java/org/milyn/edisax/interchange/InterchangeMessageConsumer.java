@@ -0,0 +1,35 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.edisax.interchange;
+
+import org.xml.sax.SAXException;
+
+/**
+ * Interchange message consumer.
+ * <p/>
+ * Receives the interchange messages parsed in parallel by an {@link InterchangeMessageDispatcher}, in the
+ * order in which the messages finish parsing (i.e. not necessarily interchange order).  Messages are
+ * consumed on the thread that parsed them, so implementations must be thread safe.
+ */
+public interface InterchangeMessageConsumer {
+
+    /**
+     * Consume a parsed interchange message.
+     * @param message The message.
+     * @throws SAXException Error consuming the message.
+     */
+    void consume(InterchangeMessage message) throws SAXException;
+}
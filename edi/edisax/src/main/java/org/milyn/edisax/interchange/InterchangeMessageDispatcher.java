@@ -0,0 +1,180 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.edisax.interchange;
+
+import org.milyn.assertion.AssertArgument;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel interchange message dispatcher.
+ * <p/>
+ * Parses interchange messages on an {@link ExecutorService}, while the interchange itself continues to be
+ * read (and its control segments processed) on the calling thread.  The parsed messages are either:
+ * <ol>
+ *  <li>merged back into the interchange {@link ContentHandler}, in interchange order (the default), or</li>
+ *  <li>handed to an {@link InterchangeMessageConsumer}, in the order in which they finish parsing.  In this
+ *      case the message events are not merged into the interchange event stream.</li>
+ * </ol>
+ * Merged messages are always replayed on the calling thread.  Anything else written to the interchange
+ * {@link ContentHandler} must be preceded by a call to {@link #flush()}, which makes sure all outstanding
+ * messages have been delivered.
+ * <p/>
+ * The number of messages that can be pending (dispatched, but not yet delivered) is limited, so as to
+ * bound the memory used by the parsed messages when the interchange is read faster than the messages
+ * can be parsed.
+ */
+public class InterchangeMessageDispatcher {
+
+    public static final int DEFAULT_MAX_PENDING_MESSAGES = 64;
+
+    private ExecutorService executor;
+    private ContentHandler contentHandler;
+    private InterchangeMessageConsumer messageConsumer;
+    private int maxPendingMessages;
+    private LinkedList<Future<InterchangeMessage>> pendingMessages = new LinkedList<Future<InterchangeMessage>>();
+    private int messageCount = 0;
+
+    /**
+     * Public constructor.
+     * @param executor The executor on which the messages are to be parsed.
+     * @param contentHandler The interchange content handler, into which the messages are merged.
+     * @param messageConsumer The message consumer.  If not null, messages are delivered to the consumer
+     * (in parse completion order), instead of being merged into the interchange content handler.
+     * @param maxPendingMessages The maximum number of messages that can be pending delivery.
+     */
+    public InterchangeMessageDispatcher(ExecutorService executor, ContentHandler contentHandler, InterchangeMessageConsumer messageConsumer, int maxPendingMessages) {
+        AssertArgument.isNotNull(executor, "executor");
+        AssertArgument.isNotNull(contentHandler, "contentHandler");
+        if(maxPendingMessages < 1) {
+            throw new IllegalArgumentException("Invalid 'maxPendingMessages' value '" + maxPendingMessages + "'.  Must be greater than zero.");
+        }
+        this.executor = executor;
+        this.contentHandler = contentHandler;
+        this.messageConsumer = messageConsumer;
+        this.maxPendingMessages = maxPendingMessages;
+    }
+
+    /**
+     * Get the next message number.
+     * @return The next message number.  The first message is message number 1.
+     */
+    public int nextMessageNumber() {
+        return ++messageCount;
+    }
+
+    /**
+     * Dispatch a message for parsing.
+     * <p/>
+     * Delivers any messages that have already been parsed and, if the maximum number of
+     * pending messages has been reached, waits for the oldest of them to be parsed.
+     *
+     * @param messageParser The message parser task.
+     * @throws IOException Error parsing a message.
+     * @throws SAXException Error parsing or delivering a message.
+     */
+    public void dispatch(final Callable<InterchangeMessage> messageParser) throws IOException, SAXException {
+        if(messageConsumer != null) {
+            pendingMessages.add(executor.submit(new Callable<InterchangeMessage>() {
+                public InterchangeMessage call() throws Exception {
+                    InterchangeMessage message = messageParser.call();
+                    messageConsumer.consume(message);
+                    return message;
+                }
+            }));
+
+            // Consumed messages are delivered as soon as they are done...
+            Iterator<Future<InterchangeMessage>> pendingIterator = pendingMessages.iterator();
+            while(pendingIterator.hasNext()) {
+                Future<InterchangeMessage> pendingMessage = pendingIterator.next();
+                if(pendingMessage.isDone()) {
+                    pendingIterator.remove();
+                    deliver(pendingMessage);
+                }
+            }
+        } else {
+            pendingMessages.add(executor.submit(messageParser));
+
+            // Merged messages can only be delivered in order...
+            while(!pendingMessages.isEmpty() && pendingMessages.getFirst().isDone()) {
+                deliver(pendingMessages.removeFirst());
+            }
+        }
+
+        while(pendingMessages.size() > maxPendingMessages) {
+            deliver(pendingMessages.removeFirst());
+        }
+    }
+
+    /**
+     * Deliver all pending messages, waiting for them to be parsed where necessary.
+     * @throws IOException Error parsing a message.
+     * @throws SAXException Error parsing or delivering a message.
+     */
+    public void flush() throws IOException, SAXException {
+        while(!pendingMessages.isEmpty()) {
+            deliver(pendingMessages.removeFirst());
+        }
+    }
+
+    /**
+     * Cancel all pending messages.
+     * <p/>
+     * Called when processing of the interchange is terminated e.g. after a parse error.
+     */
+    public void cancel() {
+        for(Future<InterchangeMessage> pendingMessage : pendingMessages) {
+            pendingMessage.cancel(true);
+        }
+        pendingMessages.clear();
+    }
+
+    private void deliver(Future<InterchangeMessage> pendingMessage) throws IOException, SAXException {
+        InterchangeMessage message;
+
+        try {
+            message = pendingMessage.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SAXException("Interrupted while waiting for an interchange message to be parsed.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+
+            if(cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if(cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SAXException("Error parsing interchange message.", (Exception) cause);
+        }
+
+        if(messageConsumer == null) {
+            message.replay(contentHandler);
+        }
+    }
+}
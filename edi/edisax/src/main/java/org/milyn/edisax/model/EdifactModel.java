@@ -21,6 +21,7 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -55,6 +56,7 @@ public class EdifactModel {
     private final URI importBaseURI;
 
     private volatile Edimap edimap;
+    private ByteBuffer edimapData;
     private Collection<EdifactModel> associateModels;
 
     /**
@@ -120,6 +122,25 @@ public class EdifactModel {
         }
 	}
 
+    /**
+     * Public constructor.
+     * <p/>
+     * Creates a model from a precompiled binary Edimap (see {@link EdimapCodec}).  The Edimap is only
+     * decoded the first time it is {@link #getEdimap() accessed}.
+     * @param modelURI The model resource URI.
+     * @param description The model description.
+     * @param edimapData The binary Edimap.  Must have all imports applied.
+     */
+    public EdifactModel(URI modelURI, Description description, ByteBuffer edimapData) {
+        AssertArgument.isNotNull(description, "description");
+        AssertArgument.isNotNull(edimapData, "edimapData");
+
+        this.modelURI = (modelURI != null ? modelURI : UNSPECIFIED);
+        this.importBaseURI = URIResourceLocator.getSystemBaseURI();
+        this.description = description;
+        this.edimapData = edimapData;
+    }
+
     public void setDescription(Description description) {
         this.description = description;
     }
@@ -141,7 +162,7 @@ public class EdifactModel {
             try {
                 parseSequence();
             } catch (Exception e) {
-                throw new EDIConfigurationException("Error parsing EDI Mapping Model [" + mappingConfig + "].", e);
+                throw new EDIConfigurationException("Error parsing EDI Mapping Model [" + (mappingConfig != null ? mappingConfig : modelURI) + "].", e);
             }
         }
         return edimap;
@@ -187,6 +208,13 @@ public class EdifactModel {
             return;
         }
 
+        if(edimapData != null) {
+            // Precompiled Edimap.  Imports have already been applied...
+            edimap = EdimapCodec.read(edimapData.duplicate());
+            edimapData = null;
+            return;
+        }
+
         //To prevent circular dependency the name/url of all imported urls are stored in a dependency tree.
         //If a name/url already exists in a parent node, we have a circular dependency.
         DependencyTree<String> tree = new DependencyTree<String>();
@@ -0,0 +1,513 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.edisax.model;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.milyn.edisax.model.internal.Component;
+import org.milyn.edisax.model.internal.Delimiters;
+import org.milyn.edisax.model.internal.Description;
+import org.milyn.edisax.model.internal.Edimap;
+import org.milyn.edisax.model.internal.Field;
+import org.milyn.edisax.model.internal.Import;
+import org.milyn.edisax.model.internal.MappingNode;
+import org.milyn.edisax.model.internal.ParamEntry;
+import org.milyn.edisax.model.internal.Segment;
+import org.milyn.edisax.model.internal.SegmentGroup;
+import org.milyn.edisax.model.internal.SubComponent;
+import org.milyn.edisax.model.internal.ValueNode;
+
+/**
+ * Binary {@link Edimap} codec.
+ * <p/>
+ * Encodes a fully digested mapping model (i.e. with all imports applied) in a compact binary form that can be
+ * decoded again without any of the XML parsing, schema validation and import processing performed by the
+ * {@link EDIConfigDigester}.  Repeated strings (xmltags, namespaces etc) are written once and then referenced by
+ * index, and nodes that are shared within the model (e.g. fields inserted into a number of segments through the
+ * same import) are also written once.
+ * <p/>
+ * Decoding works straight off a {@link ByteBuffer}, so the encoded model can be read from a memory-mapped
+ * file (see {@link MappingModelCache}).
+ */
+public class EdimapCodec {
+
+    /**
+     * Binary format version.  Must be incremented on any change to the encoded form.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private static final byte NULL_NODE = 0;
+    private static final byte NODE_REF = 1;
+    private static final byte SEGMENT_GROUP = 2;
+    private static final byte SEGMENT = 3;
+    private static final byte FIELD = 4;
+    private static final byte COMPONENT = 5;
+    private static final byte SUB_COMPONENT = 6;
+
+    private static final int NULL_STRING = 0;
+    private static final int NEW_STRING = 1;
+    private static final int STRING_REF = 2;
+
+    /**
+     * Write the supplied Edimap.
+     * @param edimap The Edimap.
+     * @param output The output to which the encoded Edimap is to be written.
+     * @throws IOException Error writing the Edimap.
+     */
+    public static void write(Edimap edimap, DataOutput output) throws IOException {
+        new Encoder(output).writeEdimap(edimap);
+    }
+
+    /**
+     * Read an Edimap.
+     * @param buffer The buffer containing the encoded Edimap, as written by {@link #write(Edimap, DataOutput)}.
+     * The Edimap is read from the current buffer position.
+     * @return The Edimap.
+     * @throws IOException Error reading the Edimap, or the buffer does not contain a valid encoded Edimap.
+     */
+    public static Edimap read(ByteBuffer buffer) throws IOException {
+        try {
+            return new Decoder(buffer).readEdimap();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Corrupt binary Edimap.  Unexpected end of data.");
+        }
+    }
+
+    /**
+     * Write a single string, outside the context of an Edimap.
+     * @param string The string.  May be null.
+     * @param output The output.
+     * @throws IOException Error writing the string.
+     */
+    static void writeString(String string, DataOutput output) throws IOException {
+        if(string == null) {
+            output.writeInt(-1);
+        } else {
+            byte[] bytes = string.getBytes("UTF-8");
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    /**
+     * Read a single string written by {@link #writeString(String, DataOutput)}.
+     * @param buffer The buffer.
+     * @return The string.  May be null.
+     * @throws UnsupportedEncodingException UTF-8 not supported.
+     */
+    static String readString(ByteBuffer buffer) throws UnsupportedEncodingException {
+        int length = buffer.getInt();
+
+        if(length == -1) {
+            return null;
+        }
+
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static class Encoder {
+
+        private DataOutput output;
+        private Map<String, Integer> strings = new HashMap<String, Integer>();
+        private Map<MappingNode, Integer> nodes = new IdentityHashMap<MappingNode, Integer>();
+
+        private Encoder(DataOutput output) {
+            this.output = output;
+        }
+
+        private void writeEdimap(Edimap edimap) throws IOException {
+            Description description = edimap.getDescription();
+            Delimiters delimiters = edimap.getDelimiters();
+            List<Import> imports = edimap.getImports();
+
+            output.writeInt(FORMAT_VERSION);
+            writeString(edimap.getSrc() != null ? edimap.getSrc().toString() : null);
+
+            output.writeBoolean(description != null);
+            if(description != null) {
+                writeString(description.getName());
+                writeString(description.getVersion());
+                writeString(description.getNamespace());
+            }
+
+            output.writeBoolean(delimiters != null);
+            if(delimiters != null) {
+                writeString(delimiters.getSegment());
+                writeString(delimiters.getField());
+                writeString(delimiters.getFieldRepeat());
+                writeString(delimiters.getComponent());
+                writeString(delimiters.getSubComponent());
+                writeString(delimiters.getEscape());
+                writeString(delimiters.getDecimalSeparator());
+            }
+
+            output.writeInt(imports.size());
+            for(Import edimapImport : imports) {
+                writeString(edimapImport.getResourceURI() != null ? edimapImport.getResourceURI().toString() : null);
+                writeString(edimapImport.getNamespace());
+                writeBoolean(edimapImport.isTruncatableSegments());
+                writeBoolean(edimapImport.isTruncatableFields());
+                writeBoolean(edimapImport.isTruncatableComponents());
+            }
+
+            writeBoolean(edimap.isIgnoreUnmappedSegments());
+            writeNode(edimap.getSegments());
+        }
+
+        private void writeNode(MappingNode node) throws IOException {
+            if(node == null) {
+                output.writeByte(NULL_NODE);
+                return;
+            }
+
+            Integer nodeIndex = nodes.get(node);
+            if(nodeIndex != null) {
+                output.writeByte(NODE_REF);
+                output.writeInt(nodeIndex);
+                return;
+            }
+            nodes.put(node, nodes.size());
+
+            if(node instanceof Segment) {
+                Segment segment = (Segment) node;
+
+                output.writeByte(SEGMENT);
+                writeMappingNode(segment);
+                writeSegmentGroup(segment);
+                writeString(segment.getSegcode());
+                writeBoolean(segment.isTruncatable());
+                writeBoolean(segment.isIgnoreUnmappedFields());
+                writeString(segment.getDescription());
+                writeString(segment.getImportXmlTag());
+                writeNodes(segment.getFields());
+            } else if(node instanceof SegmentGroup) {
+                output.writeByte(SEGMENT_GROUP);
+                writeMappingNode(node);
+                writeSegmentGroup((SegmentGroup) node);
+            } else if(node instanceof Field) {
+                Field field = (Field) node;
+
+                output.writeByte(FIELD);
+                writeValueNode(field);
+                writeBoolean(field.isRequired());
+                writeBoolean(field.isTruncatable());
+                writeNodes(field.getComponents());
+            } else if(node instanceof Component) {
+                Component component = (Component) node;
+
+                output.writeByte(COMPONENT);
+                writeValueNode(component);
+                writeBoolean(component.isRequired());
+                writeBoolean(component.isTruncatable());
+                writeNodes(component.getSubComponents());
+            } else if(node instanceof SubComponent) {
+                output.writeByte(SUB_COMPONENT);
+                writeValueNode((ValueNode) node);
+                writeBoolean(((SubComponent) node).isRequired());
+            } else {
+                throw new IOException("Unsupported Edimap node type '" + node.getClass().getName() + "'.");
+            }
+        }
+
+        private void writeSegmentGroup(SegmentGroup segmentGroup) throws IOException {
+            output.writeInt(segmentGroup.getMinOccurs());
+            output.writeInt(segmentGroup.getMaxOccurs());
+            writeNodes(segmentGroup.getSegments());
+        }
+
+        private void writeMappingNode(MappingNode node) throws IOException {
+            writeString(node.getName());
+            writeString(node.getXmltag());
+            writeString(node.getNamespace());
+            writeString(node.getNodeTypeRef());
+            writeString(node.getDocumentation());
+        }
+
+        private void writeValueNode(ValueNode node) throws IOException {
+            List<Map.Entry<String, String>> parameters = node.getTypeParameters();
+
+            writeMappingNode(node);
+            writeString(node.getDataType());
+            writeInteger(node.getMinLength());
+            writeInteger(node.getMaxLength());
+            if(parameters == null) {
+                output.writeInt(-1);
+            } else {
+                output.writeInt(parameters.size());
+                for(Map.Entry<String, String> parameter : parameters) {
+                    writeString(parameter.getKey());
+                    writeString(parameter.getValue());
+                }
+            }
+        }
+
+        private void writeNodes(List<? extends MappingNode> nodeList) throws IOException {
+            output.writeInt(nodeList.size());
+            for(MappingNode node : nodeList) {
+                writeNode(node);
+            }
+        }
+
+        private void writeString(String string) throws IOException {
+            if(string == null) {
+                output.writeInt(NULL_STRING);
+                return;
+            }
+
+            Integer stringIndex = strings.get(string);
+            if(stringIndex != null) {
+                output.writeInt(STRING_REF + stringIndex);
+            } else {
+                strings.put(string, strings.size());
+                output.writeInt(NEW_STRING);
+                EdimapCodec.writeString(string, output);
+            }
+        }
+
+        private void writeBoolean(Boolean value) throws IOException {
+            output.writeByte(value == null ? -1 : (value ? 1 : 0));
+        }
+
+        private void writeInteger(Integer value) throws IOException {
+            output.writeBoolean(value != null);
+            if(value != null) {
+                output.writeInt(value);
+            }
+        }
+    }
+
+    private static class Decoder {
+
+        private ByteBuffer buffer;
+        private List<String> strings = new ArrayList<String>();
+        private List<MappingNode> nodes = new ArrayList<MappingNode>();
+
+        private Decoder(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private Edimap readEdimap() throws IOException {
+            int version = buffer.getInt();
+            if(version != FORMAT_VERSION) {
+                throw new IOException("Unsupported binary Edimap format version '" + version + "'.  Expected version '" + FORMAT_VERSION + "'.");
+            }
+
+            String src = readString();
+            Edimap edimap = new Edimap(src != null ? URI.create(src) : null);
+
+            if(readFlag()) {
+                edimap.setDescription(new Description().setName(readString()).setVersion(readString()).setNamespace(readString()));
+            }
+
+            if(readFlag()) {
+                Delimiters delimiters = new Delimiters();
+
+                delimiters.setSegment(readString());
+                delimiters.setField(readString());
+                delimiters.setFieldRepeat(readString());
+                delimiters.setComponent(readString());
+                delimiters.setSubComponent(readString());
+                delimiters.setEscape(readString());
+                delimiters.setDecimalSeparator(readString());
+                edimap.setDelimiters(delimiters);
+            }
+
+            int importCount = buffer.getInt();
+            for(int i = 0; i < importCount; i++) {
+                Import edimapImport = new Import();
+                String resourceURI = readString();
+
+                edimapImport.setResourceURI(resourceURI != null ? URI.create(resourceURI) : null);
+                edimapImport.setNamespace(readString());
+                edimapImport.setTruncatableSegments(readBoolean());
+                edimapImport.setTruncatableFields(readBoolean());
+                edimapImport.setTruncatableComponents(readBoolean());
+                edimap.getImports().add(edimapImport);
+            }
+
+            edimap.setIgnoreUnmappedSegments(readBoolean());
+            edimap.setSegments((SegmentGroup) readNode(null));
+
+            return edimap;
+        }
+
+        private MappingNode readNode(MappingNode parent) throws IOException {
+            byte nodeType = buffer.get();
+
+            if(nodeType == NULL_NODE) {
+                return null;
+            } else if(nodeType == NODE_REF) {
+                return nodes.get(buffer.getInt());
+            } else if(nodeType == SEGMENT) {
+                Segment segment = new Segment();
+
+                nodes.add(segment);
+                readMappingNode(segment, parent);
+                readSegmentGroup(segment);
+
+                String segcode = readString();
+                if(segcode != null) {
+                    segment.setSegcode(segcode);
+                }
+                segment.setTruncatable(readBoolean());
+                segment.setIgnoreUnmappedFields(readBoolean());
+                segment.setDescription(readString());
+                segment.setImportXmlTag(readString());
+
+                int fieldCount = buffer.getInt();
+                for(int i = 0; i < fieldCount; i++) {
+                    segment.getFields().add((Field) readNode(segment));
+                }
+
+                return segment;
+            } else if(nodeType == SEGMENT_GROUP) {
+                SegmentGroup segmentGroup = new SegmentGroup();
+
+                nodes.add(segmentGroup);
+                readMappingNode(segmentGroup, parent);
+                readSegmentGroup(segmentGroup);
+
+                return segmentGroup;
+            } else if(nodeType == FIELD) {
+                Field field = new Field();
+
+                nodes.add(field);
+                readValueNode(field, parent);
+                field.setRequired(readBoolean());
+                field.setTruncatable(readBoolean());
+
+                int componentCount = buffer.getInt();
+                for(int i = 0; i < componentCount; i++) {
+                    field.getComponents().add((Component) readNode(field));
+                }
+
+                return field;
+            } else if(nodeType == COMPONENT) {
+                Component component = new Component();
+
+                nodes.add(component);
+                readValueNode(component, parent);
+                component.setRequired(readBoolean());
+                component.setTruncatable(readBoolean());
+
+                int subComponentCount = buffer.getInt();
+                for(int i = 0; i < subComponentCount; i++) {
+                    component.getSubComponents().add((SubComponent) readNode(component));
+                }
+
+                return component;
+            } else if(nodeType == SUB_COMPONENT) {
+                SubComponent subComponent = new SubComponent();
+
+                nodes.add(subComponent);
+                readValueNode(subComponent, parent);
+                subComponent.setRequired(readBoolean());
+
+                return subComponent;
+            }
+
+            throw new IOException("Corrupt binary Edimap.  Unknown node type '" + nodeType + "'.");
+        }
+
+        private void readSegmentGroup(SegmentGroup segmentGroup) throws IOException {
+            segmentGroup.setMinOccurs(buffer.getInt());
+            segmentGroup.setMaxOccurs(buffer.getInt());
+
+            int segmentCount = buffer.getInt();
+            for(int i = 0; i < segmentCount; i++) {
+                segmentGroup.getSegments().add((SegmentGroup) readNode(segmentGroup));
+            }
+        }
+
+        private void readMappingNode(MappingNode node, MappingNode parent) throws IOException {
+            node.setName(readString());
+            node.setXmltag(readString());
+            node.setNamespace(readString());
+            node.setNodeTypeRef(readString());
+            node.setDocumentation(readString());
+            node.setParent(parent);
+        }
+
+        private void readValueNode(ValueNode node, MappingNode parent) throws IOException {
+            readMappingNode(node, parent);
+
+            String dataType = readString();
+            if(dataType != null) {
+                node.setDataType(dataType);
+            }
+            node.setMinLength(readInteger());
+            node.setMaxLength(readInteger());
+
+            int parameterCount = buffer.getInt();
+            if(parameterCount != -1) {
+                List<Map.Entry<String, String>> parameters = new ArrayList<Map.Entry<String, String>>(parameterCount);
+
+                for(int i = 0; i < parameterCount; i++) {
+                    parameters.add(new ParamEntry<String, String>(readString(), readString()));
+                }
+                node.setDataTypeParameters(parameters);
+            }
+        }
+
+        private String readString() throws IOException {
+            int code = buffer.getInt();
+
+            if(code == NULL_STRING) {
+                return null;
+            } else if(code == NEW_STRING) {
+                String string = EdimapCodec.readString(buffer);
+                strings.add(string);
+                return string;
+            } else if(code >= STRING_REF && code - STRING_REF < strings.size()) {
+                return strings.get(code - STRING_REF);
+            }
+
+            throw new IOException("Corrupt binary Edimap.  Invalid string reference '" + code + "'.");
+        }
+
+        private boolean readFlag() {
+            return (buffer.get() != 0);
+        }
+
+        private Boolean readBoolean() {
+            byte value = buffer.get();
+
+            if(value == -1) {
+                return null;
+            }
+            return (value == 1);
+        }
+
+        private Integer readInteger() {
+            if(readFlag()) {
+                return buffer.getInt();
+            }
+            return null;
+        }
+    }
+}
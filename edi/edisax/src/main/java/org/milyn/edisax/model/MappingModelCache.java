@@ -0,0 +1,299 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.edisax.model;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.JarURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.milyn.assertion.AssertArgument;
+import org.milyn.edisax.model.internal.Description;
+
+/**
+ * Local disk cache of precompiled EDI Mapping Model sets.
+ * <p/>
+ * Loading a large mapping model set (e.g. a complete UN/EDIFACT directory) means reading, parsing and
+ * validating the XML of every message model in the set, as well as applying the shared segment definition
+ * imports.  This cache stores a loaded model set in the binary form produced by the {@link EdimapCodec}, one
+ * file per model set.  The file is memory-mapped when read back and the message models are only decoded
+ * from it (see {@link EdifactModel#getEdimap()}) when they are actually used.
+ * <p/>
+ * Each cached model set is stored with a fingerprint of its source (e.g. the location and timestamp of the
+ * mapping model jar), as well as the binary format version.  A cached model set is ignored if either
+ * doesn't match.
+ * <p/>
+ * The system cache is enabled by setting the {@link #CACHE_DIR_SYSKEY} system property.
+ */
+public class MappingModelCache {
+
+    private static Log logger = LogFactory.getLog(MappingModelCache.class);
+
+    /**
+     * System property key for the system cache directory.  The system cache is disabled if not set.
+     */
+    public static final String CACHE_DIR_SYSKEY = "org.milyn.edisax.model.cachedir";
+
+    private static final int FORMAT_MAGIC = 0x4544494D;
+    private static final String FILE_EXTENSION = ".edimaps";
+
+    private File cacheDir;
+
+    /**
+     * Public constructor.
+     * @param cacheDir The cache directory.  Created if it doesn't exist.
+     */
+    public MappingModelCache(File cacheDir) {
+        AssertArgument.isNotNull(cacheDir, "cacheDir");
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * Get the system cache.
+     * <p/>
+     * Defined by the system property {@link #CACHE_DIR_SYSKEY}.
+     * @return The system cache, or null if the system cache is not enabled.
+     */
+    public static MappingModelCache getSystemCache() {
+        String cacheDir = System.getProperty(CACHE_DIR_SYSKEY);
+
+        if(cacheDir == null || cacheDir.trim().length() == 0) {
+            return null;
+        }
+        return new MappingModelCache(new File(cacheDir.trim()));
+    }
+
+    /**
+     * Get the cache directory.
+     * @return The cache directory.
+     */
+    public File getCacheDir() {
+        return cacheDir;
+    }
+
+    /**
+     * Get a cached model set.
+     * @param modelSetId The model set ID e.g. the mapping model URN.
+     * @param fingerprint The current fingerprint of the model set source.
+     * @return The model set, keyed by model lookup name, or null if the model set is not cached, or the cached
+     * model set is out of date.
+     */
+    public Map<String, EdifactModel> getModelSet(String modelSetId, String fingerprint) {
+        AssertArgument.isNotNullAndNotEmpty(modelSetId, "modelSetId");
+        AssertArgument.isNotNull(fingerprint, "fingerprint");
+
+        File cacheFile = getCacheFile(modelSetId);
+        if(!cacheFile.exists()) {
+            return null;
+        }
+
+        try {
+            ByteBuffer buffer = map(cacheFile);
+
+            if(buffer.getInt() != FORMAT_MAGIC || buffer.getInt() != EdimapCodec.FORMAT_VERSION) {
+                logger.debug("Ignoring EDI Mapping Model cache file '" + cacheFile.getAbsolutePath() + "'.  Unsupported cache file format.");
+                return null;
+            }
+            if(!modelSetId.equals(EdimapCodec.readString(buffer)) || !fingerprint.equals(EdimapCodec.readString(buffer))) {
+                logger.debug("Ignoring EDI Mapping Model cache file '" + cacheFile.getAbsolutePath() + "'.  Cached model set is out of date.");
+                return null;
+            }
+
+            int modelCount = buffer.getInt();
+            int[] offsets = new int[modelCount];
+            int[] lengths = new int[modelCount];
+            String[] lookupNames = new String[modelCount];
+            Description[] descriptions = new Description[modelCount];
+            String[] modelURIs = new String[modelCount];
+
+            for(int i = 0; i < modelCount; i++) {
+                lookupNames[i] = EdimapCodec.readString(buffer);
+                descriptions[i] = new Description().setName(EdimapCodec.readString(buffer)).setVersion(EdimapCodec.readString(buffer)).setNamespace(EdimapCodec.readString(buffer));
+                modelURIs[i] = EdimapCodec.readString(buffer);
+                offsets[i] = buffer.getInt();
+                lengths[i] = buffer.getInt();
+            }
+
+            int dataStart = buffer.position();
+            Map<String, EdifactModel> modelSet = new LinkedHashMap<String, EdifactModel>();
+
+            for(int i = 0; i < modelCount; i++) {
+                ByteBuffer edimapData = buffer.duplicate();
+
+                edimapData.position(dataStart + offsets[i]);
+                edimapData.limit(dataStart + offsets[i] + lengths[i]);
+                modelSet.put(lookupNames[i], new EdifactModel(modelURIs[i] != null ? URI.create(modelURIs[i]) : null, descriptions[i], edimapData.slice()));
+            }
+
+            return modelSet;
+        } catch (IOException e) {
+            logger.debug("Ignoring EDI Mapping Model cache file '" + cacheFile.getAbsolutePath() + "'.  Error reading cache file.", e);
+        } catch (BufferUnderflowException e) {
+            logger.debug("Ignoring EDI Mapping Model cache file '" + cacheFile.getAbsolutePath() + "'.  Corrupt cache file.");
+        } catch (IllegalArgumentException e) {
+            logger.debug("Ignoring EDI Mapping Model cache file '" + cacheFile.getAbsolutePath() + "'.  Corrupt cache file.", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Add a model set to the cache.
+     * <p/>
+     * Forces the full loading of every model in the set.
+     * @param modelSetId The model set ID e.g. the mapping model URN.
+     * @param fingerprint The current fingerprint of the model set source.
+     * @param modelSet The model set, keyed by model lookup name.
+     * @throws IOException Error writing the model set cache file.
+     */
+    public void putModelSet(String modelSetId, String fingerprint, Map<String, EdifactModel> modelSet) throws IOException {
+        AssertArgument.isNotNullAndNotEmpty(modelSetId, "modelSetId");
+        AssertArgument.isNotNull(fingerprint, "fingerprint");
+        AssertArgument.isNotNull(modelSet, "modelSet");
+
+        ByteArrayOutputStream edimapBytes = new ByteArrayOutputStream();
+        DataOutputStream edimapData = new DataOutputStream(edimapBytes);
+        int[] offsets = new int[modelSet.size()];
+        int[] lengths = new int[modelSet.size()];
+        int modelIndex = 0;
+
+        for(EdifactModel model : modelSet.values()) {
+            offsets[modelIndex] = edimapData.size();
+            EdimapCodec.write(model.getEdimap(), edimapData);
+            lengths[modelIndex] = edimapData.size() - offsets[modelIndex];
+            modelIndex++;
+        }
+        edimapData.flush();
+
+        if(!cacheDir.exists() && !cacheDir.mkdirs() && !cacheDir.exists()) {
+            throw new IOException("Failed to create EDI Mapping Model cache directory '" + cacheDir.getAbsolutePath() + "'.");
+        }
+
+        File cacheFile = getCacheFile(modelSetId);
+        File tempFile = File.createTempFile(cacheFile.getName(), ".tmp", cacheDir);
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+
+        try {
+            output.writeInt(FORMAT_MAGIC);
+            output.writeInt(EdimapCodec.FORMAT_VERSION);
+            EdimapCodec.writeString(modelSetId, output);
+            EdimapCodec.writeString(fingerprint, output);
+            output.writeInt(modelSet.size());
+
+            modelIndex = 0;
+            for(Map.Entry<String, EdifactModel> model : modelSet.entrySet()) {
+                Description description = model.getValue().getDescription();
+                URI modelURI = model.getValue().getModelURI();
+
+                EdimapCodec.writeString(model.getKey(), output);
+                EdimapCodec.writeString(description.getName(), output);
+                EdimapCodec.writeString(description.getVersion(), output);
+                EdimapCodec.writeString(description.getNamespace(), output);
+                EdimapCodec.writeString(modelURI != null ? modelURI.toString() : null, output);
+                output.writeInt(offsets[modelIndex]);
+                output.writeInt(lengths[modelIndex]);
+                modelIndex++;
+            }
+
+            edimapBytes.writeTo(output);
+        } finally {
+            output.close();
+        }
+
+        // Replace the cache file in one step, so concurrent readers never see a partially written file...
+        if(!tempFile.renameTo(cacheFile)) {
+            cacheFile.delete();
+            if(!tempFile.renameTo(cacheFile)) {
+                tempFile.delete();
+                throw new IOException("Failed to write EDI Mapping Model cache file '" + cacheFile.getAbsolutePath() + "'.");
+            }
+        }
+    }
+
+    /**
+     * Create a fingerprint for a model set resource.
+     * <p/>
+     * The fingerprint is based on the resource URL and the size and timestamp of the file containing the
+     * resource (e.g. the mapping model jar file).
+     * @param resource The model set resource e.g. the mapping model list file.
+     * @return The resource fingerprint.
+     * @throws IOException Error accessing the resource.
+     */
+    public static String getFingerprint(URL resource) throws IOException {
+        URLConnection connection = resource.openConnection();
+        URL fileURL = resource;
+
+        if(connection instanceof JarURLConnection) {
+            fileURL = ((JarURLConnection) connection).getJarFileURL();
+        }
+
+        if(fileURL.getProtocol().equals("file")) {
+            try {
+                File file = new File(fileURL.toURI());
+                return resource + "#" + file.length() + "#" + file.lastModified();
+            } catch (URISyntaxException e) {
+                // Fall through and use the connection...
+            } catch (IllegalArgumentException e) {
+                // Fall through and use the connection...
+            }
+        }
+
+        return resource + "#" + connection.getContentLength() + "#" + connection.getLastModified();
+    }
+
+    private File getCacheFile(String modelSetId) {
+        StringBuilder fileName = new StringBuilder();
+
+        for(int i = 0; i < modelSetId.length(); i++) {
+            char c = modelSetId.charAt(i);
+
+            if(Character.isLetterOrDigit(c) || c == '.' || c == '-') {
+                fileName.append(c);
+            } else {
+                fileName.append('_');
+            }
+        }
+
+        return new File(cacheDir, fileName + FILE_EXTENSION);
+    }
+
+    private static ByteBuffer map(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            // The mapping stays valid after the channel is closed...
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+}
@@ -27,6 +27,7 @@ public class Segment extends SegmentGroup implements ContainerNode {
     private List<Field> fields;
     private String segcode;
     private Pattern segcodePattern;
+    private boolean segcodeLiteral;
     private Boolean truncatable;
     private Boolean ignoreUnmappedFields;
     private String description;
@@ -51,12 +52,36 @@ public class Segment extends SegmentGroup implements ContainerNode {
     public void setSegcode(String value) {
         this.segcode = value;
         segcodePattern = Pattern.compile("^" + segcode, Pattern.DOTALL);
+        segcodeLiteral = isLiteral(segcode);
     }
 
     public Pattern getSegcodePattern() {
         return segcodePattern;
     }
 
+    /**
+     * Is the segcode a literal segment code i.e. not a regex pattern.
+     * <p/>
+     * A literal segcode only matches segments having that exact segment code, so
+     * the {@link #getSegcodePattern() segcode pattern} never needs to be applied.
+     * @return True if the segcode is a literal segment code, otherwise false.
+     */
+    public boolean isSegcodeLiteral() {
+        return segcodeLiteral;
+    }
+
+    private static boolean isLiteral(String segcode) {
+        if(segcode == null || segcode.length() == 0) {
+            return false;
+        }
+        for(int i = 0; i < segcode.length(); i++) {
+            if(!Character.isLetterOrDigit(segcode.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public boolean isTruncatable() {
         return truncatable != null && truncatable;
     }
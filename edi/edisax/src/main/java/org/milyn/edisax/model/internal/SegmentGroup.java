@@ -45,6 +45,10 @@ public class SegmentGroup extends MappingNode {
         return segments.get(0).getSegcodePattern();
     }
 
+    public boolean isSegcodeLiteral() {
+        return segments.get(0).isSegcodeLiteral();
+    }
+
     public int getMinOccurs() {
         if (minOccurs == null) {
             return  1;
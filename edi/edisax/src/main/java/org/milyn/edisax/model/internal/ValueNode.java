@@ -131,6 +131,10 @@ public class ValueNode extends MappingNode {
     }
 
     public void isValidForType(String value) throws DataDecodeException {
-        decoder.decode(value);
+        // The decoder is shared by all parsers using this model (possibly in parallel) and
+        // some decoders (e.g. date decoders) are not thread safe...
+        synchronized (decoder) {
+            decoder.decode(value);
+        }
     }
 }
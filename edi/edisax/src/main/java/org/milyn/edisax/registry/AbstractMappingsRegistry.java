@@ -16,8 +16,12 @@
 package org.milyn.edisax.registry;
 
 import java.io.IOException;
-import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.milyn.edisax.EDIConfigurationException;
 import org.milyn.edisax.model.EdifactModel;
@@ -28,6 +32,11 @@ import org.xml.sax.SAXException;
 
 /**
  * Base implementation of {@link MappingsRegistry} interface
+ * <p/>
+ * Lookups of already loaded models don't lock.  A missing model is demand loaded exactly once per
+ * {@link #getDemandLoadingKey(String, String[]) demand loading key}, with concurrent lookups on the same
+ * key waiting on that one load, while lookups on other keys (and of already loaded models) carry on
+ * unblocked.  A failed load is not cached, so the next lookup on the same key retries it.
  * 
  * @author zubairov
  *
@@ -37,14 +46,19 @@ public abstract class AbstractMappingsRegistry implements MappingsRegistry {
 	/**
 	 * Internal storage 
 	 */
-	protected final Map<String, EdifactModel> content = new LinkedHashMap<String, EdifactModel>();
+	protected final Map<String, EdifactModel> content = new ConcurrentHashMap<String, EdifactModel>();
+
+	/**
+	 * In-flight demand loads, keyed by demand loading key.
+	 */
+	private final ConcurrentMap<String, FutureTask<Object>> demandLoads = new ConcurrentHashMap<String, FutureTask<Object>>();
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public EdifactModel getMappingModel(String messageName,
 			Delimiters delimiters) throws EDIConfigurationException, SAXException, IOException {
-		String[] nameComponents = EDIUtils.split(messageName,
+		final String[] nameComponents = EDIUtils.split(messageName,
 				delimiters.getComponent(), delimiters.getEscape());
 		StringBuilder lookupNameBuilder = new StringBuilder();
 		// First 4 components are mandatory...we use those as the lookup...
@@ -54,27 +68,90 @@ public abstract class AbstractMappingsRegistry implements MappingsRegistry {
 			}
 			lookupNameBuilder.append(nameComponents[i]);
 		}
-		String lookupName = lookupNameBuilder.toString().trim();
+		final String lookupName = lookupNameBuilder.toString().trim();
 		EdifactModel result = content.get(lookupName);
-		if (result == null) {
-            synchronized (content) {
-                result = content.get(lookupName);
-		        if (result == null) {
-			        content.putAll(demandLoading(nameComponents));
-                }
-            }
-			// Try again
+		if (result != null) {
+			return result;
+		}
+
+		String loadKey = getDemandLoadingKey(lookupName, nameComponents);
+		FutureTask<Object> load = demandLoads.get(loadKey);
+		if (load == null) {
+			// Check again.  The model may have been loaded since the last check...
 			result = content.get(lookupName);
 			if (result != null) {
 				return result;
 			}
-		} else {
+
+			FutureTask<Object> newLoad = new FutureTask<Object>(new Callable<Object>() {
+				public Object call() throws Exception {
+					// Check again.  The model may have been loaded (by an earlier load on the same key) since the last check...
+					if (content.get(lookupName) == null) {
+						content.putAll(demandLoading(nameComponents));
+					}
+					return null;
+				}
+			});
+			load = demandLoads.putIfAbsent(loadKey, newLoad);
+			if (load == null) {
+				// This thread owns the load...
+				load = newLoad;
+				try {
+					load.run();
+				} finally {
+					// The loaded models are in the content map now, so there's no need to hang
+					// on to the load.  Removing it also means a failed load gets retried...
+					demandLoads.remove(loadKey, load);
+				}
+			}
+		}
+		awaitDemandLoad(load, messageName);
+
+		// Try again
+		result = content.get(lookupName);
+		if (result != null) {
 			return result;
 		}
 		throw new EDIConfigurationException("Mapping Model '" + messageName
 				+ "' not found in supplied set of Mapping model.");
 	}
 
+	/**
+	 * Get the key on which the demand loading of the specified model is performed.
+	 * <p/>
+	 * Lookups that share a key share a single {@link #demandLoading(String[])} call.  Defaults
+	 * to the model lookup name.  Implementations that load a set of models in one go should
+	 * return the same key for all models in the set.
+	 * 
+	 * @param lookupName The model lookup name.
+	 * @param nameComponents The message name components.
+	 * @return The demand loading key.
+	 */
+	protected String getDemandLoadingKey(String lookupName, String[] nameComponents) {
+		return lookupName;
+	}
+
+	private void awaitDemandLoad(FutureTask<Object> load, String messageName) throws EDIConfigurationException, SAXException, IOException {
+		try {
+			load.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EDIConfigurationException("Interrupted while loading Mapping Model '" + messageName + "'.", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			} else if (cause instanceof SAXException) {
+				throw (SAXException) cause;
+			} else if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new EDIConfigurationException("Error loading Mapping Model '" + messageName + "'.", cause);
+		}
+	}
+
 	/**
 	 * Loading mapping models on demand.
 	 * This method should return either one or many mapping models
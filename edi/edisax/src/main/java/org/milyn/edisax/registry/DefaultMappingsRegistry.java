@@ -17,11 +17,11 @@ package org.milyn.edisax.registry;
 
 import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.milyn.edisax.EDIConfigurationException;
 import org.milyn.edisax.model.EdifactModel;
@@ -38,7 +38,7 @@ import org.xml.sax.SAXException;
  */
 public class DefaultMappingsRegistry extends AbstractMappingsRegistry {
 
-	private final Map<String, URI> modelReferences = new HashMap<String, URI>();
+	private final Map<String, URI> modelReferences = new ConcurrentHashMap<String, URI>();
 	
 	/**
 	 * Constructor mostly used for tests
@@ -76,6 +76,15 @@ public class DefaultMappingsRegistry extends AbstractMappingsRegistry {
 		}
 	}
 	
+	/**
+	 * All the referenced models are loaded together, so all lookups share the
+	 * one demand loading key.
+	 */
+	@Override
+	protected String getDemandLoadingKey(String lookupName, String[] nameComponents) {
+		return "*";
+	}
+
 	/**
 	 * This method load all mapping models which are declared in
 	 * {@link #modelReferences} map and returns them all back.
@@ -88,7 +97,7 @@ public class DefaultMappingsRegistry extends AbstractMappingsRegistry {
 	 * @throws IOException 
 	 * @throws EDIConfigurationException 
 	 */
-	protected synchronized Map<String, EdifactModel> demandLoading(String[] nameComponents) throws EDIConfigurationException, IOException, SAXException {
+	protected Map<String, EdifactModel> demandLoading(String[] nameComponents) throws EDIConfigurationException, IOException, SAXException {
 		Map<String, EdifactModel> result = new LinkedHashMap<String, EdifactModel>();
 		Set<Entry<String, URI>> set = modelReferences.entrySet();
 		for (Entry<String, URI> entry : set) {
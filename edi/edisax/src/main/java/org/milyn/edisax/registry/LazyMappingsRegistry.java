@@ -35,12 +35,22 @@ import org.xml.sax.SAXException;
 public class LazyMappingsRegistry extends AbstractMappingsRegistry {
 
 	@Override
-	protected synchronized Map<String, EdifactModel> demandLoading(String[] nameComponents)
+	protected String getDemandLoadingKey(String lookupName, String[] nameComponents) {
+		// All the models in a directory are loaded together...
+		return getDirectoryURN(nameComponents);
+	}
+
+	@Override
+	protected Map<String, EdifactModel> demandLoading(String[] nameComponents)
 			throws EDIConfigurationException, IOException, SAXException {
-		String urn = "urn:org.milyn.edi.unedifact:" + nameComponents[1] + nameComponents[2] + "-mapping:*";
 		Map<String, EdifactModel> result = new LinkedHashMap<String, EdifactModel>();
-		EDIUtils.loadMappingModels(urn.toLowerCase(), result, URI.create("/"));
+		EDIUtils.loadMappingModels(getDirectoryURN(nameComponents), result, URI.create("/"));
 		return result;
 	}
 
+	private static String getDirectoryURN(String[] nameComponents) {
+		String urn = "urn:org.milyn.edi.unedifact:" + nameComponents[1] + nameComponents[2] + "-mapping:*";
+		return urn.toLowerCase();
+	}
+
 }
@@ -18,6 +18,7 @@ package org.milyn.edisax.unedifact;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import javax.xml.XMLConstants;
 
@@ -27,6 +28,8 @@ import org.milyn.edisax.EDIParser;
 import org.milyn.edisax.interchange.ControlBlockHandler;
 import org.milyn.edisax.interchange.ControlBlockHandlerFactory;
 import org.milyn.edisax.interchange.InterchangeContext;
+import org.milyn.edisax.interchange.InterchangeMessageConsumer;
+import org.milyn.edisax.interchange.InterchangeMessageDispatcher;
 import org.milyn.edisax.model.internal.Delimiters;
 import org.milyn.edisax.unedifact.handlers.r41.UNEdifact41ControlBlockHandlerFactory;
 import org.milyn.edisax.registry.LazyMappingsRegistry;
@@ -48,6 +51,18 @@ import org.xml.sax.helpers.AttributesImpl;
 
 /**
  * UN/EDIFACT Interchange Envelope parser.
+ *
+ * <h3>Parallel Message Parsing</h3>
+ * By default, the interchange messages (UNH to UNT) are parsed in sequence, on the calling thread.  Setting a
+ * {@link #setMessageExecutor(ExecutorService) message executor} turns on parallel message parsing.  The interchange
+ * is then read once on the calling thread, splitting out the raw messages (using the interchange delimiters, as
+ * resolved from the UNA segment), which are parsed on the executor threads against the message mapping models.
+ * The parsed messages are merged back into the interchange event stream, in interchange order, unless a
+ * {@link #setMessageConsumer(InterchangeMessageConsumer) message consumer} is set, in which case the messages are
+ * delivered to the consumer (on the executor threads) as they finish parsing.
+ * <p/>
+ * Note that the mapping model data type decoders are shared by the parallel message parsers (when validating).
+ * Segment numbers reported in message parse errors are also relative to the start of the message.
  * 
  * @author <a href="mailto:tom.fennelly@gmail.com">tom.fennelly@gmail.com</a>
  */
@@ -65,6 +80,9 @@ public class UNEdifactInterchangeParser implements XMLReader, NamespaceDeclarati
     private HierarchyChangeListener hierarchyChangeListener;
     private InterchangeContext interchangeContext;
     private NamespaceDeclarationStack namespaceDeclarationStack;
+    private ExecutorService messageExecutor;
+    private InterchangeMessageConsumer messageConsumer;
+    private int maxPendingMessages = InterchangeMessageDispatcher.DEFAULT_MAX_PENDING_MESSAGES;
 
     public void parse(InputSource unedifactInterchange) throws IOException, SAXException {
 		AssertArgument.isNotNull(unedifactInterchange, "unedifactInterchange");
@@ -77,6 +95,11 @@ public class UNEdifactInterchangeParser implements XMLReader, NamespaceDeclarati
             throw new IllegalStateException("'mappingsRegistry' not set.  Cannot parse EDI stream.");
         }
 
+        InterchangeMessageDispatcher messageDispatcher = null;
+        if(messageExecutor != null) {
+            messageDispatcher = new InterchangeMessageDispatcher(messageExecutor, contentHandler, messageConsumer, maxPendingMessages);
+        }
+
         try {
             ControlBlockHandlerFactory handlerFactory = new UNEdifact41ControlBlockHandlerFactory(hierarchyChangeListener);
 	        BufferedSegmentReader segmentReader = new BufferedSegmentReader(unedifactInterchange, defaultUNEdifactDelimiters);
@@ -96,6 +119,7 @@ public class UNEdifactInterchangeParser implements XMLReader, NamespaceDeclarati
 		        segCode = segmentReader.peek(3, true);
 		        if(segCode.length() == 3) {
                     interchangeContext = createInterchangeContext(segmentReader, validate, handlerFactory, namespaceDeclarationStack);
+                    interchangeContext.setMessageDispatcher(messageDispatcher);
                     namespaceDeclarationStack = interchangeContext.getNamespaceDeclarationStack();
 
                     if(hierarchyChangeListener != null) {
@@ -117,10 +141,17 @@ public class UNEdifactInterchangeParser implements XMLReader, NamespaceDeclarati
 		        }
 	        }
 	        
+	        if(messageDispatcher != null) {
+	            messageDispatcher.flush();
+	        }
+
 	        contentHandler.characters(new char[] {'\n'}, 0, 1);
 	        contentHandler.endElement(handlerFactory.getNamespace(), "unEdifact", envElementQName);
 	        contentHandler.endDocument();
         } finally {
+            if (messageDispatcher != null) {
+                messageDispatcher.cancel();
+            }
             if (namespaceDeclarationStack != null) {
                 namespaceDeclarationStack.popNamespaces();
                 if(hierarchyChangeListener != null) {
@@ -155,6 +186,52 @@ public class UNEdifactInterchangeParser implements XMLReader, NamespaceDeclarati
 		return this;
 	}
 
+    /**
+     * Set the executor on which the interchange messages are to be parsed.
+     * <p/>
+     * Turns on parallel message parsing.  The executor is not shut down by the parser.
+     *
+     * @param messageExecutor The message executor, or null to parse the messages in sequence on the
+     * calling thread (the default).
+     * @return This parser instance.
+     */
+    public UNEdifactInterchangeParser setMessageExecutor(ExecutorService messageExecutor) {
+        this.messageExecutor = messageExecutor;
+        return this;
+    }
+
+    /**
+     * Set the consumer for messages parsed in parallel.
+     * <p/>
+     * Only applies when a {@link #setMessageExecutor(ExecutorService) message executor} is set.  The consumer
+     * receives the parsed messages in the order in which they finish parsing, instead of the messages being
+     * merged back into the interchange event stream.
+     *
+     * @param messageConsumer The message consumer, or null to merge the messages into the interchange event
+     * stream (the default).
+     * @return This parser instance.
+     */
+    public UNEdifactInterchangeParser setMessageConsumer(InterchangeMessageConsumer messageConsumer) {
+        this.messageConsumer = messageConsumer;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of messages that can be parsed in parallel, but not yet delivered.
+     * <p/>
+     * Default is {@link InterchangeMessageDispatcher#DEFAULT_MAX_PENDING_MESSAGES}.
+     *
+     * @param maxPendingMessages The maximum number of pending messages.
+     * @return This parser instance.
+     */
+    public UNEdifactInterchangeParser setMaxPendingMessages(int maxPendingMessages) {
+        if(maxPendingMessages < 1) {
+            throw new IllegalArgumentException("Invalid 'maxPendingMessages' value '" + maxPendingMessages + "'.  Must be greater than zero.");
+        }
+        this.maxPendingMessages = maxPendingMessages;
+        return this;
+    }
+
 	public ContentHandler getContentHandler() {
 		return contentHandler;
 	}
@@ -34,16 +34,13 @@ public class GenericHandler implements ControlBlockHandler {
 		segmentReader.moveToNextSegment(false);
 		
 		String[] fields = segmentReader.getCurrentSegmentFields();
-		StringBuffer segBuffer = segmentReader.getSegmentBuffer();
-		char[] segChars = new char[segBuffer.length()];
-		
-		segBuffer.getChars(0, segBuffer.length(), segChars, 0);
+		char[] segChars = segmentReader.getCurrentSegment().toString().toCharArray();
 		
 		interchangeContext.getControlSegmentParser().startElement(fields[0], interchangeContext.getNamespace(), true);
 		interchangeContext.getControlSegmentParser().getContentHandler().characters(segChars, 0, segChars.length);
 		interchangeContext.getControlSegmentParser().endElement(fields[0], interchangeContext.getNamespace(), false);
 
 		// And clear out the buffer...
-		segmentReader.getSegmentBuffer().setLength(0);
+		segmentReader.clearSegmentBuffer();
 	}
 }
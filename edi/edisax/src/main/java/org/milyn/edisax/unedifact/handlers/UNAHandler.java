@@ -35,7 +35,7 @@ public class UNAHandler implements ControlBlockHandler {
 
 		// The UNA segment code is still in the segment buffer... clear it before 
 		// reading the segment delimiters...
-		segmentReader.getSegmentBuffer().setLength(0);
+		segmentReader.clearSegmentBuffer();
 		
 		// Read the delimiter chars one-by-one and set in the Delimiters instance...
 		
@@ -16,19 +16,26 @@
 package org.milyn.edisax.unedifact.handlers;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
 
 import org.milyn.edisax.BufferedSegmentListener;
 import org.milyn.edisax.BufferedSegmentReader;
+import org.milyn.edisax.EDIParseException;
 import org.milyn.edisax.EDIParser;
 import org.milyn.edisax.interchange.ControlBlockHandler;
 import org.milyn.edisax.interchange.InterchangeContext;
+import org.milyn.edisax.interchange.InterchangeMessage;
+import org.milyn.edisax.interchange.InterchangeMessageDispatcher;
 import org.milyn.edisax.model.EdifactModel;
 import org.milyn.edisax.model.internal.Description;
 import org.milyn.edisax.model.internal.Edimap;
 import org.milyn.edisax.model.internal.Segment;
 import org.milyn.edisax.registry.MappingsRegistry;
+import org.milyn.namespace.NamespaceAwareHandler;
+import org.milyn.namespace.NamespaceDeclarationStack;
 import org.milyn.xml.hierarchy.HierarchyChangeListener;
 import org.xml.sax.SAXException;
+import org.xml.sax.ext.DefaultHandler2;
 import org.xml.sax.helpers.AttributesImpl;
 
 import javax.xml.XMLConstants;
@@ -55,6 +62,11 @@ public class UNHHandler implements ControlBlockHandler {
 		BufferedSegmentReader segmentReader = interchangeContext.getSegmentReader();
 		MappingsRegistry registry = interchangeContext.getRegistry();
 
+        if(interchangeContext.getMessageDispatcher() != null) {
+            dispatchMessage(interchangeContext);
+            return;
+        }
+
 		// Move to the end of the UNH segment and map it's fields..
 		segmentReader.moveToNextSegment(false);
 
@@ -62,6 +74,56 @@ public class UNHHandler implements ControlBlockHandler {
 		String[] fields = segmentReader.getCurrentSegmentFields();
 		String messageName = fields[2];
 		EdifactModel mappingModel = registry.getMappingModel(messageName, segmentReader.getDelimiters());
+
+        processMessage(interchangeContext, mappingModel, hierarchyChangeListener);
+    }
+
+    /**
+     * Read the message (to the UNT segment) and dispatch it for parsing on the
+     * {@link InterchangeMessageDispatcher}.
+     */
+    private void dispatchMessage(InterchangeContext interchangeContext) throws IOException, SAXException {
+		BufferedSegmentReader segmentReader = interchangeContext.getSegmentReader();
+        InterchangeMessageDispatcher messageDispatcher = interchangeContext.getMessageDispatcher();
+        // The UNH segment code has already been peeked into the segment buffer...
+        StringBuilder messageText = new StringBuilder().append(segmentReader.getCurrentSegment());
+        String messageName;
+        EdifactModel mappingModel;
+
+        // Read to the end of the UNT segment, capturing the raw message text as we go...
+        segmentReader.startCapture(messageText);
+        try {
+            segmentReader.moveToNextSegment(false);
+
+            // Select the mapping model to use for this message.  The registry is only accessed from this thread...
+            messageName = segmentReader.getCurrentSegmentFields()[2];
+            mappingModel = interchangeContext.getRegistry().getMappingModel(messageName, segmentReader.getDelimiters());
+
+            do {
+                if(!segmentReader.moveToNextSegment()) {
+                    throw new EDIParseException("Unexpected end of UN/EDIFACT data stream.  UNT segment not found for message '" + messageName + "'.");
+                }
+            } while(!isUNTSegment(segmentReader));
+        } finally {
+            segmentReader.stopCapture();
+        }
+        segmentReader.clearSegmentBuffer();
+
+        // The message gets its own copy of the namespace declarations.  If the namespace stack is container
+        // managed, the container would be pushing the message namespaces onto it (see NamespaceAwareHandler)...
+        InterchangeMessage message = new InterchangeMessage(messageDispatcher.nextMessageNumber(), messageName);
+        NamespaceDeclarationStack messageNamespaceStack = interchangeContext.getNamespaceDeclarationStack().copyNamespaces();
+        DefaultHandler2 messageContentHandler = message;
+        if(interchangeContext.isContainerManagedNamespaceStack()) {
+            messageContentHandler = new NamespaceAwareHandler(message, messageNamespaceStack);
+        }
+
+        InterchangeContext messageContext = interchangeContext.newMessageContext(messageText.toString(), messageContentHandler, messageNamespaceStack);
+        messageDispatcher.dispatch(new MessageParser(message, messageContext, mappingModel));
+    }
+
+    private void processMessage(InterchangeContext interchangeContext, EdifactModel mappingModel, HierarchyChangeListener hierarchyChangeListener) throws IOException, SAXException {
+		BufferedSegmentReader segmentReader = interchangeContext.getSegmentReader();
         Edimap ediMap = mappingModel.getEdimap();
 
         Description description = ediMap.getDescription();
@@ -108,11 +170,45 @@ public class UNHHandler implements ControlBlockHandler {
 
 		// Map the UNT segment...
 		interchangeContext.mapControlSegment(untSegment, true);
-		segmentReader.getSegmentBuffer().setLength(0);
+		segmentReader.clearSegmentBuffer();
 
 		interchangeContext.getControlSegmentParser().endElement(InterchangeContext.INTERCHANGE_MESSAGE_BLOCK_ELEMENT_NAME, unhSegment.getNamespace(), true);
 	}
 
+    private static boolean isUNTSegment(BufferedSegmentReader segmentReader) {
+        CharSequence segment = segmentReader.getCurrentSegment();
+
+        if(segment.length() < 3 || segment.charAt(0) != 'U' || segment.charAt(1) != 'N' || segment.charAt(2) != 'T') {
+            return false;
+        }
+
+        return segmentReader.getCurrentSegmentFields()[0].equals("UNT");
+    }
+
+    /**
+     * Parses a single message, in its own {@link InterchangeContext}.
+     */
+    private class MessageParser implements Callable<InterchangeMessage> {
+
+        private InterchangeMessage message;
+        private InterchangeContext messageContext;
+        private EdifactModel mappingModel;
+
+        private MessageParser(InterchangeMessage message, InterchangeContext messageContext, EdifactModel mappingModel) {
+            this.message = message;
+            this.messageContext = messageContext;
+            this.mappingModel = mappingModel;
+        }
+
+        public InterchangeMessage call() throws IOException, SAXException {
+            // Move to the end of the UNH segment...
+            messageContext.getSegmentReader().moveToNextSegment(false);
+            processMessage(messageContext, mappingModel, null);
+
+            return message;
+        }
+    }
+
     private static class UNTSegmentListener implements BufferedSegmentListener {
 
         public boolean onSegment(BufferedSegmentReader bufferedSegmentReader) {
@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -40,6 +41,7 @@ import org.milyn.assertion.AssertArgument;
 import org.milyn.edisax.EDIConfigurationException;
 import org.milyn.edisax.EDIParser;
 import org.milyn.edisax.model.EdifactModel;
+import org.milyn.edisax.model.MappingModelCache;
 import org.milyn.edisax.model.internal.DelimiterType;
 import org.milyn.edisax.model.internal.Delimiters;
 import org.milyn.edisax.model.internal.Description;
@@ -99,10 +101,10 @@ public class EDIUtils {
             delimiter = " ";
         }
 
-        List<CharSequence> charSequences = new ArrayList<CharSequence>();
-        readSequenceStructure(value, delimiter, escape, charSequences);
+        ValueSplitter splitter = new ValueSplitter();
+        splitter.split(value, delimiter, escape);
 
-        return putCharacterSequenceIntoResult(charSequences);
+        return splitter.toArray();
     }
     
     public static void loadMappingModels(String mappingModelFiles, Map<String, EdifactModel> mappingModels, URI baseURI) throws EDIConfigurationException, IOException, SAXException {
@@ -128,9 +130,8 @@ public class EDIUtils {
                 }
             } else if(mappingModelFile.startsWith("urn:")) {
                 String urn = mappingModelFile.substring(4);
-                List<String> rootMappingModels = getMappingModelList(urn);
 
-                loadMappingModels(mappingModels, baseURI, rootMappingModels);
+                loadURNMappingModels(urn, mappingModels, baseURI);
 
                 continue;
             }
@@ -145,6 +146,31 @@ public class EDIUtils {
         }
     }
 
+    private static void loadURNMappingModels(String urn, Map<String, EdifactModel> mappingModels, URI baseURI) throws IOException, SAXException, EDIConfigurationException {
+        URL mappingModelListURL = getMappingModelConfigURL(urn, EDI_MAPPING_MODEL_ZIP_LIST_FILE);
+        MappingModelCache modelCache = MappingModelCache.getSystemCache();
+
+        if(modelCache == null) {
+            loadMappingModels(mappingModels, baseURI, getMappingModelList(mappingModelListURL.openStream()));
+            return;
+        }
+
+        String fingerprint = MappingModelCache.getFingerprint(mappingModelListURL);
+        Map<String, EdifactModel> modelSet = modelCache.getModelSet(urn, fingerprint);
+
+        if(modelSet == null) {
+            modelSet = new LinkedHashMap<String, EdifactModel>();
+            loadMappingModels(modelSet, baseURI, getMappingModelList(mappingModelListURL.openStream()));
+            try {
+                modelCache.putModelSet(urn, fingerprint, modelSet);
+            } catch (IOException e) {
+                logger.warn("Failed to cache EDI Mapping Models for URN '" + urn + "' in cache directory '" + modelCache.getCacheDir().getAbsolutePath() + "'.", e);
+            }
+        }
+
+        mappingModels.putAll(modelSet);
+    }
+
     private static boolean loadXMLMappingModel(String mappingModelFile, Map<String, EdifactModel> mappingModels, URI baseURI) throws EDIConfigurationException {
 		try {
 			EdifactModel model = EDIParser.parseMappingModel(mappingModelFile, baseURI);
@@ -217,16 +243,6 @@ public class EDIUtils {
 		return Collections.EMPTY_LIST;
 	}
 
-    private static List<String> getMappingModelList(String urn) throws IOException, EDIConfigurationException {
-        InputStream mappingModelListStream = getMappingModelConfigStream(urn, EDI_MAPPING_MODEL_ZIP_LIST_FILE);
-
-        if(mappingModelListStream == null) {
-            throw new EDIConfigurationException("Failed to locate jar file for EDI Mapping Model URN '" + urn + "'.  Jar must be available on classpath.");
-        }
-
-        return getMappingModelList(mappingModelListStream);
-    }
-
     public static Properties getInterchangeProperties(String ediMappingModel) throws IOException {
         InputStream interchangePropertiesStream = null;
 
@@ -284,6 +300,10 @@ public class EDIUtils {
     }
 
     private static InputStream getMappingModelConfigStream(String urn, String fileName) throws IOException, EDIConfigurationException {
+        return getMappingModelConfigURL(urn, fileName).openStream();
+    }
+
+    private static URL getMappingModelConfigURL(String urn, String fileName) throws IOException, EDIConfigurationException {
         List<URL> urnFiles = ClassUtil.getResources(EDI_MAPPING_MODEL_URN, EDIUtils.class);
         boolean ignoreVersion = false;
         
@@ -312,7 +332,7 @@ public class EDIUtils {
 
                     for(URL url : urlList) {
                         if(url.toString().equals(modelConfigFile)) {
-                            return url.openStream();
+                            return url;
                         }
                     }
                 }
@@ -355,130 +375,6 @@ public class EDIUtils {
 		}
 	}
 
-    /**
-     * Loops through all CharSequences and decides whether to write out value or split.
-     * @param charSequences a list of CharSequence
-     * @return a String[] containing the split values.
-     */
-    private static String[] putCharacterSequenceIntoResult(List<CharSequence> charSequences) {
-        List<String> result = new ArrayList<String>();
-        StringBuilder stringBuilder = new StringBuilder();
-        boolean escapeNextSequence = false;
-        boolean delimiterLastSequence = false;
-        CharSequence previousSequence = null;
-        
-        for (CharSequence sequence : charSequences) {
-            delimiterLastSequence = false;
-
-            if (escapeNextSequence && (sequence.getType() != CharSequenceTypeEnum.DELIMITER)) {
-                stringBuilder.append(previousSequence.getValue());
-            }
-
-            try {
-                switch (sequence.getType()) {
-                    case PLAIN : {
-                        stringBuilder.append(sequence.getValue());
-                        break;
-                    }
-                    case DELIMITER : {
-                        if (escapeNextSequence) {
-                            stringBuilder.append(sequence.getValue());
-                        } else {
-                            result.add(stringBuilder.toString());
-                            stringBuilder.setLength(0);
-                            delimiterLastSequence = true;
-                        }
-                        break;
-                    }
-                    case ESCAPE : {
-                        if (escapeNextSequence) {
-                            stringBuilder.append(sequence.getValue());
-                        } else {
-                            escapeNextSequence = true;
-                            continue;
-                        }
-                        break;
-                    }
-                }
-
-                escapeNextSequence = false;
-            } finally {
-                previousSequence = sequence;
-            }
-        }
-
-        if (stringBuilder.length() > 0 || delimiterLastSequence) {
-            result.add(stringBuilder.toString());
-        }
-
-        return result.toArray(new String[result.size()]);
-    }
-
-    /**
-     * Reads value and put the different parts into a list of CharSequence for easier handling of escape- and
-     * delimiter-sequences when splitting value.
-     * @param value the string to split
-     * @param delimiter the characters defining the delimiter
-     * @param escape the characters defining the escape
-     * @param result a lis CharSequence.
-     */
-    private static void readSequenceStructure(String value, String delimiter, String escape, List<CharSequence> result) {
-        StringBuilder stringBuilder = new StringBuilder();
-        int escapeLength = escape == null ? 0 : escape.length();
-        int delimiterLength = delimiter == null ? 0 : delimiter.length();
-
-        for (int j = 0; j < value.length(); j++) {
-            char theChar = value.charAt(j);
-            stringBuilder.append(theChar);
-
-            int curTokenLength = stringBuilder.length();
-            if (builderEndsWith(stringBuilder, delimiter)) {
-                stringBuilder.setLength(curTokenLength - delimiterLength);
-                if (stringBuilder.length() > 0) {
-                    result.add(new CharSequence(stringBuilder.toString(), CharSequenceTypeEnum.PLAIN));
-                    stringBuilder.setLength(0);
-                }
-                result.add(new CharSequence(delimiter, CharSequenceTypeEnum.DELIMITER));
-                continue;
-            } else if (builderEndsWith(stringBuilder, escape)) {
-                stringBuilder.setLength(curTokenLength - escapeLength);
-                if (stringBuilder.length() > 0) {
-                    result.add(new CharSequence(stringBuilder.toString(), CharSequenceTypeEnum.PLAIN));
-                    stringBuilder.setLength(0);
-                }
-                result.add(new CharSequence(escape, CharSequenceTypeEnum.ESCAPE));
-                continue;
-            }
-        }
-
-        if (stringBuilder.length() > 0) {
-            result.add(new CharSequence(stringBuilder.toString(), CharSequenceTypeEnum.PLAIN));
-        }
-    }
-
-    private static boolean builderEndsWith(StringBuilder stringBuilder, String string) {
-        if(string == null) {
-            return false;
-        }
-
-        int builderLen = stringBuilder.length();
-        int stringLen = string.length();
-
-        if(builderLen < stringLen) {
-            return false;
-        }
-
-        int stringIndx = 0;
-        for(int i = (builderLen - stringLen); i < builderLen; i++) {
-            if(stringBuilder.charAt(i) != string.charAt(stringIndx)) {
-                return false;
-            }
-            stringIndx++;
-        }
-
-        return true;
-    }
-
     /**
      * Encodes a String into standard java class name convention. The following steps are performed
      * on the name:
@@ -617,24 +513,6 @@ public class EDIUtils {
         }
     }
 
-    private static class CharSequence {
-        String value;
-        CharSequenceTypeEnum type;
-
-        public CharSequence(String value, CharSequenceTypeEnum type) {
-            this.value = value;
-            this.type = type;
-        }
-
-        public String getValue() {
-            return value;
-        }
-
-        public CharSequenceTypeEnum getType() {
-            return type;
-        }
-    }
-
 	/**
 	 * Convert {@link Description} to the string representation
 	 * that is used for lookup in the hashmaps
@@ -646,12 +524,6 @@ public class EDIUtils {
 		return description.getName() + ":"
 				+ description.getVersion();
 	}    
-    
-    private enum CharSequenceTypeEnum {
-        PLAIN,
-        ESCAPE,
-        DELIMITER
-    }
 
 
     // Initialize reservedKeywords Set containing all keywords in java.
@@ -0,0 +1,226 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.edisax.util;
+
+/**
+ * Reusable EDI value splitter.
+ * <p/>
+ * Splits a value on a delimiter sequence, as long as the delimiter does not follow an escape sequence
+ * (see {@link EDIUtils#split(String, String, String)}), in a single pass over the value.  The split tokens are
+ * held by the splitter instance (accessed through {@link #size()} and {@link #get(int)}) until the next
+ * split, so a splitter that is reused for a large number of values (e.g. the components of every field in an
+ * EDI message) does not allocate a token list or array per split.  Tokens that don't contain escape sequences
+ * are taken straight from the value.
+ * <p/>
+ * Not thread safe.
+ */
+public class ValueSplitter {
+
+    private String[] tokens = new String[16];
+    private int tokenCount;
+
+    private String value;
+    private StringBuilder tokenBuilder = new StringBuilder();
+    private boolean useTokenBuilder;
+    private int tokenStart;
+    private int tokenEnd;
+
+    /**
+     * Split the supplied value.
+     *
+     * @param value The value to split.  Not null.
+     * @param delimiter The delimiter sequence.  A null delimiter splits on whitespace.
+     * @param escape The escape sequence.  May be null.
+     * @return The number of split tokens.
+     */
+    public int split(String value, String delimiter, String escape) {
+        int valueLength = value.length();
+
+        this.value = value;
+        tokenCount = 0;
+        resetToken();
+
+        if (valueLength == 0) {
+            return 0;
+        }
+        if (delimiter == null) {
+            delimiter = " ";
+        }
+
+        int delimiterLength = delimiter.length();
+        int escapeLength = (escape != null ? escape.length() : 0);
+        int runStart = 0;
+        int escapeStart = -1;
+        boolean escapeNext = false;
+        boolean delimiterLast = false;
+
+        for (int i = 0; i < valueLength; i++) {
+            if (endsWith(value, i, delimiter, delimiterLength, runStart)) {
+                int delimiterStart = i - delimiterLength + 1;
+
+                if (delimiterStart > runStart) {
+                    // Plain text before the delimiter...
+                    if (escapeNext) {
+                        append(escapeStart, escapeStart + escapeLength);
+                        escapeNext = false;
+                    }
+                    append(runStart, delimiterStart);
+                }
+
+                if (escapeNext) {
+                    // Escaped delimiter.  Drop the escape and keep the delimiter...
+                    append(delimiterStart, i + 1);
+                    escapeNext = false;
+                    delimiterLast = false;
+                } else {
+                    addToken();
+                    delimiterLast = true;
+                }
+                runStart = i + 1;
+            } else if (escapeLength > 0 && endsWith(value, i, escape, escapeLength, runStart)) {
+                int start = i - escapeLength + 1;
+
+                if (start > runStart) {
+                    // Plain text before the escape...
+                    if (escapeNext) {
+                        append(escapeStart, escapeStart + escapeLength);
+                        escapeNext = false;
+                    }
+                    append(runStart, start);
+                }
+
+                if (escapeNext) {
+                    // Escaped escape.  Keep both...
+                    append(escapeStart, escapeStart + escapeLength);
+                    append(start, i + 1);
+                    escapeNext = false;
+                } else {
+                    escapeNext = true;
+                    escapeStart = start;
+                }
+                delimiterLast = false;
+                runStart = i + 1;
+            }
+        }
+
+        if (runStart < valueLength) {
+            // Trailing plain text...
+            if (escapeNext) {
+                append(escapeStart, escapeStart + escapeLength);
+            }
+            append(runStart, valueLength);
+            delimiterLast = false;
+        }
+
+        if (delimiterLast || hasTokenContent()) {
+            addToken();
+        }
+
+        return tokenCount;
+    }
+
+    /**
+     * Get the number of tokens produced by the last split.
+     * @return The number of tokens.
+     */
+    public int size() {
+        return tokenCount;
+    }
+
+    /**
+     * Get a token produced by the last split.
+     * @param index The token index.
+     * @return The token.
+     */
+    public String get(int index) {
+        if (index >= tokenCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + tokenCount);
+        }
+        return tokens[index];
+    }
+
+    /**
+     * Get the tokens produced by the last split, as a new array.
+     * @return The token array.
+     */
+    public String[] toArray() {
+        String[] array = new String[tokenCount];
+        System.arraycopy(tokens, 0, array, 0, tokenCount);
+        return array;
+    }
+
+    private static boolean endsWith(String value, int end, String sequence, int sequenceLength, int runStart) {
+        int start = end - sequenceLength + 1;
+
+        if (start < runStart || value.charAt(end) != sequence.charAt(sequenceLength - 1)) {
+            return false;
+        }
+        for (int i = 0; i < sequenceLength - 1; i++) {
+            if (value.charAt(start + i) != sequence.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void append(int start, int end) {
+        if (useTokenBuilder) {
+            tokenBuilder.append(value, start, end);
+        } else if (tokenStart == tokenEnd) {
+            tokenStart = start;
+            tokenEnd = end;
+        } else if (tokenEnd == start) {
+            tokenEnd = end;
+        } else {
+            // Not contiguous in the value (an escape was dropped)...
+            tokenBuilder.setLength(0);
+            tokenBuilder.append(value, tokenStart, tokenEnd);
+            tokenBuilder.append(value, start, end);
+            useTokenBuilder = true;
+        }
+    }
+
+    private boolean hasTokenContent() {
+        if (useTokenBuilder) {
+            return (tokenBuilder.length() > 0);
+        }
+        return (tokenEnd > tokenStart);
+    }
+
+    private void addToken() {
+        if (tokenCount == tokens.length) {
+            String[] newTokens = new String[tokens.length * 2];
+            System.arraycopy(tokens, 0, newTokens, 0, tokenCount);
+            tokens = newTokens;
+        }
+
+        if (useTokenBuilder) {
+            tokens[tokenCount++] = tokenBuilder.toString();
+        } else if (tokenStart == 0 && tokenEnd == value.length()) {
+            tokens[tokenCount++] = value;
+        } else {
+            tokens[tokenCount++] = value.substring(tokenStart, tokenEnd);
+        }
+        resetToken();
+    }
+
+    private void resetToken() {
+        useTokenBuilder = false;
+        tokenStart = 0;
+        tokenEnd = 0;
+    }
+}
@@ -17,6 +17,7 @@
 package org.milyn.edisax;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
@@ -114,6 +115,63 @@ public class BufferedSegmentReaderTest {
 
     }
 
+    @Test
+    public void test_escaped_delimiters() throws IOException {
+        test("a?'b'c??'d'", "'", "*", new String[] {"a'b", "c??", "d"});
+    }
+
+    @Test
+    public void test_segments_span_read_buffer() throws IOException {
+        StringBuilder input = new StringBuilder();
+        int numSegments = 10000;
+
+        for(int i = 0; i < numSegments; i++) {
+            input.append("\nSEG*").append(i).append("*?'escaped?'*value'");
+        }
+
+        BufferedSegmentReader reader = createSegmentReader(input.toString(), "'!$", "*");
+        int segIndex = 0;
+        while(reader.moveToNextSegment()) {
+            assertEquals("SEG*" + segIndex + "*'escaped'*value", reader.getCurrentSegment().toString());
+            segIndex++;
+        }
+        assertEquals(numSegments, segIndex);
+    }
+
+    @Test
+    public void test_current_segment_view() throws IOException {
+        BufferedSegmentReader reader = createSegmentReader("SEG1*a'SEG2*b'", "'", "*");
+
+        reader.moveToNextSegment();
+        CharSequence segment = reader.getCurrentSegment();
+        assertEquals(6, segment.length());
+        assertEquals('1', segment.charAt(3));
+        assertEquals("a", segment.subSequence(5, 6).toString());
+
+        reader.moveToNextSegment();
+        assertEquals("SEG2*b", segment.toString());
+
+        reader.clearSegmentBuffer();
+        assertEquals(0, segment.length());
+        assertFalse(reader.hasCurrentSegment());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void test_segment_buffer_copy() throws IOException {
+        BufferedSegmentReader reader = createSegmentReader("SEG1*a'SEG2*b'", "'", "*");
+
+        reader.moveToNextSegment();
+        StringBuffer segmentBuffer = reader.getSegmentBuffer();
+        assertEquals("SEG1*a", segmentBuffer.toString());
+
+        // A copy... it doesn't change with the reader, and changing it doesn't change the reader...
+        segmentBuffer.setLength(0);
+        assertEquals("SEG1*a", reader.getCurrentSegment().toString());
+        reader.moveToNextSegment();
+        assertEquals(0, segmentBuffer.length());
+    }
+
 	private void test(String input, String segmentDelim, String fieldDelim, String[] segments) throws IOException {
         BufferedSegmentReader reader = createSegmentReader(input, segmentDelim, fieldDelim);
 		int segIndex = 0;
@@ -10,6 +10,7 @@ import org.milyn.edisax.model.internal.Delimiters;
 import org.milyn.edisax.unedifact.UNEdifactInterchangeParser;
 import org.milyn.edisax.util.EDIUtils;
 import org.milyn.edisax.util.IllegalNameException;
+import org.milyn.edisax.util.ValueSplitter;
 import org.milyn.util.CollectionsUtil;
 import org.xml.sax.SAXException;
 
@@ -141,6 +142,27 @@ public class EDIUtilsTest {
         assertEquals("_1addressPOBox", EDIUtils.encodeAttributeName("_1addressP.O.Box"));
     }
 
+    @Test
+    public void test_ValueSplitter_reuse() {
+        ValueSplitter splitter = new ValueSplitter();
+
+        assertEquals(4, splitter.split("a+b?+c+d??+", "+", "?"));
+        assertTrue(equal(splitter.toArray(), new String[] {"a", "b+c", "d??", ""}));
+        assertEquals("b+c", splitter.get(1));
+
+        assertEquals(1, splitter.split("abc", "+", "?"));
+        assertEquals("abc", splitter.get(0));
+        try {
+            splitter.get(1);
+            fail("Expected IndexOutOfBoundsException.");
+        } catch (IndexOutOfBoundsException e) {
+            // Expected
+        }
+
+        assertEquals(0, splitter.split("", "+", "?"));
+        assertEquals(0, splitter.size());
+    }
+
     private String output(String[] value) {
         if (value == null) {
             return null;
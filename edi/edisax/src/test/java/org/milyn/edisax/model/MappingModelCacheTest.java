@@ -0,0 +1,185 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.edisax.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.milyn.edisax.EDIConfigurationException;
+import org.milyn.edisax.EDIParser;
+import org.milyn.edisax.MockContentHandler;
+import org.milyn.edisax.model.internal.Edimap;
+import org.milyn.io.StreamUtils;
+import org.milyn.resource.URIResourceLocator;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import static org.junit.Assert.*;
+
+public class MappingModelCacheTest {
+
+    private static final String[] TEST_PACKS = new String[] {
+            "/org/milyn/edisax/v1_1/imports/test_imports_01",
+            "/org/milyn/edisax/v1_1/imports/test_imports_02",
+            "/org/milyn/edisax/v1_2/model/type",
+            "/org/milyn/edisax/v1_2/model/minlength"
+    };
+
+    private File cacheDir = new File("target/edimap-cache");
+
+    @Before
+    public void setUp() {
+        deleteCacheDir();
+    }
+
+    @After
+    public void tearDown() {
+        deleteCacheDir();
+        System.getProperties().remove(MappingModelCache.CACHE_DIR_SYSKEY);
+    }
+
+    @Test
+    public void test_codec() throws IOException, SAXException {
+        for(String testPack : TEST_PACKS) {
+            EdifactModel model = loadModel(testPack);
+            ByteBuffer edimapData = encode(model.getEdimap());
+            Edimap decodedEdimap = EdimapCodec.read(edimapData.duplicate());
+
+            assertEquals(testPack, toXML(model.getEdimap()), toXML(decodedEdimap));
+            assertEquals(testPack, parse(testPack, model), parse(testPack, new EdifactModel(null, model.getDescription(), edimapData)));
+        }
+    }
+
+    @Test
+    public void test_codec_bad_version() throws IOException, SAXException {
+        ByteBuffer edimapData = encode(loadModel(TEST_PACKS[0]).getEdimap());
+
+        edimapData.putInt(0, EdimapCodec.FORMAT_VERSION + 1);
+        try {
+            EdimapCodec.read(edimapData);
+            fail("Expected IOException");
+        } catch(IOException e) {
+            assertEquals("Unsupported binary Edimap format version '" + (EdimapCodec.FORMAT_VERSION + 1) + "'.  Expected version '" + EdimapCodec.FORMAT_VERSION + "'.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void test_cache() throws IOException, SAXException {
+        MappingModelCache cache = new MappingModelCache(cacheDir);
+        Map<String, EdifactModel> modelSet = new LinkedHashMap<String, EdifactModel>();
+
+        for(String testPack : TEST_PACKS) {
+            modelSet.put(testPack, loadModel(testPack));
+        }
+
+        assertNull(cache.getModelSet("urn:org.milyn.test:models:1.0", "fingerprint-1"));
+        cache.putModelSet("urn:org.milyn.test:models:1.0", "fingerprint-1", modelSet);
+
+        Map<String, EdifactModel> cachedModelSet = cache.getModelSet("urn:org.milyn.test:models:1.0", "fingerprint-1");
+        assertNotNull(cachedModelSet);
+        assertEquals(new ArrayList<String>(modelSet.keySet()), new ArrayList<String>(cachedModelSet.keySet()));
+        for(String testPack : TEST_PACKS) {
+            EdifactModel model = modelSet.get(testPack);
+            EdifactModel cachedModel = cachedModelSet.get(testPack);
+
+            assertEquals(model.getDescription(), cachedModel.getDescription());
+            assertEquals(model.getDescription().getNamespace(), cachedModel.getDescription().getNamespace());
+            assertEquals(model.getModelURI(), cachedModel.getModelURI());
+            assertEquals(parse(testPack, model), parse(testPack, cachedModel));
+        }
+
+        // Out of date, or not cached...
+        assertNull(cache.getModelSet("urn:org.milyn.test:models:1.0", "fingerprint-2"));
+        assertNull(cache.getModelSet("urn:org.milyn.test:models:2.0", "fingerprint-1"));
+
+        // Overwrite...
+        modelSet.remove(TEST_PACKS[0]);
+        cache.putModelSet("urn:org.milyn.test:models:1.0", "fingerprint-2", modelSet);
+        assertNull(cache.getModelSet("urn:org.milyn.test:models:1.0", "fingerprint-1"));
+        assertEquals(TEST_PACKS.length - 1, cache.getModelSet("urn:org.milyn.test:models:1.0", "fingerprint-2").size());
+    }
+
+    @Test
+    public void test_system_cache() {
+        assertNull(MappingModelCache.getSystemCache());
+        System.setProperty(MappingModelCache.CACHE_DIR_SYSKEY, cacheDir.getPath());
+        assertEquals(cacheDir, MappingModelCache.getSystemCache().getCacheDir());
+    }
+
+    private EdifactModel loadModel(String testPack) throws IOException, SAXException {
+        String mappingModel = testPack + "/edi-to-xml-mapping.xml";
+
+        try {
+            return EDIParser.parseMappingModel(mappingModel, URIResourceLocator.extractBaseURI(mappingModel));
+        } catch (EDIConfigurationException e) {
+            throw new SAXException(e);
+        }
+    }
+
+    private ByteBuffer encode(Edimap edimap) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+
+        EdimapCodec.write(edimap, output);
+        output.flush();
+
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private String toXML(Edimap edimap) throws IOException {
+        StringWriter writer = new StringWriter();
+        edimap.write(writer);
+        return writer.toString();
+    }
+
+    private String parse(String testPack, EdifactModel model) throws IOException {
+        EDIParser parser = new EDIParser();
+        MockContentHandler contentHandler = new MockContentHandler();
+
+        parser.setContentHandler(contentHandler);
+        parser.setMappingModel(model);
+        parser.setFeature(EDIParser.FEATURE_VALIDATE, true);
+        try {
+            parser.parse(new InputSource(new ByteArrayInputStream(StreamUtils.readStream(getClass().getResourceAsStream(testPack + "/edi-input.txt")))));
+        } catch (SAXException e) {
+            return e.getClass().getName() + ":" + e.getMessage();
+        }
+
+        return contentHandler.xmlMapping.toString();
+    }
+
+    private void deleteCacheDir() {
+        File[] files = cacheDir.listFiles();
+
+        if(files != null) {
+            for(File file : files) {
+                file.delete();
+            }
+        }
+        cacheDir.delete();
+    }
+}
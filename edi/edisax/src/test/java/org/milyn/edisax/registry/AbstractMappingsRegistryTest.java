@@ -0,0 +1,166 @@
+/*
+ * Milyn - Copyright (C) 2006 - 2011
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (version 2.1) as published by the Free Software
+ * Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details:
+ * http://www.gnu.org/licenses/lgpl.txt
+ */
+package org.milyn.edisax.registry;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.milyn.edisax.EDIConfigurationException;
+import org.milyn.edisax.model.EdifactModel;
+import org.milyn.edisax.model.internal.Delimiters;
+import org.milyn.edisax.model.internal.Edimap;
+import org.xml.sax.SAXException;
+
+import static org.junit.Assert.*;
+
+public class AbstractMappingsRegistryTest {
+
+    private static final Delimiters DELIMITERS = new Delimiters().setComponent(":").setEscape("?");
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void test_loaded_model_not_blocked_by_load() throws Exception {
+        final MockRegistry registry = new MockRegistry();
+        EdifactModel modelA = new EdifactModel(new Edimap());
+
+        registry.content.put("A:S:93A:UN", modelA);
+
+        Future<EdifactModel> modelB = executor.submit(new Lookup(registry, "B:S:93A:UN"));
+        assertTrue(registry.loadStarted.await(5, TimeUnit.SECONDS));
+
+        // The load of B is blocked, but the lookup of A must not be...
+        assertSame(modelA, registry.getMappingModel("A:S:93A:UN", DELIMITERS));
+        assertFalse(modelB.isDone());
+
+        registry.releaseLoad.countDown();
+        assertNotNull(modelB.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_load_once() throws Exception {
+        MockRegistry registry = new MockRegistry();
+        Future<EdifactModel> modelB1 = executor.submit(new Lookup(registry, "B:S:93A:UN"));
+
+        assertTrue(registry.loadStarted.await(5, TimeUnit.SECONDS));
+
+        Future<EdifactModel> modelB2 = executor.submit(new Lookup(registry, "B:S:93A:UN"));
+        Future<EdifactModel> modelB3 = executor.submit(new Lookup(registry, "B:S:93A:UN"));
+
+        registry.releaseLoad.countDown();
+        assertSame(modelB1.get(5, TimeUnit.SECONDS), modelB2.get(5, TimeUnit.SECONDS));
+        assertSame(modelB1.get(), modelB3.get(5, TimeUnit.SECONDS));
+        assertSame(modelB1.get(), registry.getMappingModel("B:S:93A:UN", DELIMITERS));
+        assertEquals(1, registry.loadCount.get());
+    }
+
+    @Test
+    public void test_failed_load_retried() throws Exception {
+        MockRegistry registry = new MockRegistry();
+
+        registry.releaseLoad.countDown();
+        registry.failLoad = true;
+        try {
+            registry.getMappingModel("B:S:93A:UN", DELIMITERS);
+            fail("Expected IOException.");
+        } catch (IOException e) {
+            assertEquals("Load failed.", e.getMessage());
+        }
+
+        registry.failLoad = false;
+        assertNotNull(registry.getMappingModel("B:S:93A:UN", DELIMITERS));
+        assertEquals(2, registry.loadCount.get());
+    }
+
+    @Test
+    public void test_not_found() throws Exception {
+        MockRegistry registry = new MockRegistry();
+
+        registry.releaseLoad.countDown();
+        try {
+            registry.getMappingModel("X:S:93A:UN", DELIMITERS);
+            fail("Expected EDIConfigurationException.");
+        } catch (EDIConfigurationException e) {
+            assertEquals("Mapping Model 'X:S:93A:UN' not found in supplied set of Mapping model.", e.getMessage());
+        }
+    }
+
+    private static class Lookup implements Callable<EdifactModel> {
+
+        private MappingsRegistry registry;
+        private String messageName;
+
+        private Lookup(MappingsRegistry registry, String messageName) {
+            this.registry = registry;
+            this.messageName = messageName;
+        }
+
+        public EdifactModel call() throws Exception {
+            return registry.getMappingModel(messageName, DELIMITERS);
+        }
+    }
+
+    private static class MockRegistry extends AbstractMappingsRegistry {
+
+        private CountDownLatch loadStarted = new CountDownLatch(1);
+        private CountDownLatch releaseLoad = new CountDownLatch(1);
+        private AtomicInteger loadCount = new AtomicInteger();
+        private volatile boolean failLoad;
+
+        @Override
+        protected Map<String, EdifactModel> demandLoading(String[] nameComponents) throws EDIConfigurationException, IOException, SAXException {
+            Map<String, EdifactModel> models = new HashMap<String, EdifactModel>();
+
+            loadCount.incrementAndGet();
+            loadStarted.countDown();
+            try {
+                releaseLoad.await();
+            } catch (InterruptedException e) {
+                throw new EDIConfigurationException("Interrupted.", e);
+            }
+
+            if (failLoad) {
+                throw new IOException("Load failed.");
+            }
+            if (nameComponents[0].equals("B")) {
+                models.put("B:S:93A:UN", new EdifactModel(new Edimap()));
+            }
+
+            return models;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.edisax.unedifact;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.milyn.edisax.EDIConfigurationException;
+import org.milyn.edisax.EDIParser;
+import org.milyn.edisax.MockContentHandlerNS;
+import org.milyn.edisax.interchange.InterchangeMessage;
+import org.milyn.edisax.interchange.InterchangeMessageConsumer;
+import org.milyn.edisax.model.EdifactModel;
+import org.milyn.edisax.registry.DefaultMappingsRegistry;
+import org.milyn.io.StreamUtils;
+import org.milyn.namespace.NamespaceAwareHandler;
+import org.milyn.namespace.NamespaceDeclarationStack;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+import static org.junit.Assert.*;
+
+public class UNEdifactInterchangeParser_parallel_Test {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void test_ordered() throws IOException, SAXException, EDIConfigurationException {
+        assertParallelEquals(read("with_ung/unedifact-msg-01.edi"), true);
+        assertParallelEquals(read("with_ung/unedifact-msg-02.edi"), true);
+        assertParallelEquals(read("with_ung/unedifact-msg-04.edi"), true);
+        assertParallelEquals(read("no_ung/unedifact-msg-01.edi"), true);
+        assertParallelEquals(read("no_ung/unedifact-msg-02.edi"), false);
+    }
+
+    @Test
+    public void test_ordered_many_messages() throws IOException, SAXException, EDIConfigurationException {
+        assertParallelEquals(createInterchange(500), true);
+    }
+
+    @Test
+    public void test_consumer() throws IOException, SAXException, EDIConfigurationException {
+        UNEdifactInterchangeParser parser = createParser();
+        MockContentHandlerNS handler = new MockContentHandlerNS();
+        final List<String> messages = Collections.synchronizedList(new ArrayList<String>());
+
+        parser.setMessageExecutor(executor).setMaxPendingMessages(8);
+        parser.setMessageConsumer(new InterchangeMessageConsumer() {
+            public void consume(InterchangeMessage message) throws SAXException {
+                MockContentHandlerNS messageHandler = new MockContentHandlerNS();
+
+                message.replay(messageHandler);
+                messages.add(String.format("%04d", message.getMessageNumber()) + ":" + message.getMessageName() + ":" + messageHandler.xmlMapping);
+            }
+        });
+        parser.setContentHandler(handler);
+        parser.parse(new InputSource(new ByteArrayInputStream(createInterchange(100).getBytes())));
+
+        assertEquals(300, messages.size());
+        Collections.sort(messages);
+        assertTrue(messages.get(0).startsWith("0001:MSG2:S:93A:UN:"));
+        assertTrue(messages.get(0).contains("field-a>f1</"));
+        assertTrue(messages.get(299).startsWith("0300:MSG1:S:93A:UN:"));
+        assertTrue(messages.get(299).contains("field-2>f99</"));
+
+        // The messages are not merged into the interchange...
+        assertFalse(handler.xmlMapping.toString().contains("field-a"));
+        assertTrue(handler.xmlMapping.toString().contains("UNZ>"));
+    }
+
+    private void assertParallelEquals(String interchange, boolean namespaceAware) throws IOException, SAXException, EDIConfigurationException {
+        String sequential = parse(interchange, createParser(), namespaceAware);
+        String parallel = parse(interchange, createParser().setMessageExecutor(executor).setMaxPendingMessages(3), namespaceAware);
+
+        assertEquals(sequential, parallel);
+    }
+
+    private String parse(String interchange, UNEdifactInterchangeParser parser, boolean namespaceAware) throws IOException, SAXException {
+        MockContentHandlerNS handler = new MockContentHandlerNS();
+
+        if(namespaceAware) {
+            parser.setContentHandler(new NamespaceAwareHandler(handler, new NamespaceDeclarationStack(parser)));
+        } else {
+            parser.setContentHandler(handler);
+        }
+        parser.parse(new InputSource(new ByteArrayInputStream(interchange.getBytes())));
+
+        return handler.xmlMapping.toString();
+    }
+
+    private UNEdifactInterchangeParser createParser() throws IOException, SAXException, EDIConfigurationException {
+        EdifactModel model1 = EDIParser.parseMappingModel(getClass().getResourceAsStream("MSG1-model.xml"));
+        EdifactModel model2 = EDIParser.parseMappingModel(getClass().getResourceAsStream("MSG2-model.xml"));
+        UNEdifactInterchangeParser parser = new UNEdifactInterchangeParser();
+
+        parser.setMappingsRegistry(new DefaultMappingsRegistry(model1, model2));
+        parser.ignoreNewLines(true);
+
+        return parser;
+    }
+
+    private String createInterchange(int count) {
+        StringBuilder interchange = new StringBuilder();
+
+        interchange.append("UNB+UNOA:3+Acme:1+AcmeRecipient:1+20051107:1159+6002'\n");
+        for(int i = 0; i < count; i++) {
+            interchange.append("UNH+").append(i).append("+MSG2:S:93A:UN'BBBB+f1+f2+f3'UNT+3+").append(i).append("'\n");
+            interchange.append("UNH+").append(i).append("+MSG2:S:93A:UN'BBBB+f").append(i).append("+f22+f33'UNT+3+").append(i).append("'\n");
+            interchange.append("UNH+").append(i).append("+MSG1:S:93A:UN'AAAA+f1+f").append(i).append("'BB+f11'UNT+4+").append(i).append("'\n");
+        }
+        interchange.append("UNZ+").append(count * 3).append("+00000000000001'");
+
+        return interchange.toString();
+    }
+
+    private String read(String resource) throws IOException {
+        InputStream stream = getClass().getResourceAsStream(resource);
+
+        try {
+            return StreamUtils.readStreamAsString(stream);
+        } finally {
+            stream.close();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.benchmark;
+
+import org.milyn.ExecutionContextPool;
+import org.milyn.Smooks;
+import org.milyn.payload.JavaResult;
+import org.milyn.payload.StringSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ExecutionContextPool} benchmark.
+ * <p/>
+ * Binds small XML order messages into an {@link Order} object model, using a new execution context per message
+ * vs a pooled execution context (and bean context).  The per-message saving is the difference between the two.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutionContextPoolBenchmark {
+
+    @Param({"1", "10"})
+    public int itemCount;
+
+    private Smooks smooks;
+    private ExecutionContextPool pool;
+    private String message;
+
+    @Setup
+    public void setup() throws IOException, SAXException {
+        smooks = new Smooks(getClass().getResourceAsStream("javabean-binding.xml"));
+        pool = smooks.createExecutionContextPool(Runtime.getRuntime().availableProcessors());
+        message = OrderMessages.xml(itemCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        smooks.close();
+    }
+
+    @Benchmark
+    public Object newContext() {
+        JavaResult result = new JavaResult();
+
+        smooks.filterSource(smooks.createExecutionContext(), new StringSource(message), result);
+
+        return result.getBean("order");
+    }
+
+    @Benchmark
+    public Object pooledContext() {
+        JavaResult result = new JavaResult();
+
+        pool.filterSource(new StringSource(message), result);
+
+        return result.getBean("order");
+    }
+}
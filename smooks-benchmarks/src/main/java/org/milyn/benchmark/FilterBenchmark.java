@@ -0,0 +1,83 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.benchmark;
+
+import org.milyn.FilterSettings;
+import org.milyn.Smooks;
+import org.milyn.payload.StringResult;
+import org.milyn.payload.StringSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SAX vs DOM filter benchmark.
+ * <p/>
+ * Filters (and serializes) an XML order message, with no visitors configured.  Measures the raw filter overhead.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+
+    @Param({"SAX", "DOM"})
+    public String filterType;
+
+    @Param({"10", "1000", "10000"})
+    public int itemCount;
+
+    private Smooks smooks;
+    private String message;
+
+    @Setup
+    public void setup() {
+        smooks = new Smooks();
+        if(filterType.equals("SAX")) {
+            smooks.setFilterSettings(FilterSettings.newSAXSettings());
+        } else {
+            smooks.setFilterSettings(FilterSettings.newDOMSettings());
+        }
+        message = OrderMessages.xml(itemCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        smooks.close();
+    }
+
+    @Benchmark
+    public String filter() {
+        StringResult result = new StringResult();
+
+        smooks.filterSource(new StringSource(message), result);
+
+        return result.getResult();
+    }
+}
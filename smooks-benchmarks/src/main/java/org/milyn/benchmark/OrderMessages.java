@@ -0,0 +1,168 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.benchmark;
+
+/**
+ * Benchmark order message generator.
+ * <p/>
+ * Generates the same order (header + n order items) in each of the formats supported by the reader cartridges.
+ */
+public abstract class OrderMessages {
+
+    /**
+     * Create an order message.
+     * @param format The message format ("xml", "csv", "json", "yaml", "edi", "fixed-length" or "flatfile").
+     * @param itemCount The number of order items.
+     * @return The order message.
+     */
+    public static String create(String format, int itemCount) {
+        if(format.equals("xml")) {
+            return xml(itemCount);
+        } else if(format.equals("csv")) {
+            return csv(itemCount);
+        } else if(format.equals("json")) {
+            return json(itemCount);
+        } else if(format.equals("yaml")) {
+            return yaml(itemCount);
+        } else if(format.equals("edi")) {
+            return edi(itemCount);
+        } else if(format.equals("fixed-length")) {
+            return fixedLength(itemCount);
+        } else if(format.equals("flatfile")) {
+            return flatFile(itemCount);
+        }
+
+        throw new IllegalArgumentException("Unknown message format '" + format + "'.");
+    }
+
+    public static String xml(int itemCount) {
+        StringBuilder message = new StringBuilder();
+
+        message.append("<order id=\"332\">\n");
+        message.append("    <header>\n");
+        message.append("        <customer number=\"123123\">Joe Bloggs</customer>\n");
+        message.append("    </header>\n");
+        message.append("    <order-items>\n");
+        for(int i = 0; i < itemCount; i++) {
+            message.append("        <order-item>\n");
+            message.append("            <product>").append(product(i)).append("</product>\n");
+            message.append("            <quantity>").append(quantity(i)).append("</quantity>\n");
+            message.append("            <price>").append(price(i)).append("</price>\n");
+            message.append("        </order-item>\n");
+        }
+        message.append("    </order-items>\n");
+        message.append("</order>\n");
+
+        return message.toString();
+    }
+
+    public static String csv(int itemCount) {
+        StringBuilder message = new StringBuilder();
+
+        for(int i = 0; i < itemCount; i++) {
+            message.append(product(i)).append(',').append(quantity(i)).append(',').append(price(i)).append('\n');
+        }
+
+        return message.toString();
+    }
+
+    public static String json(int itemCount) {
+        StringBuilder message = new StringBuilder();
+
+        message.append("{\"id\": 332, \"header\": {\"customer\": {\"number\": 123123, \"name\": \"Joe Bloggs\"}},\n");
+        message.append(" \"order-items\": [\n");
+        for(int i = 0; i < itemCount; i++) {
+            if(i > 0) {
+                message.append(",\n");
+            }
+            message.append("    {\"product\": ").append(product(i)).append(", \"quantity\": ").append(quantity(i)).append(", \"price\": ").append(price(i)).append("}");
+        }
+        message.append("\n]}\n");
+
+        return message.toString();
+    }
+
+    public static String yaml(int itemCount) {
+        StringBuilder message = new StringBuilder();
+
+        message.append("id: 332\n");
+        message.append("header:\n");
+        message.append("  customer:\n");
+        message.append("    number: 123123\n");
+        message.append("    name: Joe Bloggs\n");
+        message.append("order-items:\n");
+        for(int i = 0; i < itemCount; i++) {
+            message.append("  - product: ").append(product(i)).append('\n');
+            message.append("    quantity: ").append(quantity(i)).append('\n');
+            message.append("    price: ").append(price(i)).append('\n');
+        }
+
+        return message.toString();
+    }
+
+    public static String edi(int itemCount) {
+        StringBuilder message = new StringBuilder();
+
+        message.append("HDR*332*123123^Joe Bloggs\n");
+        for(int i = 0; i < itemCount; i++) {
+            message.append("ITM*").append(product(i)).append('*').append(quantity(i)).append('*').append(price(i)).append('\n');
+        }
+
+        return message.toString();
+    }
+
+    public static String fixedLength(int itemCount) {
+        StringBuilder message = new StringBuilder();
+
+        for(int i = 0; i < itemCount; i++) {
+            pad(message, Long.toString(product(i)), 8);
+            pad(message, Integer.toString(quantity(i)), 4);
+            pad(message, price(i), 8);
+            message.append('\n');
+        }
+
+        return message.toString();
+    }
+
+    public static String flatFile(int itemCount) {
+        StringBuilder message = new StringBuilder();
+
+        for(int i = 0; i < itemCount; i++) {
+            message.append(product(i)).append('|').append(quantity(i)).append('|').append(price(i)).append('\n');
+        }
+
+        return message.toString();
+    }
+
+    private static long product(int item) {
+        return 100000 + item;
+    }
+
+    private static int quantity(int item) {
+        return (item % 10) + 1;
+    }
+
+    private static String price(int item) {
+        return (item % 100) + "." + (10 + item % 90);
+    }
+
+    private static void pad(StringBuilder message, String value, int length) {
+        message.append(value);
+        for(int i = value.length(); i < length; i++) {
+            message.append(' ');
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.benchmark;
+
+import org.milyn.Smooks;
+import org.milyn.payload.StringSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reader cartridge benchmark.
+ * <p/>
+ * Filters the same order message in each of the reader cartridge formats, with no visitors and no result i.e.
+ * measures the cost of turning the message into a stream of SAX events.  The "xml" format is the baseline (the
+ * default XML reader).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReaderBenchmark {
+
+    @Param({"xml", "csv", "json", "yaml", "edi", "fixed-length", "flatfile"})
+    public String format;
+
+    @Param({"10", "1000", "10000"})
+    public int itemCount;
+
+    private Smooks smooks;
+    private String message;
+
+    @Setup
+    public void setup() throws IOException, SAXException {
+        if(format.equals("xml")) {
+            smooks = new Smooks();
+        } else {
+            smooks = new Smooks(getClass().getResourceAsStream("reader-" + format + ".xml"));
+        }
+        message = OrderMessages.create(format, itemCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        smooks.close();
+    }
+
+    @Benchmark
+    public void filter() {
+        smooks.filterSource(new StringSource(message));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.benchmark;
+
+import org.milyn.Smooks;
+import org.milyn.payload.ByteResult;
+import org.milyn.payload.JavaResult;
+import org.milyn.payload.StringResult;
+import org.milyn.payload.StringSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+import javax.xml.transform.Result;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result benchmark.
+ * <p/>
+ * Filters an XML order message (with javabean binding configured) to each of the main result types.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResultBenchmark {
+
+    @Param({"ByteResult", "JavaResult", "StringResult"})
+    public String resultType;
+
+    @Param({"10", "1000", "10000"})
+    public int itemCount;
+
+    private Smooks smooks;
+    private String message;
+
+    @Setup
+    public void setup() throws IOException, SAXException {
+        smooks = new Smooks(getClass().getResourceAsStream("javabean-binding.xml"));
+        message = OrderMessages.xml(itemCount);
+    }
+
+    @TearDown
+    public void tearDown() {
+        smooks.close();
+    }
+
+    @Benchmark
+    public Result filter() {
+        Result result = createResult();
+
+        smooks.filterSource(new StringSource(message), result);
+
+        return result;
+    }
+
+    private Result createResult() {
+        if(resultType.equals("ByteResult")) {
+            return new ByteResult();
+        } else if(resultType.equals("JavaResult")) {
+            return new JavaResult();
+        } else {
+            return new StringResult();
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.milyn.container.ExecutionContext;
 import org.milyn.delivery.VisitorAppender;
 import org.milyn.delivery.VisitorConfigMap;
 import org.milyn.delivery.annotation.Initialize;
+import org.milyn.delivery.chunk.FileChunk;
 import org.milyn.delivery.dom.DOMVisitAfter;
 import org.milyn.delivery.ordering.Consumer;
 import org.milyn.delivery.sax.SAXElement;
@@ -35,7 +36,7 @@ import org.milyn.expression.MVELExpressionEvaluator;
 import org.milyn.function.StringFunctionExecutor;
 import org.milyn.javabean.Bean;
 import org.milyn.javabean.context.BeanContext;
-import org.milyn.xml.SmooksXMLReader;
+import org.milyn.xml.ResettableXMLReader;
 import org.w3c.dom.Element;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
@@ -150,7 +151,7 @@ import java.util.Map;
  * @author tfennelly
  * @deprecated Use the {@link org.milyn.flatfile.FlatFileReader} configured with the {@link CSVRecordParserFactory}.
  */
-public class CSVReader implements SmooksXMLReader, VisitorAppender {
+public class CSVReader implements ResettableXMLReader, VisitorAppender {
 
 	private static Log logger = LogFactory.getLog(CSVReader.class);
     private static Attributes EMPTY_ATTRIBS = new AttributesImpl();
@@ -292,6 +293,11 @@ public class CSVReader implements SmooksXMLReader, VisitorAppender {
 		this.execContext = request;
 	}
 
+	public void reset() {
+		contentHandler = null;
+		execContext = null;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.xml.sax.XMLReader#parse(org.xml.sax.InputSource)
 	 */
@@ -305,8 +311,7 @@ public class CSVReader implements SmooksXMLReader, VisitorAppender {
 
         try {
 			Reader csvStreamReader;
-			au.com.bytecode.opencsv.CSVReader csvLineReader;
-	        String[] csvRecord;
+			CSVTokenizer csvTokenizer;
 	
 			// Get a reader for the CSV source...
 	        csvStreamReader = csvInputSource.getCharacterStream();
@@ -314,26 +319,42 @@ public class CSVReader implements SmooksXMLReader, VisitorAppender {
 	            csvStreamReader = new InputStreamReader(csvInputSource.getByteStream(), encoding);
 	        }
 	
-	        // Create the CSV line reader...
-	        csvLineReader = new au.com.bytecode.opencsv.CSVReader(csvStreamReader, separator, quoteChar, escapeChar, skipLines);
+	        // Create the CSV tokenizer...
+	        csvTokenizer = new CSVTokenizer(csvStreamReader, separator, quoteChar, escapeChar);
 
-			if (validateHeader) {
-				validateHeader(csvLineReader);
-			}
+	        FileChunk chunk = FileChunk.get(execContext);
+	        int lineNumber = 0;
+	        if(chunk != null) {
+	        	chunk.assertHeaderLines(skipLines + (validateHeader ? 1 : 0));
+	        }
+	        if(chunk == null || chunk.isFirst()) {
+	        	csvTokenizer.skipLines(skipLines);
+
+	        	if (validateHeader) {
+	        		validateHeader(csvTokenizer);
+	        	}
+	        } else {
+	        	// Filtering a later chunk of a chunked file (see ChunkedFileFilter).  The skipped lines and header
+	        	// are in the first chunk, but the records are numbered relative to the start of the file...
+	        	lineNumber = (int) chunk.getRecordOffset();
+	        }
 
 	        // Start the document and add the root "csv-set" element...
 	        contentHandler.startDocument();
 	        contentHandler.startElement(XMLConstants.NULL_NS_URI, rootElementName, StringUtils.EMPTY, EMPTY_ATTRIBS);
 	
 	        // Output each of the CVS line entries...
-	        int lineNumber = 0;
 	        int expectedCount = getExpectedColumnsCount();
+	        AttributesImpl attrs = new AttributesImpl();
 	
-	        while ((csvRecord = csvLineReader.readNext()) != null) {
+	        while (csvTokenizer.nextRecord()) {
+	        	int recordLength = csvTokenizer.getFieldCount();
 	        	lineNumber++; // First line is line "1"
 	
-	        	if(csvRecord.length < expectedCount && strict) {
-	        		logger.debug("[CORRUPT-CSV] CSV line #" + lineNumber + " invalid [" + Arrays.asList(csvRecord) + "].  The line should contain number of items at least as in CSV config file " + csvFields.length + " fields [" + csvFields + "], but contains " + csvRecord.length + " fields.  Ignoring!!");
+	        	if(recordLength < expectedCount && strict) {
+	        		if(logger.isDebugEnabled()) {
+	        			logger.debug("[CORRUPT-CSV] CSV line #" + lineNumber + " invalid [" + Arrays.asList(csvTokenizer.getFields()) + "].  The line should contain number of items at least as in CSV config file " + csvFields.length + " fields [" + csvFields + "], but contains " + recordLength + " fields.  Ignoring!!");
+	        		}
 	        		continue;
 	        	}
 	
@@ -342,12 +363,13 @@ public class CSVReader implements SmooksXMLReader, VisitorAppender {
 	                contentHandler.characters(INDENT_1, 0, 1);
 	            }
 	
-	            AttributesImpl attrs = new AttributesImpl();
+	            // The attributes are copied by the consumer, so the same instance can be used for every record...
+	            attrs.clear();
 	            // If we reached here it means that this line has to be in the sax stream
 	            // hence we first add the record number attribute on the csv-record element
 	            attrs.addAttribute(XMLConstants.NULL_NS_URI, RECORD_NUMBER_ATTR, RECORD_NUMBER_ATTR, "xs:int", Integer.toString(lineNumber));
 	            // if this line is truncated, we add the truncated attribute onto the csv-record element
-	            if (csvRecord.length < expectedCount)
+	            if (recordLength < expectedCount)
 	            	attrs.addAttribute(XMLConstants.NULL_NS_URI, RECORD_TRUNCATED_ATTR, RECORD_TRUNCATED_ATTR, "xs:boolean", Boolean.TRUE.toString());
 	            contentHandler.startElement(XMLConstants.NULL_NS_URI, recordElementName, StringUtils.EMPTY, attrs);
 	        	int recordIt = 0;
@@ -369,17 +391,17 @@ public class CSVReader implements SmooksXMLReader, VisitorAppender {
 	                }
 	
 	                // Don't insert the element if the csv record does not contain it!!
-	                if (recordIt < csvRecord.length) {
-	                	String value = csvRecord[recordIt];
-	
+	                if (recordIt < recordLength) {
 	                    contentHandler.startElement(XMLConstants.NULL_NS_URI, fieldName, StringUtils.EMPTY, EMPTY_ATTRIBS);
 	
 	                    StringFunctionExecutor stringFunctionExecutor = field.getStringFunctionExecutor();
 	                    if(stringFunctionExecutor != null) {
-	                    	value = stringFunctionExecutor.execute(value);
+	                    	String value = stringFunctionExecutor.execute(csvTokenizer.getField(recordIt));
+	                    	contentHandler.characters(value.toCharArray(), 0, value.length());
+	                    } else {
+	                    	// Straight out of the tokenizer buffer.  No String per field...
+	                    	contentHandler.characters(csvTokenizer.getBuffer(), csvTokenizer.getFieldOffset(recordIt), csvTokenizer.getFieldLength(recordIt));
 	                    }
-	
-	                    contentHandler.characters(value.toCharArray(), 0, value.length());
 	                    contentHandler.endElement(XMLConstants.NULL_NS_URI, fieldName, StringUtils.EMPTY);
 	                }
 	
@@ -411,12 +433,13 @@ public class CSVReader implements SmooksXMLReader, VisitorAppender {
         }
 	}
 
-	private void validateHeader(final au.com.bytecode.opencsv.CSVReader reader) throws IOException {
-		String[] headers = reader.readNext();
-		if (headers == null) {
+	private void validateHeader(final CSVTokenizer tokenizer) throws IOException {
+		if (!tokenizer.nextRecord()) {
 			throw new CSVHeaderValidationException(Arrays.asList(getFieldNames(fields)));
 		}
 
+		String[] headers = tokenizer.getFields();
+
 		if (validateHeader(fields, headers)) {
 			return;
 		}
@@ -0,0 +1,90 @@
+/*
+ * Milyn - Copyright (C) 2006 - 2010
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (version 2.1) as published by the Free Software
+ * Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details:
+ * http://www.gnu.org/licenses/lgpl.txt
+ */
+
+
+package org.milyn.csv;
+
+import org.milyn.SmooksException;
+import org.milyn.delivery.chunk.RecordBoundaryScanner;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * CSV {@link RecordBoundaryScanner}.
+ * <p/>
+ * Quote aware i.e. line terminators inside a quoted field don't end the record.  For use with the
+ * {@link org.milyn.delivery.chunk.ChunkedFileFilter}.
+ */
+public class CSVRecordBoundaryScanner implements RecordBoundaryScanner {
+
+    private final char quoteChar;
+    private final char escapeChar;
+    private int quoteByte;
+    private int escapeByte;
+    private boolean inQuotes;
+    private boolean escaped;
+
+    /**
+     * Public constructor.
+     * <p/>
+     * Uses the default CSV reader quote ('"') and escape ('\') characters.
+     */
+    public CSVRecordBoundaryScanner() {
+        this('"', '\\');
+    }
+
+    /**
+     * Public constructor.
+     * @param quoteChar Quote character.
+     * @param escapeChar Escape character.
+     */
+    public CSVRecordBoundaryScanner(char quoteChar, char escapeChar) {
+        this.quoteChar = quoteChar;
+        this.escapeChar = escapeChar;
+    }
+
+    public void reset(Charset encoding) {
+        quoteByte = toSingleByte(quoteChar, encoding);
+        escapeByte = toSingleByte(escapeChar, encoding);
+        inQuotes = false;
+        escaped = false;
+    }
+
+    public void scan(byte b) {
+        if(escaped) {
+            escaped = false;
+        } else if(b == escapeByte) {
+            escaped = true;
+        } else if(b == quoteByte) {
+            inQuotes = !inQuotes;
+        }
+    }
+
+    public boolean isInRecord() {
+        return inQuotes;
+    }
+
+    private static int toSingleByte(char c, Charset encoding) {
+        ByteBuffer encoded = encoding.encode(String.valueOf(c));
+
+        if(encoded.remaining() != 1) {
+            throw new SmooksException("Unsupported CSV character '" + c + "' for chunked file encoding '" + encoding.name() + "'.  Must encode to a single byte.");
+        }
+
+        return encoded.get();
+    }
+}
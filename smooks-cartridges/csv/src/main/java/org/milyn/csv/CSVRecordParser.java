@@ -18,7 +18,7 @@ package org.milyn.csv;
 
 import java.io.IOException;
 import java.io.Reader;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.milyn.flatfile.variablefield.VariableFieldRecordParser;
@@ -31,7 +31,7 @@ import org.xml.sax.InputSource;
  */
 public class CSVRecordParser<T extends CSVRecordParserFactory> extends VariableFieldRecordParser<T> {
 
-    private au.com.bytecode.opencsv.CSVReader csvLineReader;
+    private CSVTokenizer csvTokenizer;
 
     /**
      * {@inheritDoc}
@@ -44,9 +44,9 @@ public class CSVRecordParser<T extends CSVRecordParserFactory> extends VariableF
                     "Invalid InputSource type supplied to CSVRecordParser.  Must contain a Reader instance.");
         }
 
-        // Create the CSV line reader...
+        // Create the CSV tokenizer...
         T factory = getFactory();
-        csvLineReader = new au.com.bytecode.opencsv.CSVReader(reader, factory.getSeparator(), factory.getQuoteChar(), factory.getEscapeChar());
+        csvTokenizer = new CSVTokenizer(reader, factory.getSeparator(), factory.getQuoteChar(), factory.getEscapeChar());
     }
 
     /**
@@ -54,13 +54,17 @@ public class CSVRecordParser<T extends CSVRecordParserFactory> extends VariableF
      */
     @Override
     public List<String> nextRecordFieldValues() throws IOException {
-        String[] csvRecord = csvLineReader.readNext();
-
-        if (csvRecord == null) {
+        if (!csvTokenizer.nextRecord()) {
             return null;
         }
 
-        return Arrays.asList(csvRecord);
+        int fieldCount = csvTokenizer.getFieldCount();
+        List<String> fieldValues = new ArrayList<String>(fieldCount);
+        for (int i = 0; i < fieldCount; i++) {
+            fieldValues.add(csvTokenizer.getField(i));
+        }
+
+        return fieldValues;
     }
 
     @Override
@@ -0,0 +1,349 @@
+/*
+ * Milyn - Copyright (C) 2006 - 2010
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (version 2.1) as published by the Free Software
+ * Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details:
+ * http://www.gnu.org/licenses/lgpl.txt
+ */
+
+package org.milyn.csv;
+
+import org.milyn.assertion.AssertArgument;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Streaming CSV tokenizer.
+ * <p/>
+ * Reads CSV records from a {@link Reader} into a reusable <code>char[]</code> buffer.  Quote and escape
+ * characters are removed in place, so the field values of the current record can be read straight out of the
+ * {@link #getBuffer() buffer} (see {@link #getFieldOffset(int)} and {@link #getFieldLength(int)}) without
+ * creating a String per field.  The buffer contents are only valid until the next call to {@link #nextRecord()}.
+ * <p/>
+ * The tokenizing rules are those of the opencsv reader previously used by the CSV cartridge:
+ * <ul>
+ *  <li>Records are terminated by "\n", "\r" or "\r\n", unless the terminator is inside a quoted field, in which
+ *      case it is added to the field value as "\n".</li>
+ *  <li>A doubled quote character inside a quoted field, or an escaped quote/escape character, is
+ *      added to the field value as a single character.  An escape character that doesn't escape anything is
+ *      dropped.</li>
+ *  <li>An empty line is a record with a single empty field.</li>
+ *  <li>A quoted field left unterminated at the end of the stream is dropped.</li>
+ * </ul>
+ */
+public class CSVTokenizer {
+
+    /**
+     * Default buffer size.  The buffer grows if a single record is larger than this.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private final Reader reader;
+    private final char separator;
+    private final char quoteChar;
+    private final char escapeChar;
+    private char[] buffer;
+    private int limit;
+    private int position;
+    private int recordStart;
+    private boolean endOfStream;
+    private boolean skipLF;
+    private int[] fieldOffsets = new int[16];
+    private int[] fieldLengths = new int[16];
+    private int fieldCount;
+    private boolean inField;
+
+    /**
+     * Public constructor.
+     * @param reader The CSV stream reader.
+     * @param separator Field separator character.
+     * @param quoteChar Quote character.
+     * @param escapeChar Escape character.
+     */
+    public CSVTokenizer(Reader reader, char separator, char quoteChar, char escapeChar) {
+        this(reader, separator, quoteChar, escapeChar, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Public constructor.
+     * @param reader The CSV stream reader.
+     * @param separator Field separator character.
+     * @param quoteChar Quote character.
+     * @param escapeChar Escape character.
+     * @param bufferSize Initial buffer size.
+     */
+    public CSVTokenizer(Reader reader, char separator, char quoteChar, char escapeChar, int bufferSize) {
+        AssertArgument.isNotNull(reader, "reader");
+        if(bufferSize < 2) {
+            throw new IllegalArgumentException("Invalid 'bufferSize' value '" + bufferSize + "'.  Must be 2 or greater.");
+        }
+        this.reader = reader;
+        this.separator = separator;
+        this.quoteChar = quoteChar;
+        this.escapeChar = escapeChar;
+        this.buffer = new char[bufferSize];
+    }
+
+    /**
+     * Skip lines at the start of the stream (e.g. a header line).
+     * <p/>
+     * Lines are skipped without any tokenizing i.e. quoted line terminators are not taken into account.
+     *
+     * @param count The number of lines to skip.
+     * @throws IOException Error reading the stream.
+     */
+    public void skipLines(int count) throws IOException {
+        while(count > 0) {
+            if(position == limit) {
+                recordStart = position;
+                if(!fill()) {
+                    return;
+                }
+                continue;
+            }
+
+            char c = buffer[position++];
+            if(skipLF) {
+                skipLF = false;
+                if(c == '\n') {
+                    continue;
+                }
+            }
+            if(c == '\n') {
+                count--;
+            } else if(c == '\r') {
+                skipLF = true;
+                count--;
+            }
+        }
+    }
+
+    /**
+     * Read the next record.
+     * @return True if a record was read, otherwise false (end of stream).
+     * @throws IOException Error reading the stream.
+     */
+    public boolean nextRecord() throws IOException {
+        int write = position;
+        int fieldStart = write;
+        int column = 0;
+        char previous = 0;
+        boolean inQuotes = false;
+        boolean consumed = false;
+
+        fieldCount = 0;
+        recordStart = position;
+        while(true) {
+            // Make sure there's a char of lookahead (escapes and quotes), unless at the end of the stream...
+            if(limit - position < 2 && !endOfStream) {
+                int shift = recordStart;
+                fill();
+                write -= shift;
+                fieldStart -= shift;
+                continue;
+            }
+
+            if(position == limit) {
+                if(!consumed) {
+                    return false;
+                } else if(inQuotes) {
+                    // Unterminated quoted field.  Drop it...
+                    return (fieldCount > 0);
+                }
+                addField(fieldStart, write - fieldStart);
+                return true;
+            }
+
+            char c = buffer[position];
+            if(skipLF) {
+                skipLF = false;
+                if(c == '\n') {
+                    position++;
+                    continue;
+                }
+            }
+            consumed = true;
+
+            if(c == '\n' || c == '\r') {
+                position++;
+                skipLF = (c == '\r');
+                if(!inQuotes) {
+                    addField(fieldStart, write - fieldStart);
+                    return true;
+                }
+                buffer[write++] = '\n';
+                column = 0;
+                previous = 0;
+                continue;
+            }
+
+            int next = (position + 1 < limit ? buffer[position + 1] : -1);
+            if(next == '\n' || next == '\r') {
+                next = -1;
+            }
+
+            if(c == escapeChar) {
+                if((inQuotes || inField) && (next == quoteChar || next == escapeChar)) {
+                    buffer[write++] = (char) next;
+                    previous = (char) next;
+                    position += 2;
+                    column += 2;
+                    continue;
+                }
+            } else if(c == quoteChar) {
+                if((inQuotes || inField) && next == quoteChar) {
+                    buffer[write++] = quoteChar;
+                    previous = quoteChar;
+                    inField = !inField;
+                    position += 2;
+                    column += 2;
+                    continue;
+                }
+                if(column > 2 && previous != separator && next != -1 && next != separator) {
+                    // Quote in the middle of a field e.g. a,bc"d"ef,g ...
+                    if(write > fieldStart && isAllWhitespace(fieldStart, write)) {
+                        write = fieldStart;
+                    } else {
+                        buffer[write++] = c;
+                    }
+                }
+                inQuotes = !inQuotes;
+                inField = !inField;
+            } else if(c == separator && !inQuotes) {
+                addField(fieldStart, write - fieldStart);
+                fieldStart = write;
+                inField = false;
+            } else {
+                buffer[write++] = c;
+                inField = true;
+            }
+
+            previous = c;
+            position++;
+            column++;
+        }
+    }
+
+    /**
+     * Get the number of fields in the current record.
+     * @return The number of fields in the current record.
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     * Get the buffer containing the field values of the current record.
+     * <p/>
+     * The buffer may be reallocated by {@link #nextRecord()}, so don't hold onto it across records.
+     *
+     * @return The field value buffer.
+     */
+    public char[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * Get the offset of a field value in the {@link #getBuffer() buffer}.
+     * @param index The field index.
+     * @return The field value offset.
+     */
+    public int getFieldOffset(int index) {
+        assertFieldIndex(index);
+        return fieldOffsets[index];
+    }
+
+    /**
+     * Get the length of a field value.
+     * @param index The field index.
+     * @return The field value length.
+     */
+    public int getFieldLength(int index) {
+        assertFieldIndex(index);
+        return fieldLengths[index];
+    }
+
+    /**
+     * Get a field value as a String.
+     * @param index The field index.
+     * @return The field value.
+     */
+    public String getField(int index) {
+        assertFieldIndex(index);
+        return new String(buffer, fieldOffsets[index], fieldLengths[index]);
+    }
+
+    /**
+     * Get all the field values of the current record as Strings.
+     * @return The field values.
+     */
+    public String[] getFields() {
+        String[] fields = new String[fieldCount];
+
+        for(int i = 0; i < fieldCount; i++) {
+            fields[i] = new String(buffer, fieldOffsets[i], fieldLengths[i]);
+        }
+
+        return fields;
+    }
+
+    private boolean fill() throws IOException {
+        if(recordStart > 0) {
+            // Move the current record to the start of the buffer...
+            System.arraycopy(buffer, recordStart, buffer, 0, limit - recordStart);
+            for(int i = 0; i < fieldCount; i++) {
+                fieldOffsets[i] -= recordStart;
+            }
+            limit -= recordStart;
+            position -= recordStart;
+            recordStart = 0;
+        }
+        if(limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+
+        int count = reader.read(buffer, limit, buffer.length - limit);
+        if(count == -1) {
+            endOfStream = true;
+            return false;
+        }
+        limit += count;
+
+        return true;
+    }
+
+    private void addField(int offset, int length) {
+        if(fieldCount == fieldOffsets.length) {
+            fieldOffsets = Arrays.copyOf(fieldOffsets, fieldCount * 2);
+            fieldLengths = Arrays.copyOf(fieldLengths, fieldCount * 2);
+        }
+        fieldOffsets[fieldCount] = offset;
+        fieldLengths[fieldCount] = length;
+        fieldCount++;
+    }
+
+    private boolean isAllWhitespace(int start, int end) {
+        for(int i = start; i < end; i++) {
+            if(!Character.isWhitespace(buffer[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void assertFieldIndex(int index) {
+        if(index < 0 || index >= fieldCount) {
+            throw new IndexOutOfBoundsException("Invalid field index '" + index + "'.  Current record has " + fieldCount + " fields.");
+        }
+    }
+}
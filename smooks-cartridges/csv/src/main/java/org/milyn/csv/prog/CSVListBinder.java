@@ -15,15 +15,14 @@
 */
 package org.milyn.csv.prog;
 
-import org.milyn.Smooks;
-import org.milyn.FilterSettings;
 import org.milyn.csv.CSVRecordParserConfigurator;
 import org.milyn.flatfile.Binding;
 import org.milyn.flatfile.BindingType;
-import org.milyn.payload.JavaResult;
+import org.milyn.flatfile.variablefield.VariableFieldRecordParserFactory;
+import org.milyn.javabean.RecordBeanIterator;
 import org.milyn.assertion.AssertArgument;
 
-import javax.xml.transform.stream.StreamSource;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 import java.io.Reader;
@@ -52,30 +51,45 @@ import java.io.InputStreamReader;
  */
 public class CSVListBinder {
 
-    private String beanId = UUID.randomUUID().toString();
-    private Smooks smooks;
+    private VariableFieldRecordParserFactory parserFactory;
 
     public CSVListBinder(String fields, Class recordType) {
         AssertArgument.isNotNullAndNotEmpty(fields, "fields");
         AssertArgument.isNotNull(recordType, "recordType");
 
-        smooks = new Smooks();
-        smooks.setFilterSettings(FilterSettings.DEFAULT_SAX);
-        smooks.setReaderConfig(new CSVRecordParserConfigurator(fields)
-                .setBinding(new Binding(beanId, recordType, BindingType.LIST)));
+        parserFactory = new CSVRecordParserConfigurator(fields)
+                .setBinding(new Binding(UUID.randomUUID().toString(), recordType, BindingType.LIST))
+                .createParserFactory();
     }
 
     public List bind(Reader csvStream) {
-        AssertArgument.isNotNull(csvStream, "csvStream");
-
-        JavaResult javaResult = new JavaResult();
+        RecordBeanIterator iterator = iterator(csvStream);
 
-        smooks.filterSource(new StreamSource(csvStream), javaResult);
-
-        return (List) javaResult.getBean(beanId);
+        try {
+            return iterator.toList();
+        } finally {
+            // Closes the stream...
+            iterator.close();
+        }
     }
 
     public List bind(InputStream csvStream) {
         return bind(new InputStreamReader(csvStream));
     }
+
+    /**
+     * Stream the CSV records as bound objects.
+     * <p/>
+     * The records are read and bound one at a time as the {@link Iterator} is advanced, so the
+     * full record set is never held in memory.
+     *
+     * @param csvStream The CSV stream.
+     * @return The bound record {@link Iterator}.  Must be {@link RecordBeanIterator#close() closed} if not read to the
+     * end of the stream.
+     */
+    public RecordBeanIterator iterator(Reader csvStream) {
+        AssertArgument.isNotNull(csvStream, "csvStream");
+
+        return parserFactory.newBindingIterator(csvStream);
+    }
 }
@@ -15,17 +15,16 @@
 */
 package org.milyn.csv.prog;
 
-import org.milyn.Smooks;
-import org.milyn.FilterSettings;
 import org.milyn.csv.CSVRecordParserConfigurator;
 import org.milyn.flatfile.Binding;
 import org.milyn.flatfile.BindingType;
-import org.milyn.payload.JavaResult;
+import org.milyn.flatfile.variablefield.VariableFieldRecordParserFactory;
+import org.milyn.javabean.RecordBeanIterator;
 import org.milyn.assertion.AssertArgument;
 
-import javax.xml.transform.stream.StreamSource;
-import java.util.UUID;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.UUID;
 import java.io.Reader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -51,31 +50,48 @@ import java.io.InputStreamReader;
  */
 public class CSVMapBinder {
 
-    private String beanId = UUID.randomUUID().toString();
-    private Smooks smooks;
+    private VariableFieldRecordParserFactory parserFactory;
+    private String keyField;
 
     public CSVMapBinder(String fields, Class recordType, String keyField) {
         AssertArgument.isNotNullAndNotEmpty(fields, "fields");
         AssertArgument.isNotNull(recordType, "recordType");
         AssertArgument.isNotNullAndNotEmpty(keyField, "keyField");
 
-        smooks = new Smooks();
-        smooks.setFilterSettings(FilterSettings.DEFAULT_SAX);
-        smooks.setReaderConfig(new CSVRecordParserConfigurator(fields)
-                .setBinding(new Binding(beanId, recordType, BindingType.MAP).setKeyField(keyField)));
+        parserFactory = new CSVRecordParserConfigurator(fields)
+                .setBinding(new Binding(UUID.randomUUID().toString(), recordType, BindingType.MAP).setKeyField(keyField))
+                .createParserFactory();
+        this.keyField = keyField;
     }
 
     public Map bind(Reader csvStream) {
-        AssertArgument.isNotNull(csvStream, "csvStream");
-
-        JavaResult javaResult = new JavaResult();
-
-        smooks.filterSource(new StreamSource(csvStream), javaResult);
+        RecordBeanIterator iterator = iterator(csvStream);
 
-        return (Map) javaResult.getBean(beanId);
+        try {
+            return iterator.toMap(keyField);
+        } finally {
+            // Closes the stream...
+            iterator.close();
+        }
     }
 
     public Map bind(InputStream csvStream) {
         return bind(new InputStreamReader(csvStream));
     }
+
+    /**
+     * Stream the CSV records as bound objects.
+     * <p/>
+     * The records are read and bound one at a time as the {@link Iterator} is advanced, so the
+     * full record set is never held in memory.
+     *
+     * @param csvStream The CSV stream.
+     * @return The bound record {@link Iterator}.  Must be {@link RecordBeanIterator#close() closed} if not read to the
+     * end of the stream.
+     */
+    public RecordBeanIterator iterator(Reader csvStream) {
+        AssertArgument.isNotNull(csvStream, "csvStream");
+
+        return parserFactory.newBindingIterator(csvStream);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,243 @@
+/*
+ * Milyn - Copyright (C) 2006 - 2010
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (version 2.1) as published by the Free Software
+ * Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details:
+ * http://www.gnu.org/licenses/lgpl.txt
+ */
+
+package org.milyn.csv;
+
+import org.junit.Test;
+import org.milyn.Smooks;
+import org.milyn.SmooksException;
+import org.milyn.container.ExecutionContext;
+import org.milyn.delivery.chunk.ChunkedFileFilter;
+import org.milyn.delivery.chunk.LineBoundaryScanner;
+import org.milyn.delivery.sax.SAXElement;
+import org.milyn.delivery.sax.SAXVisitBefore;
+import org.milyn.flatfile.Binding;
+import org.milyn.flatfile.BindingType;
+import org.milyn.javabean.context.BeanContext;
+import org.milyn.payload.JavaResult;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CSVChunkedFileFilterTest {
+
+    @Test
+    public void test_split_quoted_line_terminators() throws IOException {
+        // The middle of the file is inside the quoted field of the first record...
+        File file = createFile("name,note\na,\"x\ny\nz\"\nb,c\nd,e\n");
+
+        try {
+            ChunkedFileFilter filter = new ChunkedFileFilter(new Smooks(), new CSVRecordBoundaryScanner()).setThreadCount(2).setMinChunkSize(1).setHeaderLines(1);
+
+            assertEquals("[[index: 0, offset: 0, length: 20, lineOffset: 0, recordOffset: 0], [index: 1, offset: 20, length: 8, lineOffset: 4, recordOffset: 1]]", filter.split(file).toString());
+
+            // Whereas a line based split ends the first chunk inside the quoted field...
+            filter = new ChunkedFileFilter(new Smooks(), new LineBoundaryScanner()).setThreadCount(2).setMinChunkSize(1).setHeaderLines(1);
+            assertEquals(15, filter.split(file).get(0).getLength());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void test_split_quoted_escapes() throws IOException {
+        // An escaped quote doesn't end the quoted field...
+        File file = createFile("a,\"x\\\"\ny\"\nb,c\nd,e\n");
+
+        try {
+            ChunkedFileFilter filter = new ChunkedFileFilter(new Smooks(), new CSVRecordBoundaryScanner()).setThreadCount(2).setMinChunkSize(1);
+
+            assertEquals("[[index: 0, offset: 0, length: 10, lineOffset: 0, recordOffset: 0], [index: 1, offset: 10, length: 8, lineOffset: 2, recordOffset: 1]]", filter.split(file).toString());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void test_filterChunks() throws IOException {
+        File file = createFile(createRecords(20));
+
+        try {
+            List<JavaResult> results = createFilter().filterChunks(file);
+            int nextRecordNumber = 1;
+
+            assertEquals(4, results.size());
+            for(JavaResult result : results) {
+                List<?> recordNumbers = (List<?>) result.getBean("recordNumbers");
+                List<?> people = (List<?>) result.getBean("people");
+
+                // Each chunk carries on numbering the records from where the previous chunk left off...
+                assertFalse(recordNumbers.isEmpty());
+                assertEquals(recordNumbers.size(), people.size());
+                for(int i = 0; i < recordNumbers.size(); i++) {
+                    assertEquals(Integer.toString(nextRecordNumber), recordNumbers.get(i));
+                    assertEquals("name-" + nextRecordNumber, ((Person) people.get(i)).getFirstname());
+                    nextRecordNumber++;
+                }
+            }
+            assertEquals(21, nextRecordNumber);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void test_filter_File() throws IOException {
+        File file = createFile(createRecords(20));
+
+        try {
+            assertRecords(20, createFilter().filter(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void test_filter_Source() throws IOException {
+        File file = createFile(createRecords(20));
+
+        try {
+            assertRecords(20, createFilter().filter(new StreamSource(file.getAbsolutePath())));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void test_filter_File_validateHeader() throws IOException {
+        File file = createFile(createRecords(20));
+
+        try {
+            CSVRecordParserConfigurator readerConfig = new CSVRecordParserConfigurator("firstname,lastname");
+            Smooks smooks = new Smooks();
+
+            // The header is validated on the first chunk only...
+            readerConfig.setBinding(new Binding("people", Person.class, BindingType.LIST));
+            readerConfig.getParameters().setProperty("validateHeader", "true");
+            smooks.setReaderConfig(readerConfig);
+            smooks.addVisitor(new RecordNumberCollector(), "csv-record");
+
+            ChunkedFileFilter filter = new ChunkedFileFilter(smooks, new CSVRecordBoundaryScanner()).setThreadCount(4).setMinChunkSize(1).setHeaderLines(1);
+            assertEquals(4, filter.filterChunks(file).size());
+            assertRecords(20, filter.filter(file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void test_filter_headerLines_mismatch() throws IOException {
+        File file = createFile(createRecords(20));
+
+        try {
+            // The reader skips 1 line, so the later chunks would be numbered 1 record too high...
+            createFilter().setHeaderLines(0).filter(file);
+            fail("Expected SmooksException");
+        } catch(SmooksException e) {
+            assertTrue(getRootCause(e).getMessage().startsWith("Chunked file was split with 0 header lines, but the reader skips or reads 1 header lines."));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private Throwable getRootCause(Throwable t) {
+        while(t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    private void assertRecords(int recordCount, JavaResult result) {
+        List<?> recordNumbers = (List<?>) result.getBean("recordNumbers");
+        List<?> people = (List<?>) result.getBean("people");
+
+        assertEquals(recordCount, recordNumbers.size());
+        assertEquals(recordCount, people.size());
+        for(int i = 0; i < recordCount; i++) {
+            int recordNumber = i + 1;
+            Person person = (Person) people.get(i);
+
+            assertEquals(Integer.toString(recordNumber), recordNumbers.get(i));
+            assertEquals("name-" + recordNumber, person.getFirstname());
+            if(recordNumber % 3 == 0) {
+                assertEquals("multi\nline\nnote " + recordNumber, person.getLastname());
+            } else {
+                assertEquals("note " + recordNumber, person.getLastname());
+            }
+        }
+    }
+
+    private ChunkedFileFilter createFilter() {
+        Smooks smooks = new Smooks();
+
+        smooks.setReaderConfig(new CSVRecordParserConfigurator("firstname,lastname")
+                .setSkipLineCount(1)
+                .setBinding(new Binding("people", Person.class, BindingType.LIST)));
+        smooks.addVisitor(new RecordNumberCollector(), "csv-record");
+
+        return new ChunkedFileFilter(smooks, new CSVRecordBoundaryScanner()).setThreadCount(4).setMinChunkSize(1).setHeaderLines(1);
+    }
+
+    private String createRecords(int recordCount) {
+        StringBuilder records = new StringBuilder("firstname,lastname\n");
+
+        for(int i = 1; i <= recordCount; i++) {
+            if(i % 3 == 0) {
+                // Quoted line terminators, which must not be counted as records...
+                records.append("name-").append(i).append(",\"multi\nline\nnote ").append(i).append("\"\n");
+            } else {
+                records.append("name-").append(i).append(",note ").append(i).append("\n");
+            }
+        }
+
+        return records.toString();
+    }
+
+    private File createFile(String content) throws IOException {
+        File file = File.createTempFile("chunked-file", ".csv");
+        FileOutputStream stream = new FileOutputStream(file);
+
+        try {
+            stream.write(content.getBytes("UTF-8"));
+        } finally {
+            stream.close();
+        }
+
+        return file;
+    }
+
+    private static class RecordNumberCollector implements SAXVisitBefore {
+
+        public void visitBefore(SAXElement element, ExecutionContext executionContext) throws SmooksException, IOException {
+            BeanContext beanContext = executionContext.getBeanContext();
+            // Only ever bound by this visitor...
+            @SuppressWarnings("unchecked")
+            List<String> recordNumbers = (List<String>) beanContext.getBean("recordNumbers");
+
+            if(recordNumbers == null) {
+                recordNumbers = new ArrayList<String>();
+                beanContext.addBean("recordNumbers", recordNumbers);
+            }
+            recordNumbers.add(element.getAttribute("number"));
+        }
+    }
+}
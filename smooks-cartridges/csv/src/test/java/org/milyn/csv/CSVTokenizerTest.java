@@ -0,0 +1,92 @@
+/*
+ * Milyn - Copyright (C) 2006 - 2010
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (version 2.1) as published by the Free Software
+ * Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details:
+ * http://www.gnu.org/licenses/lgpl.txt
+ */
+
+package org.milyn.csv;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CSVTokenizerTest {
+
+    @Test
+    public void test_simple() throws IOException {
+        assertEquals("[[a, b, c], [d, , f]]", tokenize("a,b,c\nd,,f\n", 1024));
+        assertEquals("[[a, b], [c, d]]", tokenize("a,b\r\nc,d", 1024));
+        assertEquals("[[a], [], [b]]", tokenize("a\r\rb\n", 1024));
+        assertEquals("[]", tokenize("", 1024));
+    }
+
+    @Test
+    public void test_quotes_and_escapes() throws IOException {
+        assertEquals("[[a,b, c]]", tokenize("\"a,b\",c", 1024));
+        assertEquals("[[Max \"The Man\" Mustermann, m.m@ex.org]]", tokenize("\"Max \\\"The Man\\\" Mustermann\",m.m@ex.org", 1024));
+        assertEquals("[[a\"b, c]]", tokenize("\"a\"\"b\",c", 1024));
+        assertEquals("[[line1\nline2, x], [y]]", tokenize("\"line1\r\nline2\",x\ny", 1024));
+        assertEquals("[[ab, c]]", tokenize("a\\b,c", 1024));
+    }
+
+    @Test
+    public void test_buffer_growth() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        List<String> expected = new ArrayList<String>();
+
+        for(int i = 0; i < 100; i++) {
+            csv.append("\"field ").append(i).append(", quoted\",").append(i).append("\n");
+            expected.add(Arrays.asList("field " + i + ", quoted", Integer.toString(i)).toString());
+        }
+
+        assertEquals(expected.toString(), tokenize(csv.toString(), 2));
+        assertEquals(expected.toString(), tokenize(csv.toString(), 7));
+    }
+
+    @Test
+    public void test_buffer_offsets() throws IOException {
+        CSVTokenizer tokenizer = new CSVTokenizer(new StringReader("x,\"a\"\"b\",c"), ',', '"', '\\');
+
+        assertTrue(tokenizer.nextRecord());
+        assertEquals(3, tokenizer.getFieldCount());
+        assertEquals("a\"b", new String(tokenizer.getBuffer(), tokenizer.getFieldOffset(1), tokenizer.getFieldLength(1)));
+        assertFalse(tokenizer.nextRecord());
+    }
+
+    @Test
+    public void test_skipLines() throws IOException {
+        CSVTokenizer tokenizer = new CSVTokenizer(new StringReader("h1,h2\r\nh3\na,b"), ',', '"', '\\');
+
+        tokenizer.skipLines(2);
+        assertTrue(tokenizer.nextRecord());
+        assertEquals("[a, b]", Arrays.asList(tokenizer.getFields()).toString());
+        assertFalse(tokenizer.nextRecord());
+    }
+
+    private String tokenize(String csv, int bufferSize) throws IOException {
+        CSVTokenizer tokenizer = new CSVTokenizer(new StringReader(csv), ',', '"', '\\', bufferSize);
+        List<String> records = new ArrayList<String>();
+
+        while(tokenizer.nextRecord()) {
+            records.add(Arrays.asList(tokenizer.getFields()).toString());
+        }
+
+        return records.toString();
+    }
+}
@@ -4,10 +4,13 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 
 import org.milyn.csv.Person;
+import org.milyn.javabean.RecordBeanIterator;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.io.InputStream;
+import java.io.StringReader;
 
 /**
  * @author
@@ -36,4 +39,62 @@ public class CSVBinderTest {
         assertEquals("(Tom, Fennelly, Ireland, Male, 4)", people.get("Tom").toString());
         assertEquals("(Mike, Fennelly, Ireland, Male, 2)", people.get("Mike").toString());
     }
+
+    @Test
+    public void test_CSVListBinder_iterator() {
+        CSVListBinder binder = new CSVListBinder("firstname,lastname,$ignore$,age,country", Person.class);
+        Iterator<Person> people = binder.iterator(new StringReader("Tom,Fennelly,Male,4,Ireland\nMike,Fennelly,Male,2,Ireland"));
+
+        assertTrue(people.hasNext());
+        assertEquals("(Tom, Fennelly, Ireland, null, 4)", people.next().toString());
+        assertTrue(people.hasNext());
+        assertEquals("(Mike, Fennelly, Ireland, null, 2)", people.next().toString());
+        assertFalse(people.hasNext());
+    }
+
+    @Test
+    public void test_CSVListBinder_closes_stream() {
+        CloseTrackingReader csvStream = new CloseTrackingReader("Tom,Fennelly,Male,4,Ireland");
+
+        CSVListBinder binder = new CSVListBinder("firstname,lastname,gender,age,country", Person.class);
+        assertEquals(1, binder.bind(csvStream).size());
+        assertTrue(csvStream.closed);
+    }
+
+    @Test
+    public void test_CSVMapBinder_closes_stream() {
+        CloseTrackingReader csvStream = new CloseTrackingReader("Tom,Fennelly,Male,4,Ireland");
+
+        CSVMapBinder binder = new CSVMapBinder("firstname,lastname,gender,age,country", Person.class, "firstname");
+        assertEquals(1, binder.bind(csvStream).size());
+        assertTrue(csvStream.closed);
+    }
+
+    @Test
+    public void test_CSVListBinder_iterator_close() {
+        CloseTrackingReader csvStream = new CloseTrackingReader("Tom,Fennelly,Male,4,Ireland\nMike,Fennelly,Male,2,Ireland");
+
+        CSVListBinder binder = new CSVListBinder("firstname,lastname,gender,age,country", Person.class);
+        RecordBeanIterator people = binder.iterator(csvStream);
+
+        assertEquals("(Tom, Fennelly, Ireland, Male, 4)", people.next().toString());
+        assertFalse(csvStream.closed);
+        people.close();
+        assertTrue(csvStream.closed);
+        assertFalse(people.hasNext());
+    }
+
+    private static class CloseTrackingReader extends StringReader {
+
+        private boolean closed;
+
+        private CloseTrackingReader(String s) {
+            super(s);
+        }
+
+        public void close() {
+            closed = true;
+            super.close();
+        }
+    }
 }
@@ -21,6 +21,11 @@ import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -62,7 +67,11 @@ public class EDIReader extends EDIParser implements SmooksXMLReader {
 	/**
 	 * Context lookup key for the mapping model table.
 	 */
-	private static String MAPPING_TABLE_CTX_KEY = EDIReader.class.getName() + "#MAPPING_TABLE_CTX_KEY";
+	private static String MAPPING_MODELS_CTX_KEY = EDIReader.class.getName() + "#MAPPING_MODELS_CTX_KEY";
+	/**
+	 * Context lookup key for the in-flight mapping model loads table.
+	 */
+	private static String MAPPING_LOADS_CTX_KEY = EDIReader.class.getName() + "#MAPPING_LOADS_CTX_KEY";
 	/**
 	 * Model resource configuration key.
 	 */
@@ -114,69 +123,143 @@ public class EDIReader extends EDIParser implements SmooksXMLReader {
 	 * Get the mapping model associated with the supplied SmooksResourceConfiguration.
 	 * <p/>
 	 * The parsed and validated model are cached in the Smooks container context, keyed
-	 * by the SmooksResourceConfiguration instance.
+	 * by the SmooksResourceConfiguration instance.  Cached models are looked up without
+	 * locking the configuration.  A model is parsed once, with concurrent lookups on the same
+	 * configuration waiting on that parse.  A failed parse is not cached.
 	 * @return The Mapping Model.
 	 * @throws IOException Error reading resource configuration data (the mapping model).
 	 * @throws SAXException Error parsing mapping model.
 	 */
 	private EdifactModel getMappingModel() throws IOException, SAXException {
-        EdifactModel edifactModel;
-        Hashtable mappings = getMappingTable(applicationContext);
+        final ConcurrentMap<SmooksResourceConfiguration, EdifactModel> mappings = getContextMap(applicationContext, MAPPING_MODELS_CTX_KEY);
+        EdifactModel edifactModel = mappings.get(configuration);
 
-		synchronized (configuration) {
-            edifactModel = (EdifactModel) mappings.get(configuration);
-            if(edifactModel == null) {
-				try {
-	            	ContainerResourceLocator resourceLocator = applicationContext.getResourceLocator();
+        if(edifactModel != null) {
+            if(logger.isDebugEnabled()) {
+                logger.debug("Found EDI mapping model [" + edifactModel.getEdimap().getDescription().getName() + ", Version " + edifactModel.getEdimap().getDescription().getVersion() + "] in the model cache.  Target Profile(s) " + getTargetProfiles() + ".");
+            }
+            return edifactModel;
+        }
+
+        ConcurrentMap<SmooksResourceConfiguration, FutureTask<EdifactModel>> loads = getContextMap(applicationContext, MAPPING_LOADS_CTX_KEY);
+        FutureTask<EdifactModel> load = loads.get(configuration);
 
-                    if(modelConfigData.startsWith("urn:") || modelConfigData.endsWith(".jar") || modelConfigData.endsWith(".zip")) {
-                        throw new IOException("Unsupported mapping model config URI for basic EDI Parser '" + modelConfigData + "'.  Check that you are using the correct EDI parser.  You may need to configure an Interchange Parser, such as the UN/EDIFACT parser.");
+        if(load == null) {
+            FutureTask<EdifactModel> newLoad = new FutureTask<EdifactModel>(new Callable<EdifactModel>() {
+                public EdifactModel call() throws Exception {
+                    // Check again.  The model may have been cached since the last check...
+                    EdifactModel model = mappings.get(configuration);
+                    if(model == null) {
+                        model = loadMappingModel();
+                        if(model != null) {
+                            mappings.put(configuration, model);
+                        }
                     }
+                    return model;
+                }
+            });
 
-	            	if(resourceLocator instanceof URIResourceLocator) {
-	            		// This will resolve config paths relative to the containing smooks config file....
-	            		edifactModel = EDIParser.parseMappingModel(modelConfigData, (resourceLocator).getBaseURI());
-	            	} else {
-	            		edifactModel = EDIParser.parseMappingModel(modelConfigData, URIResourceLocator.getSystemBaseURI());
-	            	}
-	    			if(edifactModel == null) {
-	    				logger.error("Invalid " + MODEL_CONFIG_KEY + " config value '" + modelConfigData + "'. Failed to locate EDI Mapping Model resource!");
-	    			}
-				} catch (IOException e) {
-                    IOException newE = new IOException("Error parsing EDI mapping model [" + configuration.getStringParameter(MODEL_CONFIG_KEY) + "].  Target Profile(s) " + getTargetProfiles() + ".");
-					newE.initCause(e);
-					throw newE;
-				} catch (SAXException e) {
-					throw new SAXException("Error parsing EDI mapping model [" + configuration.getStringParameter(MODEL_CONFIG_KEY) + "].  Target Profile(s) " + getTargetProfiles() + ".", e);
-				} catch (EDIConfigurationException e) {
-                    throw new SAXException("Error parsing EDI mapping model [" + configuration.getStringParameter(MODEL_CONFIG_KEY) + "].  Target Profile(s) " + getTargetProfiles() + ".", e);
+            load = loads.putIfAbsent(configuration, newLoad);
+            if(load == null) {
+                // This thread owns the load...
+                load = newLoad;
+                try {
+                    load.run();
+                } finally {
+                    // The model is in the mapping table now.  Removing the load also means
+                    // a failed load gets retried...
+                    loads.remove(configuration, load);
                 }
-                mappings.put(configuration, edifactModel);
-				logger.debug("Parsed, validated and cached EDI mapping model [" + edifactModel.getEdimap().getDescription().getName() + ", Version " + edifactModel.getEdimap().getDescription().getVersion() + "].  Target Profile(s) " + getTargetProfiles() + ".");
-			} else if(logger.isInfoEnabled()) {
-				logger.debug("Found EDI mapping model [" + edifactModel.getEdimap().getDescription().getName() + ", Version " + edifactModel.getEdimap().getDescription().getVersion() + "] in the model cache.  Target Profile(s) " + getTargetProfiles() + ".");
-			}
-		}
-		
-		return edifactModel;
+            }
+        }
+
+        try {
+            return load.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            IOException newE = new IOException("Interrupted while waiting on EDI mapping model [" + configuration.getStringParameter(MODEL_CONFIG_KEY) + "].  Target Profile(s) " + getTargetProfiles() + ".");
+            newE.initCause(e);
+            throw newE;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if(cause instanceof SAXException) {
+                throw (SAXException) cause;
+            } else if(cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if(cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SAXException("Error parsing EDI mapping model [" + configuration.getStringParameter(MODEL_CONFIG_KEY) + "].  Target Profile(s) " + getTargetProfiles() + ".", (Exception) cause);
+        }
 	}
 
+    private EdifactModel loadMappingModel() throws IOException, SAXException {
+        EdifactModel edifactModel;
+
+        try {
+            ContainerResourceLocator resourceLocator = applicationContext.getResourceLocator();
+
+            if(modelConfigData.startsWith("urn:") || modelConfigData.endsWith(".jar") || modelConfigData.endsWith(".zip")) {
+                throw new IOException("Unsupported mapping model config URI for basic EDI Parser '" + modelConfigData + "'.  Check that you are using the correct EDI parser.  You may need to configure an Interchange Parser, such as the UN/EDIFACT parser.");
+            }
+
+            if(resourceLocator instanceof URIResourceLocator) {
+                // This will resolve config paths relative to the containing smooks config file....
+                edifactModel = EDIParser.parseMappingModel(modelConfigData, (resourceLocator).getBaseURI());
+            } else {
+                edifactModel = EDIParser.parseMappingModel(modelConfigData, URIResourceLocator.getSystemBaseURI());
+            }
+            if(edifactModel == null) {
+                logger.error("Invalid " + MODEL_CONFIG_KEY + " config value '" + modelConfigData + "'. Failed to locate EDI Mapping Model resource!");
+                return null;
+            }
+        } catch (IOException e) {
+            IOException newE = new IOException("Error parsing EDI mapping model [" + configuration.getStringParameter(MODEL_CONFIG_KEY) + "].  Target Profile(s) " + getTargetProfiles() + ".");
+            newE.initCause(e);
+            throw newE;
+        } catch (SAXException e) {
+            throw new SAXException("Error parsing EDI mapping model [" + configuration.getStringParameter(MODEL_CONFIG_KEY) + "].  Target Profile(s) " + getTargetProfiles() + ".", e);
+        } catch (EDIConfigurationException e) {
+            throw new SAXException("Error parsing EDI mapping model [" + configuration.getStringParameter(MODEL_CONFIG_KEY) + "].  Target Profile(s) " + getTargetProfiles() + ".", e);
+        }
+        logger.debug("Parsed, validated and cached EDI mapping model [" + edifactModel.getEdimap().getDescription().getName() + ", Version " + edifactModel.getEdimap().getDescription().getVersion() + "].  Target Profile(s) " + getTargetProfiles() + ".");
+
+        return edifactModel;
+    }
+
 	/**
 	 * Get the mapping model table from the context.
 	 * @param context The context from which to extract the mapping table.
-	 * @return The mapping model talbe.
+	 * @return A snapshot copy of the mapping model table.
+	 * @deprecated The mapping models are no longer held in a {@link Hashtable}.  Changes to the returned
+	 * table are not seen by the reader.
 	 */
+	@Deprecated
 	protected static Hashtable getMappingTable(ApplicationContext context) {
-		Hashtable mappingModelTable = (Hashtable) context.getAttribute(MAPPING_TABLE_CTX_KEY);
-		
-		if(mappingModelTable == null) {
-			mappingModelTable = new Hashtable();
-			context.setAttribute(MAPPING_TABLE_CTX_KEY, mappingModelTable);
-		}
-		
-		return mappingModelTable;
+		ConcurrentMap<SmooksResourceConfiguration, EdifactModel> mappings = getContextMap(context, MAPPING_MODELS_CTX_KEY);
+		return new Hashtable<SmooksResourceConfiguration, EdifactModel>(mappings);
 	}
 
+    @SuppressWarnings("unchecked")
+    private static <V> ConcurrentMap<SmooksResourceConfiguration, V> getContextMap(ApplicationContext context, String key) {
+        ConcurrentMap<SmooksResourceConfiguration, V> map = (ConcurrentMap<SmooksResourceConfiguration, V>) context.getAttribute(key);
+
+        if(map == null) {
+            // Only ever locks the first time round, while creating the map...
+            synchronized (context) {
+                map = (ConcurrentMap<SmooksResourceConfiguration, V>) context.getAttribute(key);
+                if(map == null) {
+                    map = new ConcurrentHashMap<SmooksResourceConfiguration, V>();
+                    context.setAttribute(key, map);
+                }
+            }
+        }
+
+        return map;
+    }
+
     private List<ProfileTargetingExpression> getTargetProfiles() {
         return Arrays.asList(configuration.getProfileTargetingExpressions());
     }
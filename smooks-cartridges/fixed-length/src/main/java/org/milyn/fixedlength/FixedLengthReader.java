@@ -27,15 +27,20 @@ import org.milyn.container.ExecutionContext;
 import org.milyn.delivery.VisitorAppender;
 import org.milyn.delivery.VisitorConfigMap;
 import org.milyn.delivery.annotation.Initialize;
+import org.milyn.delivery.chunk.FileChunk;
 import org.milyn.delivery.dom.DOMVisitAfter;
 import org.milyn.delivery.ordering.Consumer;
 import org.milyn.delivery.sax.SAXElement;
 import org.milyn.delivery.sax.SAXVisitAfter;
 import org.milyn.expression.MVELExpressionEvaluator;
+import org.milyn.function.ByteSliceFunctionExecutor;
 import org.milyn.function.StringFunctionExecutor;
 import org.milyn.javabean.Bean;
+import org.milyn.javabean.RecordBeanIterator;
+import org.milyn.javabean.RecordBeanMapper;
 import org.milyn.javabean.context.BeanContext;
-import org.milyn.xml.SmooksXMLReader;
+import org.milyn.xml.ResettableXMLReader;
+import org.milyn.xml.SubtreeSkippingXMLReader;
 import org.w3c.dom.Element;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.DTDHandler;
@@ -50,10 +55,13 @@ import org.xml.sax.helpers.AttributesImpl;
 import javax.xml.XMLConstants;
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -119,6 +127,13 @@ import java.util.Map;
  * definition with string functions could look like this: firstname[10]?trim,lastname[10]?right_trim,gender[1]?upper_case
  * Take a look in the Smooks manual for a list of all available functions.
  *
+ * <h3>Single byte encodings</h3>
+ * If the stream is supplied as a byte stream and the encoding is a single byte encoding (e.g. ISO-8859-1, or an EBCDIC
+ * code page such as Cp1047), the records are read as bytes and the fields are sliced straight out of the record
+ * bytes.  This requires the Smooks content encoding (see {@link ExecutionContext#setContentEncoding(String)}) to match
+ * the configured encoding.  The fields are sliced using the field offsets precomputed from the field definitions.
+ * Trim functions are applied to the byte slice, and only the fields targeted by a visitor are decoded.
+ *
  * <h3>Simple Java Bindings</h3>
  * A simple java binding can be configured on the reader configuration.  This allows quick binding configuration where the
  * fixed length records map cleanly to the target bean.  For more complex bindings, use the Java Binging Framework.
@@ -152,7 +167,7 @@ import java.util.Map;
  * @author Cedric Rathgeb
  * @author <a href="mailto:maurice.zeijen@smies.com">maurice.zeijen@smies.com</a>
  */
-public class FixedLengthReader implements SmooksXMLReader, VisitorAppender {
+public class FixedLengthReader implements SubtreeSkippingXMLReader, ResettableXMLReader, VisitorAppender {
 
 	private static Log logger = LogFactory.getLog(FixedLengthReader.class);
 
@@ -170,7 +185,12 @@ public class FixedLengthReader implements SmooksXMLReader, VisitorAppender {
     @ConfigParam(name = "fields")
     private String[] flFields;
     private Field[] fields;
+    private int[] fieldOffsets;
     private int totalFieldLenght;
+    private char[] decodeTable;
+    private byte lineFeed;
+    private byte carriageReturn;
+    private ByteSliceFunctionExecutor[] byteSliceFunctions;
 
     @ConfigParam(defaultVal = "false")
     private boolean lineNumber;
@@ -199,6 +219,8 @@ public class FixedLengthReader implements SmooksXMLReader, VisitorAppender {
     @ConfigParam(defaultVal="false")
     private boolean indent;
 
+    private boolean skipSubtree = false;
+
     @ConfigParam(use = ConfigParam.Use.OPTIONAL)
     private String bindBeanId;
 
@@ -212,6 +234,7 @@ public class FixedLengthReader implements SmooksXMLReader, VisitorAppender {
     private String bindMapKeyField;
 
     private static final String RECORD_BEAN = "flRecordBean";
+    private RecordBeanMapper<Object> beanMapper;
 
     public boolean initialized = false;
 
@@ -270,11 +293,93 @@ public class FixedLengthReader implements SmooksXMLReader, VisitorAppender {
 		this.execContext = request;
 	}
 
+	public void reset() {
+		contentHandler = null;
+		execContext = null;
+		skipSubtree = false;
+	}
+
 	@Initialize
 	public void initialize() {
 		buildFields();
 	}
 
+    /**
+     * Create an {@link Iterator} that binds the records of the supplied stream directly onto instances of the
+     * configured binding bean class ('bindBeanClass').
+     * <p/>
+     * The records are read exactly as for a filter operation (skipped lines, strict parsing, string functions
+     * etc), but the field values are set straight onto the record beans using a {@link RecordBeanMapper}
+     * i.e. no SAX events are generated and no visitors are applied.  Only suitable for configurations containing
+     * nothing other than the reader based binding.
+     *
+     * @param flStreamReader The Fixed Length record stream.  Closed by the returned {@link RecordBeanIterator} once
+     * the end of the stream is reached, or the iterator is {@link RecordBeanIterator#close() closed}.
+     * @return The record bean {@link Iterator}.
+     * @throws SmooksConfigurationException No binding configured on the reader.
+     */
+    @SuppressWarnings("unchecked")
+    public RecordBeanIterator<Object> newBindingIterator(Reader flStreamReader) throws SmooksConfigurationException {
+        if(bindBeanClass == null) {
+            throw new SmooksConfigurationException("Unable to create binding Iterator.  No 'bindBeanClass' configured on the reader.");
+        }
+
+        synchronized (this) {
+            if(fields == null) {
+                buildFields();
+            }
+            if(beanMapper == null) {
+                beanMapper = new RecordBeanMapper<Object>((Class<Object>) bindBeanClass);
+            }
+        }
+
+        final RecordLineReader recordReader = new RecordLineReader(flStreamReader, 0, skipLines);
+        final Field[] fields = this.fields;
+
+        return new RecordBeanIterator<Object>(beanMapper) {
+            protected Object readNext() throws IOException {
+                String flRecord = recordReader.readRecord();
+
+                if(flRecord == null) {
+                    return null;
+                }
+
+                RecordBeanMapper<Object> mapper = getBeanMapper();
+                Object bean = mapper.newBean();
+                int fieldLengthTotal = 0;
+
+                for (Field field : fields) {
+                    int fieldLength = field.getLength();
+
+                    if(!field.ignore()) {
+                        String value;
+
+                        if(fieldLengthTotal + fieldLength > flRecord.length()) {
+                            // Truncated field.  Bound as an empty value, as with the SAX based binding...
+                            value = StringUtils.EMPTY;
+                        } else {
+                            StringFunctionExecutor stringFunctionExecutor = field.getStringFunctionExecutor();
+
+                            value = flRecord.substring(fieldLengthTotal, fieldLengthTotal + fieldLength);
+                            if(stringFunctionExecutor != null) {
+                                value = stringFunctionExecutor.execute(value);
+                            }
+                        }
+                        mapper.setFieldValue(bean, field.getName(), value);
+                    }
+
+                    fieldLengthTotal += fieldLength;
+                }
+
+                return bean;
+            }
+
+            protected void release() throws IOException {
+                recordReader.close();
+            }
+        };
+    }
+
 
 	/* (non-Javadoc)
 	 * @see org.xml.sax.XMLReader#parse(org.xml.sax.InputSource)
@@ -289,9 +394,24 @@ public class FixedLengthReader implements SmooksXMLReader, VisitorAppender {
 
         try {
 	        Reader flStreamReader;
-			BufferedReader flLineReader;
+			RecordLineReader flRecordReader;
 	        String flRecord;
 	        int lineNumber = 0;
+	        int skipLines = this.skipLines;
+
+	        FileChunk chunk = FileChunk.get(execContext);
+	        if(chunk != null && !chunk.isFirst()) {
+	        	// Filtering a later chunk of a chunked file (see ChunkedFileFilter).  Lines are only skipped at the
+	        	// start of the file, and the lines are numbered relative to the start of the file...
+	        	lineNumber = (int) chunk.getLineOffset();
+	        	skipLines = 0;
+	        }
+
+	        if(decodeTable != null && isByteStreamDecodable(flInputSource)) {
+	        	// Single byte encoding.  Slice the fields straight out of the record bytes...
+	        	parseRecordBytes(flInputSource.getByteStream(), lineNumber, skipLines);
+	        	return;
+	        }
 	
 			// Get a reader for the Fixed Length source...
 	        flStreamReader = flInputSource.getCharacterStream();
@@ -299,27 +419,17 @@ public class FixedLengthReader implements SmooksXMLReader, VisitorAppender {
 	            flStreamReader = new InputStreamReader(flInputSource.getByteStream(), encoding);
 	        }
 	
-	        // Create the Fixed Length line reader...
-	        flLineReader = new BufferedReader(flStreamReader);
+	        // Create the Fixed Length record reader...
+	        flRecordReader = new RecordLineReader(flStreamReader, lineNumber, skipLines);
 	
 	        // Start the document and add the root element...
 	        contentHandler.startDocument();
 	        contentHandler.startElement(XMLConstants.NULL_NS_URI, rootElementName, StringUtils.EMPTY, EMPTY_ATTRIBS);
 	
 	        // Output each of the Fixed Length line entries...
-	        while ((flRecord = flLineReader.readLine()) != null) {
-	        	lineNumber++; // First line is line "1"
-	
-	        	if (lineNumber <= this.skipLines) {
-	        		continue;
-	        	}
+	        while ((flRecord = flRecordReader.readRecord()) != null) {
+	        	lineNumber = flRecordReader.getLineNumber();
 	        	boolean invalidLength = flRecord.length() < totalFieldLenght;
-	        	if(invalidLength && strict) {
-	        		if(logger.isWarnEnabled()) {
-	            		logger.debug("[WARNING-FIXEDLENGTH] Fixed Length line #" + lineNumber + " is invalid.  The line doesn't contain enough characters to fill all the fields. This line is skipped.");
-	            	}
-	        		continue;
-	        	}
 	
 	        	char[] recordChars = flRecord.toCharArray();
 	
@@ -340,7 +450,13 @@ public class FixedLengthReader implements SmooksXMLReader, VisitorAppender {
 	            	}
 	            }
 	
+	            skipSubtree = false;
 	            contentHandler.startElement(XMLConstants.NULL_NS_URI, recordElementName, StringUtils.EMPTY, attrs);
+	            if(skipSubtree) {
+	            	// None of the record fields are targeted...
+	            	contentHandler.endElement(null, recordElementName, StringUtils.EMPTY);
+	            	continue;
+	            }
 	
 	            // Loops through fields
 	            int fieldLengthTotal = 0;
@@ -369,10 +485,11 @@ public class FixedLengthReader implements SmooksXMLReader, VisitorAppender {
 	                        recordAttrs.addAttribute(XMLConstants.NULL_NS_URI, truncatedAttributeName, truncatedAttributeName, "xs:boolean", Boolean.TRUE.toString());
 	                	}
 	
+	                    skipSubtree = false;
 	                    contentHandler.startElement(XMLConstants.NULL_NS_URI, fieldName, StringUtils.EMPTY, recordAttrs);
 	
-	                    // If not truncated then set the element data
-	                    if(!truncated) {
+	                    // If not truncated (or untargeted) then set the element data
+	                    if(!truncated && !skipSubtree) {
 	                    	if(stringFunctionExecutor == null) {
 	                    		contentHandler.characters(recordChars, fieldLengthTotal, fieldLength);
 	                    	} else {
@@ -414,6 +531,128 @@ public class FixedLengthReader implements SmooksXMLReader, VisitorAppender {
         }
 	}
 
+    private void parseRecordBytes(InputStream flByteStream, int lineNumber, int skipLines) throws IOException, SAXException {
+        ByteLineReader flLineReader = new ByteLineReader(flByteStream, lineFeed, carriageReturn);
+        char[] fieldChars = new char[64];
+        int[] slice = new int[2];
+
+        // Start the document and add the root element...
+        contentHandler.startDocument();
+        contentHandler.startElement(XMLConstants.NULL_NS_URI, rootElementName, StringUtils.EMPTY, EMPTY_ATTRIBS);
+
+        // Output each of the Fixed Length line entries...
+        while (flLineReader.readLine()) {
+            byte[] recordBytes = flLineReader.getBuffer();
+            int recordStart = flLineReader.getLineStart();
+            int recordLength = flLineReader.getLineLength();
+
+            lineNumber++; // First line is line "1"
+
+            if(isSkippedRecord(lineNumber, skipLines, recordLength)) {
+                continue;
+            }
+            boolean invalidLength = recordLength < totalFieldLenght;
+
+            if(indent) {
+                contentHandler.characters(INDENT_LF, 0, 1);
+                contentHandler.characters(INDENT_1, 0, 1);
+            }
+
+            AttributesImpl attrs = EMPTY_ATTRIBS;
+            // Add a lineNumber ID
+            if (this.lineNumber || invalidLength) {
+                attrs = new AttributesImpl();
+                if(this.lineNumber) {
+                    attrs.addAttribute(XMLConstants.NULL_NS_URI, lineNumberAttributeName, lineNumberAttributeName, "xs:int", Integer.toString(lineNumber));
+                }
+                if(invalidLength) {
+                    attrs.addAttribute(XMLConstants.NULL_NS_URI, truncatedAttributeName, truncatedAttributeName, "xs:boolean", Boolean.TRUE.toString());
+                }
+            }
+
+            skipSubtree = false;
+            contentHandler.startElement(XMLConstants.NULL_NS_URI, recordElementName, StringUtils.EMPTY, attrs);
+            if(skipSubtree) {
+                // None of the record fields are targeted...
+                contentHandler.endElement(null, recordElementName, StringUtils.EMPTY);
+                continue;
+            }
+
+            for(int i = 0; i < fields.length; i++) {
+                Field field = fields[i];
+
+                if(field.ignore()) {
+                    continue;
+                }
+
+                if(indent) {
+                    contentHandler.characters(INDENT_LF, 0, 1);
+                    contentHandler.characters(INDENT_2, 0, 2);
+                }
+
+                boolean truncated = fieldOffsets[i] + field.getLength() > recordLength;
+                AttributesImpl fieldAttrs = EMPTY_ATTRIBS;
+                if(truncated) {
+                    fieldAttrs = new AttributesImpl();
+                    fieldAttrs.addAttribute(XMLConstants.NULL_NS_URI, truncatedAttributeName, truncatedAttributeName, "xs:boolean", Boolean.TRUE.toString());
+                }
+
+                skipSubtree = false;
+                contentHandler.startElement(XMLConstants.NULL_NS_URI, field.getName(), StringUtils.EMPTY, fieldAttrs);
+
+                // Only decode the field if it's not truncated, and is targeted...
+                if(!truncated && !skipSubtree) {
+                    ByteSliceFunctionExecutor byteSliceFunction = byteSliceFunctions[i];
+
+                    slice[0] = recordStart + fieldOffsets[i];
+                    slice[1] = slice[0] + field.getLength();
+                    if(byteSliceFunction != null) {
+                        byteSliceFunction.trim(recordBytes, slice);
+                    }
+
+                    int valueLength = slice[1] - slice[0];
+                    if(fieldChars.length < valueLength) {
+                        fieldChars = new char[valueLength];
+                    }
+                    for(int j = 0; j < valueLength; j++) {
+                        fieldChars[j] = decodeTable[recordBytes[slice[0] + j] & 0xFF];
+                    }
+
+                    if(byteSliceFunction != null && byteSliceFunction.hasRemainingFunctions()) {
+                        String value = byteSliceFunction.executeRemaining(new String(fieldChars, 0, valueLength));
+                        contentHandler.characters(value.toCharArray(), 0, value.length());
+                    } else {
+                        contentHandler.characters(fieldChars, 0, valueLength);
+                    }
+                }
+
+                contentHandler.endElement(XMLConstants.NULL_NS_URI, field.getName(), StringUtils.EMPTY);
+            }
+
+            if(indent) {
+                contentHandler.characters(INDENT_LF, 0, 1);
+                contentHandler.characters(INDENT_1, 0, 1);
+            }
+
+            contentHandler.endElement(null, recordElementName, StringUtils.EMPTY);
+        }
+
+        if(indent) {
+            contentHandler.characters(INDENT_LF, 0, 1);
+        }
+
+        // Close out the "fixedlength-set" root element and end the document..
+        contentHandler.endElement(XMLConstants.NULL_NS_URI, rootElementName, StringUtils.EMPTY);
+        contentHandler.endDocument();
+    }
+
+    /* (non-Javadoc)
+     * @see org.milyn.xml.SubtreeSkippingXMLReader#skipSubtree()
+     */
+    public void skipSubtree() {
+        skipSubtree = true;
+    }
+
     public void setContentHandler(ContentHandler contentHandler) {
         this.contentHandler = contentHandler;
     }
@@ -445,6 +684,7 @@ public class FixedLengthReader implements SmooksXMLReader, VisitorAppender {
 	private void buildFields() {
 		// Parse input fields to extract names and lengths
         Field[] fields = new Field[this.flFields.length];
+        int[] fieldOffsets = new int[this.flFields.length];
         int totalFieldLenght = 0;
     	for(int i = 0; i < this.flFields.length; i++) {
     		// Extract informations about the field
@@ -466,12 +706,30 @@ public class FixedLengthReader implements SmooksXMLReader, VisitorAppender {
             }
 
             fields[i] = new Field(fieldName, fieldLength, stringFunctionExecutor);
+            fieldOffsets[i] = totalFieldLenght;
 
             totalFieldLenght += fieldLength;
     	}
 
     	this.fields = fields;
+    	this.fieldOffsets = fieldOffsets;
     	this.totalFieldLenght = totalFieldLenght;
+
+    	if(encoding != null && ByteSliceFunctionExecutor.isSingleByte(encoding)) {
+    		ByteSliceFunctionExecutor[] byteSliceFunctions = new ByteSliceFunctionExecutor[fields.length];
+
+    		for(int i = 0; i < fields.length; i++) {
+    			if(fields[i].getStringFunctionExecutor() != null) {
+    				byteSliceFunctions[i] = new ByteSliceFunctionExecutor(fields[i].getStringFunctionExecutor(), encoding);
+    			}
+    		}
+    		this.byteSliceFunctions = byteSliceFunctions;
+    		this.lineFeed = encoding.encode("\n").get();
+    		this.carriageReturn = encoding.encode("\r").get();
+    		this.decodeTable = ByteSliceFunctionExecutor.decodeTable(encoding);
+    	} else {
+    		this.decodeTable = null;
+    	}
 	}
     /****************************************************************************
      *
@@ -522,6 +780,193 @@ public class FixedLengthReader implements SmooksXMLReader, VisitorAppender {
             throws SAXNotRecognizedException, SAXNotSupportedException {
     }
 
+    /**
+     * Should the record on the specified line be skipped.
+     * <p/>
+     * Leading lines are skipped as per the 'skipLines' configuration, and lines that don't contain enough
+     * characters to fill all the fields are skipped when parsing in 'strict' mode.
+     */
+    private boolean isSkippedRecord(int lineNumber, int skipLines, int recordLength) {
+        if (lineNumber <= skipLines) {
+            return true;
+        }
+        if(strict && recordLength < totalFieldLenght) {
+            if(logger.isDebugEnabled()) {
+                logger.debug("[WARNING-FIXEDLENGTH] Fixed Length line #" + lineNumber + " is invalid.  The line doesn't contain enough characters to fill all the fields. This line is skipped.");
+            }
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Can the records be read straight from the {@link InputSource} byte stream.
+     * <p/>
+     * The parser supplies a character stream along with the byte stream, so the byte stream can only
+     * be used in its place if that character stream is decoding it with the configured encoding.
+     */
+    private boolean isByteStreamDecodable(InputSource flInputSource) {
+        Reader characterStream = flInputSource.getCharacterStream();
+
+        if(flInputSource.getByteStream() == null) {
+            return false;
+        }
+        if(characterStream == null) {
+            return true;
+        }
+        if(characterStream instanceof InputStreamReader) {
+            String readerEncoding = ((InputStreamReader) characterStream).getEncoding();
+            return (readerEncoding != null && Charset.isSupported(readerEncoding) && encoding.equals(Charset.forName(readerEncoding)));
+        }
+
+        return false;
+    }
+
+    /**
+     * Fixed Length record reader.
+     * <p/>
+     * Reads the record lines of a character stream, numbering the lines and dropping the
+     * {@link #isSkippedRecord(int, int, int) skipped} records.  Shared by the SAX {@link #parse(InputSource)}
+     * and the {@link #newBindingIterator(Reader) binding iterator}.
+     */
+    private class RecordLineReader {
+
+        private final BufferedReader lineReader;
+        private final int skipLines;
+        private int lineNumber;
+
+        private RecordLineReader(Reader reader, int lineNumber, int skipLines) {
+            this.lineReader = new BufferedReader(reader);
+            this.lineNumber = lineNumber;
+            this.skipLines = skipLines;
+        }
+
+        /**
+         * Read the next record.
+         * @return The record line, or null if the end of the stream has been reached.
+         * @throws IOException Error reading the stream.
+         */
+        private String readRecord() throws IOException {
+            String record;
+
+            while ((record = lineReader.readLine()) != null) {
+                lineNumber++; // First line is line "1"
+                if(!isSkippedRecord(lineNumber, skipLines, record.length())) {
+                    return record;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Get the line number of the last record read.
+         * @return The line number.
+         */
+        private int getLineNumber() {
+            return lineNumber;
+        }
+
+        private void close() throws IOException {
+            lineReader.close();
+        }
+    }
+
+    /**
+     * Byte line reader.
+     * <p/>
+     * Reads lines (as {@link BufferedReader#readLine()}) from a single byte encoded stream into a reusable buffer.
+     */
+    private static class ByteLineReader {
+
+        private final InputStream stream;
+        private final byte lineFeed;
+        private final byte carriageReturn;
+        private byte[] buffer = new byte[8192];
+        private int position;
+        private int limit;
+        private int lineStart;
+        private int lineEnd;
+        private boolean skipLF;
+        private boolean endOfStream;
+
+        private ByteLineReader(InputStream stream, byte lineFeed, byte carriageReturn) {
+            this.stream = stream;
+            this.lineFeed = lineFeed;
+            this.carriageReturn = carriageReturn;
+        }
+
+        private boolean readLine() throws IOException {
+            int scan = position;
+
+            while(true) {
+                if(scan == limit) {
+                    if(endOfStream) {
+                        if(scan > position) {
+                            // Last line, without a line terminator...
+                            lineStart = position;
+                            lineEnd = scan;
+                            position = scan;
+                            return true;
+                        }
+                        return false;
+                    }
+
+                    // Move the current line to the start of the buffer and fill...
+                    if(position > 0) {
+                        System.arraycopy(buffer, position, buffer, 0, limit - position);
+                        limit -= position;
+                        scan -= position;
+                        position = 0;
+                    }
+                    if(limit == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+
+                    int count = stream.read(buffer, limit, buffer.length - limit);
+                    if(count == -1) {
+                        endOfStream = true;
+                    } else {
+                        limit += count;
+                    }
+                    continue;
+                }
+
+                byte b = buffer[scan];
+                if(skipLF) {
+                    skipLF = false;
+                    if(b == lineFeed) {
+                        position++;
+                        scan++;
+                        continue;
+                    }
+                }
+
+                if(b == lineFeed || b == carriageReturn) {
+                    lineStart = position;
+                    lineEnd = scan;
+                    position = scan + 1;
+                    skipLF = (b == carriageReturn);
+                    return true;
+                }
+                scan++;
+            }
+        }
+
+        private byte[] getBuffer() {
+            return buffer;
+        }
+
+        private int getLineStart() {
+            return lineStart;
+        }
+
+        private int getLineLength() {
+            return lineEnd - lineStart;
+        }
+    }
+
     private class Field {
 
     	private final String name;
@@ -20,6 +20,7 @@ import org.milyn.ReaderConfigurator;
 import org.milyn.assertion.AssertArgument;
 import org.milyn.cdr.SmooksConfigurationException;
 import org.milyn.cdr.SmooksResourceConfiguration;
+import org.milyn.cdr.annotation.Configurator;
 
 import java.nio.charset.Charset;
 import java.util.ArrayList;
@@ -143,4 +144,17 @@ public class FixedLengthReaderConfigurator implements ReaderConfigurator {
 
         return configurator.toConfig();
     }
+
+    /**
+     * Create and configure a standalone {@link FixedLengthReader} instance.
+     * <p/>
+     * Allows the records to be bound (see {@link FixedLengthReader#newBindingIterator(java.io.Reader)}) without
+     * creating a {@link org.milyn.Smooks} instance.
+     *
+     * @return The configured reader.
+     * @throws SmooksConfigurationException Error configuring the reader.
+     */
+    public FixedLengthReader createReader() throws SmooksConfigurationException {
+        return Configurator.configure(new FixedLengthReader(), toConfig().get(0));
+    }
 }
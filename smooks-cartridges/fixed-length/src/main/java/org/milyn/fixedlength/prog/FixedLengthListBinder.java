@@ -15,18 +15,17 @@
  */
 package org.milyn.fixedlength.prog;
 
-import org.milyn.FilterSettings;
-import org.milyn.Smooks;
 import org.milyn.assertion.AssertArgument;
 import org.milyn.fixedlength.FixedLengthBinding;
 import org.milyn.fixedlength.FixedLengthBindingType;
+import org.milyn.fixedlength.FixedLengthReader;
 import org.milyn.fixedlength.FixedLengthReaderConfigurator;
-import org.milyn.payload.JavaResult;
+import org.milyn.javabean.RecordBeanIterator;
 
-import javax.xml.transform.stream.StreamSource;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
 
@@ -52,30 +51,45 @@ import java.util.UUID;
  */
 public class FixedLengthListBinder {
 
-    private String beanId = UUID.randomUUID().toString();
-    private Smooks smooks;
+    private FixedLengthReader reader;
 
     public FixedLengthListBinder(String fields, Class recordType) {
         AssertArgument.isNotNullAndNotEmpty(fields, "fields");
         AssertArgument.isNotNull(recordType, "recordType");
 
-        smooks = new Smooks();
-        smooks.setFilterSettings(FilterSettings.DEFAULT_SAX);
-        smooks.setReaderConfig(new FixedLengthReaderConfigurator(fields)
-                .setBinding(new FixedLengthBinding(beanId, recordType, FixedLengthBindingType.LIST)));
+        reader = new FixedLengthReaderConfigurator(fields)
+                .setBinding(new FixedLengthBinding(UUID.randomUUID().toString(), recordType, FixedLengthBindingType.LIST))
+                .createReader();
     }
 
     public List bind(Reader fixedLengthStream) {
-        AssertArgument.isNotNull(fixedLengthStream, "fixedLengthStream");
-
-        JavaResult javaResult = new JavaResult();
+        RecordBeanIterator iterator = iterator(fixedLengthStream);
 
-        smooks.filterSource(new StreamSource(fixedLengthStream), javaResult);
-
-        return (List) javaResult.getBean(beanId);
+        try {
+            return iterator.toList();
+        } finally {
+            // Closes the stream...
+            iterator.close();
+        }
     }
 
     public List bind(InputStream fixedLengthStream) {
         return bind(new InputStreamReader(fixedLengthStream));
     }
+
+    /**
+     * Stream the records as bound objects.
+     * <p/>
+     * The records are read and bound one at a time as the {@link Iterator} is advanced, so the
+     * full record set is never held in memory.
+     *
+     * @param fixedLengthStream The Fixed Length record stream.
+     * @return The bound record {@link Iterator}.  Must be {@link RecordBeanIterator#close() closed} if not read to the
+     * end of the stream.
+     */
+    public RecordBeanIterator iterator(Reader fixedLengthStream) {
+        AssertArgument.isNotNull(fixedLengthStream, "fixedLengthStream");
+
+        return reader.newBindingIterator(fixedLengthStream);
+    }
 }
\ No newline at end of file
@@ -15,18 +15,17 @@
  */
 package org.milyn.fixedlength.prog;
 
-import org.milyn.FilterSettings;
-import org.milyn.Smooks;
 import org.milyn.assertion.AssertArgument;
 import org.milyn.fixedlength.FixedLengthBinding;
 import org.milyn.fixedlength.FixedLengthBindingType;
+import org.milyn.fixedlength.FixedLengthReader;
 import org.milyn.fixedlength.FixedLengthReaderConfigurator;
-import org.milyn.payload.JavaResult;
+import org.milyn.javabean.RecordBeanIterator;
 
-import javax.xml.transform.stream.StreamSource;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
 
@@ -51,31 +50,48 @@ import java.util.UUID;
  */
 public class FixedLengthMapBinder {
 
-    private String beanId = UUID.randomUUID().toString();
-    private Smooks smooks;
+    private FixedLengthReader reader;
+    private String keyField;
 
     public FixedLengthMapBinder(String fields, Class recordType, String keyField) {
         AssertArgument.isNotNullAndNotEmpty(fields, "fields");
         AssertArgument.isNotNull(recordType, "recordType");
         AssertArgument.isNotNullAndNotEmpty(keyField, "keyField");
 
-        smooks = new Smooks();
-        smooks.setFilterSettings(FilterSettings.DEFAULT_SAX);
-        smooks.setReaderConfig(new FixedLengthReaderConfigurator(fields)
-                .setBinding(new FixedLengthBinding(beanId, recordType, FixedLengthBindingType.MAP).setKeyField(keyField)));
+        reader = new FixedLengthReaderConfigurator(fields)
+                .setBinding(new FixedLengthBinding(UUID.randomUUID().toString(), recordType, FixedLengthBindingType.MAP).setKeyField(keyField))
+                .createReader();
+        this.keyField = keyField;
     }
 
     public Map bind(Reader fixedLengthStream) {
-        AssertArgument.isNotNull(fixedLengthStream, "fixedLengthStream");
-
-        JavaResult javaResult = new JavaResult();
+        RecordBeanIterator iterator = iterator(fixedLengthStream);
 
-        smooks.filterSource(new StreamSource(fixedLengthStream), javaResult);
-
-        return (Map) javaResult.getBean(beanId);
+        try {
+            return iterator.toMap(keyField);
+        } finally {
+            // Closes the stream...
+            iterator.close();
+        }
     }
 
     public Map bind(InputStream fixedLengthStream) {
         return bind(new InputStreamReader(fixedLengthStream));
     }
+
+    /**
+     * Stream the records as bound objects.
+     * <p/>
+     * The records are read and bound one at a time as the {@link Iterator} is advanced, so the
+     * full record set is never held in memory.
+     *
+     * @param fixedLengthStream The Fixed Length record stream.
+     * @return The bound record {@link Iterator}.  Must be {@link RecordBeanIterator#close() closed} if not read to the
+     * end of the stream.
+     */
+    public RecordBeanIterator iterator(Reader fixedLengthStream) {
+        AssertArgument.isNotNull(fixedLengthStream, "fixedLengthStream");
+
+        return reader.newBindingIterator(fixedLengthStream);
+    }
 }
\ No newline at end of file
@@ -24,6 +24,8 @@ import org.milyn.container.ExecutionContext;
 import org.milyn.payload.JavaResult;
 
 import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -384,4 +386,57 @@ public class FixedLenghtReaderTest  {
 		expected = "<set><record truncated=\"true\"><first>aa</first><second>bbb</second><third truncated=\"true\" /></record></set>";
         assertEquals(expected, result);        
 	}
+
+    @Test
+    public void test_07_ISO_8859_1() throws Exception {
+        test_07_single_byte_encoding("ISO-8859-1");
+    }
+
+    @Test
+    public void test_07_Cp1047() throws Exception {
+        test_07_single_byte_encoding("Cp1047");
+    }
+
+    private void test_07_single_byte_encoding(String encoding) throws Exception {
+        byte[] input = "header\nAl Bob \u00e912\nZo\u00ebJ\u00fcrg\u00f1am\nGa\u00eble".getBytes(encoding);
+
+		Smooks smooks = new Smooks();
+		smooks.setReaderConfig(new FixedLengthReaderConfigurator(
+				"first[3].trim,second[4],third[3]")
+                .setEncoding(Charset.forName(encoding))
+                .setSkipLines(1)
+                .setLineNumber(true)
+                .setStrict(false));
+		smooks.setFilterSettings(FilterSettings.DEFAULT_SAX);
+
+        ExecutionContext context = smooks.createExecutionContext();
+        context.setContentEncoding(encoding);
+        String result = SmooksUtil.filterAndSerialize(context, new ByteArrayInputStream(input), smooks);
+
+		String expected = "<set>" +
+                "<record number=\"2\"><first>Al</first><second>Bob </second><third>\u00e912</third></record>" +
+                "<record number=\"3\"><first>Zo\u00eb</first><second>J\u00fcrg</second><third>\u00f1am</third></record>" +
+                "<record number=\"4\" truncated=\"true\"><first>Ga\u00eb</first><second truncated=\"true\" /><third truncated=\"true\" /></record>" +
+                "</set>";
+        assertEquals(expected, result);
+
+		smooks = new Smooks();
+		smooks.setReaderConfig(new FixedLengthReaderConfigurator(
+				"first[3].trim,second[4],third[3]")
+                .setEncoding(Charset.forName(encoding))
+                .setSkipLines(1)
+                .setLineNumber(true));
+		smooks.setFilterSettings(FilterSettings.DEFAULT_SAX);
+
+        context = smooks.createExecutionContext();
+        context.setContentEncoding(encoding);
+        result = SmooksUtil.filterAndSerialize(context, new ByteArrayInputStream(input), smooks);
+
+        // Strict... the truncated record is skipped...
+		expected = "<set>" +
+                "<record number=\"2\"><first>Al</first><second>Bob </second><third>\u00e912</third></record>" +
+                "<record number=\"3\"><first>Zo\u00eb</first><second>J\u00fcrg</second><third>\u00f1am</third></record>" +
+                "</set>";
+        assertEquals(expected, result);
+	}
 }
@@ -0,0 +1,82 @@
+/*
+ * Milyn - Copyright (C) 2006 - 2010
+ *
+ * This library is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License (version 2.1) as published by the Free Software
+ * Foundation.
+ *
+ * This library is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU Lesser General Public License for more details:
+ * http://www.gnu.org/licenses/lgpl.txt
+ */
+package org.milyn.fixedlength.prog;
+
+import org.junit.Test;
+import org.milyn.javabean.RecordBeanIterator;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class FixedLengthBinderTest {
+
+    private static final String FIELDS = "firstname[5].trim,lastname[8].trim";
+    private static final String INPUT = "Tom  Fennelly\nMike Fennelly";
+
+    @Test
+    public void test_FixedLengthListBinder() {
+        CloseTrackingReader stream = new CloseTrackingReader(INPUT);
+        FixedLengthListBinder binder = new FixedLengthListBinder(FIELDS, HashMap.class);
+        List<Map> people = binder.bind(stream);
+
+        assertEquals(2, people.size());
+        assertEquals("Tom", people.get(0).get("firstname"));
+        assertEquals("Mike", people.get(1).get("firstname"));
+        assertTrue(stream.closed);
+    }
+
+    @Test
+    public void test_FixedLengthMapBinder() {
+        CloseTrackingReader stream = new CloseTrackingReader(INPUT);
+        FixedLengthMapBinder binder = new FixedLengthMapBinder(FIELDS, HashMap.class, "firstname");
+        Map<String, Map> people = binder.bind(stream);
+
+        assertEquals(2, people.size());
+        assertEquals("Fennelly", people.get("Mike").get("lastname"));
+        assertTrue(stream.closed);
+    }
+
+    @Test
+    public void test_FixedLengthListBinder_iterator_close() {
+        CloseTrackingReader stream = new CloseTrackingReader(INPUT);
+        FixedLengthListBinder binder = new FixedLengthListBinder(FIELDS, HashMap.class);
+        RecordBeanIterator people = binder.iterator(stream);
+
+        assertEquals("Tom", ((Map) people.next()).get("firstname"));
+        assertFalse(stream.closed);
+        people.close();
+        assertTrue(stream.closed);
+        assertFalse(people.hasNext());
+    }
+
+    private static class CloseTrackingReader extends StringReader {
+
+        private boolean closed;
+
+        private CloseTrackingReader(String s) {
+            super(s);
+        }
+
+        public void close() {
+            closed = true;
+            super.close();
+        }
+    }
+}
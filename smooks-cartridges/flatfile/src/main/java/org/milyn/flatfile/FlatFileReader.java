@@ -29,7 +29,10 @@ import org.milyn.container.ExecutionContext;
 import org.milyn.delivery.VisitorAppender;
 import org.milyn.delivery.VisitorConfigMap;
 import org.milyn.delivery.annotation.Initialize;
-import org.milyn.xml.SmooksXMLReader;
+import org.milyn.delivery.chunk.FileChunk;
+import org.milyn.flatfile.variablefield.VariableFieldRecordParser;
+import org.milyn.xml.ResettableXMLReader;
+import org.milyn.xml.SubtreeSkippingXMLReader;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
 import org.xml.sax.DTDHandler;
@@ -52,7 +55,7 @@ import java.util.List;
  *
  * @author <a href="mailto:tom.fennelly@gmail.com">tom.fennelly@gmail.com</a>
  */
-public class FlatFileReader implements SmooksXMLReader, VisitorAppender {
+public class FlatFileReader implements SubtreeSkippingXMLReader, ResettableXMLReader, VisitorAppender {
 
 	private static Log logger = LogFactory.getLog(FlatFileReader.class);
     private static Attributes EMPTY_ATTRIBS = new AttributesImpl();
@@ -81,6 +84,8 @@ public class FlatFileReader implements SmooksXMLReader, VisitorAppender {
     @ConfigParam(defaultVal="false")
     private boolean indent;
 
+    private boolean skipSubtree = false;
+
 	@Initialize
 	public void initialize() throws IllegalAccessException, InstantiationException {
         parserFactory = parserFactoryClass.newInstance();
@@ -100,6 +105,12 @@ public class FlatFileReader implements SmooksXMLReader, VisitorAppender {
 		this.execContext = request;
 	}
 
+	public void reset() {
+		contentHandler = null;
+		execContext = null;
+		skipSubtree = false;
+	}
+
 	/* (non-Javadoc)
 	 * @see org.xml.sax.XMLReader#parse(org.xml.sax.InputSource)
 	 */
@@ -119,6 +130,11 @@ public class FlatFileReader implements SmooksXMLReader, VisitorAppender {
             recordParser.setRecordParserFactory(parserFactory);
             recordParser.setDataSource(inputSource);
 
+            FileChunk chunk = FileChunk.get(execContext);
+            if(recordParser instanceof VariableFieldRecordParser) {
+                ((VariableFieldRecordParser) recordParser).setFileChunk(chunk);
+            }
+
             try {
                 recordParser.initialize();
 
@@ -128,6 +144,11 @@ public class FlatFileReader implements SmooksXMLReader, VisitorAppender {
 
                 // Output each of the CVS line entries...
                 int lineNumber = 0;
+                if(chunk != null && !chunk.isFirst()) {
+                    // Filtering a later chunk of a chunked file (see ChunkedFileFilter).  The records are
+                    // numbered relative to the start of the file...
+                    lineNumber = (int) chunk.getRecordOffset();
+                }
 
                 Record record = recordParser.nextRecord();
                 while (record != null) {
@@ -149,25 +170,28 @@ public class FlatFileReader implements SmooksXMLReader, VisitorAppender {
                             attrs.addAttribute(XMLConstants.NULL_NS_URI, RECORD_TRUNCATED_ATTR, RECORD_TRUNCATED_ATTR, "xs:boolean", Boolean.TRUE.toString());
                         }
 
+                        skipSubtree = false;
                         contentHandler.startElement(XMLConstants.NULL_NS_URI, record.getName(), StringUtils.EMPTY, attrs);
-                        for(Field recordField : recordFields) {
-                            String fieldName = recordField.getName();
+                        if(!skipSubtree) {
+                            for(Field recordField : recordFields) {
+                                String fieldName = recordField.getName();
 
-                            if(indent) {
-                                contentHandler.characters(INDENT_LF, 0, 1);
-                                contentHandler.characters(INDENTCHARS, 0, 2);
-                            }
+                                if(indent) {
+                                    contentHandler.characters(INDENT_LF, 0, 1);
+                                    contentHandler.characters(INDENTCHARS, 0, 2);
+                                }
 
-                            contentHandler.startElement(XMLConstants.NULL_NS_URI, fieldName, StringUtils.EMPTY, EMPTY_ATTRIBS);
+                                contentHandler.startElement(XMLConstants.NULL_NS_URI, fieldName, StringUtils.EMPTY, EMPTY_ATTRIBS);
 
-                            String value = recordField.getValue();
-                            contentHandler.characters(value.toCharArray(), 0, value.length());
-                            contentHandler.endElement(XMLConstants.NULL_NS_URI, fieldName, StringUtils.EMPTY);
-                        }
+                                String value = recordField.getValue();
+                                contentHandler.characters(value.toCharArray(), 0, value.length());
+                                contentHandler.endElement(XMLConstants.NULL_NS_URI, fieldName, StringUtils.EMPTY);
+                            }
 
-                        if(indent) {
-                            contentHandler.characters(INDENT_LF, 0, 1);
-                            contentHandler.characters(INDENTCHARS, 0, 1);
+                            if(indent) {
+                                contentHandler.characters(INDENT_LF, 0, 1);
+                                contentHandler.characters(INDENTCHARS, 0, 1);
+                            }
                         }
 
                         contentHandler.endElement(XMLConstants.NULL_NS_URI, record.getName(), StringUtils.EMPTY);
@@ -193,6 +217,13 @@ public class FlatFileReader implements SmooksXMLReader, VisitorAppender {
         }
 	}
 
+    /* (non-Javadoc)
+     * @see org.milyn.xml.SubtreeSkippingXMLReader#skipSubtree()
+     */
+    public void skipSubtree() {
+        skipSubtree = true;
+    }
+
     public void setContentHandler(ContentHandler contentHandler) {
         this.contentHandler = contentHandler;
     }
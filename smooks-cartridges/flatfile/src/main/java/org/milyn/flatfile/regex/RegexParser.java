@@ -23,7 +23,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.milyn.flatfile.variablefield.VariableFieldRecordParser;
 import org.xml.sax.InputSource;
@@ -34,6 +33,10 @@ import org.xml.sax.InputSource;
  * If there are no groups defined in the regexPattern this parser will use the
  * pattern to split the record into fields. If groups are defined, it will
  * extract the record field data from the groups defined in the pattern.
+ * <p/>
+ * The record is read into a reusable buffer and matched using a single {@link Matcher}
+ * instance (reset per record).  Field values are taken from the group offsets in the buffer.
+ * Plain delimiter patterns are split without the regex engine (see {@link RegexParserFactory#getLiteralDelimiter()}).
  * 
  * @author <a href="mailto:tom.fennelly@gmail.com">tom.fennelly@gmail.com</a>
  */
@@ -41,6 +44,8 @@ public class RegexParser<T extends RegexParserFactory> extends VariableFieldReco
 
     private BufferedReader reader;
     private StringBuilder readerBuffer;
+    private Matcher matcher;
+    private String literalDelimiter;
     private int groupCount;
 
     public void setDataSource(InputSource source) {
@@ -53,13 +58,14 @@ public class RegexParser<T extends RegexParserFactory> extends VariableFieldReco
 
         this.reader = new BufferedReader(reader);
         this.readerBuffer = new StringBuilder();
-        this.groupCount = getFactory().getRegexPattern().matcher("").groupCount();
+        this.matcher = getFactory().getRegexPattern().matcher(readerBuffer);
+        this.literalDelimiter = getFactory().getLiteralDelimiter();
+        this.groupCount = matcher.groupCount();
     }
 
     @Override
     public List<String> nextRecordFieldValues() throws IOException {
         T factory = getFactory();
-        Pattern pattern = factory.getRegexPattern();
 
         readerBuffer.setLength(0);
         factory.readRecord(reader, readerBuffer, (getRecordCount() + 1));
@@ -69,25 +75,61 @@ public class RegexParser<T extends RegexParserFactory> extends VariableFieldReco
         }
 
         if (groupCount > 0) {
-            String recordString = readerBuffer.toString();
-            List<String> fields = new ArrayList<String>();
-            Matcher matcher = pattern.matcher(recordString);
+            List<String> fields = new ArrayList<String>(groupCount);
 
+            matcher.reset(readerBuffer);
             if (matcher.matches()) {
-                for (int i = 0; i < matcher.groupCount(); i++) {
-                    String fieldValue = matcher.group(i + 1);
-                    if (fieldValue != null) {
-                        fields.add(fieldValue);
+                for (int i = 1; i <= groupCount; i++) {
+                    int start = matcher.start(i);
+                    if (start != -1) {
+                        fields.add(readerBuffer.substring(start, matcher.end(i)));
                     }
                 }
             } else {
                 // Add the full record text as the only field value
-                fields.add(recordString);
+                fields.add(readerBuffer.toString());
             }
 
             return fields;
+        } else if (literalDelimiter != null) {
+            return split(readerBuffer, literalDelimiter);
         } else {
-            return Arrays.asList(pattern.split(readerBuffer.toString()));
+            return Arrays.asList(factory.getRegexPattern().split(readerBuffer));
+        }
+    }
+
+    /**
+     * Split the record on a literal delimiter.
+     * <p/>
+     * Same result as {@link java.util.regex.Pattern#split(CharSequence)} i.e. trailing empty fields are dropped.
+     *
+     * @param record The record.
+     * @param delimiter The literal delimiter.
+     * @return The record field values.
+     */
+    protected static List<String> split(StringBuilder record, String delimiter) {
+        List<String> fields = new ArrayList<String>();
+        int fieldStart = 0;
+        int delimiterIndex;
+
+        while ((delimiterIndex = record.indexOf(delimiter, fieldStart)) != -1) {
+            fields.add(record.substring(fieldStart, delimiterIndex));
+            fieldStart = delimiterIndex + delimiter.length();
         }
+
+        if (fieldStart == 0) {
+            // No delimiter found...
+            fields.add(record.toString());
+            return fields;
+        }
+        fields.add(record.substring(fieldStart));
+
+        // Drop trailing empty fields...
+        int fieldCount = fields.size();
+        while (fieldCount > 0 && fields.get(fieldCount - 1).length() == 0) {
+            fields.remove(--fieldCount);
+        }
+
+        return fields;
     }
 }
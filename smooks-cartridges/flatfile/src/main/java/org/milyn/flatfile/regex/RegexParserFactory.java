@@ -17,6 +17,7 @@
 package org.milyn.flatfile.regex;
 
 import org.milyn.cdr.annotation.ConfigParam;
+import org.milyn.delivery.annotation.Initialize;
 import org.milyn.flatfile.RecordParser;
 import org.milyn.flatfile.variablefield.VariableFieldRecordParserFactory;
 import org.milyn.javabean.DataDecodeException;
@@ -26,6 +27,9 @@ import java.util.regex.Pattern;
 
 /**
  * Regex record parser factory.
+ * <p/>
+ * If the regexPattern is a plain delimiter (no groups and no regex constructs e.g. "\\|"), the records are
+ * split on the literal delimiter, without going through the regex engine.
  *
  * @author <a href="mailto:tom.fennelly@gmail.com">tom.fennelly@gmail.com</a>
  */
@@ -34,6 +38,13 @@ public class RegexParserFactory extends VariableFieldRecordParserFactory {
     @ConfigParam(decoder = RegexPatternDecoder.class)
     private Pattern regexPattern;
 
+    private String literalDelimiter;
+
+    @Initialize
+    public void resolveLiteralDelimiter() {
+        literalDelimiter = toLiteral(regexPattern.pattern());
+    }
+
     public RecordParser newRecordParser() {
         return new RegexParser();
     }
@@ -46,6 +57,53 @@ public class RegexParserFactory extends VariableFieldRecordParserFactory {
         return regexPattern;
     }
 
+    /**
+     * Get the literal delimiter equivalent of the Regex Pattern.
+     * @return The literal delimiter, or null if the Regex Pattern is not a plain delimiter.
+     */
+    public String getLiteralDelimiter() {
+        return literalDelimiter;
+    }
+
+    /**
+     * Get the literal String matched by the supplied regex.
+     * @param regex The regex.
+     * @return The literal String, or null if the regex contains regex constructs (groups, classes, quantifiers etc).
+     */
+    protected static String toLiteral(String regex) {
+        StringBuilder literal = new StringBuilder();
+
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+
+            if (c == '\\') {
+                if (++i == regex.length()) {
+                    return null;
+                }
+                c = regex.charAt(i);
+                if (c == 't') {
+                    literal.append('\t');
+                } else if (Character.isLetterOrDigit(c)) {
+                    // A character class, back reference etc...
+                    return null;
+                } else {
+                    // An escaped metacharacter...
+                    literal.append(c);
+                }
+            } else if (".[]{}()*+?^$|".indexOf(c) != -1) {
+                return null;
+            } else {
+                literal.append(c);
+            }
+        }
+
+        if (literal.length() == 0) {
+            return null;
+        }
+
+        return literal.toString();
+    }
+
     public static class RegexPatternDecoder implements DataDecoder {
         public Object decode(String data) throws DataDecodeException {
             return Pattern.compile(data, (Pattern.MULTILINE | Pattern.DOTALL));
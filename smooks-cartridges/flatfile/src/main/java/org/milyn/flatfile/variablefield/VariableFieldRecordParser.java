@@ -22,6 +22,7 @@ import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.milyn.delivery.chunk.FileChunk;
 import org.milyn.flatfile.Field;
 import org.milyn.flatfile.FieldMetaData;
 import org.milyn.flatfile.Record;
@@ -41,6 +42,7 @@ public abstract class VariableFieldRecordParser<T extends VariableFieldRecordPar
     private T factory;
     private int lineNumber = 0;
     private int recordCount = 0;
+    private FileChunk fileChunk;
     private RecordMetaData inMessageRecordMetaData;
 
     /**
@@ -59,12 +61,34 @@ public abstract class VariableFieldRecordParser<T extends VariableFieldRecordPar
         this.factory = factory;
     }
 
+    /**
+     * Set the file chunk being parsed.
+     * <p/>
+     * The lines are only skipped, and the header read, at the start of the first chunk of a chunked
+     * file (see {@link org.milyn.delivery.chunk.ChunkedFileFilter}).
+     *
+     * @param fileChunk The file chunk, or null if not parsing a chunked file.
+     */
+    public void setFileChunk(FileChunk fileChunk) {
+        this.fileChunk = fileChunk;
+    }
+
     /**
      * {@inheritDoc}
      */
     public void initialize() throws IOException {
         int skipLines = factory.getSkipLines();
 
+        if (fileChunk != null) {
+            fileChunk.assertHeaderLines(skipLines + (factory.fieldsInMessage() || factory.validateHeader() ? 1 : 0));
+        }
+        if (fileChunk != null && !fileChunk.isFirst()) {
+            if (factory.fieldsInMessage()) {
+                throw new IOException("Unsupported 'fields-in-message' config for a chunked file.  The fields are only defined in the first chunk.");
+            }
+            return;
+        }
+
         // Move past the lines to be skipped ...
         while (lineNumber < skipLines) {
             _nextRecordFieldValues();
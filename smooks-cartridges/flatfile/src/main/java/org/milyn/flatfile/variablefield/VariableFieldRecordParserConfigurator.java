@@ -19,6 +19,7 @@ package org.milyn.flatfile.variablefield;
 import org.milyn.GenericReaderConfigurator;
 import org.milyn.cdr.SmooksConfigurationException;
 import org.milyn.cdr.SmooksResourceConfiguration;
+import org.milyn.cdr.annotation.Configurator;
 import org.milyn.flatfile.Binding;
 import org.milyn.flatfile.BindingType;
 import org.milyn.flatfile.FlatFileReader;
@@ -83,4 +84,27 @@ public abstract class VariableFieldRecordParserConfigurator extends GenericReade
 
         return super.toConfig();
     }
+
+    /**
+     * Create and configure a standalone instance of the record parser factory.
+     * <p/>
+     * Allows the records to be parsed (and bound - see {@link VariableFieldRecordParserFactory#newBindingIterator(java.io.Reader)})
+     * without creating a {@link org.milyn.Smooks} instance.
+     *
+     * @return The configured record parser factory.
+     * @throws SmooksConfigurationException Error creating or configuring the record parser factory.
+     */
+    public VariableFieldRecordParserFactory createParserFactory() throws SmooksConfigurationException {
+        VariableFieldRecordParserFactory parserFactory;
+
+        try {
+            parserFactory = factoryParserClass.newInstance();
+        } catch (InstantiationException e) {
+            throw new SmooksConfigurationException("Unable to create record parser factory instance [" + factoryParserClass.getName() + "].", e);
+        } catch (IllegalAccessException e) {
+            throw new SmooksConfigurationException("Unable to create record parser factory instance [" + factoryParserClass.getName() + "].", e);
+        }
+
+        return Configurator.configure(parserFactory, toConfig().get(0));
+    }
 }
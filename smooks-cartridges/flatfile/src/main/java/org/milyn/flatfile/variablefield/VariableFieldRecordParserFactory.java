@@ -19,6 +19,7 @@ package org.milyn.flatfile.variablefield;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,13 +41,19 @@ import org.milyn.delivery.sax.SAXElement;
 import org.milyn.delivery.sax.SAXVisitAfter;
 import org.milyn.expression.MVELExpressionEvaluator;
 import org.milyn.flatfile.BindingType;
+import org.milyn.flatfile.Field;
 import org.milyn.flatfile.FieldMetaData;
+import org.milyn.flatfile.Record;
 import org.milyn.flatfile.RecordMetaData;
+import org.milyn.flatfile.RecordParser;
 import org.milyn.flatfile.RecordParserFactory;
 import org.milyn.javabean.Bean;
+import org.milyn.javabean.RecordBeanIterator;
+import org.milyn.javabean.RecordBeanMapper;
 import org.milyn.javabean.context.BeanContext;
 import org.milyn.xml.XmlUtil;
 import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
 
 /**
  * Abstract VariableFieldRecordParserFactory.
@@ -81,6 +88,7 @@ public abstract class VariableFieldRecordParserFactory implements RecordParserFa
     @ConfigParam(use = ConfigParam.Use.OPTIONAL)
     private String bindMapKeyField;
     private static final String RECORD_BEAN = "recordBean";
+    private RecordBeanMapper<Object> beanMapper;
 
     @ConfigParam(name = "skip-line-count", defaultVal = "0")
     private int skipLines;
@@ -155,15 +163,7 @@ public abstract class VariableFieldRecordParserFactory implements RecordParserFa
         if (bindBeanId != null && bindBeanClass != null) {
             Bean bean;
 
-            if (fieldsInMessage) {
-                throw new SmooksConfigurationException("Unsupported reader based bean binding config.  Not supported when fields are defined in message.  See 'fieldsInMessage' attribute.");
-            }
-
-            if (vfRecordMetaData.isMultiTypeRecordSet()) {
-                throw new SmooksConfigurationException(
-                        "Unsupported reader based bean binding config for a multi record type record set.  "
-                                + "Only supported for single record type record sets.  Use <jb:bean> configs for multi binding record type record sets.");
-            }
+            assertBindingSupported();
 
             if (bindingType == BindingType.LIST) {
                 Bean listBean = new Bean(ArrayList.class, bindBeanId,
@@ -224,6 +224,75 @@ public abstract class VariableFieldRecordParserFactory implements RecordParserFa
         vfRecordMetaData = new VariableFieldRecordMetaData(recordElementName, fields);
     }
 
+    /**
+     * Create an {@link Iterator} that binds the records of the supplied stream directly onto instances of the
+     * configured binding bean class ('bindBeanClass').
+     * <p/>
+     * The records are parsed exactly as for a filter operation (skipped lines, strict parsing, string functions
+     * etc), but the field values are set straight onto the record beans using a {@link RecordBeanMapper}
+     * i.e. no SAX events are generated and no visitors are applied.  Only suitable for configurations containing
+     * nothing other than the reader based binding.
+     *
+     * @param recordReader The record stream.  Closed by the returned {@link RecordBeanIterator} once the end of
+     * the stream is reached, or the iterator is {@link RecordBeanIterator#close() closed}.
+     * @return The record bean {@link Iterator}.
+     * @throws SmooksConfigurationException No binding configured, or the binding is not supported by this
+     * parser configuration.
+     */
+    @SuppressWarnings("unchecked")
+    public RecordBeanIterator<Object> newBindingIterator(final Reader recordReader) throws SmooksConfigurationException {
+        if (bindBeanClass == null) {
+            throw new SmooksConfigurationException("Unable to create binding Iterator.  No 'bindBeanClass' configured on the reader.");
+        }
+        assertBindingSupported();
+
+        synchronized (this) {
+            if (beanMapper == null) {
+                beanMapper = new RecordBeanMapper<Object>((Class<Object>) bindBeanClass);
+            }
+        }
+
+        final RecordParser recordParser = newRecordParser();
+        recordParser.setRecordParserFactory(this);
+        recordParser.setDataSource(new InputSource(recordReader));
+
+        return new RecordBeanIterator<Object>(beanMapper) {
+            private boolean initialized = false;
+
+            protected Object readNext() throws IOException {
+                if (!initialized) {
+                    recordParser.initialize();
+                    initialized = true;
+                }
+
+                Record record = recordParser.nextRecord();
+                if (record == null) {
+                    return null;
+                }
+
+                RecordBeanMapper<Object> mapper = getBeanMapper();
+                Object bean = mapper.newBean();
+                for (Field field : record.getFields()) {
+                    if (field.getMetaData() != null) {
+                        mapper.setFieldValue(bean, field.getName(), field.getValue());
+                    }
+                }
+
+                return bean;
+            }
+
+            protected void release() throws IOException {
+                try {
+                    if (initialized) {
+                        recordParser.uninitialize();
+                    }
+                } finally {
+                    recordReader.close();
+                }
+            }
+        };
+    }
+
     /**
      * Read a record from the specified reader (up to the next recordDelimiter).
      * 
@@ -260,6 +329,18 @@ public abstract class VariableFieldRecordParserFactory implements RecordParserFa
         overFlowFromLastRecord = boundaryLocator.getOverflowCharacters();
     }
 
+    private void assertBindingSupported() {
+        if (fieldsInMessage) {
+            throw new SmooksConfigurationException("Unsupported reader based bean binding config.  Not supported when fields are defined in message.  See 'fieldsInMessage' attribute.");
+        }
+
+        if (vfRecordMetaData.isMultiTypeRecordSet()) {
+            throw new SmooksConfigurationException(
+                    "Unsupported reader based bean binding config for a multi record type record set.  "
+                            + "Only supported for single record type record sets.  Use <jb:bean> configs for multi binding record type record sets.");
+        }
+    }
+
     private void addFieldBindings(Bean bean) {
         for (FieldMetaData fieldMetaData : vfRecordMetaData.getRecordMetaData().getFields()) {
             if (!fieldMetaData.ignore()) {
@@ -104,6 +104,20 @@ public class RegexParserTest {
                 "10/26 03:04:21.076 A30 : EVENT=Msg_Rcvd, E_ID=7, D_ID=D2, M_ID=M4, R=97847854");
     }
 
+    @Test
+    public void test_literal_delimiter() {
+        Assert.assertEquals("|", RegexParserFactory.toLiteral("\\|"));
+        Assert.assertEquals("\t", RegexParserFactory.toLiteral("\\t"));
+        Assert.assertEquals("::", RegexParserFactory.toLiteral("::"));
+        Assert.assertNull(RegexParserFactory.toLiteral("^([a-z])\\|([a-z])$"));
+        Assert.assertNull(RegexParserFactory.toLiteral("\\d+"));
+        Assert.assertNull(RegexParserFactory.toLiteral("a|b"));
+
+        Assert.assertEquals("[a, b, c]", RegexParser.split(new StringBuilder("a|b|c"), "|").toString());
+        Assert.assertEquals("[, a, , b]", RegexParser.split(new StringBuilder("|a||b||"), "|").toString());
+        Assert.assertEquals("[abc]", RegexParser.split(new StringBuilder("abc"), "|").toString());
+    }
+
     public void testHelper(String config, String message) throws IOException, SAXException {
         Smooks smooks = new Smooks(getClass().getResourceAsStream("smooks-config-" + config + ".xml"));
         String expected = StreamUtils.readStreamAsString(getClass().getResourceAsStream("expected-" + config + ".xml"));
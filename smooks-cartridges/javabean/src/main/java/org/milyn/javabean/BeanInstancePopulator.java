@@ -26,6 +26,7 @@ import org.milyn.javabean.lifecycle.BeanContextLifecycleEvent;
 import org.milyn.javabean.lifecycle.BeanLifecycle;
 import org.milyn.util.CollectionsUtil;
 import org.milyn.util.ClassUtil;
+import org.milyn.util.MethodInvoker;
 import org.milyn.cdr.SmooksConfigurationException;
 import org.milyn.cdr.annotation.AnnotationConstants;
 import org.milyn.cdr.annotation.AppContext;
@@ -140,7 +141,7 @@ public class BeanInstancePopulator implements DOMElementVisitor, SAXVisitBefore,
     private BeanRuntimeInfo beanRuntimeInfo;
 
     private BeanRuntimeInfo wiredBeanRuntimeInfo;
-    private Method propertySetterMethod;
+    private MethodInvoker propertySetterMethod;
     private boolean checkedForSetterMethod;
     private boolean isAttribute = true;
     private DataDecoder decoder;
@@ -597,9 +598,13 @@ public class BeanInstancePopulator implements DOMElementVisitor, SAXVisitBefore,
      * @param setterName The setter method name.
      * @return The bean setter method.
      */
-    private synchronized Method createPropertySetterMethod(Object bean, String setterName, Class<?> setterParamType) {
+    private synchronized MethodInvoker createPropertySetterMethod(Object bean, String setterName, Class<?> setterParamType) {
         if (propertySetterMethod == null) {
-            propertySetterMethod = BeanUtils.createSetterMethod(setterName, bean, setterParamType);
+            Method method = BeanUtils.createSetterMethod(setterName, bean, setterParamType);
+
+            if(method != null) {
+                propertySetterMethod = MethodInvoker.Factory.create(method);
+            }
         }
 
         return propertySetterMethod;
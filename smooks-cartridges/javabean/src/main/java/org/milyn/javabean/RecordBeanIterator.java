@@ -0,0 +1,172 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.javabean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.milyn.SmooksException;
+import org.milyn.assertion.AssertArgument;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Record bean {@link Iterator}.
+ * <p/>
+ * Streams the records of a flat record stream as beans, one record at a time.  Each bean is
+ * created and populated by a {@link RecordBeanMapper} as the iterator is advanced, so only the current record is
+ * held in memory (unless the beans are collected using {@link #toList()}/{@link #toMap(String)}).
+ * <p/>
+ * Implementations read the next record in {@link #readNext()}.  The underlying record stream is released
+ * (see {@link #release()}) once the end of the stream is reached, a read fails, or the iterator is
+ * {@link #close() closed}.  An iterator that is abandoned before the end of the stream must be closed.
+ */
+public abstract class RecordBeanIterator<T> implements Iterator<T>, Closeable {
+
+    private static Log logger = LogFactory.getLog(RecordBeanIterator.class);
+
+    private final RecordBeanMapper<T> beanMapper;
+    private T nextBean;
+    private boolean finished;
+
+    /**
+     * Protected constructor.
+     * @param beanMapper The bean mapper used to create and populate the record beans.
+     */
+    protected RecordBeanIterator(RecordBeanMapper<T> beanMapper) {
+        AssertArgument.isNotNull(beanMapper, "beanMapper");
+        this.beanMapper = beanMapper;
+    }
+
+    /**
+     * Get the bean mapper used to create and populate the record beans.
+     * @return The bean mapper.
+     */
+    public RecordBeanMapper<T> getBeanMapper() {
+        return beanMapper;
+    }
+
+    /**
+     * Read the next record and bind it to a new bean.
+     * @return The record bean, or null if the end of the record stream has been reached.
+     * @throws IOException Error reading the record stream.
+     */
+    protected abstract T readNext() throws IOException;
+
+    /**
+     * Release the underlying record stream.
+     * <p/>
+     * Called once only.
+     * @throws IOException Error releasing the record stream.
+     */
+    protected void release() throws IOException {
+    }
+
+    /**
+     * Close this iterator, releasing the underlying record stream.
+     * <p/>
+     * No more record beans are returned after this call.
+     */
+    public void close() {
+        nextBean = null;
+        finish();
+    }
+
+    public boolean hasNext() {
+        if(nextBean == null && !finished) {
+            try {
+                nextBean = readNext();
+            } catch (IOException e) {
+                finish();
+                throw new SmooksException("Error reading record stream.", e);
+            } catch (RuntimeException e) {
+                finish();
+                throw e;
+            }
+
+            if(nextBean == null) {
+                finish();
+            }
+        }
+
+        return (nextBean != null);
+    }
+
+    public T next() {
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        T bean = nextBean;
+        nextBean = null;
+
+        return bean;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("Operation not supported by this Iterator.");
+    }
+
+    /**
+     * Collect the remaining record beans into a {@link List}.
+     * @return The record bean list.
+     */
+    public List<T> toList() {
+        List<T> beans = new ArrayList<T>();
+
+        while(hasNext()) {
+            beans.add(next());
+        }
+
+        return beans;
+    }
+
+    /**
+     * Collect the remaining record beans into a {@link Map}, keyed by the value of the specified field.
+     * @param keyField The name of the field providing the map key.
+     * @return The record bean map.
+     */
+    public Map<Object, T> toMap(String keyField) {
+        AssertArgument.isNotNullAndNotEmpty(keyField, "keyField");
+
+        Map<Object, T> beans = new LinkedHashMap<Object, T>();
+        while(hasNext()) {
+            T bean = next();
+            beans.put(beanMapper.getFieldValue(bean, keyField), bean);
+        }
+
+        return beans;
+    }
+
+    private void finish() {
+        if(finished) {
+            return;
+        }
+
+        finished = true;
+        try {
+            release();
+        } catch (IOException e) {
+            logger.debug("Failed to release record stream.", e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.javabean;
+
+import org.milyn.assertion.AssertArgument;
+import org.milyn.cdr.SmooksConfigurationException;
+import org.milyn.javabean.decoders.StringDecoder;
+import org.milyn.util.ClassUtil;
+import org.milyn.util.MethodInvoker;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Record to bean mapper.
+ * <p/>
+ * Maps flat record field values (CSV, Fixed Length etc) straight onto bean properties, without going through
+ * the Smooks filter and the {@link BeanInstanceCreator}/{@link BeanInstancePopulator} visitors.  Field values are
+ * decoded and set as they are by the reader based bindings i.e. the {@link DataDecoder} is resolved from the
+ * property setter parameter type, and {@link Map} beans get the field values as Strings.
+ * <p/>
+ * The setter, getter and decoder for each field are resolved once and cached, so instances should be created
+ * once and reused.  Instances are thread safe.
+ */
+public class RecordBeanMapper<T> {
+
+    private final Class<T> beanClass;
+    private final boolean isMap;
+    private final ConcurrentMap<String, FieldMapping> fieldMappings = new ConcurrentHashMap<String, FieldMapping>();
+
+    /**
+     * Public constructor.
+     * @param beanClass The bean class.
+     */
+    public RecordBeanMapper(Class<T> beanClass) {
+        AssertArgument.isNotNull(beanClass, "beanClass");
+        this.beanClass = beanClass;
+        this.isMap = Map.class.isAssignableFrom(beanClass);
+    }
+
+    /**
+     * Get the bean class.
+     * @return The bean class.
+     */
+    public Class<T> getBeanClass() {
+        return beanClass;
+    }
+
+    /**
+     * Create a new bean instance.
+     * @return The new bean instance.
+     */
+    public T newBean() {
+        try {
+            return beanClass.newInstance();
+        } catch (InstantiationException e) {
+            throw new SmooksConfigurationException("Unable to create bean instance [" + beanClass.getName() + "].", e);
+        } catch (IllegalAccessException e) {
+            throw new SmooksConfigurationException("Unable to create bean instance [" + beanClass.getName() + "].", e);
+        }
+    }
+
+    /**
+     * Decode a field value and set it on the bean.
+     * @param bean The bean instance.
+     * @param fieldName The field name.  Used as the bean property name.
+     * @param value The undecoded field value.
+     * @return The decoded field value.
+     * @throws DataDecodeException Failed to decode the field value.
+     */
+    @SuppressWarnings("unchecked")
+    public Object setFieldValue(T bean, String fieldName, String value) throws DataDecodeException {
+        FieldMapping fieldMapping = getFieldMapping(fieldName);
+        Object decodedValue;
+
+        try {
+            decodedValue = fieldMapping.decoder.decode(value);
+        } catch(DataDecodeException e) {
+            throw new DataDecodeException("Failed to decode binding value '" + value + "' for property '" + fieldName + "' on bean '" + beanClass.getName() + "'.", e);
+        }
+
+        if(decodedValue == null) {
+            return null;
+        }
+
+        if(isMap) {
+            ((Map) bean).put(fieldName, decodedValue);
+        } else if(fieldMapping.setter != null) {
+            try {
+                fieldMapping.setter.invoke(bean, decodedValue);
+            } catch (IllegalAccessException e) {
+                throw new SmooksConfigurationException("Error invoking bean setter method [" + fieldMapping.setter.getMethod().getName() + "] on bean instance class type [" + beanClass.getName() + "].", e);
+            } catch (InvocationTargetException e) {
+                throw new SmooksConfigurationException("Error invoking bean setter method [" + fieldMapping.setter.getMethod().getName() + "] on bean instance class type [" + beanClass.getName() + "].", e);
+            }
+        } else {
+            throw new SmooksConfigurationException("Bean [" + beanClass.getName() + "] configuration invalid.  Bean setter method [" + ClassUtil.toSetterName(fieldName) + "(" + decodedValue.getClass().getName() + ")] not found on type [" + beanClass.getName() + "].");
+        }
+
+        return decodedValue;
+    }
+
+    /**
+     * Get a field value from the bean.
+     * @param bean The bean instance.
+     * @param fieldName The field name.  Used as the bean property name.
+     * @return The field value.
+     */
+    @SuppressWarnings("unchecked")
+    public Object getFieldValue(T bean, String fieldName) {
+        if(isMap) {
+            return ((Map) bean).get(fieldName);
+        }
+
+        FieldMapping fieldMapping = getFieldMapping(fieldName);
+        if(fieldMapping.getter == null) {
+            throw new SmooksConfigurationException("Bean [" + beanClass.getName() + "] has no getter method for property '" + fieldName + "'.");
+        }
+
+        try {
+            return fieldMapping.getter.invoke(bean);
+        } catch (IllegalAccessException e) {
+            throw new SmooksConfigurationException("Error invoking bean getter method [" + fieldMapping.getter.getMethod().getName() + "] on bean instance class type [" + beanClass.getName() + "].", e);
+        } catch (InvocationTargetException e) {
+            throw new SmooksConfigurationException("Error invoking bean getter method [" + fieldMapping.getter.getMethod().getName() + "] on bean instance class type [" + beanClass.getName() + "].", e);
+        }
+    }
+
+    private FieldMapping getFieldMapping(String fieldName) {
+        FieldMapping fieldMapping = fieldMappings.get(fieldName);
+
+        if(fieldMapping == null) {
+            // Don't need to synchronize this.  Worse thing that can happen is we resolve it more than once...
+            fieldMapping = new FieldMapping(fieldName);
+            fieldMappings.put(fieldName, fieldMapping);
+        }
+
+        return fieldMapping;
+    }
+
+    private class FieldMapping {
+
+        private final DataDecoder decoder;
+        private final MethodInvoker setter;
+        private final MethodInvoker getter;
+
+        private FieldMapping(String fieldName) {
+            DataDecoder decoder = null;
+
+            if(isMap) {
+                setter = null;
+                getter = null;
+            } else {
+                Method setterMethod = Bean.getBindingMethod(fieldName, beanClass);
+                Method getterMethod = ClassUtil.getGetterMethodByProperty(fieldName, beanClass, null);
+
+                if(setterMethod != null) {
+                    setter = MethodInvoker.Factory.create(setterMethod);
+                    decoder = DataDecoder.Factory.create(setterMethod.getParameterTypes()[0]);
+                } else {
+                    setter = null;
+                }
+                getter = (getterMethod != null ? MethodInvoker.Factory.create(getterMethod) : null);
+            }
+
+            this.decoder = (decoder != null ? decoder : new StringDecoder());
+        }
+    }
+}
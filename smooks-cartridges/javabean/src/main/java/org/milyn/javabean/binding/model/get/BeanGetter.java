@@ -18,6 +18,7 @@ package org.milyn.javabean.binding.model.get;
 
 import org.milyn.javabean.binding.BeanSerializationException;
 import org.milyn.util.ClassUtil;
+import org.milyn.util.MethodInvoker;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
@@ -30,17 +31,19 @@ import java.lang.reflect.Method;
 public class BeanGetter<T extends Object> implements Getter<T> {
 
     private Method getterMethod;
+    private MethodInvoker getterInvoker;
 
     public BeanGetter(Class<?> beanClass, String property) {
         getterMethod = ClassUtil.getGetterMethodByProperty(property, beanClass, null);
         if(getterMethod == null) {
             throw new IllegalStateException("Failed to get getter method for property '" + property + "' on bean type '" + beanClass.getName() + "'.");
         }
+        getterInvoker = MethodInvoker.Factory.create(getterMethod);
     }
 
     public Object get(final T contextObject) throws BeanSerializationException {
         try {
-            return getterMethod.invoke(contextObject);
+            return getterInvoker.invoke(contextObject);
         } catch (IllegalArgumentException e) {
             throw new BeanSerializationException("Error invoking bean getter method '" + getterMethod.getName() + "' on bean type '" + contextObject.getClass().getName() + "'.", e);
         } catch (IllegalAccessException e) {
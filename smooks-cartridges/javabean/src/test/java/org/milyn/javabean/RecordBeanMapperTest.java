@@ -0,0 +1,113 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.javabean;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import org.milyn.cdr.SmooksConfigurationException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+public class RecordBeanMapperTest {
+
+    @Test
+    public void test_pojo() {
+        RecordBeanMapper<TypePopCheckBean> mapper = new RecordBeanMapper<TypePopCheckBean>(TypePopCheckBean.class);
+        TypePopCheckBean bean = mapper.newBean();
+
+        assertEquals(123, mapper.setFieldValue(bean, "intVal", "123"));
+        mapper.setFieldValue(bean, "doubleVal", "1.5");
+        mapper.setFieldValue(bean, "integerVal", "7");
+
+        assertEquals(123, bean.getIntVal());
+        assertEquals(1.5, bean.getDoubleVal(), 0.0);
+        assertEquals(new Integer(7), bean.getIntegerVal());
+        assertEquals(123, mapper.getFieldValue(bean, "intVal"));
+    }
+
+    @Test
+    public void test_pojo_decode_error() {
+        RecordBeanMapper<TypePopCheckBean> mapper = new RecordBeanMapper<TypePopCheckBean>(TypePopCheckBean.class);
+
+        try {
+            mapper.setFieldValue(mapper.newBean(), "intVal", "xxx");
+            fail("Expected DataDecodeException");
+        } catch (DataDecodeException e) {
+            assertEquals("Failed to decode binding value 'xxx' for property 'intVal' on bean '" + TypePopCheckBean.class.getName() + "'.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void test_pojo_unknown_property() {
+        RecordBeanMapper<TypePopCheckBean> mapper = new RecordBeanMapper<TypePopCheckBean>(TypePopCheckBean.class);
+
+        try {
+            mapper.setFieldValue(mapper.newBean(), "xxxVal", "123");
+            fail("Expected SmooksConfigurationException");
+        } catch (SmooksConfigurationException e) {
+            assertTrue(e.getMessage().startsWith("Bean [" + TypePopCheckBean.class.getName() + "] configuration invalid."));
+        }
+    }
+
+    @Test
+    public void test_map() {
+        RecordBeanMapper<HashMap> mapper = new RecordBeanMapper<HashMap>(HashMap.class);
+        HashMap bean = mapper.newBean();
+
+        mapper.setFieldValue(bean, "a", "1");
+        mapper.setFieldValue(bean, "b", "2");
+
+        assertEquals("1", bean.get("a"));
+        assertEquals("2", mapper.getFieldValue(bean, "b"));
+    }
+
+    @Test
+    public void test_iterator() {
+        final String[][] records = new String[][] {{"1", "a"}, {"2", "b"}, {"3", "c"}};
+        RecordBeanIterator<HashMap> iterator = new RecordBeanIterator<HashMap>(new RecordBeanMapper<HashMap>(HashMap.class)) {
+            private int index = 0;
+
+            protected HashMap readNext() throws IOException {
+                if(index == records.length) {
+                    return null;
+                }
+
+                HashMap bean = getBeanMapper().newBean();
+                getBeanMapper().setFieldValue(bean, "id", records[index][0]);
+                getBeanMapper().setFieldValue(bean, "name", records[index][1]);
+                index++;
+
+                return bean;
+            }
+        };
+
+        assertTrue(iterator.hasNext());
+        assertEquals("a", iterator.next().get("name"));
+
+        Map<Object, HashMap> map = iterator.toMap("id");
+        assertEquals("[2, 3]", map.keySet().toString());
+        assertEquals("c", map.get("3").get("name"));
+        assertFalse(iterator.hasNext());
+
+        List<HashMap> list = iterator.toList();
+        assertTrue(list.isEmpty());
+    }
+}
@@ -28,7 +28,8 @@ import org.milyn.cdr.annotation.ConfigParam;
 import org.milyn.cdr.annotation.ConfigParam.Use;
 import org.milyn.container.ExecutionContext;
 import org.milyn.delivery.annotation.Initialize;
-import org.milyn.xml.SmooksXMLReader;
+import org.milyn.xml.ResettableXMLReader;
+import org.milyn.xml.SubtreeSkippingXMLReader;
 import org.w3c.dom.Element;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
@@ -46,9 +47,10 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Stack;
 import java.util.Map;
+import java.util.regex.Pattern;
 
 /**
  * JSON to SAX event reader.
@@ -144,9 +146,14 @@ import java.util.Map;
  * &lt;/json&gt;</pre>
  * <p/>
  *
+ * <h3>Performance</h3>
+ * The element name resolved for a JSON key (key replacement, whitespace replacement etc) is cached on the reader
+ * instance, so keys that repeat through the message (e.g. the keys of the objects in a large array) are only
+ * resolved once.  Values are passed to the {@link ContentHandler} straight from the parser text buffer.
+ *
  * @author <a href="mailto:maurice@zeijen.net">maurice@zeijen.net</a>
  */
-public class JSONReader implements SmooksXMLReader {
+public class JSONReader implements SubtreeSkippingXMLReader, ResettableXMLReader {
 
 	private static Log logger = LogFactory.getLog(JSONReader.class);
 
@@ -162,6 +169,12 @@ public class JSONReader implements SmooksXMLReader {
 
     private static final JsonFactory jsonFactory = new JsonFactory();
 
+    private static final Pattern ILLEGAL_ELEMENT_NAME_CHARS = Pattern.compile("^[.]|[^a-zA-Z0-9_.-]");
+
+    private static final int MAX_ELEMENT_NAME_CACHE_SIZE = 1024;
+
+    private static final int INITIAL_DEPTH = 16;
+
     private ContentHandler contentHandler;
 
 	private ExecutionContext executionContext;
@@ -201,15 +214,14 @@ public class JSONReader implements SmooksXMLReader {
 
     private HashMap<String, String> keyMap = new HashMap<String, String>();
 
+    private Map<String, String> elementNameCache = new HashMap<String, String>();
+
+    private boolean skipSubtree = false;
+
 
 	@Config
     private SmooksResourceConfiguration config;
 
-    private static enum Type {
-    	OBJECT,
-    	ARRAY
-    }
-
     @Initialize
     public void initialize() {
 		initKeyMap();
@@ -218,6 +230,7 @@ public class JSONReader implements SmooksXMLReader {
 		doKeyWhitspaceReplacement = keyWhitspaceReplacement != null;
 		doPrefixOnNumericKey = keyPrefixOnNumeric != null;
 		doIllegalElementNameCharReplacement = illegalElementNameCharReplacement != null;
+		elementNameCache.clear();
     }
 
 
@@ -229,6 +242,12 @@ public class JSONReader implements SmooksXMLReader {
 		this.executionContext = request;
 	}
 
+	public void reset() {
+		contentHandler = null;
+		executionContext = null;
+		skipSubtree = false;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.xml.sax.XMLReader#parse(org.xml.sax.InputSource)
@@ -267,8 +286,11 @@ public class JSONReader implements SmooksXMLReader {
 		        }
 	
 		        boolean first = true;
-		        Stack<String> elementStack = new Stack<String>();
-		        Stack<Type> typeStack = new Stack<Type>();
+		        char[] nullValueChars = nullValueReplacement.toCharArray();
+		        String[] elementStack = new String[INITIAL_DEPTH];
+		        int elementDepth = 0;
+		        boolean[] arrayStack = new boolean[INITIAL_DEPTH];
+		        int depth = 0;
 		        JsonToken t;
 		        while ((t = jp.nextToken()) != null) {
 	
@@ -281,27 +303,35 @@ public class JSONReader implements SmooksXMLReader {
 		        	case START_OBJECT:
 		        	case START_ARRAY:
 		        		if(!first) {
-			        		if(!typeStack.empty() && typeStack.peek() == Type.ARRAY) {
-			        			startElement(arrayElementName, typeStack.size());
+			        		if(depth > 0 && arrayStack[depth - 1]) {
+			        			startElement(arrayElementName, depth);
+			        			if(skipSubtree) {
+			        				jp.skipChildren();
+			        				endElement(arrayElementName);
+			        				break;
+			        			}
 			        		}
 		        		}
-		        		typeStack.push(t == JsonToken.START_ARRAY ? Type.ARRAY : Type.OBJECT);
+		        		if(depth == arrayStack.length) {
+		        			arrayStack = Arrays.copyOf(arrayStack, depth * 2);
+		        		}
+		        		arrayStack[depth++] = (t == JsonToken.START_ARRAY);
 		        		break;
 	
 		        	case END_OBJECT:
 		        	case END_ARRAY:
 	
-		        		typeStack.pop();
+		        		depth--;
 	
-		        		boolean typeStackPeekIsArray = !typeStack.empty() && typeStack.peek() == Type.ARRAY;
+		        		boolean parentIsArray = depth > 0 && arrayStack[depth - 1];
 	
-		        		if(!elementStack.empty() && !typeStackPeekIsArray) {
-		        			endElement(elementStack.pop(), typeStack.size());
+		        		if(elementDepth > 0 && !parentIsArray) {
+		        			endElement(elementStack[--elementDepth], depth);
 		        		}
 	
 	
-		        		if(typeStackPeekIsArray) {
-		        			endElement(arrayElementName, typeStack.size());
+		        		if(parentIsArray) {
+		        			endElement(arrayElementName, depth);
 		        		}
 		        		break;
 	
@@ -315,36 +345,47 @@ public class JSONReader implements SmooksXMLReader {
 	
 		        		String name = getElementName(text);
 	
-	        			startElement(name, typeStack.size());
-	        			elementStack.add(name);
+	        			startElement(name, depth);
+	        			if(skipSubtree) {
+	        				// Skip the field value, including all its children...
+	        				jp.nextToken();
+	        				jp.skipChildren();
+	        				endElement(name);
+	        				break;
+	        			}
+	        			if(elementDepth == elementStack.length) {
+	        				elementStack = Arrays.copyOf(elementStack, elementDepth * 2);
+	        			}
+	        			elementStack[elementDepth++] = name;
 	
 	
 		        		break;
 	
 		        	default:
 	
-		        		String value;
-	
-		        		if(t == JsonToken.VALUE_NULL) {
-		        			value = nullValueReplacement;
-		        		} else {
-		        			value = jp.getText();
-		        		}
+		        		boolean inArray = depth > 0 && arrayStack[depth - 1];
 	
-		        		if(typeStack.peek() == Type.ARRAY) {
+		        		if(inArray) {
 	
-		        			startElement(arrayElementName, typeStack.size());
+		        			startElement(arrayElementName, depth);
 		        		}
 	
-		        		contentHandler.characters(value.toCharArray(), 0, value.length());
+		        		// Only pass the value if the element is targeted...
+		        		if(!skipSubtree) {
+		        			if(t == JsonToken.VALUE_NULL) {
+		        				contentHandler.characters(nullValueChars, 0, nullValueChars.length);
+		        			} else {
+		        				contentHandler.characters(jp.getTextCharacters(), jp.getTextOffset(), jp.getTextLength());
+		        			}
+		        		}
 	
-		        		if(typeStack.peek() == Type.ARRAY) {
+		        		if(inArray) {
 	
 		        			endElement(arrayElementName);
 	
-		        		} else {
+		        		} else if(elementDepth > 0) {
 	
-			        		endElement(elementStack.pop());
+			        		endElement(elementStack[--elementDepth]);
 	
 		        		}
 	
@@ -377,6 +418,7 @@ public class JSONReader implements SmooksXMLReader {
 
     private void startElement(String name, int indent) throws SAXException {
         indent(indent);
+        skipSubtree = false;
         contentHandler.startElement(XMLConstants.NULL_NS_URI, name, "", EMPTY_ATTRIBS);        
     }
 
@@ -404,6 +446,27 @@ public class JSONReader implements SmooksXMLReader {
 	 * @return
 	 */
 	private String getElementName(String text) {
+		if(!doKeyReplacement && !doKeyWhitspaceReplacement && !doPrefixOnNumericKey && !doIllegalElementNameCharReplacement) {
+			return text;
+		}
+
+		String elementName = elementNameCache.get(text);
+
+		if(elementName == null) {
+			elementName = toElementName(text).intern();
+			if(elementNameCache.size() < MAX_ELEMENT_NAME_CACHE_SIZE) {
+				elementNameCache.put(text, elementName);
+			}
+		}
+
+		return elementName;
+	}
+
+    /**
+	 * @param text
+	 * @return
+	 */
+	private String toElementName(String text) {
 
 		boolean replacedKey = false;
 		if(doKeyReplacement) {
@@ -427,7 +490,7 @@ public class JSONReader implements SmooksXMLReader {
 			}
 
 			if(doIllegalElementNameCharReplacement) {
-				text = text.replaceAll("^[.]|[^a-zA-Z0-9_.-]", illegalElementNameCharReplacement);
+				text = ILLEGAL_ELEMENT_NAME_CHARS.matcher(text).replaceAll(illegalElementNameCharReplacement);
 			}
 		}
 		return text;
@@ -459,6 +522,14 @@ public class JSONReader implements SmooksXMLReader {
        }
 	}
 
+    /*
+     * (non-Javadoc)
+     * @see org.milyn.xml.SubtreeSkippingXMLReader#skipSubtree()
+     */
+    public void skipSubtree() {
+        skipSubtree = true;
+    }
+
 	public void setContentHandler(ContentHandler contentHandler) {
         this.contentHandler = contentHandler;
     }
@@ -480,6 +551,7 @@ public class JSONReader implements SmooksXMLReader {
 	 */
 	public void setKeyMap(HashMap<String, String> keyMap) {
 		this.keyMap = keyMap;
+		elementNameCache.clear();
 	}
 
 
@@ -528,6 +600,7 @@ public class JSONReader implements SmooksXMLReader {
 	 */
 	public void setKeyWhitspaceReplacement(String keyWhitspaceReplacement) {
 		this.keyWhitspaceReplacement = keyWhitspaceReplacement;
+		elementNameCache.clear();
 	}
 
 
@@ -544,6 +617,7 @@ public class JSONReader implements SmooksXMLReader {
 	 */
 	public void setKeyPrefixOnNumeric(String keyPrefixOnNumeric) {
 		this.keyPrefixOnNumeric = keyPrefixOnNumeric;
+		elementNameCache.clear();
 	}
 
 
@@ -561,6 +635,7 @@ public class JSONReader implements SmooksXMLReader {
 	public void setIllegalElementNameCharReplacement(
 			String illegalElementNameCharReplacement) {
 		this.illegalElementNameCharReplacement = illegalElementNameCharReplacement;
+		elementNameCache.clear();
 	}
 
 
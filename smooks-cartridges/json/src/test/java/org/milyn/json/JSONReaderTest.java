@@ -94,6 +94,11 @@ public class JSONReaderTest {
     	test_config_file("configured_different_node_names");
     }
 
+    @Test
+    public void test_repeated_keys() throws Exception {
+    	test_config_file("repeated_keys");
+    }
+
 	private void test_progammed_config(String testNumber) throws Exception{
 		Smooks smooks = new Smooks();
 		SmooksResourceConfiguration config;
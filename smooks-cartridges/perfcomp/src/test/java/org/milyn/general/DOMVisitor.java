@@ -1,15 +0,0 @@
-package org.milyn.general;
-
-import org.milyn.delivery.dom.DOMVisitAfter;
-import org.milyn.container.ExecutionContext;
-import org.milyn.SmooksException;
-import org.w3c.dom.Element;
-
-/**
- * @author
- */
-public class DOMVisitor implements DOMVisitAfter {
-    
-    public void visitAfter(Element element, ExecutionContext executionContext) throws SmooksException {
-    }
-}
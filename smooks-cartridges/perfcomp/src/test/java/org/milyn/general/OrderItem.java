@@ -1,45 +0,0 @@
-package org.milyn.general;
-
-import java.math.BigDecimal;
-
-/**
- * @author
- */
-public class OrderItem {
-    private int position;
-    private Long quantity;
-    private BigDecimal price;
-    private String title;
-
-    public int getPosition() {
-        return position;
-    }
-
-    public void setPosition(int position) {
-        this.position = position;
-    }
-
-    public Long getQuantity() {
-        return quantity;
-    }
-
-    public void setQuantity(Long quantity) {
-        this.quantity = quantity;
-    }
-
-    public BigDecimal getPrice() {
-        return price;
-    }
-
-    public void setPrice(BigDecimal price) {
-        this.price = price;
-    }
-
-    public String getTitle() {
-        return title;
-    }
-
-    public void setTitle(String title) {
-        this.title = title;
-    }
-}
\ No newline at end of file
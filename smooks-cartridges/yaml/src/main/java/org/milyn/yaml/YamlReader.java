@@ -34,9 +34,10 @@ import org.milyn.cdr.annotation.ConfigParam;
 import org.milyn.cdr.annotation.ConfigParam.Use;
 import org.milyn.container.ExecutionContext;
 import org.milyn.delivery.annotation.Initialize;
-import org.milyn.xml.SmooksXMLReader;
+import org.milyn.xml.ResettableXMLReader;
 import org.milyn.yaml.handler.AliasReferencingEventHandler;
 import org.milyn.yaml.handler.AliasResolvingEventHandler;
+import org.milyn.yaml.handler.AnchorEventStore;
 import org.milyn.yaml.handler.EventHandler;
 import org.milyn.yaml.handler.YamlEventStreamHandler;
 import org.milyn.yaml.handler.YamlToSaxHandler;
@@ -116,12 +117,17 @@ import org.yaml.snakeyaml.events.Event;
  *      (Optional) The name of the alias attribute when the aliasStrategy is REFER or REFER_RESOLVER. Default of 'ref'
  *  --&gt;
  *  &lt;param name="<b>aliasAttributeName</b>"&gt;<i>&lt;alias-attribute-name&gt;</i>&lt;/param&gt;
+ *  &lt;!--
+ *      (Optional) The number of bytes of anchor event data held in memory when the aliasStrategy is RESOLVE or REFER_RESOLVE.
+ *      Once exceeded, the anchor event data is spilled to a temporary file. Default of '-1' (never spill)
+ *  --&gt;
+ *  &lt;param name="<b>anchorStoreMemoryLimit</b>"&gt;<i>&lt;anchor-store-memory-limit&gt;</i>&lt;/param&gt;
  * &lt;/resource-config&gt;
  * </pre>
  *
  * @author <a href="mailto:maurice@zeijen.net">maurice@zeijen.net</a>
  */
-public class YamlReader implements SmooksXMLReader {
+public class YamlReader implements ResettableXMLReader {
 
 	private static Log logger = LogFactory.getLog(YamlReader.class);
 
@@ -171,6 +177,9 @@ public class YamlReader implements SmooksXMLReader {
     @ConfigParam(defaultVal = AliasStrategy.REFER_STR, decoder = AliasStrategy.DataDecoder.class)
     private AliasStrategy aliasStrategy;
 
+    @ConfigParam(defaultVal = "-1")
+    private int anchorStoreMemoryLimit;
+
     @Config
     private SmooksResourceConfiguration config;
 
@@ -191,6 +200,11 @@ public class YamlReader implements SmooksXMLReader {
 		this.executionContext = request;
 	}
 
+	public void reset() {
+		contentHandler = null;
+		executionContext = null;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * @see org.xml.sax.XMLReader#parse(org.xml.sax.InputSource)
@@ -203,6 +217,7 @@ public class YamlReader implements SmooksXMLReader {
             throw new IllegalStateException("Smooks container 'executionContext' not set.  Cannot parse YAML stream.");
         }
 
+        AnchorEventStore anchorEventStore = null;
         try {
 			// Get a reader for the YAML source...
 	        Reader yamlStreamReader = yamlInputSource.getCharacterStream();
@@ -215,7 +230,8 @@ public class YamlReader implements SmooksXMLReader {
 	        if(aliasStrategy == AliasStrategy.REFER) {
 	        	eventHandler = new AliasReferencingEventHandler(yamlToSaxHandler);
 	        } else {
-	        	eventHandler = new AliasResolvingEventHandler(yamlEventStreamParser, yamlToSaxHandler, aliasStrategy == AliasStrategy.REFER_RESOLVE);
+	        	anchorEventStore = new AnchorEventStore(anchorStoreMemoryLimit);
+	        	eventHandler = new AliasResolvingEventHandler(yamlEventStreamParser, yamlToSaxHandler, aliasStrategy == AliasStrategy.REFER_RESOLVE, anchorEventStore);
 	        }
 
 	        if(logger.isTraceEnabled()) {
@@ -236,6 +252,9 @@ public class YamlReader implements SmooksXMLReader {
 	        contentHandler.endDocument();
 
         } finally {
+        	if(anchorEventStore != null) {
+        		anchorEventStore.close();
+        	}
         	contentHandler = null;
         	executionContext = null;
         }
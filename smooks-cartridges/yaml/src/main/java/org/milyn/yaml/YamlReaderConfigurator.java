@@ -46,6 +46,7 @@ public class YamlReaderConfigurator implements ReaderConfigurator {
     private AliasStrategy aliasStrategy = AliasStrategy.REFER;
     private String anchorAttributeName = YamlReader.DEFAULT_ANCHOR_NAME;
     private String aliasAttributeName = YamlReader.DEFAULT_ALIAS_NAME;
+    private int anchorStoreMemoryLimit = -1;
     private boolean indent = false;
 
     /**
@@ -204,6 +205,22 @@ public class YamlReaderConfigurator implements ReaderConfigurator {
 		return this;
 	}
 
+	/**
+	 * The number of bytes of anchor event data held in memory when the aliasStrategy is RESOLVE or REFER_RESOLVE.
+	 * Once exceeded, the anchor event data is spilled to a temporary file, so large YAML documents with many
+	 * anchors can be processed in a bounded heap.
+	 *
+	 * Default: -1 (never spill)
+	 *
+	 * @param anchorStoreMemoryLimit
+	 * @return This configurator (for chain calls)
+	 */
+	public YamlReaderConfigurator setAnchorStoreMemoryLimit(int anchorStoreMemoryLimit) {
+		this.anchorStoreMemoryLimit = anchorStoreMemoryLimit;
+
+		return this;
+	}
+
 	/**
 	 * Add indentation character data to the generated event stream. This simply
 	 * makes the generated event stream easier to read in its serialized form.
@@ -231,6 +248,7 @@ public class YamlReaderConfigurator implements ReaderConfigurator {
         configurator.getParameters().setProperty("aliasStrategy", aliasStrategy.toString());
         configurator.getParameters().setProperty("anchorAttributeName", anchorAttributeName);
         configurator.getParameters().setProperty("aliasAttributeName", aliasAttributeName);
+        configurator.getParameters().setProperty("anchorStoreMemoryLimit", Integer.toString(anchorStoreMemoryLimit));
         configurator.getParameters().setProperty("indent", Boolean.toString(indent));
         configurator.getParameters().setProperty("rootName", rootName);
         configurator.getParameters().setProperty("documentName", documentName);
@@ -23,9 +23,7 @@ import org.yaml.snakeyaml.events.Event;
 import org.yaml.snakeyaml.events.NodeEvent;
 import org.yaml.snakeyaml.events.ScalarEvent;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -34,6 +32,8 @@ import java.util.Map;
  * <p/>
  * When addReferenceAttributes is true then attributes are set on the elements with
  * the anchors and alias containing the anchor name.
+ * <p/>
+ * The events of the anchors are kept in an {@link AnchorEventStore}.
  *
  * @author maurice_zeijen
  */
@@ -45,6 +45,8 @@ public class AliasResolvingEventHandler implements EventHandler {
 
     private final boolean addReferenceAttributes;
 
+    private final AnchorEventStore anchorEventStore;
+
     private int level = 0;
 
     private Map<String, Anchor> anchorMap = new HashMap<String, Anchor>();
@@ -53,9 +55,15 @@ public class AliasResolvingEventHandler implements EventHandler {
 
     public AliasResolvingEventHandler(YamlEventStreamHandler eventStreamParser, YamlToSaxHandler contentHandler,
                                       boolean addReferenceAttributes) {
+        this(eventStreamParser, contentHandler, addReferenceAttributes, new AnchorEventStore(-1));
+    }
+
+    public AliasResolvingEventHandler(YamlEventStreamHandler eventStreamParser, YamlToSaxHandler contentHandler,
+                                      boolean addReferenceAttributes, AnchorEventStore anchorEventStore) {
         this.eventStreamParser = eventStreamParser;
         this.contentHandler = contentHandler;
         this.addReferenceAttributes = addReferenceAttributes;
+        this.anchorEventStore = anchorEventStore;
     }
 
     public void addValueEvent(ScalarEvent event, String name, String value) throws SAXException {
@@ -117,7 +125,7 @@ public class AliasResolvingEventHandler implements EventHandler {
 
 
         if (anchor.isValueAnchor()) {
-            ScalarEvent scalarEvent = (ScalarEvent) anchor.getEvents().get(0);
+            ScalarEvent scalarEvent = (ScalarEvent) anchor.getEvents().iterator().next();
 
             addValueEvent(scalarEvent, name, scalarEvent.getValue(), false);
         } else {
@@ -135,14 +143,14 @@ public class AliasResolvingEventHandler implements EventHandler {
     }
 
     private void addValueAnchor(NodeEvent event) {
-        Anchor anchor = new Anchor(event.getAnchor(), true);
+        Anchor anchor = new Anchor(event.getAnchor(), true, anchorEventStore.newRecording());
         anchor.addEvent(event);
 
         anchorMap.put(anchor.getName(), anchor);
     }
 
     private void addStructureAnchor(NodeEvent event) throws SAXException {
-        Anchor anchor = new Anchor(event.getAnchor(), false);
+        Anchor anchor = new Anchor(event.getAnchor(), false, anchorEventStore.newRecording());
 
         if (activeAnchorMap.values().contains(anchor)) {
             throw new SAXParseException(
@@ -178,12 +186,13 @@ public class AliasResolvingEventHandler implements EventHandler {
 
         private final boolean valueAnchor;
 
-        private final List<Event> events = new ArrayList<Event>();
+        private final AnchorEventStore.Recording events;
 
-        private Anchor(String name, boolean valueAnchor) {
+        private Anchor(String name, boolean valueAnchor, AnchorEventStore.Recording events) {
             super();
             this.name = name;
             this.valueAnchor = valueAnchor;
+            this.events = events;
         }
 
         public String getName() {
@@ -194,7 +203,7 @@ public class AliasResolvingEventHandler implements EventHandler {
             events.add(event);
         }
 
-        public List<Event> getEvents() {
+        public AnchorEventStore.Recording getEvents() {
             return events;
         }
 
@@ -202,43 +211,5 @@ public class AliasResolvingEventHandler implements EventHandler {
             return valueAnchor;
         }
 
-        @Override
-        public int hashCode() {
-            final int prime = 31;
-            int result = 1;
-            result = prime * result + ((events == null) ? 0 : events.hashCode());
-            result = prime * result + ((name == null) ? 0 : name.hashCode());
-            return result;
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj) {
-                return true;
-            }
-            if (obj == null) {
-                return false;
-            }
-            if (getClass() != obj.getClass()) {
-                return false;
-            }
-            Anchor other = (Anchor) obj;
-            if (events == null) {
-                if (other.events != null) {
-                    return false;
-                }
-            } else if (!events.equals(other.events)) {
-                return false;
-            }
-            if (name == null) {
-                if (other.name != null) {
-                    return false;
-                }
-            } else if (!name.equals(other.name)) {
-                return false;
-            }
-            return true;
-        }
-
     }
 }
@@ -0,0 +1,485 @@
+/*
+	Milyn - Copyright (C) 2008
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.yaml.handler;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.milyn.SmooksException;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ImplicitTuple;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceEndEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+import org.yaml.snakeyaml.events.Event.ID;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Anchor event store.
+ * <p/>
+ * Stores the events of the anchored YAML structures, so they can be replayed for the aliases.  The events
+ * are stored in a compact binary encoding (only the event type, anchor, value and start mark are stored),
+ * and are decoded one at a time as they are replayed.
+ * <p/>
+ * If a memory limit is set, the in-memory event data is spilled to a temporary file once the limit is exceeded,
+ * so the heap used by the store is bounded, no matter how many (or how large) the anchored structures are.
+ * Each recording keeps the file offsets of its spilled segments, merging segments that are contiguous in the
+ * file.  The temporary file is deleted when the store is {@link #close() closed}.
+ */
+public class AnchorEventStore {
+
+	private static Log logger = LogFactory.getLog(AnchorEventStore.class);
+
+	private static final byte SCALAR = 1;
+	private static final byte MAPPING_START = 2;
+	private static final byte MAPPING_END = 3;
+	private static final byte SEQUENCE_START = 4;
+	private static final byte SEQUENCE_END = 5;
+	private static final byte ALIAS = 6;
+
+	private static final ImplicitTuple IMPLICIT = new ImplicitTuple(true, false);
+
+	private final int memoryLimit;
+
+	// The recordings with event data in memory...
+	private final List<Recording> recordings = new ArrayList<Recording>();
+
+	private long memorySize = 0;
+
+	private File spillFile;
+
+	private RandomAccessFile spillFileAccess;
+
+	/**
+	 * Public constructor.
+	 *
+	 * @param memoryLimit The number of bytes of event data held in memory before the
+	 * event data is spilled to disk.  A negative value means the event data is never
+	 * spilled to disk.
+	 */
+	public AnchorEventStore(int memoryLimit) {
+		this.memoryLimit = memoryLimit;
+	}
+
+	/**
+	 * Start a new event recording.
+	 *
+	 * @return The new recording.
+	 */
+	public Recording newRecording() {
+		return new Recording();
+	}
+
+	/**
+	 * Close the store, deleting the spill file (if any).
+	 */
+	public void close() {
+		recordings.clear();
+		memorySize = 0;
+
+		if(spillFileAccess != null) {
+			try {
+				spillFileAccess.close();
+			} catch (IOException e) {
+				logger.debug("Error closing YAML anchor spill file '" + spillFile.getAbsolutePath() + "'.", e);
+			}
+			if(!spillFile.delete()) {
+				logger.debug("Unable to delete YAML anchor spill file '" + spillFile.getAbsolutePath() + "'.");
+			}
+			spillFileAccess = null;
+			spillFile = null;
+		}
+	}
+
+	private void spill() throws IOException {
+		if(spillFileAccess == null) {
+			spillFile = File.createTempFile("smooks-yaml-anchors-", ".bin");
+			spillFileAccess = new RandomAccessFile(spillFile, "rw");
+			if(logger.isDebugEnabled()) {
+				logger.debug("Spilling YAML anchor events to '" + spillFile.getAbsolutePath() + "'.");
+			}
+		}
+
+		for(Recording recording : recordings) {
+			recording.spill();
+		}
+		recordings.clear();
+		memorySize = 0;
+	}
+
+	/**
+	 * Event recording.
+	 * <p/>
+	 * The events of a single anchored structure.
+	 */
+	public class Recording implements Iterable<Event> {
+
+		private final MemoryBuffer memoryBuffer = new MemoryBuffer();
+
+		private final DataOutputStream out = new DataOutputStream(memoryBuffer);
+
+		// The spill file offset of each spilled segment, and the recording position at the end of each segment...
+		private long[] segmentOffsets = new long[4];
+		private long[] segmentEnds = new long[4];
+		private int segmentCount = 0;
+
+		private long spilledSize = 0;
+
+		private Recording() {
+		}
+
+		/**
+		 * Add an event to the recording.
+		 *
+		 * @param event The event.
+		 */
+		public void add(Event event) {
+			int sizeBefore = memoryBuffer.size();
+
+			if(sizeBefore == 0) {
+				recordings.add(this);
+			}
+
+			try {
+				if(event.is(ID.Scalar)) {
+					out.writeByte(SCALAR);
+					writeString(((ScalarEvent) event).getAnchor());
+					writeString(((ScalarEvent) event).getValue());
+				} else if(event.is(ID.MappingStart)) {
+					out.writeByte(MAPPING_START);
+					writeString(((CollectionStartEvent) event).getAnchor());
+				} else if(event.is(ID.SequenceStart)) {
+					out.writeByte(SEQUENCE_START);
+					writeString(((CollectionStartEvent) event).getAnchor());
+				} else if(event.is(ID.MappingEnd)) {
+					out.writeByte(MAPPING_END);
+				} else if(event.is(ID.SequenceEnd)) {
+					out.writeByte(SEQUENCE_END);
+				} else if(event.is(ID.Alias)) {
+					out.writeByte(ALIAS);
+					writeString(((NodeEvent) event).getAnchor());
+				} else {
+					throw new IllegalArgumentException("Unsupported anchor event type '" + event + "'.");
+				}
+				writeMark(event.getStartMark());
+
+				memorySize += (memoryBuffer.size() - sizeBefore);
+				if(memoryLimit >= 0 && memorySize > memoryLimit) {
+					AnchorEventStore.this.spill();
+				}
+			} catch (IOException e) {
+				throw new SmooksException("Error storing YAML anchor event.", e);
+			}
+		}
+
+		/**
+		 * Replay the recorded events.
+		 *
+		 * @return An iterator decoding the recorded events.
+		 */
+		public Iterator<Event> iterator() {
+			return new EventIterator(new DataInputStream(new RecordingInputStream(this)));
+		}
+
+		private void writeString(String string) throws IOException {
+			if(string == null) {
+				out.writeInt(-1);
+			} else {
+				byte[] bytes = string.getBytes("UTF-8");
+
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+		}
+
+		private void writeMark(Mark mark) throws IOException {
+			if(mark == null) {
+				out.writeInt(-1);
+				out.writeInt(-1);
+			} else {
+				out.writeInt(mark.getLine());
+				out.writeInt(mark.getColumn());
+			}
+		}
+
+		private void spill() throws IOException {
+			int size = memoryBuffer.size();
+
+			if(size == 0) {
+				return;
+			}
+
+			long offset = spillFileAccess.length();
+			spillFileAccess.seek(offset);
+			spillFileAccess.write(memoryBuffer.getBuffer(), 0, size);
+
+			if(segmentCount > 0 && offset == segmentOffsets[segmentCount - 1] + (spilledSize - getSegmentStart(segmentCount - 1))) {
+				// Follows on from the last segment in the spill file, so just extend it...
+				segmentEnds[segmentCount - 1] += size;
+			} else {
+				if(segmentCount == segmentOffsets.length) {
+					segmentOffsets = Arrays.copyOf(segmentOffsets, segmentCount * 2);
+					segmentEnds = Arrays.copyOf(segmentEnds, segmentCount * 2);
+				}
+				segmentOffsets[segmentCount] = offset;
+				segmentEnds[segmentCount] = spilledSize + size;
+				segmentCount++;
+			}
+			spilledSize += size;
+			memoryBuffer.release();
+		}
+
+		private long getSegmentStart(int segment) {
+			return (segment == 0 ? 0 : segmentEnds[segment - 1]);
+		}
+
+		private int read(long position, byte[] bytes, int offset, int length) throws IOException {
+			if(position < spilledSize) {
+				int segment = Arrays.binarySearch(segmentEnds, 0, segmentCount, position);
+
+				// Find the first segment ending after the position...
+				segment = (segment >= 0 ? segment + 1 : -segment - 1);
+
+				long segmentStart = getSegmentStart(segment);
+				int count = (int) Math.min(length, segmentEnds[segment] - position);
+
+				spillFileAccess.seek(segmentOffsets[segment] + (position - segmentStart));
+				spillFileAccess.readFully(bytes, offset, count);
+
+				return count;
+			}
+
+			int memoryPosition = (int) (position - spilledSize);
+			int count = Math.min(length, memoryBuffer.size() - memoryPosition);
+			if(count <= 0) {
+				return -1;
+			}
+			System.arraycopy(memoryBuffer.getBuffer(), memoryPosition, bytes, offset, count);
+
+			return count;
+		}
+	}
+
+	private static class MemoryBuffer extends ByteArrayOutputStream {
+
+		private static final int INITIAL_SIZE = 64;
+
+		private MemoryBuffer() {
+			super(INITIAL_SIZE);
+		}
+
+		private byte[] getBuffer() {
+			return buf;
+		}
+
+		private void release() {
+			buf = new byte[INITIAL_SIZE];
+			count = 0;
+		}
+	}
+
+	/**
+	 * Recording input stream.
+	 * <p/>
+	 * Single bytes are read straight from the in-memory event data.  A small read buffer is only
+	 * allocated if the recording has spilled event data, to save a file read for every byte.
+	 */
+	private static class RecordingInputStream extends InputStream {
+
+		private static final int SPILL_BUFFER_SIZE = 256;
+
+		private final Recording recording;
+
+		private long position = 0;
+
+		private byte[] spillBuffer;
+
+		private int spillBufferPosition = 0;
+
+		private int spillBufferCount = 0;
+
+		private RecordingInputStream(Recording recording) {
+			this.recording = recording;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if(spillBufferPosition == spillBufferCount && position < recording.spilledSize) {
+				if(spillBuffer == null) {
+					spillBuffer = new byte[SPILL_BUFFER_SIZE];
+				}
+				spillBufferCount = recording.read(position, spillBuffer, 0, SPILL_BUFFER_SIZE);
+				spillBufferPosition = 0;
+			}
+
+			if(spillBufferPosition < spillBufferCount) {
+				position++;
+				return (spillBuffer[spillBufferPosition++] & 0xFF);
+			}
+
+			int memoryPosition = (int) (position - recording.spilledSize);
+			if(memoryPosition >= recording.memoryBuffer.size()) {
+				return -1;
+			}
+			position++;
+
+			return (recording.memoryBuffer.getBuffer()[memoryPosition] & 0xFF);
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) throws IOException {
+			int count;
+
+			if(length == 0) {
+				return 0;
+			}
+
+			if(spillBufferPosition < spillBufferCount) {
+				count = Math.min(length, spillBufferCount - spillBufferPosition);
+				System.arraycopy(spillBuffer, spillBufferPosition, bytes, offset, count);
+				spillBufferPosition += count;
+			} else {
+				count = recording.read(position, bytes, offset, length);
+			}
+			if(count > 0) {
+				position += count;
+			}
+
+			return count;
+		}
+	}
+
+	private static class EventIterator implements Iterator<Event> {
+
+		private final DataInputStream in;
+
+		private Event next;
+
+		private boolean finished = false;
+
+		private EventIterator(DataInputStream in) {
+			this.in = in;
+		}
+
+		public boolean hasNext() {
+			if(next == null && !finished) {
+				try {
+					next = readEvent();
+				} catch (IOException e) {
+					throw new SmooksException("Error reading stored YAML anchor event.", e);
+				}
+				finished = (next == null);
+			}
+
+			return (next != null);
+		}
+
+		public Event next() {
+			if(!hasNext()) {
+				throw new NoSuchElementException();
+			}
+
+			Event event = next;
+			next = null;
+
+			return event;
+		}
+
+		public void remove() {
+			throw new UnsupportedOperationException("Operation not supported by this Iterator.");
+		}
+
+		private Event readEvent() throws IOException {
+			byte type;
+
+			try {
+				type = in.readByte();
+			} catch (EOFException e) {
+				return null;
+			}
+
+			switch(type) {
+			case SCALAR:
+				String anchor = readString();
+				String value = readString();
+				Mark mark = readMark();
+				return new ScalarEvent(anchor, null, IMPLICIT, value, mark, mark, null);
+			case MAPPING_START:
+				anchor = readString();
+				mark = readMark();
+				return new MappingStartEvent(anchor, null, true, mark, mark, null);
+			case SEQUENCE_START:
+				anchor = readString();
+				mark = readMark();
+				return new SequenceStartEvent(anchor, null, true, mark, mark, null);
+			case MAPPING_END:
+				mark = readMark();
+				return new MappingEndEvent(mark, mark);
+			case SEQUENCE_END:
+				mark = readMark();
+				return new SequenceEndEvent(mark, mark);
+			case ALIAS:
+				anchor = readString();
+				mark = readMark();
+				return new AliasEvent(anchor, mark, mark);
+			default:
+				throw new IOException("Corrupt YAML anchor event data.  Unknown event type '" + type + "'.");
+			}
+		}
+
+		private String readString() throws IOException {
+			int length = in.readInt();
+
+			if(length == -1) {
+				return null;
+			}
+
+			byte[] bytes = new byte[length];
+			in.readFully(bytes);
+
+			return new String(bytes, "UTF-8");
+		}
+
+		private Mark readMark() throws IOException {
+			int line = in.readInt();
+			int column = in.readInt();
+
+			if(line == -1) {
+				return null;
+			}
+
+			return new Mark("anchor", 0, line, column, null, 0);
+		}
+	}
+}
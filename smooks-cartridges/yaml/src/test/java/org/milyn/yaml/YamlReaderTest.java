@@ -261,6 +261,22 @@ public class YamlReaderTest {
         testProgrammaticConfig("alias_with_refer_resolve", smooks);
     }
 
+    @Test
+    public void test_alias_with_refer_resolve_spilled_anchors() throws Exception {
+        // Spill all of the anchor events to disk...
+        Smooks smooks = new Smooks();
+        smooks.setReaderConfig(new YamlReaderConfigurator().setAliasStrategy(AliasStrategy.REFER_RESOLVE).setAnchorStoreMemoryLimit(0));
+        testProgrammaticConfig("alias_with_refer_resolve", smooks);
+    }
+
+    @Test
+    public void test_alias_with_refer_resolve_partly_spilled_anchors() throws Exception {
+        // Keep some of the anchor events in memory and spill the rest to disk...
+        Smooks smooks = new Smooks();
+        smooks.setReaderConfig(new YamlReaderConfigurator().setAliasStrategy(AliasStrategy.REFER_RESOLVE).setAnchorStoreMemoryLimit(40));
+        testProgrammaticConfig("alias_with_refer_resolve", smooks);
+    }
+
     @Test
     public void test_alias_with_refer_resolve_different_attribute_names() throws Exception {
     	testCoreConfigFile("alias_with_refer_resolve_different_attribute_names");
@@ -0,0 +1,122 @@
+/*
+	Milyn - Copyright (C) 2008
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.yaml.handler;
+
+import org.junit.Test;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ImplicitTuple;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AnchorEventStoreTest {
+
+	private static final int EVENT_COUNT = 200;
+
+	@Test
+	public void test_in_memory() {
+		test_replay(-1);
+	}
+
+	@Test
+	public void test_all_spilled() {
+		test_replay(0);
+	}
+
+	@Test
+	public void test_partly_spilled() {
+		// Roughly a third of the event data fits in memory...
+		test_replay(2000);
+	}
+
+	private void test_replay(int memoryLimit) {
+		AnchorEventStore store = new AnchorEventStore(memoryLimit);
+
+		try {
+			AnchorEventStore.Recording outer = store.newRecording();
+			AnchorEventStore.Recording inner = store.newRecording();
+
+			outer.add(new MappingStartEvent("outer", null, true, mark(0), mark(0), null));
+			for(int i = 1; i <= EVENT_COUNT; i++) {
+				Event event = new ScalarEvent(null, null, new ImplicitTuple(true, false), "value-" + i, mark(i), mark(i), null);
+
+				outer.add(event);
+				if(i > EVENT_COUNT / 2) {
+					// The inner recording is interleaved with the outer recording...
+					inner.add(event);
+				}
+			}
+			outer.add(new MappingEndEvent(mark(EVENT_COUNT + 1), mark(EVENT_COUNT + 1)));
+
+			// Replay each recording more than once, and with two replays in progress at the same time...
+			Iterator<Event> firstOuterReplay = outer.iterator();
+			assertTrue(firstOuterReplay.next() instanceof MappingStartEvent);
+			assertEquals("value-1", ((ScalarEvent) firstOuterReplay.next()).getValue());
+
+			for(int replay = 0; replay < 2; replay++) {
+				assertRecording(outer, 1, EVENT_COUNT, true);
+				assertRecording(inner, EVENT_COUNT / 2 + 1, EVENT_COUNT, false);
+			}
+
+			for(int i = 2; i <= EVENT_COUNT; i++) {
+				assertEquals("value-" + i, ((ScalarEvent) firstOuterReplay.next()).getValue());
+			}
+			assertTrue(firstOuterReplay.next() instanceof MappingEndEvent);
+			assertFalse(firstOuterReplay.hasNext());
+		} finally {
+			store.close();
+		}
+	}
+
+	private void assertRecording(AnchorEventStore.Recording recording, int firstValue, int lastValue, boolean mapping) {
+		List<Event> events = new ArrayList<Event>();
+
+		for(Event event : recording) {
+			events.add(event);
+		}
+
+		int offset = 0;
+		if(mapping) {
+			assertEquals(lastValue - firstValue + 3, events.size());
+			assertTrue(events.get(0) instanceof MappingStartEvent);
+			assertEquals("outer", ((MappingStartEvent) events.get(0)).getAnchor());
+			assertTrue(events.get(events.size() - 1) instanceof MappingEndEvent);
+			assertEquals(lastValue + 1, events.get(events.size() - 1).getStartMark().getLine());
+			offset = 1;
+		} else {
+			assertEquals(lastValue - firstValue + 1, events.size());
+		}
+
+		for(int i = firstValue; i <= lastValue; i++) {
+			ScalarEvent event = (ScalarEvent) events.get(i - firstValue + offset);
+
+			assertEquals("value-" + i, event.getValue());
+			assertEquals(i, event.getStartMark().getLine());
+			assertEquals(i * 2, event.getStartMark().getColumn());
+		}
+	}
+
+	private Mark mark(int line) {
+		return new Mark("test", 0, line, line * 2, null, 0);
+	}
+}
@@ -0,0 +1,256 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.milyn.container.ExecutionContext;
+import org.milyn.javabean.lifecycle.BeanContextLifecycleEvent;
+import org.milyn.javabean.lifecycle.BeanContextLifecycleObserver;
+import org.milyn.javabean.lifecycle.BeanLifecycle;
+import org.milyn.payload.JavaResult;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import java.io.Closeable;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bean stream {@link Iterator}.
+ * <p/>
+ * Pull style access to the beans bound by a filter operation.  See {@link Smooks#stream(Source, Class, String)}.
+ * <p/>
+ * The filter operation is executed on a separate thread.  Each bean bound under the streamed bean Id is handed over
+ * to the consumer as soon as its fragment has been processed (i.e. on the {@link BeanLifecycle#END_FRAGMENT} event),
+ * through a bounded buffer.  The filter thread blocks while the buffer is full, so the filter operation never gets
+ * more than the buffer size ahead of the consumer.
+ * <p/>
+ * If the streamed bean is never handed over on a fragment event (e.g. a bean bound to the document fragment),
+ * the bean is extracted from the {@link JavaResult} once the filter operation has completed.  {@link Collection}
+ * beans are streamed element by element.
+ * <p/>
+ * A consumer that stops reading before the end of the stream must {@link #close()} the iterator, terminating
+ * the filter operation and closing the {@link Source}.
+ */
+public class BeanStreamIterator<T> implements Iterator<T>, Closeable {
+
+    private static Log logger = LogFactory.getLog(BeanStreamIterator.class);
+    private static final AtomicInteger threadCount = new AtomicInteger();
+    private static final Object END_OF_STREAM = new Object();
+
+    private final Smooks smooks;
+    private final ExecutionContext executionContext;
+    private final Source source;
+    private final Class<T> beanType;
+    private final String beanId;
+    private final BlockingQueue<Object> buffer;
+    private volatile boolean closed = false;
+    private Thread filterThread;
+    private Object next;
+    private boolean finished = false;
+
+    BeanStreamIterator(Smooks smooks, ExecutionContext executionContext, Source source, Class<T> beanType, String beanId, int bufferSize) {
+        if(bufferSize < 1) {
+            throw new IllegalArgumentException("Invalid 'bufferSize' arg value '" + bufferSize + "'.  Must be greater than zero.");
+        }
+        this.smooks = smooks;
+        this.executionContext = executionContext;
+        this.source = source;
+        this.beanType = beanType;
+        this.beanId = beanId;
+        this.buffer = new ArrayBlockingQueue<Object>(bufferSize);
+    }
+
+    synchronized void start() {
+        if(filterThread != null || closed) {
+            return;
+        }
+
+        filterThread = new Thread(new FilterTask(), "smooks-stream-" + threadCount.incrementAndGet());
+        filterThread.setDaemon(true);
+        filterThread.start();
+    }
+
+    public boolean hasNext() {
+        if(next == null && !finished) {
+            try {
+                next = buffer.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new SmooksException("Interrupted while waiting on the next bean in the stream.", e);
+            }
+
+            if(next == END_OF_STREAM) {
+                next = null;
+                finished = true;
+            } else if(next instanceof StreamError) {
+                Throwable error = ((StreamError) next).error;
+
+                next = null;
+                finished = true;
+                if(error instanceof SmooksException) {
+                    throw (SmooksException) error;
+                }
+                throw new SmooksException("Smooks Filtering operation failed.", error);
+            }
+        }
+
+        return (next != null);
+    }
+
+    public T next() {
+        if(!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Object bean = next;
+        next = null;
+
+        return beanType.cast(bean);
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("Operation not supported by this Iterator.");
+    }
+
+    /**
+     * Close the stream.
+     * <p/>
+     * Terminates the filter operation (if still active) by interrupting the filter thread and closing the
+     * {@link Source}.  Only needs to be called if the consumer stops reading before the end of the stream.
+     */
+    public void close() {
+        Thread thread;
+
+        synchronized (this) {
+            if(closed) {
+                return;
+            }
+            closed = true;
+            thread = filterThread;
+        }
+
+        finished = true;
+        next = null;
+        buffer.clear();
+        if(thread != null && thread != Thread.currentThread()) {
+            thread.interrupt();
+        }
+        closeSource();
+    }
+
+    private void closeSource() {
+        if (source instanceof StreamSource) {
+            StreamSource streamSource = (StreamSource) source;
+            try {
+                if(streamSource.getReader() != null) {
+                    streamSource.getReader().close();
+                } else if(streamSource.getInputStream() != null) {
+                    InputStream inputStream = streamSource.getInputStream();
+                    if(inputStream != System.in) {
+                        inputStream.close();
+                    }
+                }
+            } catch (Throwable throwable) {
+                logger.debug("Failed to close input stream/reader.", throwable);
+            }
+        }
+    }
+
+    private boolean emit(Object object) {
+        try {
+            while(!buffer.offer(object, 100, TimeUnit.MILLISECONDS)) {
+                if(closed) {
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        return !closed;
+    }
+
+    private class FilterTask implements Runnable, BeanContextLifecycleObserver {
+
+        private int emitCount = 0;
+
+        public void run() {
+            JavaResult javaResult = new JavaResult();
+
+            try {
+                executionContext.getBeanContext().addObserver(this);
+                smooks.filterSource(executionContext, source, javaResult);
+
+                if(emitCount == 0) {
+                    emitFromResult(javaResult.getBean(beanId));
+                }
+                emit(END_OF_STREAM);
+            } catch (Throwable t) {
+                if(closed) {
+                    if(logger.isDebugEnabled()) {
+                        logger.debug("Bean stream filter operation terminated after stream was closed.", t);
+                    }
+                } else {
+                    emit(new StreamError(t));
+                }
+            }
+        }
+
+        public void onBeanLifecycleEvent(BeanContextLifecycleEvent event) {
+            if(event.getLifecycle() == BeanLifecycle.END_FRAGMENT && event.getBeanId().getName().equals(beanId)) {
+                Object bean = event.getBean();
+
+                if(beanType.isInstance(bean)) {
+                    emitCount++;
+                    if(!emit(bean)) {
+                        throw new SmooksException("Bean stream closed by the consumer.  Terminating filter operation.");
+                    }
+                }
+            }
+        }
+
+        private void emitFromResult(Object bean) {
+            if(beanType.isInstance(bean)) {
+                emit(bean);
+            } else if(bean instanceof Collection) {
+                for(Object entry : (Collection) bean) {
+                    if(beanType.isInstance(entry) && !emit(entry)) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private static class StreamError {
+
+        private final Throwable error;
+
+        private StreamError(Throwable error) {
+            this.error = error;
+        }
+    }
+}
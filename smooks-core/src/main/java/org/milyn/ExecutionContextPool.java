@@ -0,0 +1,192 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.milyn.container.ExecutionContext;
+import org.milyn.container.ExecutionContextSlot;
+import org.milyn.container.standalone.StandaloneExecutionContext;
+
+import javax.xml.transform.Result;
+import javax.xml.transform.Source;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded {@link ExecutionContext} pool.
+ * <p/>
+ * Avoids the cost of creating a new {@link ExecutionContext} for every message, which can be a big part of the
+ * per-message cost when filtering high rates of small messages.  The {@link org.milyn.javabean.context.BeanContext}
+ * is pooled with the context, and is rebound to the {@link org.milyn.payload.JavaSource}/{@link org.milyn.payload.JavaResult}
+ * bean map of each filter operation.
+ * <pre>
+ * ExecutionContextPool pool = smooks.createExecutionContextPool(32);
+ *
+ * // The context is acquired from the pool, and returned to it when the filter operation completes...
+ * pool.filterSource(new StringSource(message), result);
+ * </pre>
+ * Contexts can also be acquired and released explicitly, e.g. when the caller needs to access the
+ * context after filtering.  A released context is {@link StandaloneExecutionContext#reset() reset} and must not be
+ * used again by the caller.
+ * <p/>
+ * A context that is acquired, but never released, is reported (logged as a warning) once it has been garbage
+ * collected.  See {@link #getLeakCount()}.
+ */
+public class ExecutionContextPool {
+
+    private static Log logger = LogFactory.getLog(ExecutionContextPool.class);
+    private static final ExecutionContextSlot<LeakReference> LEAK_REFERENCE = ExecutionContextSlot.register(ExecutionContextPool.class.getName() + "#leakReference");
+
+    private final Smooks smooks;
+    private final String targetProfile;
+    private final int maxSize;
+    private final Queue<ExecutionContext> pool = new ConcurrentLinkedQueue<ExecutionContext>();
+    private final AtomicInteger pooledCount = new AtomicInteger();
+    private final ReferenceQueue<ExecutionContext> leakQueue = new ReferenceQueue<ExecutionContext>();
+    private final Set<LeakReference> acquired = Collections.newSetFromMap(new ConcurrentHashMap<LeakReference, Boolean>());
+    private final AtomicInteger leakCount = new AtomicInteger();
+
+    ExecutionContextPool(Smooks smooks, String targetProfile, int maxSize) {
+        if(maxSize < 1) {
+            throw new IllegalArgumentException("Invalid 'maxSize' arg value '" + maxSize + "'.  Must be greater than zero.");
+        }
+        this.smooks = smooks;
+        this.targetProfile = targetProfile;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Acquire an {@link ExecutionContext} from the pool.
+     * <p/>
+     * A new context is created if the pool is empty.  The context must be {@link #release(ExecutionContext) released}
+     * back to the pool after use.
+     *
+     * @return The execution context.
+     */
+    public ExecutionContext acquire() {
+        ExecutionContext executionContext = pool.poll();
+
+        pollLeaks();
+        if(executionContext != null) {
+            pooledCount.decrementAndGet();
+        } else {
+            executionContext = smooks.createExecutionContext(targetProfile);
+        }
+
+        LeakReference leakReference = new LeakReference(this, executionContext, leakQueue);
+        acquired.add(leakReference);
+        LEAK_REFERENCE.set(executionContext, leakReference);
+
+        return executionContext;
+    }
+
+    /**
+     * Release an {@link ExecutionContext} back to the pool.
+     * <p/>
+     * The context is {@link StandaloneExecutionContext#reset() reset} and must not be used by the caller after this call.
+     * It is discarded if the pool is full.
+     *
+     * @param executionContext The execution context.
+     * @throws IllegalStateException The context was not acquired from this pool, or was already released.
+     */
+    public void release(ExecutionContext executionContext) throws IllegalStateException {
+        LeakReference leakReference = LEAK_REFERENCE.get(executionContext);
+
+        if(leakReference == null || leakReference.pool != this || !acquired.remove(leakReference)) {
+            throw new IllegalStateException("ExecutionContext not acquired from this pool, or already released.");
+        }
+        leakReference.clear();
+
+        ((StandaloneExecutionContext) executionContext).reset();
+        if(pooledCount.incrementAndGet() <= maxSize) {
+            pool.offer(executionContext);
+        } else {
+            pooledCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Filter the content in the supplied {@link Source} instance, outputing data
+     * to the supplied {@link Result} instances, using a pooled {@link ExecutionContext}.
+     *
+     * @param source           The filter Source.
+     * @param results          The filter Results.
+     * @throws SmooksException Failed to filter.
+     */
+    public void filterSource(Source source, Result... results) throws SmooksException {
+        ExecutionContext executionContext = acquire();
+
+        try {
+            smooks.filterSource(executionContext, source, results);
+        } finally {
+            release(executionContext);
+        }
+    }
+
+    /**
+     * Get the number of contexts currently held in the pool.
+     * @return The number of pooled contexts.
+     */
+    public int getPooledCount() {
+        return pooledCount.get();
+    }
+
+    /**
+     * Get the number of acquired contexts that were garbage collected without being released.
+     * @return The number of leaked contexts detected so far.
+     */
+    public int getLeakCount() {
+        pollLeaks();
+        return leakCount.get();
+    }
+
+    private void pollLeaks() {
+        Reference<? extends ExecutionContext> reference;
+
+        while((reference = leakQueue.poll()) != null) {
+            LeakReference leakReference = (LeakReference) reference;
+
+            if(acquired.remove(leakReference)) {
+                leakCount.incrementAndGet();
+                if(leakReference.acquiredAt != null) {
+                    logger.warn("ExecutionContext acquired from ExecutionContextPool was never released.", leakReference.acquiredAt);
+                } else {
+                    logger.warn("ExecutionContext acquired from ExecutionContextPool was never released.  Enable debug logging on '" + ExecutionContextPool.class.getName() + "' to capture where it was acquired.");
+                }
+            }
+        }
+    }
+
+    private static class LeakReference extends WeakReference<ExecutionContext> {
+
+        private final ExecutionContextPool pool;
+        private final Throwable acquiredAt;
+
+        private LeakReference(ExecutionContextPool pool, ExecutionContext executionContext, ReferenceQueue<ExecutionContext> queue) {
+            super(executionContext, queue);
+            this.pool = pool;
+            acquiredAt = (logger.isDebugEnabled() ? new Throwable("ExecutionContext acquired here.") : null);
+        }
+    }
+}
@@ -15,6 +15,7 @@
 */
 package org.milyn;
 
+import org.milyn.assertion.AssertArgument;
 import org.milyn.cdr.ParameterAccessor;
 import org.milyn.delivery.Filter;
 
@@ -35,7 +36,11 @@ public class FilterSettings {
     private boolean maintainElementStack = true;
     private boolean closeSource = true;
     private boolean closeResult = true;
-    private int readerPoolSize = 0;
+    private int readerPoolSize = -1;
+    private boolean recycleSAXElements = false;
+    private String parallelFragmentsSelector;
+    private int parallelFragmentsThreads = 0;
+    private boolean parallelFragmentsOrdered = true;
 
     public FilterSettings() {
     }
@@ -95,12 +100,82 @@ public class FilterSettings {
         return this;
     }
     
+    /**
+     * Set the reader pool size.
+     * <p/>
+     * If not set, only {@link org.milyn.xml.ResettableXMLReader} instances are pooled.
+     *
+     * @param readerPoolSize The reader pool size.  Zero turns off reader pooling.
+     * @return This filter settings instance.
+     */
     public FilterSettings setReaderPoolSize(int readerPoolSize) {
     	assertNonStaticDecl();
         this.readerPoolSize = readerPoolSize;
         return this;
     }
 
+    /**
+     * Turn on {@link org.milyn.delivery.sax.SAXElement} recycling in the SAX filter.
+     * <p/>
+     * Reduces per element object allocation, but visitors that retain a reference to a
+     * {@link org.milyn.delivery.sax.SAXElement} must {@link org.milyn.delivery.sax.SAXElement#detach() detach} it.
+     * Default is false.
+     *
+     * @param recycleSAXElements True if SAX elements are to be recycled, otherwise false.
+     * @return This filter settings instance.
+     */
+    public FilterSettings setRecycleSAXElements(boolean recycleSAXElements) {
+    	assertNonStaticDecl();
+        this.recycleSAXElements = recycleSAXElements;
+        return this;
+    }
+
+    /**
+     * Process the repeating message fragments targeted by the supplied selector in parallel (SAX filter only).
+     * <p/>
+     * The SAX filter records the events of each targeted fragment and replays them into a new
+     * {@link org.milyn.container.ExecutionContext} on a worker thread.  Each fragment gets its own
+     * {@link org.milyn.javabean.context.BeanContext} and its own execution lifecycle
+     * (see {@link org.milyn.delivery.ExecutionLifecycleCleanable}), so the visitors applied to the
+     * fragment must not depend on beans created outside the fragment.  Beans bound inside a fragment are
+     * not added to the {@link org.milyn.payload.JavaResult} of the filter operation.  Visitors targeted at
+     * the fragment ancestors are only applied on the main execution.
+     * <p/>
+     * The fragment {@link org.milyn.container.ExecutionContext} starts with a copy of the main execution
+     * context attributes, as they are when the fragment is cut from the stream.  The attribute values are
+     * shared by concurrently executing fragments (so must be thread safe if modified), and attributes set
+     * on the fragment context are not visible to the main execution.
+     *
+     * @param selector The fragment selector e.g. "order-item" or "order/order-item".
+     * @param threads The number of worker threads.
+     * @return This filter settings instance.
+     */
+    public FilterSettings setParallelFragments(String selector, int threads) {
+    	assertNonStaticDecl();
+        AssertArgument.isNotNullAndNotEmpty(selector, "selector");
+        if(threads < 1) {
+            throw new IllegalArgumentException("Invalid 'threads' arg value '" + threads + "'.  Must be greater than zero.");
+        }
+        this.parallelFragmentsSelector = selector;
+        this.parallelFragmentsThreads = threads;
+        return this;
+    }
+
+    /**
+     * Deliver the serialized output of parallel fragments in document order.
+     * <p/>
+     * If false, the output of each fragment is delivered to the result as soon as the fragment
+     * has been processed.  Default is true.
+     *
+     * @param parallelFragmentsOrdered True if the parallel fragment output is to be delivered in document order, otherwise false.
+     * @return This filter settings instance.
+     */
+    public FilterSettings setParallelFragmentsOrdered(boolean parallelFragmentsOrdered) {
+    	assertNonStaticDecl();
+        this.parallelFragmentsOrdered = parallelFragmentsOrdered;
+        return this;
+    }
+
     protected void applySettings(Smooks smooks) {
     	// Remove the old params...
         ParameterAccessor.removeParameter(Filter.STREAM_FILTER_TYPE, smooks);        
@@ -111,6 +186,10 @@ public class FilterSettings {
         ParameterAccessor.removeParameter(Filter.CLOSE_SOURCE, smooks);
         ParameterAccessor.removeParameter(Filter.CLOSE_RESULT, smooks);
         ParameterAccessor.removeParameter(Filter.READER_POOL_SIZE, smooks);
+        ParameterAccessor.removeParameter(Filter.RECYCLE_SAX_ELEMENTS, smooks);
+        ParameterAccessor.removeParameter(Filter.PARALLEL_FRAGMENTS_SELECTOR, smooks);
+        ParameterAccessor.removeParameter(Filter.PARALLEL_FRAGMENTS_THREADS, smooks);
+        ParameterAccessor.removeParameter(Filter.PARALLEL_FRAGMENTS_ORDERED, smooks);
     	
     	// Set the params...
         ParameterAccessor.setParameter(Filter.STREAM_FILTER_TYPE, filterType.toString(), smooks);        
@@ -120,7 +199,15 @@ public class FilterSettings {
         ParameterAccessor.setParameter(Filter.MAINTAIN_ELEMENT_STACK, Boolean.toString(maintainElementStack), smooks);
         ParameterAccessor.setParameter(Filter.CLOSE_SOURCE, Boolean.toString(closeSource), smooks);
         ParameterAccessor.setParameter(Filter.CLOSE_RESULT, Boolean.toString(closeResult), smooks);
-        ParameterAccessor.setParameter(Filter.READER_POOL_SIZE, Integer.toString(readerPoolSize), smooks);
+        if(readerPoolSize >= 0) {
+            ParameterAccessor.setParameter(Filter.READER_POOL_SIZE, Integer.toString(readerPoolSize), smooks);
+        }
+        ParameterAccessor.setParameter(Filter.RECYCLE_SAX_ELEMENTS, Boolean.toString(recycleSAXElements), smooks);
+        if(parallelFragmentsSelector != null) {
+            ParameterAccessor.setParameter(Filter.PARALLEL_FRAGMENTS_SELECTOR, parallelFragmentsSelector, smooks);
+            ParameterAccessor.setParameter(Filter.PARALLEL_FRAGMENTS_THREADS, Integer.toString(parallelFragmentsThreads), smooks);
+            ParameterAccessor.setParameter(Filter.PARALLEL_FRAGMENTS_ORDERED, Boolean.toString(parallelFragmentsOrdered), smooks);
+        }
     }
 
 	private void assertNonStaticDecl() {
@@ -419,6 +419,36 @@ public class Smooks {
         }
     }
 
+    /**
+     * Create a bounded {@link ExecutionContextPool} for use on this Smooks instance.
+     * <p/>
+     * The pooled contexts are profile agnostic.  See {@link #createExecutionContext()}.
+     *
+     * @param maxSize The maximum number of contexts held in the pool.
+     * @return Execution context pool instance.
+     */
+    public ExecutionContextPool createExecutionContextPool(int maxSize) {
+        return createExecutionContextPool(Profile.DEFAULT_PROFILE, maxSize);
+    }
+
+    /**
+     * Create a bounded {@link ExecutionContextPool} for use on this Smooks instance.
+     * <p/>
+     * The pooled contexts are profile aware.  See {@link #createExecutionContext(String)}.
+     *
+     * @param targetProfile The target profile ({@link ProfileSet base profile}) on behalf of whom the filtering/serialisation
+     *                      filter is to be executed.
+     * @param maxSize The maximum number of contexts held in the pool.
+     * @return Execution context pool instance.
+     * @throws UnknownProfileMemberException Unknown target profile.
+     */
+    public ExecutionContextPool createExecutionContextPool(String targetProfile, int maxSize) throws UnknownProfileMemberException {
+        AssertArgument.isNotNull(targetProfile, "targetProfile");
+        // Make sure the profile is known before handing out the pool...
+        context.getProfileStore().getProfileSet(targetProfile);
+        return new ExecutionContextPool(this, targetProfile, maxSize);
+    }
+
     private synchronized void initializeResourceConfigurations() {
         if(!isConfigurable) {
             return;
@@ -483,6 +513,59 @@ public class Smooks {
         }
     }
 
+    /**
+     * Stream the beans bound under the specified bean Id while filtering the supplied {@link Source}.
+     * <p/>
+     * Returns a lazy {@link BeanStreamIterator}, yielding each bean as soon as its fragment has been processed.  The
+     * filter operation runs on a separate thread and is held back by the consumer (bounded buffer), so large
+     * messages (CSV, EDI, Fixed Length etc) can be processed without accumulating all the bound beans in memory.
+     * <pre>
+     * BeanStreamIterator&lt;Order&gt; orders = smooks.stream(new StreamSource(orderStream), Order.class, "order");
+     * try {
+     *     while(orders.hasNext()) {
+     *         process(orders.next());
+     *     }
+     * } finally {
+     *     orders.close();
+     * }
+     * </pre>
+     * The bean should not be retained by the configuration (e.g. added to a {@link java.util.List} bean),
+     * otherwise the beans will still accumulate in memory.
+     *
+     * @param source   The filter Source.
+     * @param beanType The bean type.
+     * @param beanId   The bean Id of the streamed beans.
+     * @return The bean stream.
+     */
+    public <T> BeanStreamIterator<T> stream(Source source, Class<T> beanType, String beanId) {
+        return stream(createExecutionContext(), source, beanType, beanId, 16);
+    }
+
+    /**
+     * Stream the beans bound under the specified bean Id while filtering the supplied {@link Source}.
+     * <p/>
+     * See {@link #stream(javax.xml.transform.Source, Class, String)}.
+     *
+     * @param executionContext The {@link ExecutionContext} for this filter operation. See
+     *                         {@link #createExecutionContext(String)}.
+     * @param source           The filter Source.
+     * @param beanType         The bean type.
+     * @param beanId           The bean Id of the streamed beans.
+     * @param bufferSize       The maximum number of beans the filter operation can get ahead of the consumer.
+     * @return The bean stream.
+     */
+    public <T> BeanStreamIterator<T> stream(ExecutionContext executionContext, Source source, Class<T> beanType, String beanId, int bufferSize) {
+        AssertArgument.isNotNull(executionContext, "executionContext");
+        AssertArgument.isNotNull(source, "source");
+        AssertArgument.isNotNull(beanType, "beanType");
+        AssertArgument.isNotNullAndNotEmpty(beanId, "beanId");
+
+        BeanStreamIterator<T> iterator = new BeanStreamIterator<T>(this, executionContext, source, beanType, beanId, bufferSize);
+        iterator.start();
+
+        return iterator;
+    }
+
     private void _filter(ExecutionContext executionContext, Source source, Result... results) {
         ExecutionEventListener eventListener = executionContext.getEventListener();
 
@@ -1546,6 +1546,49 @@ public class SmooksResourceConfiguration {
      * @return True if this configuration is targeted at the supplied element, otherwise false.
      */
     public boolean isTargetedAtElement(SAXElement element, ExecutionContext executionContext) {
+        if(!isTargetedAtElementStep(element, executionContext)) {
+            return false;
+        }
+
+        if (isContextualSelector && !isTargetedAtElementContext(element, executionContext)) {
+            // Note: If the selector is not contextual, there's no need to perform the
+            // isTargetedAtElementContext check because we already know the visitor is targeted at the
+            // element by name - because we looked it up by name in the 1st place (at least that's the assumption).
+            logContextMismatch(element);
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Is this configuration targeted at the supplied SAX element, where the selector
+     * context has already been resolved by the caller.
+     * <p/>
+     * Checks that the element is in the correct namespace and evaluates the target step predicates.
+     * The element context is not walked.  Instead, the supplied <code>contextMatched</code> flag is used
+     * (see {@link org.milyn.delivery.sax.SAXSelectorAutomaton}).
+     *
+     * @param element The element to be checked.
+     * @param contextMatched True if the selector context steps have been matched against the element ancestors.
+     * Ignored if the selector is not contextual.
+     * @param executionContext
+     * @return True if this configuration is targeted at the supplied element, otherwise false.
+     */
+    public boolean isTargetedAtElement(SAXElement element, boolean contextMatched, ExecutionContext executionContext) {
+        if(!isTargetedAtElementStep(element, executionContext)) {
+            return false;
+        }
+
+        if (isContextualSelector && !contextMatched) {
+            logContextMismatch(element);
+            return false;
+        }
+
+        return true;
+    }
+
+    private boolean isTargetedAtElementStep(SAXElement element, ExecutionContext executionContext) {
         if (expressionEvaluator != null && !assertConditionTrue()) {
             return false;
         }
@@ -1575,19 +1618,15 @@ public class SmooksResourceConfiguration {
             return false;
         }
 
-        if (isContextualSelector && !isTargetedAtElementContext(element, executionContext)) {
-            // Note: If the selector is not contextual, there's no need to perform the
-            // isTargetedAtElementContext check because we already know the visitor is targeted at the
-            // element by name - because we looked it up by name in the 1st place (at least that's the assumption).
-            if (logger.isDebugEnabled()) {
-                logger.debug("Not applying resource [" + this + "] to element [" + element.getName() + "].  This resource is only targeted at '" + element.getName().getLocalPart() + "' when in the following context '" + getSelector() + "'.");
-            }
-            return false;
-        }
-
         return true;
     }
 
+    private void logContextMismatch(SAXElement element) {
+        if (logger.isDebugEnabled()) {
+            logger.debug("Not applying resource [" + this + "] to element [" + element.getName() + "].  This resource is only targeted at '" + element.getName().getLocalPart() + "' when in the following context '" + getSelector() + "'.");
+        }
+    }
+
     private boolean assertConditionTrue() {
         if (expressionEvaluator == null) {
             return true;
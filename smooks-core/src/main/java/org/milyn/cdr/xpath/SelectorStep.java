@@ -256,8 +256,18 @@ public class SelectorStep {
     }
 
     public boolean isTargetedAtElement(SAXElement element) {
-        QName qname = element.getName();
+        return isTargetedAtElement(element.getName());
+    }
 
+    /**
+     * Is this step targeted at the element with the specified name.
+     * <p/>
+     * Does not evaluate the step predicates.
+     *
+     * @param qname The element name.
+     * @return True if the step is targeted at the element name, otherwise false.
+     */
+    public boolean isTargetedAtElement(QName qname) {
         if(isStar || isStarStar) {
             return true;
         }
@@ -0,0 +1,121 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.container;
+
+import org.milyn.assertion.AssertArgument;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Typed per-execution state slot.
+ * <p/>
+ * A slot identifies a piece of per-message state on an {@link ExecutionContext} (see
+ * {@link #get(ExecutionContext)}).  Each slot is assigned a fixed index when it is registered, so
+ * an {@link ExecutionStateStore} execution context can hold the state in a plain array, instead of hashing
+ * attribute keys in a synchronized map on every message.  On other execution contexts, the state is held
+ * as an attribute, keyed by the slot.
+ * <p/>
+ * Slots are registered once and held in a static field by the visitor (or other component) that owns
+ * the state, so they are registered when the owning class is loaded i.e. while the Smooks configuration
+ * is being built:
+ * <pre>
+ * private static final ExecutionContextSlot&lt;Stack&lt;Order&gt;&gt; ORDER_STACK = ExecutionContextSlot.register("OrderVisitor#orderStack");
+ * </pre>
+ */
+public final class ExecutionContextSlot<T> {
+
+    private static final AtomicInteger slotCount = new AtomicInteger();
+
+    private final int index;
+    private final String name;
+
+    private ExecutionContextSlot(int index, String name) {
+        this.index = index;
+        this.name = name;
+    }
+
+    /**
+     * Register a new execution context slot.
+     * <p/>
+     * Every call registers a new slot, so this method should only be called to initialize a static field.
+     *
+     * @param name The slot name.  Used for logging only.
+     * @return The slot.
+     */
+    public static <T> ExecutionContextSlot<T> register(String name) {
+        AssertArgument.isNotNullAndNotEmpty(name, "name");
+        return new ExecutionContextSlot<T>(slotCount.getAndIncrement(), name);
+    }
+
+    /**
+     * Get the state held in this slot on the supplied execution context.
+     * @param executionContext The execution context.
+     * @return The state, or null if no state is set in the slot.
+     */
+    public T get(ExecutionContext executionContext) {
+        if(executionContext instanceof ExecutionStateStore) {
+            return ((ExecutionStateStore) executionContext).getState(this);
+        }
+
+        // Only ever set through set(ExecutionContext, T), so the attribute value is always a T...
+        @SuppressWarnings("unchecked")
+        T state = (T) executionContext.getAttribute(this);
+        return state;
+    }
+
+    /**
+     * Set the state held in this slot on the supplied execution context.
+     * @param executionContext The execution context.
+     * @param state The state.  Null clears the slot.
+     */
+    public void set(ExecutionContext executionContext, T state) {
+        if(executionContext instanceof ExecutionStateStore) {
+            ((ExecutionStateStore) executionContext).setState(this, state);
+        } else if(state != null) {
+            executionContext.setAttribute(this, state);
+        } else {
+            executionContext.removeAttribute(this);
+        }
+    }
+
+    /**
+     * Get the number of registered slots.
+     * @return The number of registered slots.
+     */
+    public static int getSlotCount() {
+        return slotCount.get();
+    }
+
+    /**
+     * Get the slot index.
+     * @return The slot index.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Get the slot name.
+     * @return The slot name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.container;
+
+/**
+ * Indexed per-execution state store.
+ * <p/>
+ * Implemented by {@link ExecutionContext} implementations that hold {@link ExecutionContextSlot} state
+ * in a plain array.  Not part of the {@link ExecutionContext} interface, so existing implementations of that
+ * interface are not affected.  Components don't use this interface directly.  They go through
+ * {@link ExecutionContextSlot#get(ExecutionContext)} and {@link ExecutionContextSlot#set(ExecutionContext, Object)},
+ * which fall back to the context attributes for contexts that don't implement it.
+ */
+public interface ExecutionStateStore {
+
+    /**
+     * Get the per-execution state held in the specified slot.
+     * @param slot The state slot.
+     * @return The state, or null if no state is set in the slot.
+     */
+    public <T> T getState(ExecutionContextSlot<T> slot);
+
+    /**
+     * Set the per-execution state held in the specified slot.
+     * @param slot The state slot.
+     * @param state The state.  Null clears the slot.
+     */
+    public <T> void setState(ExecutionContextSlot<T> slot, T state);
+}
@@ -28,6 +28,7 @@ import org.milyn.profile.ProfileSet;
 import org.milyn.util.IteratorEnumeration;
 
 import java.net.URI;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.Hashtable;
 import java.util.LinkedHashMap;
@@ -37,7 +38,7 @@ import java.util.Map;
  *
  * @author tfennelly
  */
-public class MockExecutionContext implements ExecutionContext {
+public class MockExecutionContext implements ExecutionContext, ExecutionStateStore {
 
 	public String contextPath;
 	public URI docSource;
@@ -45,6 +46,7 @@ public class MockExecutionContext implements ExecutionContext {
 	public ContentDeliveryConfig deliveryConfig = new MockContentDeliveryConfig();
 	public MockApplicationContext context = new MockApplicationContext();
 	private Hashtable attributes = new Hashtable();
+    private Object[] state = new Object[ExecutionContextSlot.getSlotCount()];
 	public LinkedHashMap parameters = new LinkedHashMap();
 	public Hashtable headers = new Hashtable();
 	public Hashtable elementListTable = new Hashtable();
@@ -171,6 +173,28 @@ public class MockExecutionContext implements ExecutionContext {
     	return attributes;
     }
 
+    public <T> T getState(ExecutionContextSlot<T> slot) {
+        int index = slot.getIndex();
+
+        if(index >= state.length) {
+            return null;
+        }
+        return (T) state[index];
+    }
+
+    public <T> void setState(ExecutionContextSlot<T> slot, T value) {
+        int index = slot.getIndex();
+
+        if(index >= state.length) {
+            if(value == null) {
+                return;
+            }
+            // Slot registered after this context was created...
+            state = Arrays.copyOf(state, Math.max(index + 1, ExecutionContextSlot.getSlotCount()));
+        }
+        state[index] = value;
+    }
+
 	public BeanContext getBeanContext() {
 		if(beanContext == null) {
 			beanContext = StandaloneBeanContextFactory.create(this);
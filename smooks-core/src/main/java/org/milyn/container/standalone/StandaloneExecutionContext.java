@@ -19,28 +19,33 @@ package org.milyn.container.standalone;
 import org.milyn.cdr.ParameterAccessor;
 import org.milyn.container.ApplicationContext;
 import org.milyn.container.ExecutionContext;
+import org.milyn.container.ExecutionContextSlot;
+import org.milyn.container.ExecutionStateStore;
 import org.milyn.delivery.ContentDeliveryConfig;
 import org.milyn.delivery.ContentDeliveryConfigBuilder;
 import org.milyn.delivery.Filter;
 import org.milyn.delivery.VisitorConfigMap;
 import org.milyn.event.ExecutionEventListener;
 import org.milyn.javabean.context.BeanContext;
+import org.milyn.javabean.context.StandaloneBeanContext;
 import org.milyn.javabean.context.StandaloneBeanContextFactory;
 import org.milyn.profile.ProfileSet;
 import org.milyn.profile.UnknownProfileMemberException;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URI;
+import java.util.Arrays;
 import java.util.Hashtable;
 
 /**
  * Standalone Container Request implementation.
  * @author tfennelly
  */
-public class StandaloneExecutionContext implements ExecutionContext {
+public class StandaloneExecutionContext implements ExecutionContext, ExecutionStateStore {
 
     private ProfileSet targetProfileSet;
     private Hashtable<Object, Object> attributes = new Hashtable<Object, Object>();
+    private Object[] state = new Object[ExecutionContextSlot.getSlotCount()];
     private ContentDeliveryConfig deliveryConfig;
     private URI docSource;
 	private String contentEncoding;
@@ -49,6 +54,8 @@ public class StandaloneExecutionContext implements ExecutionContext {
     private Throwable terminationError;
     private boolean isDefaultSerializationOn;
     private BeanContext beanContext;
+    private StandaloneBeanContext pooledBeanContext;
+    private String initialContentEncoding;
 
     /**
 	 * Public Constructor.
@@ -87,6 +94,7 @@ public class StandaloneExecutionContext implements ExecutionContext {
         }
 		this.context = context;
 		setContentEncoding(contentEncoding);
+        initialContentEncoding = this.contentEncoding;
         targetProfileSet = context.getProfileStore().getProfileSet(targetProfile);
         deliveryConfig = ContentDeliveryConfigBuilder.getConfig(targetProfileSet, context, extendedVisitorConfigMap);
         isDefaultSerializationOn = ParameterAccessor.getBoolParameter(Filter.DEFAULT_SERIALIZATION_ON, true, deliveryConfig);
@@ -199,9 +207,42 @@ public class StandaloneExecutionContext implements ExecutionContext {
     	return attributes;
     }
 
+    public <T> T getState(ExecutionContextSlot<T> slot) {
+        int index = slot.getIndex();
+
+        if(index >= state.length) {
+            return null;
+        }
+
+        // Only ever set through setState(ExecutionContextSlot<T>, T), so the slot value is always a T...
+        @SuppressWarnings("unchecked")
+        T value = (T) state[index];
+        return value;
+    }
+
+    public <T> void setState(ExecutionContextSlot<T> slot, T value) {
+        int index = slot.getIndex();
+
+        if(index >= state.length) {
+            if(value == null) {
+                return;
+            }
+            // Slot registered after this context was created...
+            state = Arrays.copyOf(state, Math.max(index + 1, ExecutionContextSlot.getSlotCount()));
+        }
+        state[index] = value;
+    }
+
     public BeanContext getBeanContext() {
 		if(beanContext == null) {
-			beanContext = StandaloneBeanContextFactory.create(this);
+            if(pooledBeanContext != null) {
+                // Rebind the bean context of the previous filter operation.  See reset()...
+                StandaloneBeanContextFactory.reset(pooledBeanContext, this);
+                beanContext = pooledBeanContext;
+                pooledBeanContext = null;
+            } else {
+                beanContext = StandaloneBeanContextFactory.create(this);
+            }
 		}
 		return beanContext;
 	}
@@ -209,4 +250,29 @@ public class StandaloneExecutionContext implements ExecutionContext {
     public void setBeanContext(BeanContext beanContext) {
         this.beanContext = beanContext;
     }
+
+    /**
+     * Reset the execution context for reuse on a new filter operation.
+     * <p/>
+     * Removes all attributes and per-execution state, and clears the document source, event listener and
+     * termination error.  A {@link StandaloneBeanContext} is kept for reuse, but is released from the bean map
+     * of the previous filter operation (possibly the bean map of the caller's JavaResult/JavaSource).  It is
+     * rebound to the bean map of the next filter operation on first use.  The context must not be in use by
+     * a filter operation.
+     *
+     * @see org.milyn.ExecutionContextPool
+     */
+    public void reset() {
+        attributes.clear();
+        Arrays.fill(state, null);
+        docSource = null;
+        contentEncoding = initialContentEncoding;
+        executionListener = null;
+        terminationError = null;
+        if(beanContext instanceof StandaloneBeanContext) {
+            pooledBeanContext = (StandaloneBeanContext) beanContext;
+            pooledBeanContext.reset(null);
+        }
+        beanContext = null;
+    }
 }
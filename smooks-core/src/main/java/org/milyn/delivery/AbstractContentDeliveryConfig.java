@@ -23,12 +23,14 @@ import org.milyn.container.ApplicationContext;
 import org.milyn.container.ExecutionContext;
 import org.milyn.dtd.DTDStore;
 import org.milyn.event.types.ConfigBuilderEvent;
+import org.milyn.xml.ResettableXMLReader;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 
 import java.util.*;
 import java.util.Map.Entry;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstract {@link ContentDeliveryConfig}.
@@ -67,13 +69,23 @@ public abstract class AbstractContentDeliveryConfig implements ContentDeliveryCo
 
     private Boolean isDefaultSerializationOn = null;
     
-    private List<XMLReader> readerPool = new CopyOnWriteArrayList<XMLReader>();
-	private int readerPoolSize;
+    /**
+     * Default pool size for {@link ResettableXMLReader} instances, when the reader pool size is not configured.
+     */
+    public static final int DEFAULT_RESETTABLE_READER_POOL_SIZE = Runtime.getRuntime().availableProcessors() * 2;
+
+    private Queue<XMLReader> readerPool = new ConcurrentLinkedQueue<XMLReader>();
+    private AtomicInteger pooledReaderCount = new AtomicInteger();
+	private int readerPoolSize = -1;
 
     public void setApplicationContext(ApplicationContext applicationContext) {
         this.applicationContext = applicationContext;
     }
 
+    public ApplicationContext getApplicationContext() {
+        return applicationContext;
+    }
+
     /**
      * Get the list of {@link org.milyn.cdr.SmooksResourceConfiguration}s for the specified selector definition.
      * @param selector The configuration "selector" attribute value from the .cdrl file in the .cdrar.
@@ -194,29 +206,49 @@ public abstract class AbstractContentDeliveryConfig implements ContentDeliveryCo
     }
 
     public void initializeXMLReaderPool() {
+        String configuredPoolSize = ParameterAccessor.getStringParameter(Filter.READER_POOL_SIZE, this);
+
+        if(configuredPoolSize == null) {
+            // Not configured.  Only ResettableXMLReader instances are pooled (default size)...
+            readerPoolSize = -1;
+            return;
+        }
     	try {
-	        readerPoolSize = Integer.parseInt(ParameterAccessor.getStringParameter(Filter.READER_POOL_SIZE, "0", this).trim());
+	        readerPoolSize = Integer.parseInt(configuredPoolSize.trim());
     	} catch(NumberFormatException e) {
     		readerPoolSize = 0;
     	}
     }
 
 	public XMLReader getXMLReader() throws SAXException {
-		synchronized(readerPool) {
-			if(!readerPool.isEmpty()) {
-				return readerPool.remove(0);
-			} else {
-				return null;
-			}
-		}
+        XMLReader reader = readerPool.poll();
+
+        if(reader != null) {
+            pooledReaderCount.decrementAndGet();
+        }
+        return reader;
 	}
 
 	public void returnXMLReader(XMLReader reader) {
-		synchronized(readerPool) {
-			if(readerPool.size() < readerPoolSize) {
-				readerPool.add(reader);
-			}
-		}
+        int maxPoolSize = readerPoolSize;
+
+        if(reader instanceof ResettableXMLReader) {
+            try {
+                ((ResettableXMLReader) reader).reset();
+            } catch(Throwable t) {
+                logger.debug("Failed to reset XMLReader '" + reader.getClass().getName() + "'.  Discarding reader instance.", t);
+                return;
+            }
+            if(maxPoolSize < 0) {
+                maxPoolSize = DEFAULT_RESETTABLE_READER_POOL_SIZE;
+            }
+        }
+
+        if(pooledReaderCount.incrementAndGet() <= maxPoolSize) {
+            readerPool.offer(reader);
+        } else {
+            pooledReaderCount.decrementAndGet();
+        }
 	}
 
     protected FilterBypass getFilterBypass(ContentHandlerConfigMapTable... visitorTables) {
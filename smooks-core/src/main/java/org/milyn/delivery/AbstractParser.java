@@ -23,6 +23,7 @@ import org.milyn.cdr.Parameter;
 import org.milyn.cdr.SmooksResourceConfiguration;
 import org.milyn.cdr.annotation.Configurator;
 import org.milyn.container.ExecutionContext;
+import org.milyn.container.ExecutionContextSlot;
 import org.milyn.delivery.sax.SAXHandler;
 import org.milyn.namespace.NamespaceDeclarationStack;
 import org.milyn.namespace.NamespaceDeclarationStackAware;
@@ -66,6 +67,7 @@ import java.util.Stack;
 public class AbstractParser {
 
     private static Log logger = LogFactory.getLog(AbstractParser.class);
+    private static final ExecutionContextSlot<Stack<XMLReader>> READERS = ExecutionContextSlot.register(AbstractParser.class.getName() + "#readers");
 
     private ExecutionContext execContext;
     private SmooksResourceConfiguration saxDriverConfig;
@@ -127,7 +129,7 @@ public class AbstractParser {
     }
 
     public static Stack<XMLReader> getReaders(ExecutionContext execContext) {
-        Stack<XMLReader> readers = (Stack<XMLReader>) execContext.getAttribute(XMLReader.class);
+        Stack<XMLReader> readers = READERS.get(execContext);
 
         if(readers == null) {
             readers = new Stack<XMLReader>();
@@ -137,7 +139,7 @@ public class AbstractParser {
     }
 
     public static void setReaders(Stack<XMLReader> readers, ExecutionContext execContext) {
-        execContext.setAttribute(XMLReader.class, readers);
+        READERS.set(execContext, readers);
     }
 
     /**
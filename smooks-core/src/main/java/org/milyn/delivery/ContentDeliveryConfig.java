@@ -151,6 +151,8 @@ public interface ContentDeliveryConfig {
     /**
      * Return an {@link XMLReader} instance to the
      * reader pool associated with this ContentDelivery config instance.
+     * <p/>
+     * {@link org.milyn.xml.ResettableXMLReader} instances are reset before being returned to the pool.
      * @param reader The XMLReader instance to be returned.  If the pool is full, the instance
      * is left to the GC (i.e. lost).
      */
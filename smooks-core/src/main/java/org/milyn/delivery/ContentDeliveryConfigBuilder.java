@@ -220,6 +220,10 @@ public class ContentDeliveryConfigBuilder {
             // Tell all interested listeners that the config builder for the profile has now been created.
             fireEvent(ContentDeliveryConfigBuilderLifecycleEvent.CONFIG_BUILDER_CREATED);
 
+            // Listeners can rewrite resource selector steps (e.g. the javabean ModelSet expands
+            // "${beanId}" selector steps), so only compile the selectors after firing the event...
+            saxConfig.compileSelectors();
+
             return saxConfig;
         }
     }
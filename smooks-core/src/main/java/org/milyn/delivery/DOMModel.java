@@ -16,6 +16,7 @@
 package org.milyn.delivery;
 
 import org.milyn.container.ExecutionContext;
+import org.milyn.container.ExecutionContextSlot;
 import org.w3c.dom.Element;
 
 import java.util.LinkedHashMap;
@@ -28,6 +29,8 @@ import java.util.Map;
  */
 public class DOMModel {
 
+    private static final ExecutionContextSlot<DOMModel> MODEL = ExecutionContextSlot.register(DOMModel.class.getName());
+
     private Map<String, Element> models = new LinkedHashMap<String, Element>();
 
     public Map<String, Element> getModels() {
@@ -35,11 +38,11 @@ public class DOMModel {
     }
 
     public static DOMModel getModel(ExecutionContext executionContext) {
-        DOMModel nodeModel = (DOMModel) executionContext.getAttribute(DOMModel.class);
+        DOMModel nodeModel = MODEL.get(executionContext);
 
         if(nodeModel == null) {
             nodeModel = new DOMModel();
-            executionContext.setAttribute(DOMModel.class, nodeModel);
+            MODEL.set(executionContext, nodeModel);
         }
 
         return nodeModel;
@@ -20,6 +20,7 @@ import org.milyn.util.CollectionsUtil;
 import org.milyn.cdr.annotation.Config;
 import org.milyn.cdr.SmooksResourceConfiguration;
 import org.milyn.container.ExecutionContext;
+import org.milyn.container.ExecutionContextSlot;
 import org.milyn.delivery.dom.DOMVisitBefore;
 import org.milyn.delivery.sax.DynamicSAXElementVisitorList;
 import org.milyn.delivery.sax.SAXElement;
@@ -102,6 +103,8 @@ import java.util.Set;
  */
 public class DomModelCreator implements DOMVisitBefore, SAXVisitBefore, SAXVisitAfter, Producer {
 
+    private static final ExecutionContextSlot<Stack<DOMCreator>> DOM_CREATOR_STACK = ExecutionContextSlot.register(DomModelCreator.class.getName() + "#domCreatorStack");
+
     DocumentBuilder documentBuilder;
 
     @Config
@@ -137,11 +140,11 @@ public class DomModelCreator implements DOMVisitBefore, SAXVisitBefore, SAXVisit
     }
 
     private void pushCreator(DOMCreator domCreator, ExecutionContext executionContext) {
-        Stack<DOMCreator> domCreatorStack = (Stack<DOMCreator>) executionContext.getAttribute(DOMCreator.class);
+        Stack<DOMCreator> domCreatorStack = DOM_CREATOR_STACK.get(executionContext);
 
         if(domCreatorStack == null) {
             domCreatorStack = new Stack<DOMCreator>();
-            executionContext.setAttribute(DOMCreator.class, domCreatorStack);
+            DOM_CREATOR_STACK.set(executionContext, domCreatorStack);
         } else if(!domCreatorStack.isEmpty()) {
             // We need to remove the current DOMCreator from the dynamic visitor list because
             // we want to stop nodes being added to it and instead, have them added to the new
@@ -157,7 +160,7 @@ public class DomModelCreator implements DOMVisitBefore, SAXVisitBefore, SAXVisit
     }
 
     public Document popCreator(ExecutionContext executionContext) {
-        Stack<DOMCreator> domCreatorStack = (Stack<DOMCreator>) executionContext.getAttribute(DOMCreator.class);
+        Stack<DOMCreator> domCreatorStack = DOM_CREATOR_STACK.get(executionContext);
 
         if(domCreatorStack == null) {
             throw new IllegalStateException("No DOM Creator Stack available.");
@@ -84,6 +84,28 @@ public abstract class Filter {
 
     public static final String READER_POOL_SIZE = "reader.pool.size";
 
+    /**
+     * Recycle {@link org.milyn.delivery.sax.SAXElement} instances in the SAX filter.
+     * See {@link org.milyn.delivery.sax.SAXElement#detach()}.
+     */
+    public static final String RECYCLE_SAX_ELEMENTS = "recycle.sax.elements";
+
+    /**
+     * Skip the content of element subtrees that can't contain a targeted element in the SAX filter.
+     * Off by default.  See {@link org.milyn.xml.SubtreeSkippingXMLReader}.
+     */
+    public static final String SKIP_UNTARGETED_SUBTREES = "skip.untargeted.subtrees";
+
+    /**
+     * Selector for the repeating message fragments to be processed in parallel by the SAX filter.
+     * See {@link org.milyn.FilterSettings#setParallelFragments(String, int)}.
+     */
+    public static final String PARALLEL_FRAGMENTS_SELECTOR = "parallel.fragments.selector";
+
+    public static final String PARALLEL_FRAGMENTS_THREADS = "parallel.fragments.threads";
+
+    public static final String PARALLEL_FRAGMENTS_ORDERED = "parallel.fragments.ordered";
+
     /**
      * Filter the content in the supplied {@link javax.xml.transform.Source} instance, outputing the result
      * to the supplied {@link javax.xml.transform.Result} instance.
@@ -17,6 +17,7 @@ package org.milyn.delivery;
 
 import org.milyn.SmooksException;
 import org.milyn.container.ExecutionContext;
+import org.milyn.container.ExecutionContextSlot;
 import org.milyn.delivery.replay.EndElementEvent;
 import org.milyn.delivery.replay.SAXEventReplay;
 import org.milyn.delivery.replay.StartElementEvent;
@@ -34,6 +35,8 @@ import org.xml.sax.ext.DefaultHandler2;
  */
 public abstract class SmooksContentHandler extends DefaultHandler2 implements SAXEventReplay {
 
+    private static final ExecutionContextSlot<SmooksContentHandler> HANDLER = ExecutionContextSlot.register(SmooksContentHandler.class.getName());
+
     private ExecutionContext executionContext;
     private SmooksContentHandler parentContentHandler;
     private SmooksContentHandler nestedContentHandler;
@@ -120,15 +123,15 @@ public abstract class SmooksContentHandler extends DefaultHandler2 implements SA
     }
 
     private void attachHandler() {
-        executionContext.setAttribute(DefaultHandler2.class, this);
+        HANDLER.set(executionContext, this);
     }
 
     public static SmooksContentHandler getHandler(ExecutionContext executionContext) {
-        return (SmooksContentHandler) executionContext.getAttribute(DefaultHandler2.class);
+        return HANDLER.get(executionContext);
     }
 
     public void detachHandler() {
-        executionContext.removeAttribute(DefaultHandler2.class);
+        HANDLER.set(executionContext, null);
     }
 
     public ExecutionContext getExecutionContext() {
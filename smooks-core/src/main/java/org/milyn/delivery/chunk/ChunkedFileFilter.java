@@ -0,0 +1,528 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.chunk;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.milyn.Smooks;
+import org.milyn.SmooksException;
+import org.milyn.assertion.AssertArgument;
+import org.milyn.container.ExecutionContext;
+import org.milyn.payload.JavaResult;
+
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamSource;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Chunked file filter.
+ * <p/>
+ * Filters large record based files (CSV, Fixed Length etc) on multiple threads.  The file is memory mapped and split
+ * into chunks on record boundaries (see {@link RecordBoundaryScanner}), and each chunk is then filtered as a separate
+ * message, on its own thread and with its own {@link ExecutionContext}.
+ * <pre>
+ * Smooks smooks = new Smooks("fixed-length-config.xml");
+ * ChunkedFileFilter filter = new ChunkedFileFilter(smooks, new LineBoundaryScanner()).setEncoding(Charset.forName("ISO-8859-1"));
+ *
+ * JavaResult result = filter.filter(new File("extract.txt"));
+ * </pre>
+ * The chunk being filtered is attached to the execution context (see {@link FileChunk#get(ExecutionContext)}).  The
+ * CSV and Fixed Length readers use it to number the records relative to the start of the file, and to only apply
+ * "skip lines" and header validation on the first chunk.  CSV records are numbered from the chunk's
+ * {@link FileChunk#getRecordOffset() record offset}, so the CSV reader's skipped lines and header must be
+ * declared as {@link #setHeaderLines(int) header lines}:
+ * <pre>
+ * ChunkedFileFilter filter = new ChunkedFileFilter(smooks, new CSVRecordBoundaryScanner()).setHeaderLines(1);
+ * </pre>
+ * The CSV readers fail the filter if the header lines don't match their own skipped lines and header
+ * (see {@link FileChunk#assertHeaderLines(int)}).
+ * <p/>
+ * Because each chunk is a separate message, document level resources (e.g. a bean created on the document fragment)
+ * are applied once per chunk.  The chunk {@link JavaResult JavaResults} are merged in file order
+ * (see {@link #merge(java.util.List)}).
+ * <p/>
+ * The file encoding must be a single byte encoding (e.g. ISO-8859-1, or an EBCDIC code page) or UTF-8, so as the
+ * record boundaries can be found without decoding the file.
+ */
+public class ChunkedFileFilter {
+
+    private static Log logger = LogFactory.getLog(ChunkedFileFilter.class);
+    private static final int WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private final Smooks smooks;
+    private final RecordBoundaryScanner scanner;
+    private int threadCount = Runtime.getRuntime().availableProcessors();
+    private long minChunkSize = 1024 * 1024;
+    private Charset encoding = Charset.forName("UTF-8");
+    private int headerLines = 0;
+
+    /**
+     * Public constructor.
+     * @param smooks The Smooks instance used to filter the file chunks.
+     * @param scanner The record boundary scanner for the file format.
+     */
+    public ChunkedFileFilter(Smooks smooks, RecordBoundaryScanner scanner) {
+        AssertArgument.isNotNull(smooks, "smooks");
+        AssertArgument.isNotNull(scanner, "scanner");
+        this.smooks = smooks;
+        this.scanner = scanner;
+    }
+
+    /**
+     * Set the number of threads (and so the maximum number of chunks) used to filter a file.
+     * <p/>
+     * Defaults to the number of available processors.
+     *
+     * @param threadCount The number of threads.
+     * @return This instance.
+     */
+    public ChunkedFileFilter setThreadCount(int threadCount) {
+        if(threadCount < 1) {
+            throw new IllegalArgumentException("Invalid 'threadCount' arg value '" + threadCount + "'.  Must be greater than zero.");
+        }
+        this.threadCount = threadCount;
+        return this;
+    }
+
+    /**
+     * Set the minimum chunk size.
+     * <p/>
+     * Files smaller than twice this size are not split.  Defaults to 1Mb.
+     *
+     * @param minChunkSize The minimum chunk size in bytes.
+     * @return This instance.
+     */
+    public ChunkedFileFilter setMinChunkSize(long minChunkSize) {
+        if(minChunkSize < 1) {
+            throw new IllegalArgumentException("Invalid 'minChunkSize' arg value '" + minChunkSize + "'.  Must be greater than zero.");
+        }
+        this.minChunkSize = minChunkSize;
+        return this;
+    }
+
+    /**
+     * Set the file encoding.
+     * <p/>
+     * Defaults to UTF-8.
+     *
+     * @param encoding The file encoding.
+     * @return This instance.
+     */
+    public ChunkedFileFilter setEncoding(Charset encoding) {
+        AssertArgument.isNotNull(encoding, "encoding");
+        this.encoding = encoding;
+        return this;
+    }
+
+    /**
+     * Set the number of header lines at the start of the file.
+     * <p/>
+     * Header lines are not records, and are not numbered as such (see {@link FileChunk#getRecordOffset()}).
+     * For a CSV file, this is the reader's 'skipLines' value, plus 1 if the reader validates the header
+     * record.  The CSV readers fail the filter if it doesn't match (see {@link FileChunk#assertHeaderLines(int)}).
+     * Defaults to 0.
+     *
+     * @param headerLines The number of header lines.
+     * @return This instance.
+     */
+    public ChunkedFileFilter setHeaderLines(int headerLines) {
+        if(headerLines < 0) {
+            throw new IllegalArgumentException("Invalid 'headerLines' arg value '" + headerLines + "'.  Must not be negative.");
+        }
+        this.headerLines = headerLines;
+        return this;
+    }
+
+    /**
+     * Filter the supplied {@link Source}.
+     * <p/>
+     * A {@link StreamSource} with a file system Id is filtered in chunks (see {@link #filter(java.io.File)}).  Any
+     * other source is filtered as normal, on the calling thread.
+     *
+     * @param source The filter Source.
+     * @return The filter result.
+     * @throws SmooksException Failed to filter.
+     */
+    public JavaResult filter(Source source) throws SmooksException {
+        AssertArgument.isNotNull(source, "source");
+
+        File file = toFile(source);
+        if(file != null) {
+            return filter(file);
+        }
+
+        JavaResult result = new JavaResult();
+        smooks.filterSource(source, result);
+
+        return result;
+    }
+
+    /**
+     * Filter the supplied file in chunks.
+     * @param file The file.
+     * @return The merged chunk results.
+     * @throws SmooksException Failed to filter.
+     */
+    public JavaResult filter(File file) throws SmooksException {
+        return merge(filterChunks(file));
+    }
+
+    /**
+     * Filter the supplied file in chunks.
+     * @param file The file.
+     * @return The chunk results, in file order.
+     * @throws SmooksException Failed to filter.
+     */
+    public List<JavaResult> filterChunks(File file) throws SmooksException {
+        List<FileChunk> chunks;
+
+        try {
+            chunks = split(file);
+        } catch (IOException e) {
+            throw new SmooksException("Failed to split file '" + file.getAbsolutePath() + "' into chunks.", e);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadCount, chunks.size()));
+        try {
+            List<Future<JavaResult>> futures = new ArrayList<Future<JavaResult>>();
+            List<JavaResult> results = new ArrayList<JavaResult>();
+
+            for(FileChunk chunk : chunks) {
+                futures.add(executor.submit(new ChunkTask(file, chunk)));
+            }
+            for(Future<JavaResult> future : futures) {
+                results.add(future.get());
+            }
+
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SmooksException("Interrupted while filtering file '" + file.getAbsolutePath() + "'.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof SmooksException) {
+                throw (SmooksException) cause;
+            }
+            throw new SmooksException("Failed to filter file '" + file.getAbsolutePath() + "'.", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Split the supplied file into chunks.
+     * @param file The file.
+     * @return The file chunks, in file order.
+     * @throws IOException Error reading the file.
+     */
+    public List<FileChunk> split(File file) throws IOException {
+        AssertArgument.isNotNull(file, "file");
+
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            int chunkCount = (int) Math.max(1, Math.min(threadCount, size / minChunkSize));
+            List<FileChunk> chunks = new ArrayList<FileChunk>();
+
+            if(chunkCount == 1) {
+                chunks.add(new FileChunk(0, 0, size, 0, 0, headerLines));
+                return chunks;
+            }
+
+            ChunkBoundaries boundaries = new ChunkBoundaries(chunks, size, size / chunkCount);
+            byte lf = toSingleByte('\n');
+            byte cr = toSingleByte('\r');
+            boolean pendingCR = false;
+
+            scanner.reset(encoding);
+            for(long windowStart = 0; windowStart < size && chunks.size() < chunkCount - 1; windowStart += WINDOW_SIZE) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, size - windowStart));
+                int windowLimit = window.limit();
+
+                for(int i = 0; i < windowLimit && chunks.size() < chunkCount - 1; i++) {
+                    byte b = window.get(i);
+                    long position = windowStart + i;
+
+                    if(pendingCR) {
+                        pendingCR = false;
+                        if(b == lf) {
+                            // CRLF... the line ends after the LF...
+                            boundaries.scanTerminator(b);
+                            boundaries.lineEnd(position + 1);
+                            continue;
+                        }
+                        boundaries.lineEnd(position);
+                    }
+
+                    if(b == cr) {
+                        // The line ends after the CR, unless it's followed by an LF...
+                        boundaries.scanTerminator(b);
+                        pendingCR = true;
+                    } else if(b == lf) {
+                        boundaries.scanTerminator(b);
+                        boundaries.lineEnd(position + 1);
+                    } else if(boundaries.headerLinesRemaining == 0) {
+                        scanner.scan(b);
+                    }
+                }
+            }
+            chunks.add(new FileChunk(chunks.size(), boundaries.chunkStart, size - boundaries.chunkStart, boundaries.chunkLineOffset, boundaries.chunkRecordOffset, headerLines));
+
+            if(logger.isDebugEnabled()) {
+                logger.debug("Split file '" + file.getAbsolutePath() + "' into chunks " + chunks + ".");
+            }
+
+            return chunks;
+        } finally {
+            randomAccessFile.close();
+        }
+    }
+
+    /**
+     * Merge chunk results.
+     * <p/>
+     * {@link List} and {@link Map} beans are merged (in order), while the last chunk's instance of any other
+     * bean wins.
+     *
+     * @param results The chunk results, in file order.
+     * @return The merged result.
+     */
+    @SuppressWarnings("unchecked")
+    public static JavaResult merge(List<JavaResult> results) {
+        AssertArgument.isNotNull(results, "results");
+
+        if(results.size() == 1) {
+            return results.get(0);
+        }
+
+        JavaResult mergedResult = new JavaResult(true);
+        Map<String, Object> mergedBeans = mergedResult.getResultMap();
+        for(JavaResult result : results) {
+            for(Map.Entry<String, Object> bean : result.getResultMap().entrySet()) {
+                String beanId = bean.getKey();
+                Object value = bean.getValue();
+                Object mergedValue = mergedBeans.get(beanId);
+
+                if(value instanceof List) {
+                    if(mergedValue instanceof List) {
+                        ((List) mergedValue).addAll((Collection) value);
+                    } else {
+                        mergedBeans.put(beanId, new ArrayList((Collection) value));
+                    }
+                } else if(value instanceof Map) {
+                    if(mergedValue instanceof Map) {
+                        ((Map) mergedValue).putAll((Map) value);
+                    } else {
+                        mergedBeans.put(beanId, new LinkedHashMap((Map) value));
+                    }
+                } else {
+                    mergedBeans.put(beanId, value);
+                }
+            }
+        }
+
+        return mergedResult;
+    }
+
+    private byte toSingleByte(char c) {
+        ByteBuffer encoded = encoding.encode(String.valueOf(c));
+
+        if(encoded.remaining() != 1 || (encoding.newEncoder().maxBytesPerChar() > 1.0f && !encoding.name().equals("UTF-8"))) {
+            throw new SmooksException("Unsupported chunked file encoding '" + encoding.name() + "'.  Must be a single byte encoding, or UTF-8.");
+        }
+
+        return encoded.get();
+    }
+
+    private File toFile(Source source) {
+        if(!(source instanceof StreamSource)) {
+            return null;
+        }
+
+        StreamSource streamSource = (StreamSource) source;
+        String systemId = streamSource.getSystemId();
+        if(systemId == null || streamSource.getInputStream() != null || streamSource.getReader() != null) {
+            return null;
+        }
+
+        File file;
+        if(systemId.startsWith("file:")) {
+            try {
+                file = new File(new URI(systemId));
+            } catch (URISyntaxException e) {
+                return null;
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        } else {
+            file = new File(systemId);
+        }
+
+        return (file.isFile() ? file : null);
+    }
+
+    /**
+     * Tracks the line and record counts while splitting a file, and adds a chunk at the
+     * first record end after the chunk size is reached.
+     */
+    private class ChunkBoundaries {
+
+        private final List<FileChunk> chunks;
+        private final long size;
+        private final long chunkSize;
+        private int headerLinesRemaining = headerLines;
+        private long lineCount = 0;
+        private long recordCount = 0;
+        private long chunkStart = 0;
+        private long chunkLineOffset = 0;
+        private long chunkRecordOffset = 0;
+
+        private ChunkBoundaries(List<FileChunk> chunks, long size, long chunkSize) {
+            this.chunks = chunks;
+            this.size = size;
+            this.chunkSize = chunkSize;
+        }
+
+        private void scanTerminator(byte b) {
+            // Header lines are skipped without scanning, and only a quoted line terminator is part of a record...
+            if(headerLinesRemaining == 0 && scanner.isInRecord()) {
+                scanner.scan(b);
+            }
+        }
+
+        private void lineEnd(long lineEnd) {
+            lineCount++;
+            if(headerLinesRemaining > 0) {
+                headerLinesRemaining--;
+                return;
+            }
+            if(scanner.isInRecord()) {
+                return;
+            }
+
+            recordCount++;
+            if(lineEnd - chunkStart >= chunkSize && lineEnd < size) {
+                chunks.add(new FileChunk(chunks.size(), chunkStart, lineEnd - chunkStart, chunkLineOffset, chunkRecordOffset, headerLines));
+                chunkStart = lineEnd;
+                chunkLineOffset = lineCount;
+                chunkRecordOffset = recordCount;
+            }
+        }
+    }
+
+    private class ChunkTask implements Callable<JavaResult> {
+
+        private final File file;
+        private final FileChunk chunk;
+
+        private ChunkTask(File file, FileChunk chunk) {
+            this.file = file;
+            this.chunk = chunk;
+        }
+
+        public JavaResult call() throws Exception {
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+
+            try {
+                ExecutionContext executionContext = smooks.createExecutionContext();
+                JavaResult result = new JavaResult();
+                InputStream chunkStream = new MappedChunkInputStream(randomAccessFile.getChannel(), chunk);
+
+                FileChunk.set(executionContext, chunk);
+                smooks.filterSource(executionContext, new StreamSource(new InputStreamReader(chunkStream, encoding)), result);
+
+                return result;
+            } finally {
+                randomAccessFile.close();
+            }
+        }
+    }
+
+    private static class MappedChunkInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long windowEnd;
+        private MappedByteBuffer window;
+
+        private MappedChunkInputStream(FileChannel channel, FileChunk chunk) {
+            this.channel = channel;
+            this.end = chunk.getOffset() + chunk.getLength();
+            this.windowEnd = chunk.getOffset();
+        }
+
+        public int read() throws IOException {
+            if(!nextWindow()) {
+                return -1;
+            }
+            return (window.get() & 0xFF);
+        }
+
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if(length == 0) {
+                return 0;
+            }
+            if(!nextWindow()) {
+                return -1;
+            }
+
+            int count = Math.min(length, window.remaining());
+            window.get(bytes, offset, count);
+
+            return count;
+        }
+
+        public int available() throws IOException {
+            return (window != null ? window.remaining() : 0);
+        }
+
+        private boolean nextWindow() throws IOException {
+            if(window != null && window.hasRemaining()) {
+                return true;
+            }
+            if(windowEnd == end) {
+                return false;
+            }
+
+            long windowStart = windowEnd;
+            windowEnd = Math.min(end, windowStart + WINDOW_SIZE);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+
+            return true;
+        }
+    }
+}
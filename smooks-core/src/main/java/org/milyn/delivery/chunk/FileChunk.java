@@ -0,0 +1,165 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.chunk;
+
+import org.milyn.SmooksException;
+import org.milyn.assertion.AssertArgument;
+import org.milyn.container.ExecutionContext;
+import org.milyn.container.ExecutionContextSlot;
+
+/**
+ * File chunk.
+ * <p/>
+ * A section of a record based file (CSV, Fixed Length etc), starting and ending on a record boundary.  See
+ * {@link ChunkedFileFilter}.
+ * <p/>
+ * The chunk being filtered is attached to the {@link ExecutionContext} (see {@link #get(ExecutionContext)}), allowing
+ * the readers to number the lines and records relative to the start of the file, and to only apply "skip lines" and header
+ * processing on the first chunk.
+ */
+public class FileChunk {
+
+    private static final ExecutionContextSlot<FileChunk> CHUNK = ExecutionContextSlot.register(FileChunk.class.getName());
+
+    private final int index;
+    private final long offset;
+    private final long length;
+    private final long lineOffset;
+    private final long recordOffset;
+    private final int headerLines;
+
+    /**
+     * Public constructor.
+     * @param index The chunk index (0 based).
+     * @param offset The byte offset of the chunk in the file.
+     * @param length The chunk length in bytes.
+     * @param lineOffset The number of lines in the file before this chunk.
+     * @param recordOffset The number of records in the file before this chunk.
+     * @param headerLines The number of header lines the file was split with.
+     */
+    public FileChunk(int index, long offset, long length, long lineOffset, long recordOffset, int headerLines) {
+        this.index = index;
+        this.offset = offset;
+        this.length = length;
+        this.lineOffset = lineOffset;
+        this.recordOffset = recordOffset;
+        this.headerLines = headerLines;
+    }
+
+    /**
+     * Get the chunk index.
+     * @return The chunk index (0 based).
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Is this the first chunk of the file.
+     * @return True if this is the first chunk of the file, otherwise false.
+     */
+    public boolean isFirst() {
+        return (index == 0);
+    }
+
+    /**
+     * Get the byte offset of the chunk in the file.
+     * @return The chunk offset.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Get the chunk length in bytes.
+     * @return The chunk length.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Get the number of lines in the file before this chunk.
+     * <p/>
+     * Every line terminator is counted, including those inside a record (e.g. in a quoted CSV field).
+     *
+     * @return The number of lines before the chunk.
+     */
+    public long getLineOffset() {
+        return lineOffset;
+    }
+
+    /**
+     * Get the number of records in the file before this chunk.
+     * <p/>
+     * Line terminators inside a record (e.g. in a quoted CSV field) don't end a record, and the
+     * {@link ChunkedFileFilter#setHeaderLines(int) header lines} are not records.
+     *
+     * @return The number of records before the chunk.
+     */
+    public long getRecordOffset() {
+        return recordOffset;
+    }
+
+    /**
+     * Get the number of header lines the file was split with.
+     * <p/>
+     * See {@link ChunkedFileFilter#setHeaderLines(int)}.
+     *
+     * @return The number of header lines.
+     */
+    public int getHeaderLines() {
+        return headerLines;
+    }
+
+    /**
+     * Assert that the reader's header line count matches the number of header lines the file was split with.
+     * <p/>
+     * The record offsets are only correct if the reader skips (or reads as a header) the same number of lines
+     * at the start of the file.
+     *
+     * @param readerHeaderLines The number of lines the reader skips, or reads as a header, at the start of the file.
+     * @throws SmooksException The header line counts don't match.
+     */
+    public void assertHeaderLines(int readerHeaderLines) throws SmooksException {
+        if(readerHeaderLines != headerLines) {
+            throw new SmooksException("Chunked file was split with " + headerLines + " header lines, but the reader skips or reads " + readerHeaderLines + " header lines.  Set the ChunkedFileFilter 'headerLines' to " + readerHeaderLines + ".");
+        }
+    }
+
+    /**
+     * Get the chunk being filtered.
+     * @param executionContext The execution context.
+     * @return The chunk, or null if the execution context is not filtering a file chunk.
+     */
+    public static FileChunk get(ExecutionContext executionContext) {
+        return CHUNK.get(executionContext);
+    }
+
+    /**
+     * Set the chunk being filtered.
+     * @param executionContext The execution context.
+     * @param chunk The chunk.
+     */
+    public static void set(ExecutionContext executionContext, FileChunk chunk) {
+        AssertArgument.isNotNull(executionContext, "executionContext");
+        CHUNK.set(executionContext, chunk);
+    }
+
+    public String toString() {
+        return "[index: " + index + ", offset: " + offset + ", length: " + length + ", lineOffset: " + lineOffset + ", recordOffset: " + recordOffset + "]";
+    }
+}
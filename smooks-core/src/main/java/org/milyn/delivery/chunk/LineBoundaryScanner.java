@@ -0,0 +1,36 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.chunk;
+
+import java.nio.charset.Charset;
+
+/**
+ * Line based {@link RecordBoundaryScanner}.
+ * <p/>
+ * Every line is a record (e.g. Fixed Length records).
+ */
+public class LineBoundaryScanner implements RecordBoundaryScanner {
+
+    public void reset(Charset encoding) {
+    }
+
+    public void scan(byte b) {
+    }
+
+    public boolean isInRecord() {
+        return false;
+    }
+}
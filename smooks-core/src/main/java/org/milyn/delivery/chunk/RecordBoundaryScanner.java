@@ -0,0 +1,49 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.chunk;
+
+import java.nio.charset.Charset;
+
+/**
+ * Record boundary scanner.
+ * <p/>
+ * Used by the {@link ChunkedFileFilter} to find the record boundaries in a file, so as it can be split into
+ * chunks that can be filtered independently.  The file bytes are passed to the scanner in sequence, and the
+ * scanner tells the filter whether or not a line terminator at the current position would end a record
+ * (e.g. it doesn't if it's inside a quoted CSV field).
+ * <p/>
+ * Scanners are stateful, so an instance must not be shared across threads.
+ */
+public interface RecordBoundaryScanner {
+
+    /**
+     * Reset the scanner to the start of a file.
+     * @param encoding The file encoding.  Single byte, or UTF-8.
+     */
+    void reset(Charset encoding);
+
+    /**
+     * Scan the next byte.
+     * @param b The byte.
+     */
+    void scan(byte b);
+
+    /**
+     * Is the current position inside a record.
+     * @return True if a line terminator at the current position is part of the record, otherwise false.
+     */
+    boolean isInRecord();
+}
@@ -0,0 +1,105 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.detect;
+
+import org.milyn.ReaderConfigurator;
+import org.milyn.assertion.AssertArgument;
+import org.milyn.cdr.Parameter;
+import org.milyn.cdr.SmooksConfigurationException;
+import org.milyn.cdr.SmooksResourceConfiguration;
+import org.milyn.delivery.AbstractParser;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link FormatDetectingXMLReader} configurator.
+ * <p/>
+ * Registers the {@link ReaderConfigurator} to be used for each message format:
+ * <pre>
+ * Smooks smooks = new Smooks();
+ *
+ * smooks.setReaderConfig(new FormatDetectingReaderConfigurator()
+ *         .addFormat(FormatSniffer.EDIFACT, new UNEdifactReaderConfigurator("urn:org.milyn.edi.unedifact:d03b-mapping:*"))
+ *         .addFormat(FormatSniffer.CSV, new CSVReaderConfigurator("firstname,lastname,gender,age,country"))
+ *         .addFormat(FormatSniffer.JSON, new JSONReaderConfigurator()));
+ * </pre>
+ * The reader configuration of each format is handed to the {@link FormatDetectingXMLReader}.  Any other
+ * configurations produced by the format configurators (e.g. bean bindings) are added to the Smooks instance as normal.
+ */
+public class FormatDetectingReaderConfigurator implements ReaderConfigurator {
+
+    private Map<String, ReaderConfigurator> formats = new LinkedHashMap<String, ReaderConfigurator>();
+    private int sniffBufferSize = 4096;
+    private String targetProfile;
+
+    /**
+     * Register the reader configurator for the specified message format.
+     * @param format The message format.  See the {@link FormatSniffer} constants, or
+     * {@link FormatDetectingXMLReader#DEFAULT_FORMAT} for messages of an unknown format.
+     * @param readerConfigurator The reader configurator.
+     * @return This configurator instance.
+     */
+    public FormatDetectingReaderConfigurator addFormat(String format, ReaderConfigurator readerConfigurator) {
+        AssertArgument.isNotNullAndNotEmpty(format, "format");
+        AssertArgument.isNotNull(readerConfigurator, "readerConfigurator");
+        formats.put(format, readerConfigurator);
+        return this;
+    }
+
+    public FormatDetectingReaderConfigurator setSniffBufferSize(int sniffBufferSize) {
+        this.sniffBufferSize = sniffBufferSize;
+        return this;
+    }
+
+    public FormatDetectingReaderConfigurator setTargetProfile(String targetProfile) {
+        AssertArgument.isNotNullAndNotEmpty(targetProfile, "targetProfile");
+        this.targetProfile = targetProfile;
+        return this;
+    }
+
+    public List<SmooksResourceConfiguration> toConfig() {
+        SmooksResourceConfiguration readerConfig = new SmooksResourceConfiguration(AbstractParser.ORG_XML_SAX_DRIVER, FormatDetectingXMLReader.class.getName());
+        List<SmooksResourceConfiguration> configList = new ArrayList<SmooksResourceConfiguration>();
+
+        if(targetProfile != null) {
+            readerConfig.setTargetProfile(targetProfile);
+        }
+        readerConfig.setParameter("sniffBufferSize", Integer.toString(sniffBufferSize));
+        configList.add(readerConfig);
+
+        for(Map.Entry<String, ReaderConfigurator> format : formats.entrySet()) {
+            SmooksResourceConfiguration formatReaderConfig = null;
+
+            for(SmooksResourceConfiguration formatConfig : format.getValue().toConfig()) {
+                if(formatReaderConfig == null && AbstractParser.ORG_XML_SAX_DRIVER.equals(formatConfig.getSelector())) {
+                    formatReaderConfig = formatConfig;
+                } else {
+                    configList.add(formatConfig);
+                }
+            }
+
+            if(formatReaderConfig == null) {
+                throw new SmooksConfigurationException("Reader configurator for format '" + format.getKey() + "' does not produce a reader configuration.");
+            }
+            readerConfig.setParameter(new Parameter(FormatDetectingXMLReader.FORMAT_PARAM_PREFIX + format.getKey(), formatReaderConfig));
+        }
+
+        return configList;
+    }
+}
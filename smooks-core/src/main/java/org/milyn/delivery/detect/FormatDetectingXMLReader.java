@@ -0,0 +1,446 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.detect;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.milyn.cdr.Parameter;
+import org.milyn.cdr.SmooksConfigurationException;
+import org.milyn.cdr.SmooksResourceConfiguration;
+import org.milyn.cdr.annotation.AppContext;
+import org.milyn.cdr.annotation.Config;
+import org.milyn.cdr.annotation.ConfigParam;
+import org.milyn.cdr.annotation.Configurator;
+import org.milyn.container.ApplicationContext;
+import org.milyn.container.ExecutionContext;
+import org.milyn.delivery.AbstractParser;
+import org.milyn.delivery.annotation.Initialize;
+import org.milyn.namespace.NamespaceDeclarationStack;
+import org.milyn.namespace.NamespaceDeclarationStackAware;
+import org.milyn.xml.ResettableXMLReader;
+import org.milyn.xml.SmooksXMLReader;
+import org.milyn.xml.SubtreeSkippingXMLReader;
+import org.milyn.xml.hierarchy.HierarchyChangeListener;
+import org.milyn.xml.hierarchy.HierarchyChangeReader;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLReaderFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Format detecting reader.
+ * <p/>
+ * Allows a single Smooks instance to process messages of different formats (EDIFACT, X12, CSV, JSON, XML etc)
+ * received on the same channel.  The reader {@link FormatSniffer sniffs} the format from the head of the message
+ * and hands the message over to the reader registered for that format.
+ * <p/>
+ * The head of the message is read through the mark/reset buffer of the message stream (a {@link BufferedInputStream}
+ * or {@link BufferedReader} is only wrapped around the stream if it doesn't support mark/reset), so the message is
+ * not copied before it is handed over.  The format readers are created and configured once per format
+ * (and reused as long as they are {@link ResettableXMLReader resettable}).
+ * <p/>
+ * The format readers are registered using the {@link FormatDetectingReaderConfigurator}, or through
+ * "format:&lt;format&gt;" reader parameters specifying the reader class name:
+ * <pre>
+ * &lt;reader class="org.milyn.delivery.detect.FormatDetectingXMLReader"&gt;
+ *     &lt;params&gt;
+ *         &lt;param name="format:json"&gt;org.milyn.json.JSONReader&lt;/param&gt;
+ *         &lt;param name="format:csv"&gt;org.milyn.csv.CSVReader&lt;/param&gt;
+ *     &lt;/params&gt;
+ * &lt;/reader&gt;
+ * </pre>
+ * Messages of an undetected format, or a format for which no reader is registered, are handed over to the
+ * reader registered for the {@link #DEFAULT_FORMAT "default"} format.  XML messages are parsed by the
+ * JVM's default XML parser if no "xml" reader is registered.
+ */
+public class FormatDetectingXMLReader implements ResettableXMLReader, SubtreeSkippingXMLReader, NamespaceDeclarationStackAware, HierarchyChangeReader {
+
+    private static Log logger = LogFactory.getLog(FormatDetectingXMLReader.class);
+
+    public static final String FORMAT_PARAM_PREFIX = "format:";
+    public static final String DEFAULT_FORMAT = "default";
+
+    @Config
+    private SmooksResourceConfiguration config;
+
+    @AppContext
+    private ApplicationContext appContext;
+
+    @ConfigParam(defaultVal = "4096")
+    private int sniffBufferSize;
+
+    private Map<String, SmooksResourceConfiguration> formatConfigs = new LinkedHashMap<String, SmooksResourceConfiguration>();
+    private Map<String, XMLReader> formatReaders = new HashMap<String, XMLReader>();
+    private Map<String, Boolean> features = new LinkedHashMap<String, Boolean>();
+    private char[] sniffBuffer;
+
+    private ExecutionContext executionContext;
+    private ContentHandler contentHandler;
+    private Object lexicalHandler;
+    private ErrorHandler errorHandler;
+    private EntityResolver entityResolver;
+    private DTDHandler dtdHandler;
+    private NamespaceDeclarationStack namespaceDeclarationStack;
+    private HierarchyChangeListener hierarchyChangeListener;
+    private XMLReader activeReader;
+
+    @Initialize
+    public void initialize() {
+        if(sniffBufferSize < 3) {
+            throw new SmooksConfigurationException("Invalid 'sniffBufferSize' config value '" + sniffBufferSize + "'.  Must be 3 or greater.");
+        }
+        sniffBuffer = new char[sniffBufferSize];
+
+        Map<String, Object> parameters = config.getParameters();
+        if(parameters == null) {
+            return;
+        }
+
+        for(Map.Entry<String, Object> entry : parameters.entrySet()) {
+            String paramName = entry.getKey();
+
+            if(paramName.startsWith(FORMAT_PARAM_PREFIX)) {
+                String format = paramName.substring(FORMAT_PARAM_PREFIX.length()).trim();
+                Parameter parameter = config.getParameter(paramName);
+                Object formatConfig = parameter.getObjValue();
+
+                if(formatConfig instanceof SmooksResourceConfiguration) {
+                    formatConfigs.put(format, (SmooksResourceConfiguration) formatConfig);
+                } else {
+                    formatConfigs.put(format, new SmooksResourceConfiguration(AbstractParser.ORG_XML_SAX_DRIVER, parameter.getValue().trim()));
+                }
+            }
+        }
+    }
+
+    public void setExecutionContext(ExecutionContext executionContext) {
+        this.executionContext = executionContext;
+    }
+
+    public void parse(InputSource input) throws IOException, SAXException {
+        InputStream byteStream = input.getByteStream();
+        InputSource formatInput;
+        String format;
+
+        if(byteStream != null) {
+            String encoding = getEncoding(input);
+
+            if(!byteStream.markSupported()) {
+                byteStream = new BufferedInputStream(byteStream);
+            }
+            format = sniff(byteStream, encoding);
+
+            formatInput = new InputSource();
+            formatInput.setByteStream(byteStream);
+            formatInput.setCharacterStream(new InputStreamReader(byteStream, encoding));
+        } else {
+            Reader characterStream = input.getCharacterStream();
+
+            if(characterStream == null) {
+                throw new SAXException("Invalid InputSource.  No byte or character stream.");
+            }
+            if(!characterStream.markSupported()) {
+                characterStream = new BufferedReader(characterStream);
+            }
+            format = sniff(characterStream);
+
+            formatInput = new InputSource(characterStream);
+        }
+        formatInput.setSystemId(input.getSystemId());
+        formatInput.setPublicId(input.getPublicId());
+        formatInput.setEncoding(input.getEncoding());
+
+        if(logger.isDebugEnabled()) {
+            logger.debug("Detected message format '" + format + "'.");
+        }
+
+        activeReader = getFormatReader(format);
+        configureFormatReader(activeReader);
+        activeReader.parse(formatInput);
+    }
+
+    public void parse(String systemId) throws IOException, SAXException {
+        parse(new InputSource(systemId));
+    }
+
+    public void skipSubtree() {
+        if(activeReader instanceof SubtreeSkippingXMLReader) {
+            ((SubtreeSkippingXMLReader) activeReader).skipSubtree();
+        }
+    }
+
+    public void setNamespaceDeclarationStack(NamespaceDeclarationStack namespaceDeclarationStack) {
+        this.namespaceDeclarationStack = namespaceDeclarationStack;
+    }
+
+    public void setHierarchyChangeListener(HierarchyChangeListener listener) {
+        this.hierarchyChangeListener = listener;
+        if(activeReader instanceof HierarchyChangeReader) {
+            ((HierarchyChangeReader) activeReader).setHierarchyChangeListener(listener);
+        }
+    }
+
+    public void reset() {
+        Iterator<Map.Entry<String, XMLReader>> readers = formatReaders.entrySet().iterator();
+
+        while(readers.hasNext()) {
+            XMLReader reader = readers.next().getValue();
+
+            if(reader instanceof ResettableXMLReader) {
+                if(reader == activeReader) {
+                    ((ResettableXMLReader) reader).reset();
+                }
+            } else {
+                // Non resettable readers are not reused...
+                readers.remove();
+            }
+        }
+
+        executionContext = null;
+        contentHandler = null;
+        lexicalHandler = null;
+        errorHandler = null;
+        entityResolver = null;
+        dtdHandler = null;
+        namespaceDeclarationStack = null;
+        hierarchyChangeListener = null;
+        activeReader = null;
+    }
+
+    /**
+     * Get the reader used to parse the current message.
+     * @return The format reader, or null if no message is being parsed.
+     */
+    public XMLReader getActiveReader() {
+        return activeReader;
+    }
+
+    private String getEncoding(InputSource input) {
+        if(input.getEncoding() != null) {
+            return input.getEncoding();
+        } else if(executionContext != null) {
+            return executionContext.getContentEncoding();
+        }
+        return Charset.defaultCharset().name();
+    }
+
+    private String sniff(InputStream byteStream, String encoding) throws IOException {
+        byte[] head = new byte[sniffBufferSize];
+        int headLength = 0;
+
+        byteStream.mark(sniffBufferSize);
+        try {
+            int count;
+            while(headLength < head.length && (count = byteStream.read(head, headLength, head.length - headLength)) != -1) {
+                headLength += count;
+            }
+        } finally {
+            byteStream.reset();
+        }
+
+        String headChars = new String(head, 0, headLength, encoding);
+        int length = Math.min(headChars.length(), sniffBuffer.length);
+
+        headChars.getChars(0, length, sniffBuffer, 0);
+
+        return FormatSniffer.sniff(sniffBuffer, length);
+    }
+
+    private String sniff(Reader characterStream) throws IOException {
+        int headLength = 0;
+
+        characterStream.mark(sniffBufferSize);
+        try {
+            int count;
+            while(headLength < sniffBuffer.length && (count = characterStream.read(sniffBuffer, headLength, sniffBuffer.length - headLength)) != -1) {
+                headLength += count;
+            }
+        } finally {
+            characterStream.reset();
+        }
+
+        return FormatSniffer.sniff(sniffBuffer, headLength);
+    }
+
+    private XMLReader getFormatReader(String format) throws SAXException {
+        String readerFormat = format;
+
+        if(readerFormat == null || (!formatConfigs.containsKey(readerFormat) && !FormatSniffer.XML.equals(readerFormat))) {
+            readerFormat = DEFAULT_FORMAT;
+        }
+
+        XMLReader reader = formatReaders.get(readerFormat);
+        if(reader == null) {
+            reader = createFormatReader(readerFormat, format);
+            formatReaders.put(readerFormat, reader);
+        }
+
+        return reader;
+    }
+
+    private XMLReader createFormatReader(String readerFormat, String format) throws SAXException {
+        SmooksResourceConfiguration formatConfig = formatConfigs.get(readerFormat);
+        XMLReader reader;
+
+        if(formatConfig != null && formatConfig.getResource() != null) {
+            reader = XMLReaderFactory.createXMLReader(formatConfig.getResource());
+        } else if(formatConfig != null || FormatSniffer.XML.equals(readerFormat)) {
+            reader = XMLReaderFactory.createXMLReader();
+        } else if(format == null) {
+            throw new SAXException("Unable to detect the message format and no '" + DEFAULT_FORMAT + "' format reader is registered.");
+        } else {
+            throw new SAXException("No reader registered for detected message format '" + format + "' and no '" + DEFAULT_FORMAT + "' format reader is registered.");
+        }
+
+        if(reader instanceof SmooksXMLReader) {
+            if(formatConfig != null) {
+                Configurator.configure(reader, formatConfig, appContext);
+            } else {
+                Configurator.initialise(reader);
+            }
+        }
+
+        for(Map.Entry<String, Boolean> feature : features.entrySet()) {
+            try {
+                reader.setFeature(feature.getKey(), feature.getValue());
+            } catch(SAXNotRecognizedException e) {
+                logger.debug("XMLReader feature '" + feature.getKey() + "' not recognized by XMLReader '" + reader.getClass().getName() + "'.");
+            } catch(SAXNotSupportedException e) {
+                logger.debug("XMLReader feature '" + feature.getKey() + "' not supported by XMLReader '" + reader.getClass().getName() + "'.");
+            }
+        }
+
+        if(formatConfig != null) {
+            setFeatures(reader, formatConfig.getParameters(AbstractParser.FEATURE_ON), true);
+            setFeatures(reader, formatConfig.getParameters(AbstractParser.FEATURE_OFF), false);
+        }
+
+        return reader;
+    }
+
+    private void setFeatures(XMLReader reader, List<Parameter> features, boolean on) throws SAXNotRecognizedException, SAXNotSupportedException {
+        if(features != null) {
+            for(Parameter feature : features) {
+                reader.setFeature(feature.getValue(), on);
+            }
+        }
+    }
+
+    private void configureFormatReader(XMLReader reader) throws SAXException {
+        if(reader instanceof SmooksXMLReader) {
+            ((SmooksXMLReader) reader).setExecutionContext(executionContext);
+        }
+        if(reader instanceof NamespaceDeclarationStackAware && namespaceDeclarationStack != null) {
+            ((NamespaceDeclarationStackAware) reader).setNamespaceDeclarationStack(namespaceDeclarationStack);
+        }
+        if(reader instanceof HierarchyChangeReader) {
+            ((HierarchyChangeReader) reader).setHierarchyChangeListener(hierarchyChangeListener);
+        }
+
+        reader.setContentHandler(contentHandler);
+        if(errorHandler != null) {
+            reader.setErrorHandler(errorHandler);
+        }
+        if(entityResolver != null) {
+            reader.setEntityResolver(entityResolver);
+        }
+        if(dtdHandler != null) {
+            reader.setDTDHandler(dtdHandler);
+        }
+        if(lexicalHandler != null) {
+            try {
+                reader.setProperty("http://xml.org/sax/properties/lexical-handler", lexicalHandler);
+            } catch (SAXNotRecognizedException e) {
+                logger.debug("XMLReader property 'http://xml.org/sax/properties/lexical-handler' not recognized by XMLReader '" + reader.getClass().getName() + "'.");
+            }
+        }
+    }
+
+    public boolean getFeature(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+        Boolean value = features.get(name);
+        return (value != null && value);
+    }
+
+    public void setFeature(String name, boolean value) throws SAXNotRecognizedException, SAXNotSupportedException {
+        features.put(name, value);
+    }
+
+    public Object getProperty(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+        if("http://xml.org/sax/properties/lexical-handler".equals(name)) {
+            return lexicalHandler;
+        }
+        return null;
+    }
+
+    public void setProperty(String name, Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+        if("http://xml.org/sax/properties/lexical-handler".equals(name)) {
+            lexicalHandler = value;
+        } else {
+            throw new SAXNotRecognizedException("Property '" + name + "' not recognized.");
+        }
+    }
+
+    public void setContentHandler(ContentHandler contentHandler) {
+        this.contentHandler = contentHandler;
+    }
+
+    public ContentHandler getContentHandler() {
+        return contentHandler;
+    }
+
+    public void setErrorHandler(ErrorHandler errorHandler) {
+        this.errorHandler = errorHandler;
+    }
+
+    public ErrorHandler getErrorHandler() {
+        return errorHandler;
+    }
+
+    public void setEntityResolver(EntityResolver entityResolver) {
+        this.entityResolver = entityResolver;
+    }
+
+    public EntityResolver getEntityResolver() {
+        return entityResolver;
+    }
+
+    public void setDTDHandler(DTDHandler dtdHandler) {
+        this.dtdHandler = dtdHandler;
+    }
+
+    public DTDHandler getDTDHandler() {
+        return dtdHandler;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.detect;
+
+/**
+ * Message format sniffer.
+ * <p/>
+ * Detects the format of a message from the head of the message stream:
+ * <ul>
+ *  <li>{@link #EDIFACT}: starts with a "UNA" or "UNB" service segment.</li>
+ *  <li>{@link #X12}: starts with an "ISA" interchange header.</li>
+ *  <li>{@link #JSON}: starts with a '{' or '['.</li>
+ *  <li>{@link #XML}: starts with a '&lt;'.</li>
+ *  <li>{@link #CSV}: each line in the head of the message contains the same (non zero) number of
+ *      ',', ';', tab or '|' delimiters (outside quotes).</li>
+ * </ul>
+ * Leading whitespace and byte order marks are ignored.
+ */
+public class FormatSniffer {
+
+    public static final String EDIFACT = "edifact";
+    public static final String X12 = "x12";
+    public static final String JSON = "json";
+    public static final String XML = "xml";
+    public static final String CSV = "csv";
+
+    private static final char[] CSV_DELIMITERS = new char[] {',', ';', '\t', '|'};
+
+    /**
+     * Sniff the message format.
+     * @param head The head of the message.
+     * @param length The number of characters in the head buffer.
+     * @return The message format, or null if the format could not be detected.
+     */
+    public static String sniff(char[] head, int length) {
+        int offset = 0;
+
+        while(offset < length && (head[offset] == '\uFEFF' || Character.isWhitespace(head[offset]))) {
+            offset++;
+        }
+        if(offset == length) {
+            return null;
+        }
+
+        if(startsWithTag(head, offset, length, "UNA") || startsWithTag(head, offset, length, "UNB")) {
+            return EDIFACT;
+        } else if(startsWithTag(head, offset, length, "ISA")) {
+            return X12;
+        }
+
+        switch(head[offset]) {
+            case '{':
+            case '[':
+                return JSON;
+            case '<':
+                return XML;
+        }
+
+        for(char delimiter : CSV_DELIMITERS) {
+            if(isDelimited(head, offset, length, delimiter)) {
+                return CSV;
+            }
+        }
+
+        return null;
+    }
+
+    private static boolean startsWithTag(char[] head, int offset, int length, String tag) {
+        int tagLength = tag.length();
+
+        if(length - offset < tagLength) {
+            return false;
+        }
+        for(int i = 0; i < tagLength; i++) {
+            if(head[offset + i] != tag.charAt(i)) {
+                return false;
+            }
+        }
+
+        // The tag must be followed by a delimiter (or the end of the head)...
+        return (length - offset == tagLength || !Character.isLetterOrDigit(head[offset + tagLength]));
+    }
+
+    private static boolean isDelimited(char[] head, int offset, int length, char delimiter) {
+        int expectedCount = -1;
+        int lineCount = 0;
+        boolean blankLine = true;
+        boolean inQuotes = false;
+
+        for(int i = offset; i < length; i++) {
+            char c = head[i];
+
+            if(c != '\n' && c != '\r') {
+                blankLine = false;
+            }
+            if(c == '"') {
+                inQuotes = !inQuotes;
+            } else if(inQuotes) {
+                continue;
+            } else if(c == delimiter) {
+                lineCount++;
+            } else if(c == '\n' || c == '\r') {
+                if(c == '\r' && i + 1 < length && head[i + 1] == '\n') {
+                    i++;
+                }
+                if(blankLine) {
+                    continue;
+                } else if(expectedCount == -1) {
+                    if(lineCount == 0) {
+                        return false;
+                    }
+                    expectedCount = lineCount;
+                } else if(lineCount != expectedCount) {
+                    return false;
+                }
+                lineCount = 0;
+                blankLine = true;
+            }
+        }
+
+        if(expectedCount == -1) {
+            // No complete line in the head.  Go with the delimiter count on the partial line...
+            return (lineCount > 0);
+        }
+
+        return true;
+    }
+}
@@ -29,6 +29,7 @@ import org.milyn.payload.JavaSource;
 import org.milyn.payload.FilterResult;
 import org.milyn.payload.FilterSource;
 import org.milyn.event.ExecutionEventListener;
+import org.milyn.event.profile.VisitProfiler;
 import org.milyn.event.report.AbstractReportGenerator;
 import org.milyn.event.types.DOMFilterLifecycleEvent;
 import org.milyn.event.types.ElementPresentEvent;
@@ -192,6 +193,10 @@ public class SmooksDOMFilter extends Filter {
         this.executionContext = executionContext;
         deliveryConfig = (DOMContentDeliveryConfig) executionContext.getDeliveryConfig();
         eventListener = executionContext.getEventListener();
+        if(eventListener instanceof VisitProfiler) {
+            // Only the SAX filter is profiled.  Don't pay the cost of creating the element events...
+            eventListener = null;
+        }
 
         closeSource = ParameterAccessor.getBoolParameter(Filter.CLOSE_SOURCE, true, executionContext.getDeliveryConfig());
         closeResult = ParameterAccessor.getBoolParameter(Filter.CLOSE_RESULT, true, executionContext.getDeliveryConfig());
@@ -23,6 +23,7 @@ import org.milyn.cdr.SmooksResourceConfiguration;
 import org.milyn.cdr.ParameterAccessor;
 import org.milyn.container.ExecutionContext;
 import org.milyn.event.ExecutionEventListener;
+import org.milyn.event.profile.VisitProfiler;
 import org.milyn.delivery.ContentHandlerConfigMap;
 import org.milyn.delivery.ContentHandlerConfigMapTable;
 import org.milyn.delivery.Filter;
@@ -101,6 +102,10 @@ public class Serializer {
 		this.node = node;
 		this.executionContext = executionContext;
         eventListener = executionContext.getEventListener();
+        if(eventListener instanceof VisitProfiler) {
+            // Only the SAX filter is profiled.  Don't pay the cost of creating the element events...
+            eventListener = null;
+        }
 		// Get the delivery context for the device.
 		deliveryConfig = (DOMContentDeliveryConfig) executionContext.getDeliveryConfig();
 		// Initialise the serializationUnits member
@@ -0,0 +1,346 @@
+package org.milyn.delivery.replay;
+
+import org.milyn.SmooksException;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SAX event recording.
+ * <p/>
+ * Records a sequence of element and text events (e.g. a complete message fragment), so they can be replayed
+ * later, possibly on a different thread.  The recorded event data is copied, so the recording is not
+ * affected by readers that reuse their event buffers.
+ * <p/>
+ * The events are encoded in a compact binary form.  Element and attribute names are interned in a name table
+ * and referenced by index, while text and attribute values are pooled in a single {@link ByteBuffer}
+ * (lengths, name indexes and characters are all variable length encoded i.e. a single byte for ASCII).
+ * <p/>
+ * The recording is also a {@link ContentHandler}, so the output of any {@link org.xml.sax.XMLReader} can be
+ * recorded.  Recordings can be {@link #write(OutputStream) written} to a stream (e.g. a local disk cache) and
+ * {@link #read(InputStream) read} back, allowing the pre-parsed events to be filtered again by a
+ * different Smooks configuration (see {@link SAXEventRecordingReader}) without re-parsing the original message.
+ */
+public class SAXEventRecording implements SAXEventReplay, ContentHandler {
+
+    private static final int FORMAT_MAGIC = 0x53415852;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final byte START_ELEMENT = 1;
+    private static final byte END_ELEMENT = 2;
+    private static final byte CHARACTERS = 3;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private Map<String, Integer> nameIndex = new HashMap<String, Integer>();
+    private List<String> names = new ArrayList<String>();
+    private ByteBuffer events = ByteBuffer.allocate(INITIAL_CAPACITY);
+    private int size;
+
+    public void startElement(String uri, String localName, String qName, Attributes atts) {
+        int attCount = (atts != null ? atts.getLength() : 0);
+
+        putByte(START_ELEMENT);
+        putName(uri);
+        putName(localName);
+        putName(qName);
+        putVarInt(attCount);
+        for(int i = 0; i < attCount; i++) {
+            String value = atts.getValue(i);
+
+            putName(atts.getURI(i));
+            putName(atts.getLocalName(i));
+            putName(atts.getQName(i));
+            putName(atts.getType(i));
+            putText(value.toCharArray(), 0, value.length());
+        }
+        size++;
+    }
+
+    public void endElement(String uri, String localName, String qName) {
+        putByte(END_ELEMENT);
+        putName(uri);
+        putName(localName);
+        putName(qName);
+        size++;
+    }
+
+    public void characters(char[] ch, int start, int length) {
+        putByte(CHARACTERS);
+        putText(ch, start, length);
+        size++;
+    }
+
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+        characters(ch, start, length);
+    }
+
+    public void setDocumentLocator(Locator locator) {
+    }
+
+    public void startDocument() {
+    }
+
+    public void endDocument() {
+    }
+
+    public void startPrefixMapping(String prefix, String uri) {
+    }
+
+    public void endPrefixMapping(String prefix) {
+    }
+
+    public void processingInstruction(String target, String data) {
+    }
+
+    public void skippedEntity(String name) {
+    }
+
+    /**
+     * Get the number of events in the recording.
+     * @return The number of recorded events.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Replay all the recorded events, in order.
+     * @param handler The handler on which to replay the recorded events.
+     * @throws SmooksException Error replaying an event.
+     */
+    public void replay(ContentHandler handler) throws SmooksException {
+        EventDecoder decoder = new EventDecoder();
+
+        while(decoder.hasNext()) {
+            byte type = decoder.nextByte();
+
+            if(type == START_ELEMENT) {
+                String uri = decoder.nextName();
+                String localName = decoder.nextName();
+                String qName = decoder.nextName();
+                int attCount = decoder.nextVarInt();
+                AttributesImpl atts = new AttributesImpl();
+
+                for(int i = 0; i < attCount; i++) {
+                    String attUri = decoder.nextName();
+                    String attLocalName = decoder.nextName();
+                    String attQName = decoder.nextName();
+                    String attType = decoder.nextName();
+                    int length = decoder.nextText();
+
+                    atts.addAttribute(attUri, attLocalName, attQName, attType, new String(decoder.text, 0, length));
+                }
+
+                try {
+                    handler.startElement(uri, localName, qName, atts);
+                } catch (SAXException e) {
+                    throw new SmooksException("Error replaying startElement event.", e);
+                }
+            } else if(type == END_ELEMENT) {
+                String uri = decoder.nextName();
+                String localName = decoder.nextName();
+                String qName = decoder.nextName();
+
+                try {
+                    handler.endElement(uri, localName, qName);
+                } catch (SAXException e) {
+                    throw new SmooksException("Error replaying endElement event.", e);
+                }
+            } else if(type == CHARACTERS) {
+                int length = decoder.nextText();
+
+                try {
+                    handler.characters(decoder.text, 0, length);
+                } catch (SAXException e) {
+                    throw new SmooksException("Error replaying characters event.", e);
+                }
+            } else {
+                throw new SmooksException("Corrupt SAX event recording.  Unknown event type '" + type + "'.");
+            }
+        }
+    }
+
+    /**
+     * Write the recording to the supplied stream.
+     * <p/>
+     * The stream is not closed.
+     *
+     * @param stream The output stream.
+     * @throws IOException Error writing the recording.
+     */
+    public void write(OutputStream stream) throws IOException {
+        DataOutputStream dataStream = new DataOutputStream(stream);
+
+        dataStream.writeInt(FORMAT_MAGIC);
+        dataStream.writeByte(FORMAT_VERSION);
+        dataStream.writeInt(names.size());
+        for(String name : names) {
+            dataStream.writeUTF(name);
+        }
+        dataStream.writeInt(size);
+        dataStream.writeInt(events.position());
+        dataStream.write(events.array(), events.arrayOffset(), events.position());
+        dataStream.flush();
+    }
+
+    /**
+     * Read a recording from the supplied stream.
+     * <p/>
+     * The stream is not closed.
+     *
+     * @param stream The input stream.  Must contain a recording written by {@link #write(OutputStream)}.
+     * @return The recording.
+     * @throws IOException Error reading the recording.
+     */
+    public static SAXEventRecording read(InputStream stream) throws IOException {
+        DataInputStream dataStream = new DataInputStream(stream);
+        SAXEventRecording recording = new SAXEventRecording();
+
+        if(dataStream.readInt() != FORMAT_MAGIC) {
+            throw new IOException("Invalid SAX event recording stream.  Unexpected stream header.");
+        }
+        int version = dataStream.readByte();
+        if(version != FORMAT_VERSION) {
+            throw new IOException("Unsupported SAX event recording format version '" + version + "'.");
+        }
+
+        int nameCount = dataStream.readInt();
+        for(int i = 0; i < nameCount; i++) {
+            String name = dataStream.readUTF();
+
+            recording.nameIndex.put(name, i);
+            recording.names.add(name);
+        }
+
+        recording.size = dataStream.readInt();
+
+        byte[] events = new byte[dataStream.readInt()];
+        dataStream.readFully(events);
+        recording.events = ByteBuffer.wrap(events);
+        recording.events.position(events.length);
+
+        return recording;
+    }
+
+    private void putByte(byte value) {
+        ensureCapacity(1);
+        events.put(value);
+    }
+
+    private void putName(String name) {
+        if(name == null) {
+            putVarInt(0);
+            return;
+        }
+
+        Integer index = nameIndex.get(name);
+        if(index == null) {
+            index = names.size();
+            nameIndex.put(name, index);
+            names.add(name);
+        }
+        putVarInt(index + 1);
+    }
+
+    private void putText(char[] ch, int start, int length) {
+        putVarInt(length);
+        // Worst case, 3 bytes per char...
+        ensureCapacity(length * 3);
+        for(int i = start; i < start + length; i++) {
+            writeVarInt(ch[i]);
+        }
+    }
+
+    private void putVarInt(int value) {
+        ensureCapacity(5);
+        writeVarInt(value);
+    }
+
+    private void writeVarInt(int value) {
+        while((value & ~0x7F) != 0) {
+            events.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        events.put((byte) value);
+    }
+
+    private void ensureCapacity(int count) {
+        if(events.remaining() < count) {
+            ByteBuffer newEvents = ByteBuffer.allocate(Math.max(events.capacity() * 2, events.position() + count));
+
+            events.flip();
+            newEvents.put(events);
+            events = newEvents;
+        }
+    }
+
+    /**
+     * Event decoder.
+     * <p/>
+     * Reads the events using absolute gets, leaving the recording buffer untouched.
+     */
+    private class EventDecoder {
+
+        private final int limit = events.position();
+        private int position = 0;
+        private char[] text = new char[INITIAL_CAPACITY];
+
+        private boolean hasNext() {
+            return (position < limit);
+        }
+
+        private byte nextByte() {
+            return events.get(position++);
+        }
+
+        private int nextVarInt() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+
+            do {
+                b = events.get(position++);
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while((b & 0x80) != 0);
+
+            return value;
+        }
+
+        private String nextName() {
+            int index = nextVarInt();
+
+            if(index == 0) {
+                return null;
+            }
+            return names.get(index - 1);
+        }
+
+        private int nextText() {
+            int length = nextVarInt();
+
+            if(text.length < length) {
+                text = new char[Math.max(text.length * 2, length)];
+            }
+            for(int i = 0; i < length; i++) {
+                text[i] = (char) nextVarInt();
+            }
+
+            return length;
+        }
+    }
+}
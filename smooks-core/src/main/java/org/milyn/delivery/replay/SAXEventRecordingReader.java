@@ -0,0 +1,100 @@
+package org.milyn.delivery.replay;
+
+import org.milyn.container.ExecutionContext;
+import org.milyn.xml.ResettableXMLReader;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link SAXEventRecording} reader.
+ * <p/>
+ * Replays a {@link SAXEventRecording#write(java.io.OutputStream) serialized} event recording into the
+ * Smooks filter, so a message that has been parsed (and recorded) once can be filtered by any number of Smooks
+ * configurations without re-parsing it:
+ * <pre>
+ * &lt;reader class="org.milyn.delivery.replay.SAXEventRecordingReader" /&gt;
+ * </pre>
+ * The source must supply the recording as a byte stream e.g. a {@link javax.xml.transform.stream.StreamSource}
+ * on the cached recording file.
+ */
+public class SAXEventRecordingReader implements ResettableXMLReader {
+
+    private ContentHandler contentHandler;
+
+    public void setExecutionContext(ExecutionContext executionContext) {
+    }
+
+    public void reset() {
+        contentHandler = null;
+    }
+
+    public void parse(InputSource input) throws IOException, SAXException {
+        InputStream stream = input.getByteStream();
+
+        if(stream == null) {
+            throw new SAXException("Invalid InputSource.  " + getClass().getSimpleName() + " requires the serialized event recording to be supplied as a byte stream.");
+        }
+
+        SAXEventRecording recording = SAXEventRecording.read(stream);
+
+        contentHandler.startDocument();
+        recording.replay(contentHandler);
+        contentHandler.endDocument();
+    }
+
+    public void parse(String systemId) throws IOException, SAXException {
+        throw new UnsupportedOperationException("Operation not supported by this reader.");
+    }
+
+    public boolean getFeature(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+        return false;
+    }
+
+    public void setFeature(String name, boolean value) throws SAXNotRecognizedException, SAXNotSupportedException {
+    }
+
+    public Object getProperty(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+        return null;
+    }
+
+    public void setProperty(String name, Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+    }
+
+    public void setContentHandler(ContentHandler contentHandler) {
+        this.contentHandler = contentHandler;
+    }
+
+    public ContentHandler getContentHandler() {
+        return contentHandler;
+    }
+
+    public void setEntityResolver(EntityResolver resolver) {
+    }
+
+    public EntityResolver getEntityResolver() {
+        return null;
+    }
+
+    public void setDTDHandler(DTDHandler handler) {
+    }
+
+    public DTDHandler getDTDHandler() {
+        return null;
+    }
+
+    public void setErrorHandler(ErrorHandler handler) {
+    }
+
+    public ErrorHandler getErrorHandler() {
+        return null;
+    }
+}
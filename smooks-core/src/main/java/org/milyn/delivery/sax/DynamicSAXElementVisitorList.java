@@ -16,6 +16,7 @@
 package org.milyn.delivery.sax;
 
 import org.milyn.container.ExecutionContext;
+import org.milyn.container.ExecutionContextSlot;
 import org.milyn.delivery.SmooksContentHandler;
 
 import java.util.ArrayList;
@@ -28,12 +29,14 @@ import java.util.List;
  */
 public class DynamicSAXElementVisitorList {
 
+    private static final ExecutionContextSlot<DynamicSAXElementVisitorList> LIST = ExecutionContextSlot.register(DynamicSAXElementVisitorList.class.getName());
+
     private List<SAXVisitBefore> visitBefores = new ArrayList<SAXVisitBefore>();
     private List<SAXVisitChildren> childVisitors = new ArrayList<SAXVisitChildren>();
     private List<SAXVisitAfter> visitAfters = new ArrayList<SAXVisitAfter>();
 
     public DynamicSAXElementVisitorList(ExecutionContext executionContext) {
-        executionContext.setAttribute(DynamicSAXElementVisitorList.class, this);
+        LIST.set(executionContext, this);
     }
 
     public List<SAXVisitBefore> getVisitBefores() {
@@ -49,7 +52,7 @@ public class DynamicSAXElementVisitorList {
     }
     
     public static DynamicSAXElementVisitorList getList(ExecutionContext executionContext) {
-        return (DynamicSAXElementVisitorList) executionContext.getAttribute(DynamicSAXElementVisitorList.class);
+        return LIST.get(executionContext);
     }
 
     public static void addDynamicVisitor(SAXVisitor visitor, ExecutionContext executionContext) {
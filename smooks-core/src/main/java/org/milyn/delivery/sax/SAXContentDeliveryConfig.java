@@ -17,6 +17,10 @@ package org.milyn.delivery.sax;
 
 import org.milyn.container.ExecutionContext;
 import org.milyn.delivery.*;
+import org.milyn.delivery.annotation.Uninitialize;
+import org.milyn.delivery.dom.serialize.ContextObjectSerializationUnit;
+import org.milyn.delivery.dom.serialize.GhostElementSerializationUnit;
+import org.milyn.delivery.dom.serialize.TextSerializationUnit;
 import org.milyn.delivery.ordering.Sorter;
 import org.milyn.cdr.ParameterAccessor;
 import org.milyn.cdr.SmooksConfigurationException;
@@ -28,6 +32,10 @@ import org.milyn.cdr.xpath.evaluators.equality.ElementIndexCounter;
 import javax.xml.namespace.QName;
 import javax.xml.XMLConstants;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * SAX specific {@link org.milyn.delivery.ContentDeliveryConfig} implementation.
@@ -44,9 +52,18 @@ public class SAXContentDeliveryConfig extends AbstractContentDeliveryConfig {
     private boolean maintainElementStack;
     private boolean reverseVisitOrderOnVisitAfter;
     private boolean terminateOnVisitorException;
+    private boolean recycleElements;
+    private boolean skipUntargetedSubtrees;
+    private SmooksResourceConfiguration parallelFragmentConfig;
+    private int parallelFragmentThreads;
+    private boolean parallelFragmentsOrdered;
+    private ExecutorService parallelFragmentThreadPool;
     private FilterBypass filterBypass;
 
     private Map<String, SAXElementVisitorMap> optimizedVisitorConfig = new HashMap<String, SAXElementVisitorMap>();
+    private SAXElementVisitorMap globalVisitorConfig;
+    private SAXSelectorAutomaton selectorAutomaton = new SAXSelectorAutomaton(new ArrayList<SmooksResourceConfiguration>());
+    private SAXElementNameCache elementNameCache = new SAXElementNameCache();
 
     public ContentHandlerConfigMapTable<SAXVisitBefore> getVisitBefores() {
         return visitBefores;
@@ -80,6 +97,22 @@ public class SAXContentDeliveryConfig extends AbstractContentDeliveryConfig {
         return optimizedVisitorConfig;
     }
     
+    /**
+     * Get the visitor config for the "*" and "**" selectors.
+     * @return The global visitor config, or null if there are no "*" or "**" visitors.
+     */
+    public SAXElementVisitorMap getGlobalVisitorConfig() {
+        return globalVisitorConfig;
+    }
+
+    /**
+     * Get the compiled contextual selector automaton.
+     * @return The compiled selector automaton.
+     */
+    public SAXSelectorAutomaton getSelectorAutomaton() {
+        return selectorAutomaton;
+    }
+
     public FilterBypass getFilterBypass() {
     	return filterBypass;
     }
@@ -182,10 +215,36 @@ public class SAXContentDeliveryConfig extends AbstractContentDeliveryConfig {
         maintainElementStack = ParameterAccessor.getBoolParameter(Filter.MAINTAIN_ELEMENT_STACK, true, this);
         reverseVisitOrderOnVisitAfter = ParameterAccessor.getBoolParameter(Filter.REVERSE_VISIT_ORDER_ON_VISIT_AFTER, true, this);
         terminateOnVisitorException = ParameterAccessor.getBoolParameter(Filter.TERMINATE_ON_VISITOR_EXCEPTION, true, this);
+        recycleElements = ParameterAccessor.getBoolParameter(Filter.RECYCLE_SAX_ELEMENTS, false, this);
+        skipUntargetedSubtrees = ParameterAccessor.getBoolParameter(Filter.SKIP_UNTARGETED_SUBTREES, false, this);
+        initParallelFragments();
         
 		filterBypass = getFilterBypass(visitBefores, visitAfters);
     }
 
+    private void initParallelFragments() {
+        String parallelFragmentSelector = ParameterAccessor.getStringParameter(Filter.PARALLEL_FRAGMENTS_SELECTOR, this);
+
+        if(parallelFragmentSelector == null || parallelFragmentSelector.trim().length() == 0) {
+            return;
+        }
+
+        try {
+            parallelFragmentThreads = Integer.parseInt(ParameterAccessor.getStringParameter(Filter.PARALLEL_FRAGMENTS_THREADS, "0", this).trim());
+        } catch(NumberFormatException e) {
+            throw new SmooksConfigurationException("Invalid '" + Filter.PARALLEL_FRAGMENTS_THREADS + "' parameter value.  Must be an integer.", e);
+        }
+        if(parallelFragmentThreads < 1) {
+            parallelFragmentThreads = Runtime.getRuntime().availableProcessors();
+        }
+
+        parallelFragmentConfig = new SmooksResourceConfiguration(parallelFragmentSelector.trim());
+        parallelFragmentsOrdered = ParameterAccessor.getBoolParameter(Filter.PARALLEL_FRAGMENTS_ORDERED, true, this);
+
+        // So as to get the thread pool shut down when the Smooks instance is closed...
+        getApplicationContext().getStore().getInitializedObjects().add(this);
+    }
+
     public void assertSelectorsNotAccessingText() {
         assertSelectorsNotAccessingText(visitBefores);
         assertSelectorsNotAccessingText(childVisitors);
@@ -271,6 +330,101 @@ public class SAXContentDeliveryConfig extends AbstractContentDeliveryConfig {
         vbs.add(0, new ContentHandlerConfigMap(indexCounter, resourceConfig));
     }
 
+    /**
+     * Compile the contextual selectors of all the configured visitors into a {@link SAXSelectorAutomaton}.
+     * <p/>
+     * Must be called after the visitor config has been optimized and the index counters have been added.
+     */
+    public void compileSelectors() {
+        List<SmooksResourceConfiguration> resourceConfigs = new ArrayList<SmooksResourceConfiguration>();
+        Collection<SAXElementVisitorMap> visitorMaps = optimizedVisitorConfig.values();
+
+        for(SAXElementVisitorMap visitorMap : visitorMaps) {
+            addResourceConfigs(visitorMap.getVisitBefores(), resourceConfigs);
+            addResourceConfigs(visitorMap.getChildVisitors(), resourceConfigs);
+            addResourceConfigs(visitorMap.getVisitAfters(), resourceConfigs);
+            addResourceConfigs(visitorMap.getVisitCleanables(), resourceConfigs);
+        }
+
+        selectorAutomaton = new SAXSelectorAutomaton(resourceConfigs);
+        for(SAXElementVisitorMap visitorMap : visitorMaps) {
+            visitorMap.initSelectorIndexes(selectorAutomaton);
+        }
+
+        SAXElementVisitorMap starVisitorConfigs = optimizedVisitorConfig.get("*");
+        SAXElementVisitorMap starStarVisitorConfigs = optimizedVisitorConfig.get("**");
+
+        if(starVisitorConfigs != null) {
+            globalVisitorConfig = starVisitorConfigs.merge(starStarVisitorConfigs);
+        } else {
+            globalVisitorConfig = starStarVisitorConfigs;
+        }
+        if(globalVisitorConfig != null) {
+            globalVisitorConfig.initSelectorIndexes(selectorAutomaton);
+        }
+
+        if(skipUntargetedSubtrees) {
+            skipUntargetedSubtrees = isSubtreeSkippingPossible();
+        }
+    }
+
+    /**
+     * Can untargeted element subtrees be skipped.
+     * <p/>
+     * Only possible if all visitors are targeted at the document, or through rooted selectors
+     * compiled into the {@link SAXSelectorAutomaton}.  A non-rooted selector can match at any depth,
+     * so with one of those configured, there's no way of knowing that a subtree can't contain a
+     * targeted element.
+     */
+    private boolean isSubtreeSkippingPossible() {
+        if(globalVisitorConfig != null) {
+            return false;
+        }
+
+        List<SmooksResourceConfiguration> resourceConfigs = new ArrayList<SmooksResourceConfiguration>();
+        for(Map.Entry<String, SAXElementVisitorMap> entry : optimizedVisitorConfig.entrySet()) {
+            if(entry.getKey().equals(SmooksResourceConfiguration.DOCUMENT_FRAGMENT_SELECTOR)) {
+                // Only ever applied to the root element...
+                continue;
+            }
+
+            SAXElementVisitorMap visitorMap = entry.getValue();
+            addResourceConfigs(visitorMap.getVisitBefores(), resourceConfigs);
+            addResourceConfigs(visitorMap.getChildVisitors(), resourceConfigs);
+            addResourceConfigs(visitorMap.getVisitAfters(), resourceConfigs);
+            addResourceConfigs(visitorMap.getVisitCleanables(), resourceConfigs);
+        }
+
+        for(SmooksResourceConfiguration resourceConfig : resourceConfigs) {
+            if(selectorAutomaton.getSelectorIndex(resourceConfig) == -1 || !resourceConfig.getSelectorSteps()[0].isRooted()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The installed &lt;context-object&gt;, &lt;ghost-element&gt; and &lt;text&gt; serialization units
+     * are no-ops in the SAX filter, so they don't stop untargeted subtrees from being skipped.
+     */
+    private boolean isInstalledSerializationUnit(ContentHandler contentHandler) {
+        return (contentHandler instanceof ContextObjectSerializationUnit || contentHandler instanceof GhostElementSerializationUnit || contentHandler instanceof TextSerializationUnit);
+    }
+
+    private <T extends ContentHandler> void addResourceConfigs(List<ContentHandlerConfigMap<T>> handlerMaps, List<SmooksResourceConfiguration> resourceConfigs) {
+        if(handlerMaps == null) {
+            return;
+        }
+
+        for(ContentHandlerConfigMap<T> handlerMap : handlerMaps) {
+            if(isInstalledSerializationUnit(handlerMap.getContentHandler())) {
+                continue;
+            }
+            resourceConfigs.add(handlerMap.getResourceConfig());
+        }
+    }
+
     public SAXElementVisitorMap getCombinedOptimizedConfig(String[] elementNames) {
         SAXElementVisitorMap combinedConfig = new SAXElementVisitorMap();
 
@@ -322,6 +476,7 @@ public class SAXContentDeliveryConfig extends AbstractContentDeliveryConfig {
         if(combinedConfig.getVisitBefores() == null && combinedConfig.getChildVisitors() == null && combinedConfig.getVisitAfters() == null ) {
             return null;
         } else {
+            combinedConfig.initSelectorIndexes(selectorAutomaton);
             return combinedConfig;
         }
     }
@@ -376,4 +531,78 @@ public class SAXContentDeliveryConfig extends AbstractContentDeliveryConfig {
 	public boolean isTerminateOnVisitorException() {
 		return terminateOnVisitorException;
 	}
+
+	public boolean isRecycleElements() {
+		return recycleElements;
+	}
+
+    /**
+     * Can the SAX filter skip the content of element subtrees in which there are no
+     * targeted elements.
+     * @return True if untargeted subtrees can be skipped, otherwise false.
+     * @see SAXSelectorAutomaton.State#hasPartialMatches()
+     */
+	public boolean isSkipUntargetedSubtrees() {
+		return skipUntargetedSubtrees;
+	}
+
+    /**
+     * Get the resource configuration for the parallel fragment selector.
+     * @return The parallel fragment resource configuration, or null if parallel
+     * fragment processing is not configured.
+     * @see Filter#PARALLEL_FRAGMENTS_SELECTOR
+     */
+    public SmooksResourceConfiguration getParallelFragmentConfig() {
+        return parallelFragmentConfig;
+    }
+
+    public int getParallelFragmentThreads() {
+        return parallelFragmentThreads;
+    }
+
+    public boolean isParallelFragmentsOrdered() {
+        return parallelFragmentsOrdered;
+    }
+
+    /**
+     * Get the worker thread pool used for parallel fragment processing.
+     * <p/>
+     * Shared by all executions on this delivery config.  Lazily created.  Worker threads are
+     * daemon threads.
+     * @return The parallel fragment thread pool.
+     */
+    public synchronized ExecutorService getParallelFragmentThreadPool() {
+        if(parallelFragmentThreadPool == null) {
+            parallelFragmentThreadPool = Executors.newFixedThreadPool(parallelFragmentThreads, new ThreadFactory() {
+                private AtomicInteger threadCount = new AtomicInteger();
+
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "smooks-fragment-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return parallelFragmentThreadPool;
+    }
+
+    /**
+     * Shut down the parallel fragment thread pool.
+     * <p/>
+     * Called when the owning {@link org.milyn.Smooks} instance is {@link org.milyn.Smooks#close() closed}.
+     */
+    @Uninitialize
+    public synchronized void shutdownParallelFragmentThreadPool() {
+        if(parallelFragmentThreadPool != null) {
+            parallelFragmentThreadPool.shutdown();
+        }
+    }
+
+    /**
+     * Get the interned element name cache for this delivery config.
+     * @return The element name cache.
+     */
+	public SAXElementNameCache getElementNameCache() {
+		return elementNameCache;
+	}
 }
\ No newline at end of file
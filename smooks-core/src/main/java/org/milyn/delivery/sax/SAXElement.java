@@ -60,6 +60,13 @@ import java.util.*;
  * you should annotate the new Visitor class with the {@link StreamResultWriter @StreamResultWriter}
  * annotation.
  *
+ * <h3 id="element-recycling">Element Recycling</h3>
+ * When the {@link org.milyn.delivery.Filter#RECYCLE_SAX_ELEMENTS} filter setting is turned on, the
+ * {@link SAXHandler} recycles SAXElement instances between sibling elements at the same depth
+ * in the document i.e. the SAXElement instance passed to a visitor is only valid until the
+ * visitAfter event for that element has completed.  Visitors that need to retain a reference to
+ * a SAXElement beyond that point must call {@link #detach()} on the element.
+ *
  * @author <a href="mailto:tom.fennelly@gmail.com">tom.fennelly@gmail.com</a>
  */
 public class SAXElement {
@@ -80,6 +87,7 @@ public class SAXElement {
     private Object l1Cache;
     private SAXVisitor l1CacheOwner;
     private Map<SAXVisitor, Object> l2Caches;
+    private boolean detached = false;
 
     /**
      * Public constructor.
@@ -162,6 +170,63 @@ public class SAXElement {
         return attributesCopy;
     }
 
+    /**
+     * Reset this element instance for reuse on a new element event.
+     * <p/>
+     * The attributes are copied into the existing {@link AttributesImpl} instance,
+     * reusing its storage.
+     *
+     * @param name The element name.
+     * @param attributes The element attributes.
+     * @param parent The parent element.
+     */
+    void reset(QName name, Attributes attributes, SAXElement parent) {
+        this.name = name;
+        this.parent = parent;
+
+        int attributeCount = attributes.getLength();
+        this.attributes.clear();
+        for(int i = 0; i < attributeCount; i++) {
+            this.attributes.addAttribute(attributes.getURI(i), attributes.getLocalName(i), attributes.getQName(i), attributes.getType(i), attributes.getValue(i));
+        }
+
+        writer = null;
+        text = null;
+        accumulatedText = null;
+        l1Cache = null;
+        l1CacheOwner = null;
+        l2Caches = null;
+    }
+
+    /**
+     * Detach this element (and its ancestors) from {@link #element-recycling element recycling}.
+     * <p/>
+     * Visitors that need to retain a reference to a {@link SAXElement} beyond the visitAfter event of the
+     * element must call this method when element recycling is turned on.  The element instance is then never
+     * reused by the {@link SAXHandler} for another element.  Has no effect when element recycling is not
+     * turned on.
+     *
+     * @return This element instance.
+     */
+    public SAXElement detach() {
+        SAXElement element = this;
+
+        while(element != null && !element.detached) {
+            element.detached = true;
+            element = element.parent;
+        }
+
+        return this;
+    }
+
+    /**
+     * Is this element detached from {@link #element-recycling element recycling}.
+     * @return True if the element is detached, otherwise false.
+     */
+    public boolean isDetached() {
+        return detached;
+    }
+
     /**
      * Turn on {@link SAXText text} accumulation for this {@link SAXElement}.
      * <p/>
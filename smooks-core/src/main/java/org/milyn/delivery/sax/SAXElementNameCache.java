@@ -0,0 +1,90 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.sax;
+
+import javax.xml.namespace.QName;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interned element {@link QName} cache.
+ * <p/>
+ * Shared by all executions on a {@link SAXContentDeliveryConfig}, so as to avoid
+ * creating a new {@link QName} instance for every element event.  The cache is bounded, so
+ * documents with an unbounded set of element names don't cause it to grow indefinitely.
+ */
+public class SAXElementNameCache {
+
+    private static final int MAX_CACHED_NAMES = 4096;
+
+    private final ConcurrentMap<String, Entry> names = new ConcurrentHashMap<String, Entry>();
+
+    /**
+     * Get the {@link QName} for the supplied SAX element name parts.
+     * <p/>
+     * Returns the same {@link QName} as {@link SAXUtil#toQName(String, String, String)}.
+     *
+     * @param namespaceURI The element namespace.
+     * @param localName The element local name.
+     * @param qName The element qualified name.
+     * @return The element {@link QName}.
+     */
+    public QName toQName(String namespaceURI, String localName, String qName) {
+        String key = (qName != null && qName.length() != 0 ? qName : localName);
+
+        if(key == null) {
+            return SAXUtil.toQName(namespaceURI, localName, qName);
+        }
+
+        Entry entry = names.get(key);
+        if(entry != null && entry.matches(namespaceURI, localName, qName)) {
+            return entry.name;
+        }
+
+        QName name = SAXUtil.toQName(namespaceURI, localName, qName);
+        if(entry == null && names.size() < MAX_CACHED_NAMES) {
+            names.putIfAbsent(key, new Entry(namespaceURI, localName, qName, name));
+        }
+
+        return name;
+    }
+
+    private static class Entry {
+
+        private final String namespaceURI;
+        private final String localName;
+        private final String qName;
+        private final QName name;
+
+        private Entry(String namespaceURI, String localName, String qName, QName name) {
+            this.namespaceURI = namespaceURI;
+            this.localName = localName;
+            this.qName = qName;
+            this.name = name;
+        }
+
+        private boolean matches(String namespaceURI, String localName, String qName) {
+            return equals(this.namespaceURI, namespaceURI) && equals(this.localName, localName) && equals(this.qName, qName);
+        }
+
+        private static boolean equals(String a, String b) {
+            if(a == b) {
+                return true;
+            }
+            return (a != null && a.equals(b));
+        }
+    }
+}
@@ -15,6 +15,7 @@
 */
 package org.milyn.delivery.sax;
 
+import org.milyn.delivery.ContentHandler;
 import org.milyn.delivery.ContentHandlerConfigMap;
 import org.milyn.delivery.VisitLifecycleCleanable;
 import org.milyn.delivery.sax.annotation.StreamResultWriter;
@@ -40,6 +41,10 @@ public class SAXElementVisitorMap {
     private List<ContentHandlerConfigMap<VisitLifecycleCleanable>> visitCleanables;
     private boolean accumulateText = false;
     private SAXVisitor acquireWriterFor = null;
+    private int[] visitBeforeSelectorIndexes;
+    private int[] childVisitorSelectorIndexes;
+    private int[] visitAfterSelectorIndexes;
+    private int[] visitCleanableSelectorIndexes;
 
     public List<ContentHandlerConfigMap<SAXVisitBefore>> getVisitBefores() {
         return visitBefores;
@@ -124,6 +129,51 @@ public class SAXElementVisitorMap {
     	}
     }
 
+    /**
+     * Initialize the {@link SAXSelectorAutomaton} selector indexes for the visitor lists on this map.
+     * <p/>
+     * Must be called after all visitors have been added to the map.  Each selector index array runs
+     * in parallel with the corresponding visitor list, with an index of -1 for visitors whose selectors
+     * are not compiled into the automaton.
+     *
+     * @param automaton The compiled selector automaton.
+     */
+    public void initSelectorIndexes(SAXSelectorAutomaton automaton) {
+        visitBeforeSelectorIndexes = getSelectorIndexes(visitBefores, automaton);
+        childVisitorSelectorIndexes = getSelectorIndexes(childVisitors, automaton);
+        visitAfterSelectorIndexes = getSelectorIndexes(visitAfters, automaton);
+        visitCleanableSelectorIndexes = getSelectorIndexes(visitCleanables, automaton);
+    }
+
+    public int[] getVisitBeforeSelectorIndexes() {
+        return visitBeforeSelectorIndexes;
+    }
+
+    public int[] getChildVisitorSelectorIndexes() {
+        return childVisitorSelectorIndexes;
+    }
+
+    public int[] getVisitAfterSelectorIndexes() {
+        return visitAfterSelectorIndexes;
+    }
+
+    public int[] getVisitCleanableSelectorIndexes() {
+        return visitCleanableSelectorIndexes;
+    }
+
+    private <T extends ContentHandler> int[] getSelectorIndexes(List<ContentHandlerConfigMap<T>> handlerMaps, SAXSelectorAutomaton automaton) {
+        if(handlerMaps == null) {
+            return null;
+        }
+
+        int[] indexes = new int[handlerMaps.size()];
+        for(int i = 0; i < indexes.length; i++) {
+            indexes[i] = automaton.getSelectorIndex(handlerMaps.get(i).getResourceConfig());
+        }
+
+        return indexes;
+    }
+
     public SAXElementVisitorMap merge(SAXElementVisitorMap map) {
     	if(map == null) {
     		// No need to merge...
@@ -0,0 +1,440 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.sax;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.milyn.SmooksException;
+import org.milyn.cdr.SmooksResourceConfiguration;
+import org.milyn.container.ExecutionContext;
+import org.milyn.container.standalone.StandaloneExecutionContext;
+import org.milyn.delivery.Filter;
+import org.milyn.delivery.replay.EndElementEvent;
+import org.milyn.delivery.replay.SAXEventRecording;
+import org.milyn.delivery.replay.StartElementEvent;
+import org.milyn.delivery.sax.terminate.TerminateException;
+import org.milyn.event.profile.VisitProfiler;
+import org.milyn.io.NullWriter;
+import org.milyn.javabean.context.BeanContext;
+import org.milyn.javabean.lifecycle.BeanContextLifecycleObserver;
+import org.milyn.namespace.NamespaceDeclarationStack;
+import org.milyn.xml.NamespaceMappings;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel fragment executor.
+ * <p/>
+ * Cuts the SAX event stream of the main execution at the repeating fragments targeted by the
+ * {@link Filter#PARALLEL_FRAGMENTS_SELECTOR parallel fragment selector}.  The events of each fragment
+ * are recorded and replayed into a new {@link ExecutionContext} on the
+ * {@link SAXContentDeliveryConfig#getParallelFragmentThreadPool() worker thread pool}.  The fragment ancestors
+ * are replayed ahead of the fragment as context elements, so contextual selectors still match, but the
+ * visitors targeted at the ancestors are not applied on the worker.
+ * <p/>
+ * Each fragment execution has its own {@link BeanContext} and its own execution lifecycle (initialize/cleanup).
+ * The fragment beans are not merged into the main execution (or its {@link org.milyn.payload.JavaResult}).
+ * The fragment execution context starts with a copy of the main execution context attributes.
+ * The serialized fragment output (if any) is delivered to the main result writer, either in document order,
+ * or as soon as the fragment has been processed.
+ */
+class SAXFragmentExecutor {
+
+    private static Log logger = LogFactory.getLog(SAXFragmentExecutor.class);
+
+    private ExecutionContext executionContext;
+    private SAXContentDeliveryConfig deliveryConfig;
+    private SmooksResourceConfiguration fragmentConfig;
+    private boolean ordered;
+    private boolean serializeFragments;
+    private Writer resultWriter;
+    private int maxFragmentsInFlight;
+
+    /**
+     * Open elements outside the fragments i.e. the context of the next fragment.
+     */
+    private List<SAXElement> contextPath = new ArrayList<SAXElement>();
+    private SAXEventRecording recording;
+    private int recordingDepth;
+
+    private int fragmentsInFlight = 0;
+    /**
+     * Ordered result delivery queue.  Contains the fragment results and the output written on the
+     * main execution in between the fragments.
+     */
+    private LinkedList<OrderedResult> orderedResults = new LinkedList<OrderedResult>();
+    private CompletionService<String> completionService;
+    private List<Future<String>> unorderedResults = new ArrayList<Future<String>>();
+
+    SAXFragmentExecutor(ExecutionContext executionContext, Writer resultWriter, boolean serializeFragments) {
+        this.executionContext = executionContext;
+        this.deliveryConfig = (SAXContentDeliveryConfig) executionContext.getDeliveryConfig();
+        this.fragmentConfig = deliveryConfig.getParallelFragmentConfig();
+        this.ordered = deliveryConfig.isParallelFragmentsOrdered();
+        this.serializeFragments = (serializeFragments && resultWriter != null);
+        this.resultWriter = resultWriter;
+        this.maxFragmentsInFlight = deliveryConfig.getParallelFragmentThreads() * 4;
+
+        if(!ordered) {
+            completionService = new ExecutorCompletionService<String>(deliveryConfig.getParallelFragmentThreadPool());
+        }
+    }
+
+    /**
+     * Get the writer to be used by the main execution.
+     * @return The main execution writer.
+     */
+    Writer getWriter() {
+        if(ordered && serializeFragments) {
+            return new OrderedResultWriter();
+        }
+        return resultWriter;
+    }
+
+    /**
+     * Is the executor currently recording a fragment.
+     * @return True if a fragment is being recorded, otherwise false.
+     */
+    boolean isRecording() {
+        return (recording != null);
+    }
+
+    /**
+     * Process the start element event.
+     * @return True if the event is part of a fragment, otherwise false.
+     */
+    boolean startElement(StartElementEvent startEvent, QName elementName) {
+        if(recording != null) {
+            recording.startElement(startEvent.uri, startEvent.localName, startEvent.qName, startEvent.atts);
+            recordingDepth++;
+            return true;
+        }
+
+        SAXElement parent = (contextPath.isEmpty() ? null : contextPath.get(contextPath.size() - 1));
+        SAXElement element = new SAXElement(elementName, startEvent.atts, parent);
+
+        // The root element is never a fragment...
+        if(parent != null && fragmentConfig.getSelectorStep().isTargetedAtElement(elementName) && fragmentConfig.isTargetedAtElement(element, executionContext)) {
+            recording = new SAXEventRecording();
+            recording.startElement(startEvent.uri, startEvent.localName, startEvent.qName, startEvent.atts);
+            recordingDepth = 1;
+            return true;
+        }
+
+        contextPath.add(element);
+        return false;
+    }
+
+    /**
+     * Process the end element event.
+     * @return True if the event is part of a fragment, otherwise false.
+     */
+    boolean endElement(EndElementEvent endEvent) {
+        if(recording != null) {
+            recording.endElement(endEvent.uri, endEvent.localName, endEvent.qName);
+            recordingDepth--;
+            if(recordingDepth == 0) {
+                submit(new FragmentTask(contextPath.toArray(new SAXElement[contextPath.size()]), recording, new HashMap<Object, Object>(executionContext.getAttributes())));
+                recording = null;
+            }
+            return true;
+        }
+
+        contextPath.remove(contextPath.size() - 1);
+        return false;
+    }
+
+    /**
+     * Process a characters event.
+     * <p/>
+     * Comments are dropped from the fragment recording and CDATA is recorded as plain text.
+     * @return True if the event is part of a fragment, otherwise false.
+     */
+    boolean characters(char[] ch, int start, int length, TextType textType) {
+        if(recording != null) {
+            if(textType != TextType.COMMENT) {
+                recording.characters(ch, start, length);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Wait for all the submitted fragments to be processed, delivering their results.
+     */
+    void finish() {
+        if(ordered) {
+            while(!orderedResults.isEmpty()) {
+                deliverOrderedResult(orderedResults.removeFirst());
+            }
+        } else {
+            while(fragmentsInFlight > 0) {
+                deliverUnorderedResult(takeUnorderedResult());
+            }
+        }
+    }
+
+    /**
+     * Cancel all fragments that have not yet been processed.
+     */
+    void cancel() {
+        for(OrderedResult result : orderedResults) {
+            if(result.fragment != null) {
+                result.fragment.cancel(true);
+            }
+        }
+        for(Future<String> result : unorderedResults) {
+            result.cancel(true);
+        }
+        orderedResults.clear();
+        unorderedResults.clear();
+        fragmentsInFlight = 0;
+    }
+
+    private void submit(FragmentTask task) {
+        if(ordered) {
+            orderedResults.add(new OrderedResult(deliveryConfig.getParallelFragmentThreadPool().submit(task)));
+            fragmentsInFlight++;
+
+            // Deliver whatever is already available at the head of the queue, blocking
+            // if there are too many fragments in flight...
+            while(!orderedResults.isEmpty()) {
+                OrderedResult head = orderedResults.getFirst();
+                if(head.fragment != null && !head.fragment.isDone() && fragmentsInFlight <= maxFragmentsInFlight) {
+                    break;
+                }
+                deliverOrderedResult(orderedResults.removeFirst());
+            }
+        } else {
+            unorderedResults.add(completionService.submit(task));
+            fragmentsInFlight++;
+
+            Future<String> result;
+            while((result = completionService.poll()) != null) {
+                deliverUnorderedResult(result);
+            }
+            while(fragmentsInFlight > maxFragmentsInFlight) {
+                deliverUnorderedResult(takeUnorderedResult());
+            }
+        }
+    }
+
+    private void deliverOrderedResult(OrderedResult result) {
+        if(result.fragment != null) {
+            fragmentsInFlight--;
+            writeResult(getResult(result.fragment));
+        } else {
+            writeResult(result.output.toString());
+        }
+    }
+
+    private Future<String> takeUnorderedResult() {
+        try {
+            return completionService.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SmooksException("Interrupted while waiting on parallel fragment processing.", e);
+        }
+    }
+
+    private void deliverUnorderedResult(Future<String> result) {
+        unorderedResults.remove(result);
+        fragmentsInFlight--;
+        writeResult(getResult(result));
+    }
+
+    private String getResult(Future<String> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SmooksException("Interrupted while waiting on parallel fragment processing.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if(cause instanceof SmooksException) {
+                throw (SmooksException) cause;
+            }
+            throw new SmooksException("Parallel fragment processing failed.", cause);
+        }
+    }
+
+    private void writeResult(String result) {
+        if(result == null || result.length() == 0) {
+            return;
+        }
+        try {
+            resultWriter.write(result);
+        } catch (IOException e) {
+            throw new SmooksException("Error writing parallel fragment result.", e);
+        }
+    }
+
+    /**
+     * Main execution writer for ordered result delivery.  Output is buffered while there are
+     * fragments ahead of it in the ordered result queue.
+     */
+    private class OrderedResultWriter extends Writer {
+
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            if(orderedResults.isEmpty()) {
+                resultWriter.write(cbuf, off, len);
+            } else {
+                OrderedResult tail = orderedResults.getLast();
+
+                if(tail.output == null) {
+                    tail = new OrderedResult(new StringBuilder());
+                    orderedResults.add(tail);
+                }
+                tail.output.append(cbuf, off, len);
+            }
+        }
+
+        public void flush() throws IOException {
+            if(orderedResults.isEmpty()) {
+                resultWriter.flush();
+            }
+        }
+
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /**
+     * Ordered result delivery queue entry.  Either a fragment result, or output written on the main execution.
+     */
+    private static class OrderedResult {
+
+        private final Future<String> fragment;
+        private final StringBuilder output;
+
+        private OrderedResult(Future<String> fragment) {
+            this.fragment = fragment;
+            this.output = null;
+        }
+
+        private OrderedResult(StringBuilder output) {
+            this.fragment = null;
+            this.output = output;
+        }
+    }
+
+    /**
+     * Fragment execution task.
+     */
+    private class FragmentTask implements Callable<String> {
+
+        private SAXElement[] context;
+        private SAXEventRecording fragment;
+        private Map<Object, Object> attributes;
+        private ClassLoader contextClassLoader;
+
+        private FragmentTask(SAXElement[] context, SAXEventRecording fragment, Map<Object, Object> attributes) {
+            this.context = context;
+            this.fragment = fragment;
+            this.attributes = attributes;
+            this.contextClassLoader = Thread.currentThread().getContextClassLoader();
+        }
+
+        public String call() throws Exception {
+            ClassLoader workerClassLoader = Thread.currentThread().getContextClassLoader();
+
+            Thread.currentThread().setContextClassLoader(contextClassLoader);
+            try {
+                return execute();
+            } finally {
+                Thread.currentThread().setContextClassLoader(workerClassLoader);
+            }
+        }
+
+        private String execute() throws Exception {
+            ExecutionContext fragmentExecutionContext = new StandaloneExecutionContext(executionContext.getTargetProfiles().getBaseProfile(), executionContext.getContext(), executionContext.getContentEncoding(), null);
+            Writer writer = (serializeFragments ? new StringWriter() : new NullWriter());
+
+            if(executionContext.getEventListener() instanceof VisitProfiler) {
+                fragmentExecutionContext.setEventListener(executionContext.getEventListener());
+            }
+            for(Map.Entry<Object, Object> attribute : attributes.entrySet()) {
+                fragmentExecutionContext.setAttribute(attribute.getKey(), attribute.getValue());
+            }
+
+            Filter.setCurrentExecutionContext(fragmentExecutionContext);
+            try {
+                NamespaceMappings.setNamespaceDeclarationStack(new NamespaceDeclarationStack(), fragmentExecutionContext);
+
+                BeanContext beanContext = fragmentExecutionContext.getBeanContext();
+                for(BeanContextLifecycleObserver observer : executionContext.getContext().getBeanContextLifecycleObservers()) {
+                    beanContext.addObserver(observer);
+                }
+
+                deliveryConfig.executeHandlerInit(fragmentExecutionContext);
+                try {
+                    SAXHandler handler = new SAXHandler(fragmentExecutionContext, writer, context.length);
+
+                    try {
+                        for(SAXElement contextElement : context) {
+                            QName name = contextElement.getName();
+                            handler.startElement(name.getNamespaceURI(), name.getLocalPart(), toQName(name), contextElement.getAttributes());
+                        }
+                        fragment.replay(handler);
+                        for(int i = context.length - 1; i >= 0; i--) {
+                            QName name = context[i].getName();
+                            handler.endElement(name.getNamespaceURI(), name.getLocalPart(), toQName(name));
+                        }
+                    } catch (TerminateException e) {
+                        if(logger.isDebugEnabled()) {
+                            logger.debug("Terminated filtering of parallel fragment.");
+                        }
+                    } finally {
+                        handler.detachHandler();
+                    }
+                } finally {
+                    deliveryConfig.executeHandlerCleanup(fragmentExecutionContext);
+                }
+            } finally {
+                Filter.removeCurrentExecutionContext();
+            }
+
+            if(writer instanceof StringWriter) {
+                return writer.toString();
+            }
+            return null;
+        }
+
+        private String toQName(QName name) {
+            String prefix = name.getPrefix();
+
+            if(prefix == null || prefix.length() == 0) {
+                return name.getLocalPart();
+            }
+            return prefix + ":" + name.getLocalPart();
+        }
+    }
+}
@@ -26,17 +26,21 @@ import org.milyn.delivery.replay.EndElementEvent;
 import org.milyn.delivery.replay.StartElementEvent;
 import org.milyn.delivery.sax.terminate.TerminateException;
 import org.milyn.event.ExecutionEventListener;
+import org.milyn.event.profile.VisitProfiler;
+import org.milyn.event.profile.VisitType;
 import org.milyn.event.report.AbstractReportGenerator;
 import org.milyn.event.types.ElementPresentEvent;
 import org.milyn.event.types.ElementVisitEvent;
 import org.milyn.event.types.ResourceTargetingEvent;
 import org.milyn.io.NullWriter;
 import org.milyn.xml.DocType;
+import org.milyn.xml.SubtreeSkippingXMLReader;
 import org.xml.sax.*;
 
 import javax.xml.namespace.QName;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -55,6 +59,17 @@ public class SAXHandler extends SmooksContentHandler {
     private SAXContentDeliveryConfig deliveryConfig;
     private Map<String, SAXElementVisitorMap> visitorConfigMap;
     private SAXElementVisitorMap globalVisitorConfig;
+    private SAXSelectorAutomaton selectorAutomaton;
+    private boolean trackSelectorState;
+    private SAXElementNameCache elementNameCache;
+    private boolean recycleElements;
+    private int elementDepth = 0;
+    private ElementProcessor[] processorPool;
+    private WriterManagedSAXElement[] elementPool;
+    private boolean skipUntargetedSubtrees;
+    private int skipDepth = 0;
+    private int contextElementDepth = 0;
+    private SAXFragmentExecutor fragmentExecutor;
     private boolean rewriteEntities = true;
     private boolean defaultSerializationOn;
     private boolean maintainElementStack;
@@ -63,8 +78,12 @@ public class SAXHandler extends SmooksContentHandler {
     private DefaultSAXElementSerializer defaultSerializer = new DefaultSAXElementSerializer();
     private static ContentHandlerConfigMap defaultSerializerMapping;
     private ExecutionEventListener eventListener;
+    private VisitProfiler profiler;
+    private int sampleInterval;
+    private int sampleCountdown;
     private DynamicSAXElementVisitorList dynamicVisitorList;
     private StringBuilder cdataNodeBuilder = new StringBuilder();
+    private static final int INITIAL_POOL_DEPTH = 16;
 
     static {
         // Configure the default handler mapping...
@@ -78,24 +97,46 @@ public class SAXHandler extends SmooksContentHandler {
     }
 
     public SAXHandler(ExecutionContext executionContext, Writer writer, SmooksContentHandler parentContentHandler) {
+        this(executionContext, writer, parentContentHandler, 0);
+    }
+
+    /**
+     * Parallel fragment handler constructor.
+     * <p/>
+     * The first <code>contextElementDepth</code> elements are context elements i.e. the ancestors of
+     * the fragment.  They are tracked for selector matching, but they are not visited or serialized.
+     *
+     * @param executionContext The fragment execution context.
+     * @param writer The fragment writer.
+     * @param contextElementDepth The number of context elements.
+     */
+    SAXHandler(ExecutionContext executionContext, Writer writer, int contextElementDepth) {
+        this(executionContext, writer, null, contextElementDepth);
+    }
+
+    private SAXHandler(ExecutionContext executionContext, Writer writer, SmooksContentHandler parentContentHandler, int contextElementDepth) {
         super(executionContext, parentContentHandler);
 
         this.execContext = executionContext;
         this.writer = writer;
         eventListener = executionContext.getEventListener();
+        if(eventListener instanceof VisitProfiler) {
+            // The profiler is not interested in the element events, so it doesn't need to turn off any of the
+            // optimizations that an event listener normally turns off...
+            profiler = (VisitProfiler) eventListener;
+            sampleInterval = profiler.getSampleInterval();
+            sampleCountdown = sampleInterval;
+            eventListener = null;
+        }
 
         deliveryConfig = ((SAXContentDeliveryConfig)executionContext.getDeliveryConfig());
         visitorConfigMap = deliveryConfig.getOptimizedVisitorConfig();
 
         SAXContentDeliveryConfig contentDeliveryConfig = (SAXContentDeliveryConfig) executionContext.getDeliveryConfig();
-        SAXElementVisitorMap starVisitorConfigs = visitorConfigMap.get("*");
-        SAXElementVisitorMap starStarVisitorConfigs = visitorConfigMap.get("**");
-
-        if(starVisitorConfigs != null) {
-            globalVisitorConfig = starVisitorConfigs.merge(starStarVisitorConfigs);
-        } else {
-            globalVisitorConfig = starStarVisitorConfigs;
-        }
+        globalVisitorConfig = contentDeliveryConfig.getGlobalVisitorConfig();
+        selectorAutomaton = contentDeliveryConfig.getSelectorAutomaton();
+        trackSelectorState = (selectorAutomaton.getSelectorCount() > 0);
+        elementNameCache = contentDeliveryConfig.getElementNameCache();
 
         rewriteEntities = contentDeliveryConfig.isRewriteEntities();
         defaultSerializer.setRewriteEntities(rewriteEntities);
@@ -110,17 +151,37 @@ public class SAXHandler extends SmooksContentHandler {
         reverseVisitOrderOnVisitAfter = contentDeliveryConfig.isReverseVisitOrderOnVisitAfter();
         if(!(executionContext.getEventListener() instanceof AbstractReportGenerator)) {
             terminateOnVisitorException = contentDeliveryConfig.isTerminateOnVisitorException();
+            recycleElements = contentDeliveryConfig.isRecycleElements();
         } else {
             terminateOnVisitorException = false;
+            // Report generators hold onto the elements, so we can't recycle them...
+            recycleElements = false;
+        }
+        if(recycleElements) {
+            processorPool = new ElementProcessor[INITIAL_POOL_DEPTH];
+            elementPool = new WriterManagedSAXElement[INITIAL_POOL_DEPTH];
         }
 
         dynamicVisitorList = DynamicSAXElementVisitorList.getList(executionContext);
         if(dynamicVisitorList == null) {
             dynamicVisitorList = new DynamicSAXElementVisitorList(executionContext);
         }
+
+        // Skipping untargeted subtrees would change the serialized output and the events seen by the listener...
+        skipUntargetedSubtrees = (contentDeliveryConfig.isSkipUntargetedSubtrees() && !defaultSerializationOn && eventListener == null);
+
+        this.contextElementDepth = contextElementDepth;
+        // Fragments are only cut from the top level handler. Nested handlers and fragment handlers run in-line...
+        if(contextElementDepth == 0 && parentContentHandler == null && eventListener == null && contentDeliveryConfig.getParallelFragmentConfig() != null) {
+            fragmentExecutor = new SAXFragmentExecutor(executionContext, writer, defaultSerializationOn);
+            this.writer = fragmentExecutor.getWriter();
+        }
     }
 
     public void cleanup() {
+        if(fragmentExecutor != null) {
+            fragmentExecutor.cancel();
+        }
     }
 
     public void startElement(StartElementEvent startEvent) throws SAXException {
@@ -130,8 +191,33 @@ public class SAXHandler extends SmooksContentHandler {
         QName elementQName;
         String elementName;
 
-        elementQName = SAXUtil.toQName(startEvent.uri, startEvent.localName, startEvent.qName);
+        if(skipDepth > 0) {
+            // Inside an untargeted subtree that the reader didn't skip...
+            skipDepth++;
+            return;
+        }
+
+        elementQName = elementNameCache.toQName(startEvent.uri, startEvent.localName, startEvent.qName);
+        if(fragmentExecutor != null) {
+            boolean inFragment = fragmentExecutor.isRecording();
+
+            if(fragmentExecutor.startElement(startEvent, elementQName)) {
+                // Recorded for processing on a fragment worker. Notify the parent of the fragment start
+                // so it can write its start tag ahead of the fragment output...
+                if(!inFragment && !currentProcessor.isNullProcessor) {
+                    onChildElement(new SAXElement(elementQName, startEvent.atts, currentProcessor.element));
+                }
+                return;
+            }
+        }
+
         elementName = elementQName.getLocalPart();
+        if(elementDepth < contextElementDepth) {
+            elementDepth++;
+            startContextElement(elementQName, startEvent.atts, isRoot);
+            return;
+        }
+        elementDepth++;
 
         if(isRoot) {
             elementVisitorConfig = deliveryConfig.getCombinedOptimizedConfig(new String[] {SmooksResourceConfiguration.DOCUMENT_FRAGMENT_SELECTOR, elementName});
@@ -143,11 +229,20 @@ public class SAXHandler extends SmooksContentHandler {
             elementVisitorConfig = globalVisitorConfig;
         }
 
+        SAXSelectorAutomaton.State contextState = null;
+        SAXSelectorAutomaton.State selectorState = null;
+        if(trackSelectorState) {
+            contextState = (isRoot ? selectorAutomaton.getInitialState() : currentProcessor.selectorState);
+            selectorState = contextState.next(elementQName);
+        }
+
         if(!maintainElementStack && elementVisitorConfig == null) {
-            ElementProcessor processor = new ElementProcessor();
+            ElementProcessor processor = newProcessor();
 
             processor.isNullProcessor = true;
             processor.parentProcessor = currentProcessor;
+            processor.contextState = contextState;
+            processor.selectorState = selectorState;
             currentProcessor = processor;
             // Register the "presence" of the element...
             if(eventListener != null) {
@@ -157,11 +252,13 @@ public class SAXHandler extends SmooksContentHandler {
             if(!isRoot) {
                 // Push the existing "current" processor onto the stack and create a new current
                 // based on this start event...
-                element = new WriterManagedSAXElement(elementQName, startEvent.atts, currentProcessor.element);
+                element = newElement(elementQName, startEvent.atts, currentProcessor.element);
                 element.setWriter(getWriter());
-                onChildElement(element);
+                if(!currentProcessor.isContextProcessor) {
+                    onChildElement(element);
+                }
             } else {
-                element = new WriterManagedSAXElement(elementQName, startEvent.atts, null);
+                element = newElement(elementQName, startEvent.atts, null);
                 element.setWriter(writer);
             }
 
@@ -170,13 +267,96 @@ public class SAXHandler extends SmooksContentHandler {
                 eventListener.onEvent(new ElementPresentEvent(element));
             }
 
-            visitBefore(element, elementVisitorConfig);
+            visitBefore(element, elementVisitorConfig, contextState, selectorState);
+        }
+
+        if(skipUntargetedSubtrees && elementVisitorConfig == null && isSubtreeUntargeted()) {
+            skipSubtree();
+        }
+    }
+
+    /**
+     * Start a parallel fragment context element.
+     * <p/>
+     * Context elements are part of the element stack and the selector state, but are not visited.
+     */
+    private void startContextElement(QName elementQName, Attributes attributes, boolean isRoot) {
+        ElementProcessor processor = newProcessor();
+        WriterManagedSAXElement element = newElement(elementQName, attributes, (isRoot ? null : currentProcessor.element));
+
+        element.setWriter(writer);
+        processor.isNullProcessor = false;
+        processor.isContextProcessor = true;
+        processor.parentProcessor = currentProcessor;
+        processor.element = element;
+        if(trackSelectorState) {
+            processor.contextState = (isRoot ? selectorAutomaton.getInitialState() : currentProcessor.selectorState);
+            processor.selectorState = processor.contextState.next(elementQName);
+        }
+        currentProcessor = processor;
+    }
+
+    /**
+     * Can the content of the current element contain a targeted element.
+     * <p/>
+     * Only called when {@link SAXContentDeliveryConfig#isSkipUntargetedSubtrees()} i.e. all selectors
+     * are rooted and compiled into the {@link SAXSelectorAutomaton}.
+     */
+    private boolean isSubtreeUntargeted() {
+        if(currentProcessor.selectorState != null && currentProcessor.selectorState.hasPartialMatches()) {
+            return false;
+        }
+        if(!dynamicVisitorList.getVisitBefores().isEmpty() || !dynamicVisitorList.getChildVisitors().isEmpty() || !dynamicVisitorList.getVisitAfters().isEmpty()) {
+            return false;
+        }
+
+        // A child visitor on the parent gets the element, so it could be interested in its content...
+        ElementProcessor parentProcessor = currentProcessor.parentProcessor;
+        if(!currentProcessor.isNullProcessor && parentProcessor != null && parentProcessor.elementVisitorConfig != null) {
+            List<ContentHandlerConfigMap<SAXVisitChildren>> parentChildVisitors = parentProcessor.elementVisitorConfig.getChildVisitors();
+            if(parentChildVisitors != null && !parentChildVisitors.isEmpty()) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void skipSubtree() {
+        skipDepth = 1;
+
+        // Ask the reader to skip over the element content, if it can...
+        XMLReader xmlReader = AbstractParser.getXMLReader(execContext);
+        if(xmlReader instanceof SubtreeSkippingXMLReader && xmlReader.getContentHandler() == this) {
+            ((SubtreeSkippingXMLReader) xmlReader).skipSubtree();
         }
     }
 
     public void endElement(EndElementEvent endEvent) throws SAXException {
         boolean flush = false;
 
+        if(skipDepth > 0) {
+            skipDepth--;
+            if(skipDepth > 0) {
+                return;
+            }
+        }
+
+        if(fragmentExecutor != null) {
+            if(fragmentExecutor.endElement(endEvent)) {
+                return;
+            }
+            if(currentProcessor.parentProcessor == null) {
+                // Deliver all outstanding fragments before ending the root element...
+                fragmentExecutor.finish();
+            }
+        }
+
+        if(currentProcessor.isContextProcessor) {
+            popProcessor();
+            return;
+        }
+
         // Apply the dynamic visitors...
         List<SAXVisitAfter> dynamicVisitAfters = dynamicVisitorList.getVisitAfters();
         if(!dynamicVisitAfters.isEmpty()) {
@@ -192,6 +372,7 @@ public class SAXHandler extends SmooksContentHandler {
 
         if(currentProcessor.elementVisitorConfig != null) {
             List<ContentHandlerConfigMap<SAXVisitAfter>> visitAfterMappings = currentProcessor.elementVisitorConfig.getVisitAfters();
+            int[] selectorIndexes = currentProcessor.elementVisitorConfig.getVisitAfterSelectorIndexes();
 
             if(visitAfterMappings != null) {
                 if(reverseVisitOrderOnVisitAfter) {
@@ -201,7 +382,7 @@ public class SAXHandler extends SmooksContentHandler {
 
                     for(int i = mappingCount - 1; i >= 0; i--) {
                         mapping = visitAfterMappings.get(i);
-                        visitAfter(mapping);
+                        visitAfter(mapping, getSelectorIndex(selectorIndexes, i));
                     }
                 } else {
                     int mappingCount = visitAfterMappings.size();
@@ -209,7 +390,7 @@ public class SAXHandler extends SmooksContentHandler {
 
                     for(int i = 0; i < mappingCount; i++) {
                         mapping = visitAfterMappings.get(i);
-                        visitAfter(mapping);
+                        visitAfter(mapping, getSelectorIndex(selectorIndexes, i));
                     }
                 }
             }
@@ -235,6 +416,7 @@ public class SAXHandler extends SmooksContentHandler {
         // Process cleanables after applying all the visit afters...
         if(currentProcessor.elementVisitorConfig != null) {
             List<ContentHandlerConfigMap<VisitLifecycleCleanable>> visitCleanables = currentProcessor.elementVisitorConfig.getVisitCleanables();
+            int[] selectorIndexes = currentProcessor.elementVisitorConfig.getVisitCleanableSelectorIndexes();
 
             if(visitCleanables != null) {
                 int mappingCount = visitCleanables.size();
@@ -243,7 +425,7 @@ public class SAXHandler extends SmooksContentHandler {
                 for(int i = 0; i < mappingCount; i++) {
                     mapping = visitCleanables.get(i);
                     final boolean targetedAtElement
-                            = mapping.getResourceConfig().isTargetedAtElement(currentProcessor.element, execContext);
+                            = isTargetedAtElement(mapping, getSelectorIndex(selectorIndexes, i), currentProcessor);
 
                     if (targetedAtElement) {
                         mapping.getContentHandler().executeVisitLifecycleCleanup(new Fragment(currentProcessor.element), execContext);
@@ -252,11 +434,60 @@ public class SAXHandler extends SmooksContentHandler {
             }
         }
 
+        popProcessor();
+    }
+
+    private void popProcessor() {
         ElementProcessor parentProcessor = currentProcessor.parentProcessor;
         currentProcessor.element = null;
         currentProcessor.elementVisitorConfig = null;
         currentProcessor.parentProcessor = null;
+        currentProcessor.isContextProcessor = false;
+        currentProcessor.contextState = null;
+        currentProcessor.selectorState = null;
         currentProcessor = parentProcessor;
+        elementDepth--;
+    }
+
+    private ElementProcessor newProcessor() {
+        if(!recycleElements) {
+            return new ElementProcessor();
+        }
+
+        int poolIndex = elementDepth - 1;
+        if(poolIndex >= processorPool.length) {
+            processorPool = Arrays.copyOf(processorPool, processorPool.length * 2);
+        }
+
+        ElementProcessor processor = processorPool[poolIndex];
+        if(processor == null) {
+            processor = new ElementProcessor();
+            processorPool[poolIndex] = processor;
+        }
+
+        return processor;
+    }
+
+    private WriterManagedSAXElement newElement(QName elementQName, Attributes attributes, SAXElement parent) {
+        if(!recycleElements) {
+            return new WriterManagedSAXElement(elementQName, attributes, parent);
+        }
+
+        int poolIndex = elementDepth - 1;
+        if(poolIndex >= elementPool.length) {
+            elementPool = Arrays.copyOf(elementPool, elementPool.length * 2);
+        }
+
+        WriterManagedSAXElement element = elementPool[poolIndex];
+        if(element == null || element.isDetached()) {
+            // Detached elements are owned by whoever detached them, so we need a new instance...
+            element = new WriterManagedSAXElement(elementQName, attributes, parent);
+            elementPool[poolIndex] = element;
+        } else {
+            element.recycle(elementQName, attributes, parent);
+        }
+
+        return element;
     }
 
     private Writer getWriter() {
@@ -275,19 +506,23 @@ public class SAXHandler extends SmooksContentHandler {
         return null;
     }
 
-    private void visitBefore(WriterManagedSAXElement element, SAXElementVisitorMap elementVisitorConfig) {
+    private void visitBefore(WriterManagedSAXElement element, SAXElementVisitorMap elementVisitorConfig, SAXSelectorAutomaton.State contextState, SAXSelectorAutomaton.State selectorState) {
 
         // Now create the new "current" processor...
-        ElementProcessor processor = new ElementProcessor();
+        ElementProcessor processor = newProcessor();
 
+        processor.isNullProcessor = false;
         processor.parentProcessor = currentProcessor;
         processor.element = element;
         processor.elementVisitorConfig = elementVisitorConfig;
+        processor.contextState = contextState;
+        processor.selectorState = selectorState;
 
         currentProcessor = processor;
         if(currentProcessor.elementVisitorConfig != null) {
             // And visit it with the targeted visitor...
             List<ContentHandlerConfigMap<SAXVisitBefore>> visitBeforeMappings = currentProcessor.elementVisitorConfig.getVisitBefores();
+            int[] selectorIndexes = currentProcessor.elementVisitorConfig.getVisitBeforeSelectorIndexes();
 
             if(elementVisitorConfig.accumulateText()) {
                 currentProcessor.element.accumulateText();
@@ -303,8 +538,12 @@ public class SAXHandler extends SmooksContentHandler {
                 for(int i = 0; i < mappingCount; i++) {
                     ContentHandlerConfigMap<SAXVisitBefore> mapping = visitBeforeMappings.get(i);
                     try {
-                        if(mapping.getResourceConfig().isTargetedAtElement(currentProcessor.element, execContext)) {
+                        if(isTargetedAtElement(mapping, getSelectorIndex(selectorIndexes, i), currentProcessor)) {
+                            long startTime = startVisit();
                             mapping.getContentHandler().visitBefore(currentProcessor.element, execContext);
+                            if(profiler != null) {
+                                endVisit(mapping, VisitType.VISIT_BEFORE, startTime);
+                            }
                             // Register the targeting event.  No need to register this event again on the visitAfter...
                             if(eventListener != null) {
                                 eventListener.onEvent(new ResourceTargetingEvent(element, mapping.getResourceConfig(), VisitSequence.BEFORE));
@@ -347,15 +586,20 @@ public class SAXHandler extends SmooksContentHandler {
     private void onChildElement(SAXElement childElement) {
         if(currentProcessor.elementVisitorConfig != null) {
             List<ContentHandlerConfigMap<SAXVisitChildren>> visitChildMappings = currentProcessor.elementVisitorConfig.getChildVisitors();
+            int[] selectorIndexes = currentProcessor.elementVisitorConfig.getChildVisitorSelectorIndexes();
 
             if(visitChildMappings != null) {
                 int mappingCount = visitChildMappings.size();
 
                 for(int i = 0; i < mappingCount; i++) {
                     ContentHandlerConfigMap<SAXVisitChildren> mapping = visitChildMappings.get(i);
-                    if(mapping.getResourceConfig().isTargetedAtElement(currentProcessor.element, execContext)) {
+                    if(isTargetedAtElement(mapping, getSelectorIndex(selectorIndexes, i), currentProcessor)) {
                         try {
+                            long startTime = startVisit();
                             mapping.getContentHandler().onChildElement(currentProcessor.element, childElement, execContext);
+                            if(profiler != null) {
+                                endVisit(mapping, VisitType.CHILD_ELEMENT, startTime);
+                            }
                         } catch(Throwable t) {
                             String errorMsg = "Error in '" + mapping.getContentHandler().getClass().getName() + "' while processing the onChildElement event.";
                             processVisitorException(currentProcessor.element, t, mapping, VisitSequence.AFTER, errorMsg);
@@ -387,11 +631,15 @@ public class SAXHandler extends SmooksContentHandler {
         }
     }
 
-    private void visitAfter(ContentHandlerConfigMap<SAXVisitAfter> afterMapping) {
+    private void visitAfter(ContentHandlerConfigMap<SAXVisitAfter> afterMapping, int selectorIndex) {
 
         try {
-            if(afterMapping.getResourceConfig().isTargetedAtElement(currentProcessor.element, execContext)) {
+            if(isTargetedAtElement(afterMapping, selectorIndex, currentProcessor)) {
+                long startTime = startVisit();
                 afterMapping.getContentHandler().visitAfter(currentProcessor.element, execContext);
+                if(profiler != null) {
+                    endVisit(afterMapping, VisitType.VISIT_AFTER, startTime);
+                }
                 if(eventListener != null) {
                     eventListener.onEvent(new ElementVisitEvent(currentProcessor.element, afterMapping, VisitSequence.AFTER));
                 }
@@ -402,8 +650,32 @@ public class SAXHandler extends SmooksContentHandler {
         }
     }
 
+    /**
+     * Start a visit.
+     * @return The visit start time, or -1 if the visit is not being timed by the {@link VisitProfiler}.
+     */
+    private long startVisit() {
+        if(profiler == null || --sampleCountdown > 0) {
+            return -1L;
+        }
+        sampleCountdown = sampleInterval;
+        return System.nanoTime();
+    }
+
+    private void endVisit(ContentHandlerConfigMap mapping, VisitType visitType, long startTime) {
+        if(startTime != -1L) {
+            profiler.onVisit(mapping, visitType, Math.max(0L, System.nanoTime() - startTime));
+        } else {
+            profiler.onVisit(mapping, visitType, -1L);
+        }
+    }
+
     private SAXText textWrapper = new SAXText();
     public void characters(char[] ch, int start, int length) throws SAXException {
+        if(skipDepth > 0) {
+            return;
+        }
+
         if(currentTextType != TextType.CDATA) {
             _characters(ch, start, length);
         } else {
@@ -413,6 +685,13 @@ public class SAXHandler extends SmooksContentHandler {
 
     private StringBuilder entityBuilder = new StringBuilder(10);
     private void _characters(char[] ch, int start, int length) {
+        if(fragmentExecutor != null && fragmentExecutor.characters(ch, start, length, currentTextType)) {
+            return;
+        }
+        if(currentProcessor != null && currentProcessor.isContextProcessor) {
+            // Context element text belongs to the main execution...
+            return;
+        }
 
         if(!rewriteEntities && currentTextType == TextType.ENTITY) {
             entityBuilder.setLength(0);
@@ -438,6 +717,7 @@ public class SAXHandler extends SmooksContentHandler {
             if(!currentProcessor.isNullProcessor) {
                 if(currentProcessor.elementVisitorConfig != null) {
                     List<ContentHandlerConfigMap<SAXVisitChildren>> visitChildMappings = currentProcessor.elementVisitorConfig.getChildVisitors();
+                    int[] selectorIndexes = currentProcessor.elementVisitorConfig.getChildVisitorSelectorIndexes();
 
                     if(visitChildMappings != null) {
                         int mappingCount = visitChildMappings.size();
@@ -445,8 +725,12 @@ public class SAXHandler extends SmooksContentHandler {
                         for(int i = 0; i < mappingCount; i++) {
                             ContentHandlerConfigMap<SAXVisitChildren> mapping = visitChildMappings.get(i);
                             try {
-                                if(mapping.getResourceConfig().isTargetedAtElement(currentProcessor.element, execContext)) {
+                                if(isTargetedAtElement(mapping, getSelectorIndex(selectorIndexes, i), currentProcessor)) {
+                                    long startTime = startVisit();
                                     mapping.getContentHandler().onChildText(currentProcessor.element, textWrapper, execContext);
+                                    if(profiler != null) {
+                                        endVisit(mapping, VisitType.CHILD_TEXT, startTime);
+                                    }
                                 }
                             } catch(Throwable t) {
                                 String errorMsg = "Error in '" + mapping.getContentHandler().getClass().getName() + "' while processing the onChildText event.";
@@ -480,6 +764,27 @@ public class SAXHandler extends SmooksContentHandler {
         }
     }
 
+    /**
+     * Is the visitor mapping targeted at the element on the supplied processor.
+     * <p/>
+     * Compiled contextual selectors are resolved from the processor's {@link SAXSelectorAutomaton} state,
+     * avoiding a walk up through the element ancestors.
+     */
+    private boolean isTargetedAtElement(ContentHandlerConfigMap<?> mapping, int selectorIndex, ElementProcessor processor) {
+        if(selectorIndex != -1 && processor.contextState != null) {
+            return mapping.getResourceConfig().isTargetedAtElement(processor.element, processor.contextState.isContextMatched(selectorIndex), execContext);
+        }
+
+        return mapping.getResourceConfig().isTargetedAtElement(processor.element, execContext);
+    }
+
+    private static int getSelectorIndex(int[] selectorIndexes, int mappingIndex) {
+        if(selectorIndexes == null || mappingIndex >= selectorIndexes.length) {
+            return -1;
+        }
+        return selectorIndexes[mappingIndex];
+    }
+
     private boolean applyDefaultSerialization() {
         if(currentProcessor.element == null || !defaultSerializationOn) {
             return false;
@@ -515,6 +820,11 @@ public class SAXHandler extends SmooksContentHandler {
     }
 
     public void endCDATA() throws SAXException {
+        if(skipDepth > 0) {
+            currentTextType = TextType.TEXT;
+            return;
+        }
+
         try {
             char[] chars = new char[cdataNodeBuilder.length()];
 
@@ -552,8 +862,11 @@ public class SAXHandler extends SmooksContentHandler {
     private static class ElementProcessor {
         private ElementProcessor parentProcessor;
         private boolean isNullProcessor = false;
+        private boolean isContextProcessor = false;
         private WriterManagedSAXElement element;
         public SAXElementVisitorMap elementVisitorConfig;
+        private SAXSelectorAutomaton.State contextState;
+        private SAXSelectorAutomaton.State selectorState;
     }
 
     private void processVisitorException(SAXElement element, Throwable error, ContentHandlerConfigMap configMapping, VisitSequence visitSequence, String errorMsg) throws SmooksException {
@@ -590,6 +903,11 @@ public class SAXHandler extends SmooksContentHandler {
             super(qName, attributes, parent);
         }
 
+        private void recycle(QName qName, Attributes attributes, SAXElement parent) {
+            reset(qName, attributes, parent);
+            writerOwner = null;
+        }
+
         public Writer getWriter(SAXVisitor visitor) throws SAXWriterAccessException {
             if(writerOwner == null) {
                 writerOwner = visitor;
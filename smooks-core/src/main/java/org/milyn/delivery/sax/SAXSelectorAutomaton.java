@@ -0,0 +1,333 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.sax;
+
+import org.milyn.cdr.SmooksResourceConfiguration;
+import org.milyn.cdr.xpath.SelectorStep;
+import org.milyn.cdr.xpath.evaluators.PassThruEvaluator;
+import org.milyn.cdr.xpath.evaluators.PredicatesEvaluator;
+import org.milyn.cdr.xpath.evaluators.XPathExpressionEvaluator;
+
+import javax.xml.namespace.QName;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Compiled contextual selector matching automaton.
+ * <p/>
+ * Compiles the {@link SelectorStep} arrays of all the contextual selectors (e.g. "order/order-item/price")
+ * configured on a {@link SAXContentDeliveryConfig} into a single matching automaton over the element stack.
+ * The {@link SAXHandler} carries the automaton {@link State} on each element stack frame, so resolving
+ * whether a contextual selector matches the current element context is a single array lookup, instead
+ * of a walk up through the {@link SAXElement} ancestors.
+ * <p/>
+ * Only selectors whose context steps (all steps other than the last) are simple element name or "*"
+ * steps, without predicates, are compiled.  Selectors using "**" or context step predicates are not
+ * compiled and continue to be evaluated through
+ * {@link SmooksResourceConfiguration#isTargetedAtElement(SAXElement, org.milyn.container.ExecutionContext)}.
+ * <p/>
+ * Instances are immutable once compiled and are shared by all executions of the owning delivery config.
+ * The automaton states are determinized lazily as element names are encountered and cached (thread-safe).
+ */
+public class SAXSelectorAutomaton {
+
+    /**
+     * Upper limit on the number of transitions cached per state.  Protects against
+     * unbounded cache growth on documents with an unbounded set of element names
+     * e.g. JSON documents.
+     */
+    private static final int MAX_CACHED_TRANSITIONS = 512;
+
+    private final SmooksResourceConfiguration[] selectors;
+    private final SelectorStep[][] selectorSteps;
+    /**
+     * Position id base, per selector.  Position (selector, step) has id posBase[selector] + step.
+     */
+    private final int[] posBase;
+    private final int[] posSelector;
+    private final int[] posStep;
+    private final Map<SmooksResourceConfiguration, Integer> selectorIndexes = new IdentityHashMap<SmooksResourceConfiguration, Integer>();
+    private final ConcurrentMap<PositionSet, State> states = new ConcurrentHashMap<PositionSet, State>();
+    private final State initialState;
+
+    /**
+     * Public constructor.
+     * @param resourceConfigs The resource configurations whose selectors are to be compiled.  Configurations
+     * whose selectors can't be compiled (see {@link #isCompilable(SmooksResourceConfiguration)}) are ignored.
+     */
+    public SAXSelectorAutomaton(List<SmooksResourceConfiguration> resourceConfigs) {
+        List<SmooksResourceConfiguration> compilable = new ArrayList<SmooksResourceConfiguration>();
+
+        for(SmooksResourceConfiguration resourceConfig : resourceConfigs) {
+            if(!selectorIndexes.containsKey(resourceConfig) && isCompilable(resourceConfig)) {
+                selectorIndexes.put(resourceConfig, compilable.size());
+                compilable.add(resourceConfig);
+            }
+        }
+
+        selectors = compilable.toArray(new SmooksResourceConfiguration[compilable.size()]);
+        selectorSteps = new SelectorStep[selectors.length][];
+        posBase = new int[selectors.length];
+
+        // We only need positions for the context steps i.e. not the last step...
+        int positionCount = 0;
+        for(int i = 0; i < selectors.length; i++) {
+            selectorSteps[i] = selectors[i].getSelectorSteps();
+            posBase[i] = positionCount;
+            positionCount += selectorSteps[i].length - 1;
+        }
+
+        posSelector = new int[positionCount];
+        posStep = new int[positionCount];
+        for(int i = 0; i < selectors.length; i++) {
+            for(int step = 0; step < selectorSteps[i].length - 1; step++) {
+                posSelector[posBase[i] + step] = i;
+                posStep[posBase[i] + step] = step;
+            }
+        }
+
+        // The initial state represents the document i.e. the context of the root element.  A rooted
+        // first step is "virtually" matched by the document itself, which is consistent with the
+        // SmooksResourceConfiguration.isTargetedAtElementContext implementation...
+        List<Integer> initialPositions = new ArrayList<Integer>();
+        for(int i = 0; i < selectors.length; i++) {
+            if(selectorSteps[i][0].isRooted() && selectorSteps[i].length > 2) {
+                initialPositions.add(posBase[i]);
+            }
+        }
+        initialState = new State(new PositionSet(toIntArray(initialPositions)), true);
+    }
+
+    /**
+     * Can the selector on the supplied resource configuration be compiled into the automaton.
+     * @param resourceConfig The resource configuration.
+     * @return True if the selector is contextual and can be compiled, otherwise false.
+     */
+    public static boolean isCompilable(SmooksResourceConfiguration resourceConfig) {
+        if(!resourceConfig.isSelectorContextual()) {
+            return false;
+        }
+
+        SelectorStep[] steps = resourceConfig.getSelectorSteps();
+        for(int i = 0; i < steps.length; i++) {
+            if(steps[i].isStarStar()) {
+                return false;
+            }
+            if(i < steps.length - 1 && !isPredicateFree(steps[i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isPredicateFree(SelectorStep step) {
+        XPathExpressionEvaluator evaluator = step.getPredicatesEvaluator();
+
+        if(evaluator == null || evaluator == PassThruEvaluator.INSTANCE) {
+            return true;
+        } else if(evaluator instanceof PredicatesEvaluator) {
+            return ((PredicatesEvaluator) evaluator).getEvaluators().isEmpty();
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the index of the supplied resource configuration's selector within this automaton.
+     * @param resourceConfig The resource configuration.
+     * @return The selector index, or -1 if the selector is not compiled into this automaton.
+     */
+    public int getSelectorIndex(SmooksResourceConfiguration resourceConfig) {
+        Integer index = selectorIndexes.get(resourceConfig);
+
+        if(index == null) {
+            return -1;
+        }
+        return index;
+    }
+
+    /**
+     * Get the number of selectors compiled into this automaton.
+     * @return The number of compiled selectors.
+     */
+    public int getSelectorCount() {
+        return selectors.length;
+    }
+
+    /**
+     * Get the initial automaton state i.e. the state of the document, which is the context of the root element.
+     * @return The initial automaton state.
+     */
+    public State getInitialState() {
+        return initialState;
+    }
+
+    private State toState(int[] positions) {
+        PositionSet positionSet = new PositionSet(positions);
+        State state = states.get(positionSet);
+
+        if(state == null) {
+            state = new State(positionSet, false);
+            State existing = states.putIfAbsent(positionSet, state);
+            if(existing != null) {
+                state = existing;
+            }
+        }
+
+        return state;
+    }
+
+    private static int[] toIntArray(List<Integer> list) {
+        int[] array = new int[list.size()];
+
+        for(int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+
+        return array;
+    }
+
+    /**
+     * Automaton state.
+     * <p/>
+     * Represents the set of partially matched selector context steps at an element on the
+     * element stack.
+     */
+    public final class State {
+
+        private final int[] positions;
+        private final boolean isDocument;
+        private final boolean[] contextMatches;
+        private final ConcurrentMap<QName, State> transitions = new ConcurrentHashMap<QName, State>();
+
+        private State(PositionSet positionSet, boolean isDocument) {
+            this.positions = positionSet.positions;
+            this.isDocument = isDocument;
+            this.contextMatches = new boolean[selectors.length];
+
+            // The document itself is never the context of a contextual selector...
+            if(!isDocument) {
+                for(int position : positions) {
+                    int selector = posSelector[position];
+                    if(posStep[position] == selectorSteps[selector].length - 2) {
+                        contextMatches[selector] = true;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Is the context of the specified selector matched by this state i.e. are all the selector steps,
+         * other than the last, matched by the element (and its ancestors) associated with this state.
+         * @param selectorIndex The selector index.  See {@link SAXSelectorAutomaton#getSelectorIndex(SmooksResourceConfiguration)}.
+         * @return True if the selector context is matched, otherwise false.
+         */
+        public boolean isContextMatched(int selectorIndex) {
+            return contextMatches[selectorIndex];
+        }
+
+        /**
+         * Are there partially matched selector contexts on this state.
+         * <p/>
+         * If the automaton only contains rooted selectors, a state without partial matches can't
+         * lead to a context match on any descendant element of the element associated with this state.
+         * @return True if there are partially matched selector contexts on this state, otherwise false.
+         */
+        public boolean hasPartialMatches() {
+            return (positions.length > 0);
+        }
+
+        /**
+         * Get the state for a child element of the element associated with this state.
+         * @param elementName The child element name.
+         * @return The child element state.
+         */
+        public State next(QName elementName) {
+            State next = transitions.get(elementName);
+
+            if(next == null) {
+                next = computeNext(elementName);
+                if(transitions.size() < MAX_CACHED_TRANSITIONS) {
+                    transitions.putIfAbsent(elementName, next);
+                }
+            }
+
+            return next;
+        }
+
+        private State computeNext(QName elementName) {
+            List<Integer> nextPositions = new ArrayList<Integer>();
+
+            // Advance the partially matched selectors...
+            for(int position : positions) {
+                int selector = posSelector[position];
+                int nextStep = posStep[position] + 1;
+
+                if(nextStep < selectorSteps[selector].length - 1 && selectorSteps[selector][nextStep].isTargetedAtElement(elementName)) {
+                    nextPositions.add(posBase[selector] + nextStep);
+                }
+            }
+
+            // Start matching selectors whose first step matches...
+            for(int selector = 0; selector < selectors.length; selector++) {
+                SelectorStep firstStep = selectorSteps[selector][0];
+
+                if(firstStep.isRooted() && !isDocument) {
+                    continue;
+                }
+                if(firstStep.isTargetedAtElement(elementName)) {
+                    nextPositions.add(posBase[selector]);
+                }
+            }
+
+            int[] positionArray = toIntArray(nextPositions);
+            Arrays.sort(positionArray);
+
+            return toState(positionArray);
+        }
+    }
+
+    private static class PositionSet {
+
+        private final int[] positions;
+        private final int hashCode;
+
+        private PositionSet(int[] positions) {
+            this.positions = positions;
+            this.hashCode = Arrays.hashCode(positions);
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+        public boolean equals(Object obj) {
+            if(obj == this) {
+                return true;
+            }
+            if(!(obj instanceof PositionSet)) {
+                return false;
+            }
+            return Arrays.equals(positions, ((PositionSet) obj).positions);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.event.profile;
+
+import org.milyn.SmooksException;
+import org.milyn.cdr.SmooksResourceConfiguration;
+import org.milyn.delivery.ContentHandlerConfigMap;
+import org.milyn.event.ExecutionEvent;
+import org.milyn.event.ExecutionEventListener;
+import org.milyn.event.types.FilterLifecycleEvent;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Formatter;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Low overhead visit profiler.
+ * <p/>
+ * Aggregates visit counts and timings per visitor, selector and {@link VisitType}, without capturing
+ * the events themselves (unlike the {@link org.milyn.event.report.AbstractReportGenerator report generators}), so it
+ * can be left running on a production system.
+ * <pre>
+ * VisitProfiler profiler = new VisitProfiler();
+ * profiler.registerMBean("org.milyn:type=VisitProfiler,name=orders");
+ *
+ * ExecutionContext executionContext = smooks.createExecutionContext();
+ * executionContext.setEventListener(profiler);
+ * smooks.filterSource(executionContext, source, result);
+ *
+ * System.out.println(profiler.dump());
+ * </pre>
+ * The same profiler instance can (and should) be set on the {@link org.milyn.container.ExecutionContext} of every
+ * message.  Visit counts are exact, but only every n<sup>th</sup> visit is timed (see {@link #setSampleInterval(int)}),
+ * keeping the {@link System#nanoTime()} overhead down.
+ * <p/>
+ * Only the SAX filter is profiled.  Unlike other {@link ExecutionEventListener} implementations, setting a profiler
+ * on the execution context does not turn off any of the SAX filter optimizations.
+ */
+public class VisitProfiler implements ExecutionEventListener, VisitProfilerMBean {
+
+    /**
+     * Default visit timing sample interval.
+     */
+    public static final int DEFAULT_SAMPLE_INTERVAL = 16;
+
+    private final ConcurrentMap<ContentHandlerConfigMap<?>, VisitStatistics[]> mappingStatistics = new ConcurrentHashMap<ContentHandlerConfigMap<?>, VisitStatistics[]>();
+    private final ConcurrentMap<String, VisitStatistics> statistics = new ConcurrentHashMap<String, VisitStatistics>();
+    private final StripedCounter messageCount = new StripedCounter();
+    private volatile int sampleInterval = DEFAULT_SAMPLE_INTERVAL;
+    private ObjectName objectName;
+
+    /**
+     * Process the {@link ExecutionEvent}.
+     * <p/>
+     * Only {@link FilterLifecycleEvent FilterLifecycleEvents} are of interest (to count messages).  Visits are
+     * reported through {@link #onVisit(ContentHandlerConfigMap, VisitType, long)}.
+     *
+     * @param event The {@link ExecutionEvent}.
+     */
+    public void onEvent(ExecutionEvent event) {
+        if(event instanceof FilterLifecycleEvent && ((FilterLifecycleEvent)event).getEventType() == FilterLifecycleEvent.EventType.FINISHED) {
+            messageCount.increment();
+        }
+    }
+
+    /**
+     * Record a visit.
+     * <p/>
+     * Called by the filter after each visit.
+     *
+     * @param mapping The visitor mapping.
+     * @param visitType The visit type.
+     * @param nanos The visit time, or -1 if the visit was not sampled.
+     */
+    public void onVisit(ContentHandlerConfigMap<?> mapping, VisitType visitType, long nanos) {
+        VisitStatistics[] visitStatistics = mappingStatistics.get(mapping);
+
+        if(visitStatistics == null) {
+            visitStatistics = new VisitStatistics[VisitType.values().length];
+            VisitStatistics[] existing = mappingStatistics.putIfAbsent(mapping, visitStatistics);
+            if(existing != null) {
+                visitStatistics = existing;
+            }
+        }
+
+        VisitStatistics visitTypeStatistics = visitStatistics[visitType.ordinal()];
+        if(visitTypeStatistics == null) {
+            // Mappings for the same visitor and selector (e.g. in different profiles) share the same statistics...
+            visitTypeStatistics = getStatistics(mapping, visitType);
+            visitStatistics[visitType.ordinal()] = visitTypeStatistics;
+        }
+
+        visitTypeStatistics.record(nanos);
+    }
+
+    private VisitStatistics getStatistics(ContentHandlerConfigMap<?> mapping, VisitType visitType) {
+        SmooksResourceConfiguration resourceConfig = mapping.getResourceConfig();
+        String visitor = mapping.getContentHandler().getClass().getName();
+        String selector = resourceConfig.getSelector();
+        String key = visitor + "|" + selector + "|" + visitType;
+        VisitStatistics visitStatistics = statistics.get(key);
+
+        if(visitStatistics == null) {
+            visitStatistics = new VisitStatistics(visitor, selector, visitType);
+            VisitStatistics existing = statistics.putIfAbsent(key, visitStatistics);
+            if(existing != null) {
+                visitStatistics = existing;
+            }
+        }
+
+        return visitStatistics;
+    }
+
+    /**
+     * Get the number of filtered messages.
+     * @return The number of filtered messages.
+     */
+    public long getMessageCount() {
+        return messageCount.get();
+    }
+
+    /**
+     * Get the visit timing sample interval.
+     * @return The sample interval.
+     */
+    public int getSampleInterval() {
+        return sampleInterval;
+    }
+
+    /**
+     * Set the visit timing sample interval.
+     * <p/>
+     * Every n<sup>th</sup> visit in a message is timed.  Set to 1 to time every visit.  Default is
+     * {@link #DEFAULT_SAMPLE_INTERVAL}.  Applies to messages filtered after the change.
+     *
+     * @param sampleInterval The sample interval.
+     */
+    public void setSampleInterval(int sampleInterval) {
+        if(sampleInterval < 1) {
+            throw new IllegalArgumentException("Invalid 'sampleInterval' arg value '" + sampleInterval + "'.  Must be greater than zero.");
+        }
+        this.sampleInterval = sampleInterval;
+    }
+
+    /**
+     * Get the visit statistics, ordered by {@link VisitStatistics#getEstimatedTotalNanos() estimated total time},
+     * highest first.
+     * @return The visit statistics.
+     */
+    public List<VisitStatistics> getStatistics() {
+        List<VisitStatistics> statisticsList = new ArrayList<VisitStatistics>(statistics.values());
+
+        Collections.sort(statisticsList, new Comparator<VisitStatistics>() {
+            public int compare(VisitStatistics s1, VisitStatistics s2) {
+                long t1 = s1.getEstimatedTotalNanos();
+                long t2 = s2.getEstimatedTotalNanos();
+                return (t1 < t2 ? 1 : (t1 == t2 ? 0 : -1));
+            }
+        });
+
+        return statisticsList;
+    }
+
+    /**
+     * Dump the profile as plain text.
+     * @return The profile.
+     */
+    public String dump() {
+        Formatter formatter = new Formatter();
+
+        formatter.format("Messages: %d, Sample Interval: %d%n", getMessageCount(), sampleInterval);
+        formatter.format("%-50s %-30s %-14s %12s %10s %10s %10s %10s %12s%n", "Visitor", "Selector", "Event", "Count", "Samples", "Mean(ns)", "p50(ns)", "p99(ns)", "Est.Tot(ms)");
+        for(VisitStatistics visitStatistics : getStatistics()) {
+            formatter.format("%-50s %-30s %-14s %12d %10d %10d %10d %10d %12d%n",
+                    visitStatistics.getVisitor(), visitStatistics.getSelector(), visitStatistics.getVisitType(),
+                    visitStatistics.getCount(), visitStatistics.getSampleCount(), visitStatistics.getMeanNanos(),
+                    visitStatistics.getPercentileNanos(50), visitStatistics.getPercentileNanos(99),
+                    visitStatistics.getEstimatedTotalNanos() / 1000000);
+        }
+
+        return formatter.toString();
+    }
+
+    /**
+     * Reset the profile.
+     */
+    public void reset() {
+        messageCount.reset();
+        for(VisitStatistics visitStatistics : statistics.values()) {
+            visitStatistics.reset();
+        }
+    }
+
+    /**
+     * Register this profiler with the platform {@link MBeanServer}.
+     * @param name The MBean {@link ObjectName}.
+     * @throws SmooksException Failed to register the MBean.
+     */
+    public synchronized void registerMBean(String name) throws SmooksException {
+        if(objectName != null) {
+            throw new SmooksException("VisitProfiler already registered as MBean '" + objectName + "'.");
+        }
+
+        try {
+            ObjectName newObjectName = new ObjectName(name);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newObjectName);
+            objectName = newObjectName;
+        } catch (JMException e) {
+            throw new SmooksException("Failed to register VisitProfiler MBean '" + name + "'.", e);
+        }
+    }
+
+    /**
+     * Unregister this profiler from the platform {@link MBeanServer}.
+     * @throws SmooksException Failed to unregister the MBean.
+     */
+    public synchronized void unregisterMBean() throws SmooksException {
+        if(objectName == null) {
+            return;
+        }
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            throw new SmooksException("Failed to unregister VisitProfiler MBean '" + objectName + "'.", e);
+        } finally {
+            objectName = null;
+        }
+    }
+}
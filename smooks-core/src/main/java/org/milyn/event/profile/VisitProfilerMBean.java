@@ -0,0 +1,51 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.event.profile;
+
+/**
+ * {@link VisitProfiler} management interface.
+ */
+public interface VisitProfilerMBean {
+
+    /**
+     * Get the number of filtered messages.
+     * @return The number of filtered messages.
+     */
+    public long getMessageCount();
+
+    /**
+     * Get the visit timing sample interval.
+     * @return The sample interval.
+     */
+    public int getSampleInterval();
+
+    /**
+     * Set the visit timing sample interval.
+     * @param sampleInterval The sample interval.
+     */
+    public void setSampleInterval(int sampleInterval);
+
+    /**
+     * Dump the profile as plain text.
+     * @return The profile.
+     */
+    public String dump();
+
+    /**
+     * Reset the profile.
+     */
+    public void reset();
+}
@@ -0,0 +1,153 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.event.profile;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Visit statistics for a visitor, selector and {@link VisitType}.
+ * <p/>
+ * The invocation count is exact.  Timings are only captured for sampled visits (see
+ * {@link VisitProfiler#setSampleInterval(int)}) and are recorded in a base 2 logarithmic nanosecond histogram, so
+ * percentiles are approximate (upper bound of the histogram bucket).
+ */
+public class VisitStatistics {
+
+    private static final int BUCKET_COUNT = 64;
+
+    private final String visitor;
+    private final String selector;
+    private final VisitType visitType;
+    private final StripedCounter count = new StripedCounter();
+    private final StripedCounter sampleCount = new StripedCounter();
+    private final StripedCounter sampleNanos = new StripedCounter();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKET_COUNT);
+
+    VisitStatistics(String visitor, String selector, VisitType visitType) {
+        this.visitor = visitor;
+        this.selector = selector;
+        this.visitType = visitType;
+    }
+
+    void record(long nanos) {
+        count.increment();
+        if(nanos >= 0) {
+            sampleCount.increment();
+            sampleNanos.add(nanos);
+            // Bucket i holds times in the range [2^(i-1), 2^i)...
+            histogram.incrementAndGet(BUCKET_COUNT - Long.numberOfLeadingZeros(nanos));
+        }
+    }
+
+    /**
+     * Get the visitor class name.
+     * @return The visitor class name.
+     */
+    public String getVisitor() {
+        return visitor;
+    }
+
+    /**
+     * Get the resource selector.
+     * @return The resource selector.
+     */
+    public String getSelector() {
+        return selector;
+    }
+
+    /**
+     * Get the visit type.
+     * @return The visit type.
+     */
+    public VisitType getVisitType() {
+        return visitType;
+    }
+
+    /**
+     * Get the number of visits.
+     * @return The number of visits.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Get the number of timed (sampled) visits.
+     * @return The number of timed visits.
+     */
+    public long getSampleCount() {
+        return sampleCount.get();
+    }
+
+    /**
+     * Get the mean visit time, in nanoseconds.
+     * @return The mean visit time of the sampled visits, or zero if no visits were sampled.
+     */
+    public long getMeanNanos() {
+        long samples = sampleCount.get();
+
+        if(samples == 0) {
+            return 0;
+        }
+        return sampleNanos.get() / samples;
+    }
+
+    /**
+     * Get the estimated total visit time (mean visit time multiplied by the visit count), in nanoseconds.
+     * @return The estimated total visit time.
+     */
+    public long getEstimatedTotalNanos() {
+        return getMeanNanos() * getCount();
+    }
+
+    /**
+     * Get an approximate visit time percentile, in nanoseconds.
+     * @param percentile The percentile (0 - 100).
+     * @return The upper bound of the histogram bucket containing the percentile, or zero if no visits were sampled.
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] buckets = new long[BUCKET_COUNT];
+        long total = 0;
+
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = histogram.get(i);
+            total += buckets[i];
+        }
+        if(total == 0) {
+            return 0;
+        }
+
+        long threshold = (long) Math.ceil(total * (percentile / 100.0));
+        long accumulated = 0;
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            accumulated += buckets[i];
+            if(accumulated >= threshold) {
+                return (1L << i) - 1;
+            }
+        }
+
+        return Long.MAX_VALUE;
+    }
+
+    void reset() {
+        count.reset();
+        sampleCount.reset();
+        sampleNanos.reset();
+        for(int i = 0; i < BUCKET_COUNT; i++) {
+            histogram.set(i, 0L);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.event.profile;
+
+/**
+ * Profiled visit event type.
+ */
+public enum VisitType {
+    /**
+     * {@link org.milyn.delivery.sax.SAXVisitBefore#visitBefore(org.milyn.delivery.sax.SAXElement, org.milyn.container.ExecutionContext) visitBefore}.
+     */
+    VISIT_BEFORE,
+    /**
+     * {@link org.milyn.delivery.sax.SAXVisitChildren#onChildText(org.milyn.delivery.sax.SAXElement, org.milyn.delivery.sax.SAXText, org.milyn.container.ExecutionContext) onChildText}.
+     */
+    CHILD_TEXT,
+    /**
+     * {@link org.milyn.delivery.sax.SAXVisitChildren#onChildElement(org.milyn.delivery.sax.SAXElement, org.milyn.delivery.sax.SAXElement, org.milyn.container.ExecutionContext) onChildElement}.
+     */
+    CHILD_ELEMENT,
+    /**
+     * {@link org.milyn.delivery.sax.SAXVisitAfter#visitAfter(org.milyn.delivery.sax.SAXElement, org.milyn.container.ExecutionContext) visitAfter}.
+     */
+    VISIT_AFTER
+}
@@ -42,7 +42,7 @@ public class StandaloneBeanContext implements BeanContext {
 
 	private final ExecutionContext executionContext;
 
-	private final Map<String, Object> beanMap;
+	private Map<String, Object> beanMap;
 
 	private final ArrayList<ContextEntry> entries;
 
@@ -343,9 +343,13 @@ public class StandaloneBeanContext implements BeanContext {
 				BeanId beanId = beanIdMap.get(beanMapEntry.getKey());
 
 				int index = beanId.getIndex();
-				if (entries.get(index) == null) {
+				ContextEntry contextEntry = entries.get(index);
+				if (contextEntry == null) {
 
 					entries.set(index, new ContextEntry(beanId, beanMapEntry));
+				} else if (!contextEntry.isBound()) {
+					// Entry reused from a previous filter operation.  See reset(Map)...
+					contextEntry.bind(beanMapEntry);
 				}
 			}
 		}
@@ -398,6 +402,32 @@ public class StandaloneBeanContext implements BeanContext {
         return new StandaloneBeanContext(executionContext, this);
     }
 
+	/**
+	 * Reset the bean context for reuse on a new filter operation, binding it to the supplied bean map.
+	 * <p/>
+	 * Removes all lifecycle observers and drops the bean map of the previous filter operation.  The
+	 * {@link ContextEntry} list is kept, with each entry rebound to the new bean map.
+	 *
+	 * @param beanMap The bean map of the new filter operation (see the constructor), or null to just
+	 *            release the current bean map.  The context must be rebound to a bean map before it is used again.
+	 */
+	public void reset(Map<String, Object> beanMap) {
+		lifecycleObservers.clear();
+		addObserversQueue.clear();
+		removeObserversQueue.clear();
+		notifyObserverEventQueue.clear();
+		for (ContextEntry entry : entries) {
+			if (entry != null) {
+				entry.unbind();
+			}
+		}
+
+		this.beanMap = beanMap;
+		if (beanMap != null) {
+			updateBeanMap();
+		}
+	}
+
     /**
 	 * Repository Entry
 	 * <p/>
@@ -413,7 +443,7 @@ public class StandaloneBeanContext implements BeanContext {
 
 		private final BeanId beanId;
 
-		private final Entry<String, Object> entry;
+		private Entry<String, Object> entry;
 
 		private final List<Integer> lifecycleAssociation = new ArrayList<Integer>();
 
@@ -433,6 +463,21 @@ public class StandaloneBeanContext implements BeanContext {
 			return entry.getValue();
 		}
 
+		private boolean isBound() {
+			return entry != null;
+		}
+
+		private void bind(Entry<String, Object> entry) {
+			this.entry = entry;
+		}
+
+		private void unbind() {
+			entry = null;
+			lifecycleAssociation.clear();
+			cleaning = false;
+			beanInContext = true;
+		}
+
 		public void setValue(Object value) {
 			if (value == null) {
 				value = null;
@@ -39,6 +39,20 @@ public class StandaloneBeanContextFactory  {
 		return beanContext;
 	}
 
+	/**
+	 * Reset a {@link StandaloneBeanContext} for reuse on a new filter operation on the supplied
+	 * {@link ExecutionContext}, binding it to the bean map of that filter operation.
+	 *
+	 * @param beanContext The bean context being reused.
+	 * @param executionContext The {@link ExecutionContext} of the new filter operation.
+	 * @see StandaloneBeanContext#reset(Map)
+	 */
+	public static void reset(StandaloneBeanContext beanContext, ExecutionContext executionContext) {
+		BeanIdStore beanIdStore = executionContext.getContext().getBeanIdStore();
+
+		beanContext.reset(createBeanMap(executionContext, beanIdStore));
+	}
+
 
 	/**
 	 * Returns the BeanMap which must be used by the {@link BeanContext}. If
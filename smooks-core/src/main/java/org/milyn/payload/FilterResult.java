@@ -16,6 +16,7 @@
 package org.milyn.payload;
 
 import org.milyn.container.ExecutionContext;
+import org.milyn.container.ExecutionContextSlot;
 
 import javax.xml.transform.Result;
 
@@ -26,20 +27,20 @@ import javax.xml.transform.Result;
  */
 public abstract class FilterResult implements Result {
 
+    /**
+     * @deprecated The results are held in an {@link ExecutionContextSlot}.  Use {@link #getResults(ExecutionContext)}.
+     */
     public static final String CONTEXT_KEY = FilterResult.class.getName() + "#CONTEXT_KEY";
+    private static final ExecutionContextSlot<Result[]> RESULTS = ExecutionContextSlot.register(CONTEXT_KEY);
 
     private String systemId;
 
     public static void setResults(ExecutionContext executionContext, Result... results) {
-        if(results != null) {
-            executionContext.setAttribute(CONTEXT_KEY, results);
-        } else {
-            executionContext.removeAttribute(CONTEXT_KEY);
-        }
+        RESULTS.set(executionContext, results);
     }
 
     public static Result[] getResults(ExecutionContext executionContext) {
-        return (Result[]) executionContext.getAttribute(CONTEXT_KEY);
+        return RESULTS.get(executionContext);
     }
 
     public static Result getResult(ExecutionContext executionContext, Class<? extends Result> resultType) {
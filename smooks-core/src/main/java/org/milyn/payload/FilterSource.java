@@ -16,6 +16,7 @@
 package org.milyn.payload;
 
 import org.milyn.container.ExecutionContext;
+import org.milyn.container.ExecutionContextSlot;
 
 import javax.xml.transform.Source;
 
@@ -26,20 +27,20 @@ import javax.xml.transform.Source;
  */
 public abstract class FilterSource implements Source {
 
+    /**
+     * @deprecated The source is held in an {@link ExecutionContextSlot}.  Use {@link #getSource(ExecutionContext)}.
+     */
     public static final String CONTEXT_KEY = FilterSource.class.getName() + "#CONTEXT_KEY";
+    private static final ExecutionContextSlot<Source> SOURCE = ExecutionContextSlot.register(CONTEXT_KEY);
 
     private String systemId;
 
     public static Source getSource(ExecutionContext executionContext) {
-        return (Source) executionContext.getAttribute(CONTEXT_KEY);
+        return SOURCE.get(executionContext);
     }
 
     public static void setSource(ExecutionContext executionContext, Source source) {
-        if(source != null) {
-            executionContext.setAttribute(CONTEXT_KEY, source);
-        } else {
-            executionContext.removeAttribute(CONTEXT_KEY);
-        }
+        SOURCE.set(executionContext, source);
     }
 
     public void setSystemId(String systemId) {
@@ -12,8 +12,6 @@ import java.util.regex.Pattern;
 
 import org.apache.commons.lang.StringUtils;
 import org.milyn.container.ExecutionContext;
-import org.milyn.payload.FilterResult;
-import org.milyn.payload.FilterSource;
 
 /**
  * Static utility class for generating JSON like multi line Strings
@@ -43,14 +41,6 @@ public class MultiLineToStringBuilder {
 	private static final String NL = System.getProperty("line.separator");
 	private static final Pattern NL_PATTERN = Pattern.compile("\r\n|\n|\r");
 
-	private static final List<String> EXECUTION_CONTEXT_FILTER_LIST = new ArrayList<String>();
-
-	static {
-		//These keys are exluded for the execution context string
-		EXECUTION_CONTEXT_FILTER_LIST.add(FilterResult.CONTEXT_KEY);
-		EXECUTION_CONTEXT_FILTER_LIST.add(FilterSource.CONTEXT_KEY);
-	}
-
 	private MultiLineToStringBuilder() {
 	}
 
@@ -71,7 +61,9 @@ public class MultiLineToStringBuilder {
     	builder.append(NL);
     	builder.append(NL);
     	builder.append("Attributes : ");
-    	builder.append(toString(executionContext.getAttributes(), stack, EXECUTION_CONTEXT_FILTER_LIST));
+    	// The filter source and results are held in execution context slots (not attributes), so they
+    	// don't need to be filtered out of the attributes...
+    	builder.append(toString(executionContext.getAttributes(), stack, Collections.emptyList()));
 
     	return builder.toString();
     }
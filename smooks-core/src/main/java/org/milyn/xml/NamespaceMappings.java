@@ -25,6 +25,7 @@ import org.milyn.cdr.annotation.Config;
 import org.milyn.container.ApplicationContext;
 import org.milyn.container.ApplicationContextInitializer;
 import org.milyn.container.ExecutionContext;
+import org.milyn.container.ExecutionContextSlot;
 import org.milyn.delivery.annotation.Initialize;
 import org.milyn.namespace.NamespaceDeclarationStack;
 
@@ -41,6 +42,7 @@ public class NamespaceMappings implements ApplicationContextInitializer {
      * Logger.
      */
     private static Log logger = LogFactory.getLog(NamespaceMappings.class);
+    private static final ExecutionContextSlot<NamespaceDeclarationStack> NAMESPACE_DECLARATION_STACK = ExecutionContextSlot.register(NamespaceDeclarationStack.class.getName());
 	
 	@Config
 	private SmooksResourceConfiguration config;
@@ -92,7 +94,7 @@ public class NamespaceMappings implements ApplicationContextInitializer {
      * @param executionContext The execution context.
      */
     public static void setNamespaceDeclarationStack(NamespaceDeclarationStack namespaceDeclarationStack, ExecutionContext executionContext) {
-        executionContext.setAttribute(NamespaceDeclarationStack.class, namespaceDeclarationStack);
+        NAMESPACE_DECLARATION_STACK.set(executionContext, namespaceDeclarationStack);
     }
 
     /**
@@ -100,6 +102,6 @@ public class NamespaceMappings implements ApplicationContextInitializer {
      * @param executionContext The execution context.
      */
     public static NamespaceDeclarationStack getNamespaceDeclarationStack(ExecutionContext executionContext) {
-        return (NamespaceDeclarationStack) executionContext.getAttribute(NamespaceDeclarationStack.class);
+        return NAMESPACE_DECLARATION_STACK.get(executionContext);
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.xml;
+
+/**
+ * {@link SmooksXMLReader} that can be reused across filter operations.
+ * <p/>
+ * Resettable readers are returned to the reader pool of the
+ * {@link org.milyn.delivery.ContentDeliveryConfig} after each filter operation, even when
+ * the {@link org.milyn.delivery.Filter#READER_POOL_SIZE reader pool size} is not configured.  This means the
+ * reader is created and configured (<code>@ConfigParam</code> injection, <code>@Initialize</code> etc)
+ * once per pooled instance, rather than once per message.
+ */
+public interface ResettableXMLReader extends SmooksXMLReader {
+
+    /**
+     * Reset the reader after a filter operation.
+     * <p/>
+     * Must release all per-message state (the {@link org.milyn.container.ExecutionContext},
+     * {@link org.xml.sax.ContentHandler}, parse state etc), leaving the reader in the same state as a newly
+     * configured instance.  Called on the filter thread, after the parse has completed (or failed).
+     */
+    public void reset();
+}
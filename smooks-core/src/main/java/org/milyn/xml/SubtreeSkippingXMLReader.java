@@ -0,0 +1,39 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.xml;
+
+/**
+ * {@link SmooksXMLReader} that can skip element subtrees.
+ * <p/>
+ * The SAX filter calls {@link #skipSubtree()} from inside the <code>startElement</code> event of an
+ * element when it knows that none of the element's descendants are targeted by a visitor.  The reader can
+ * then skip over the content of the element (child elements, text etc) in the source, without generating
+ * the associated SAX events.  The reader must still fire the <code>endElement</code> event for the element.
+ * <p/>
+ * Skipping is only an optimization.  A reader can ignore the call (or only skip some of the content) and
+ * the SAX filter will simply discard the events.  Readers that don't implement this interface have their
+ * events discarded in the same way.
+ */
+public interface SubtreeSkippingXMLReader extends SmooksXMLReader {
+
+    /**
+     * Skip the content of the element whose <code>startElement</code> event is currently being processed.
+     * <p/>
+     * Only applies to the current element.  It's the responsibility of the reader to reset this
+     * request before firing the next <code>startElement</code> event.
+     */
+    public void skipSubtree();
+}
@@ -0,0 +1,179 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn;
+
+import org.junit.Test;
+import org.milyn.container.ExecutionContext;
+import org.milyn.delivery.sax.SAXElement;
+import org.milyn.delivery.sax.SAXVisitAfter;
+import org.milyn.javabean.context.BeanContext;
+import org.milyn.javabean.lifecycle.BeanContextLifecycleEvent;
+import org.milyn.javabean.lifecycle.BeanLifecycle;
+import org.milyn.payload.StringSource;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BeanStreamIteratorTest {
+
+    @Test
+    public void test_stream() {
+        Smooks smooks = new Smooks();
+        ItemVisitor visitor = new ItemVisitor();
+
+        smooks.setFilterSettings(FilterSettings.DEFAULT_SAX);
+        smooks.addVisitor(visitor, "item");
+
+        BeanStreamIterator<String> items = smooks.stream(smooks.createExecutionContext(), new StringSource(toItems(5)), String.class, "item", 1);
+        List<String> itemList = new ArrayList<String>();
+        while(items.hasNext()) {
+            itemList.add(items.next());
+            // The filter can't get more than the buffer size (+1 in hand-over) ahead of the consumer...
+            assertTrue(visitor.visitCount <= itemList.size() + 2);
+        }
+
+        assertEquals(Arrays.asList("1", "2", "3", "4", "5"), itemList);
+        assertFalse(items.hasNext());
+    }
+
+    @Test
+    public void test_result_extraction() {
+        Smooks smooks = new Smooks();
+
+        smooks.setFilterSettings(FilterSettings.DEFAULT_SAX);
+        smooks.addVisitor(new SAXVisitAfter() {
+            public void visitAfter(SAXElement element, ExecutionContext executionContext) throws SmooksException, IOException {
+                executionContext.getBeanContext().addBean("items", Arrays.asList("a", "b"));
+            }
+        }, "#document");
+
+        BeanStreamIterator<String> items = smooks.stream(new StringSource(toItems(1)), String.class, "items");
+        assertEquals("a", items.next());
+        assertEquals("b", items.next());
+        assertFalse(items.hasNext());
+    }
+
+    @Test
+    public void test_close() throws InterruptedException {
+        Smooks smooks = new Smooks();
+        ItemVisitor visitor = new ItemVisitor();
+
+        smooks.setFilterSettings(FilterSettings.DEFAULT_SAX);
+        smooks.addVisitor(visitor, "item");
+
+        BeanStreamIterator<String> items = smooks.stream(smooks.createExecutionContext(), new StringSource(toItems(1000)), String.class, "item", 2);
+        assertEquals("1", items.next());
+        items.close();
+        assertFalse(items.hasNext());
+
+        // The filter thread must terminate without filtering the rest of the stream...
+        visitor.filterThread.join(5000);
+        assertFalse(visitor.filterThread.isAlive());
+        assertTrue(visitor.visitCount < 1000);
+    }
+
+    @Test
+    public void test_close_after_partial_read() throws InterruptedException {
+        Smooks smooks = new Smooks();
+        ItemVisitor visitor = new ItemVisitor();
+        CloseTrackingReader reader = new CloseTrackingReader(toItems(1000));
+
+        smooks.setFilterSettings(FilterSettings.DEFAULT_SAX);
+        smooks.addVisitor(visitor, "item");
+
+        BeanStreamIterator<String> items = smooks.stream(smooks.createExecutionContext(), new StreamSource(reader), String.class, "item", 2);
+        assertEquals("1", items.next());
+        assertEquals("2", items.next());
+        items.close();
+        assertFalse(items.hasNext());
+        assertTrue(reader.closed);
+
+        // The filter thread must terminate...
+        visitor.filterThread.join(5000);
+        assertFalse(visitor.filterThread.isAlive());
+        assertTrue(visitor.visitCount < 1000);
+
+        // Closing again is a no-op...
+        items.close();
+        assertFalse(items.hasNext());
+    }
+
+    @Test
+    public void test_error() {
+        Smooks smooks = new Smooks();
+
+        smooks.setFilterSettings(FilterSettings.DEFAULT_SAX);
+        smooks.addVisitor(new SAXVisitAfter() {
+            public void visitAfter(SAXElement element, ExecutionContext executionContext) throws SmooksException, IOException {
+                throw new SmooksException("Item failure.");
+            }
+        }, "item");
+
+        BeanStreamIterator<String> items = smooks.stream(new StringSource(toItems(1)), String.class, "item");
+        try {
+            items.hasNext();
+            fail("Expected SmooksException");
+        } catch (SmooksException e) {
+            // Expected...
+        }
+        assertFalse(items.hasNext());
+    }
+
+    private String toItems(int count) {
+        StringBuilder message = new StringBuilder("<items>");
+
+        for(int i = 1; i <= count; i++) {
+            message.append("<item id='").append(i).append("' />");
+        }
+        message.append("</items>");
+
+        return message.toString();
+    }
+
+    private class ItemVisitor implements SAXVisitAfter {
+        private volatile int visitCount = 0;
+        private volatile Thread filterThread;
+
+        public void visitAfter(SAXElement element, ExecutionContext executionContext) throws SmooksException, IOException {
+            BeanContext beanContext = executionContext.getBeanContext();
+            String item = element.getAttributes().getValue("id");
+
+            visitCount++;
+            filterThread = Thread.currentThread();
+            beanContext.addBean("item", item);
+            beanContext.notifyObservers(new BeanContextLifecycleEvent(executionContext, null, BeanLifecycle.END_FRAGMENT, beanContext.getBeanId("item"), item));
+        }
+    }
+
+    private static class CloseTrackingReader extends StringReader {
+        private volatile boolean closed = false;
+
+        private CloseTrackingReader(String s) {
+            super(s);
+        }
+
+        public void close() {
+            closed = true;
+            super.close();
+        }
+    }
+}
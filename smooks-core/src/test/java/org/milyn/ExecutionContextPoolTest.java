@@ -0,0 +1,188 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn;
+
+import org.junit.Test;
+import org.milyn.container.ExecutionContext;
+import org.milyn.javabean.context.BeanContext;
+import org.milyn.javabean.lifecycle.BeanContextLifecycleEvent;
+import org.milyn.javabean.lifecycle.BeanContextLifecycleObserver;
+import org.milyn.payload.FilterSource;
+import org.milyn.payload.JavaResult;
+import org.milyn.payload.JavaSource;
+import org.milyn.payload.StringResult;
+import org.milyn.payload.StringSource;
+
+import static org.junit.Assert.*;
+
+public class ExecutionContextPoolTest {
+
+    @Test
+    public void test_reuse() {
+        Smooks smooks = new Smooks();
+        ExecutionContextPool pool = smooks.createExecutionContextPool(2);
+
+        ExecutionContext executionContext = pool.acquire();
+        executionContext.setAttribute("x", "y");
+        executionContext.getBeanContext().addBean("bean", "value");
+        pool.release(executionContext);
+        assertEquals(1, pool.getPooledCount());
+
+        ExecutionContext reusedContext = pool.acquire();
+        assertSame(executionContext, reusedContext);
+        assertNull(reusedContext.getAttribute("x"));
+        assertNull(reusedContext.getBeanContext().getBean("bean"));
+        assertEquals(0, pool.getPooledCount());
+        pool.release(reusedContext);
+    }
+
+    @Test
+    public void test_bounded() {
+        ExecutionContextPool pool = new Smooks().createExecutionContextPool(1);
+        ExecutionContext executionContext1 = pool.acquire();
+        ExecutionContext executionContext2 = pool.acquire();
+
+        pool.release(executionContext1);
+        pool.release(executionContext2);
+        assertEquals(1, pool.getPooledCount());
+    }
+
+    @Test
+    public void test_release_twice() {
+        ExecutionContextPool pool = new Smooks().createExecutionContextPool(1);
+        ExecutionContext executionContext = pool.acquire();
+
+        pool.release(executionContext);
+        try {
+            pool.release(executionContext);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("ExecutionContext not acquired from this pool, or already released.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void test_release_foreign() {
+        Smooks smooks = new Smooks();
+        ExecutionContextPool pool = smooks.createExecutionContextPool(1);
+
+        try {
+            pool.release(smooks.createExecutionContext());
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertEquals("ExecutionContext not acquired from this pool, or already released.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void test_filterSource() {
+        Smooks smooks = new Smooks();
+        ExecutionContextPool pool = smooks.createExecutionContextPool(1);
+
+        for(int i = 0; i < 3; i++) {
+            StringResult result = new StringResult();
+            pool.filterSource(new StringSource("<a><b>" + i + "</b></a>"), result);
+            assertEquals("<a><b>" + i + "</b></a>", result.getResult());
+        }
+        assertEquals(1, pool.getPooledCount());
+
+        ExecutionContext executionContext = pool.acquire();
+        assertNull(FilterSource.getSource(executionContext));
+        pool.release(executionContext);
+    }
+
+    @Test
+    public void test_filterSource_JavaResult() {
+        Smooks smooks = new Smooks();
+        ExecutionContextPool pool = smooks.createExecutionContextPool(1);
+
+        JavaResult result1 = new JavaResult();
+        pool.filterSource(createJavaSource("bean1", "value1"), result1);
+        assertEquals("value1", result1.getBean("bean1"));
+
+        JavaResult result2 = new JavaResult();
+        pool.filterSource(createJavaSource("bean2", "value2"), result2);
+        assertEquals(1, pool.getPooledCount());
+
+        // The release of the context must not touch the 1st result...
+        assertEquals("value1", result1.getBean("bean1"));
+        assertNull(result1.getBean("bean2"));
+        assertEquals("value2", result2.getBean("bean2"));
+        assertNull(result2.getBean("bean1"));
+    }
+
+    @Test
+    public void test_filterSource_JavaSource() {
+        Smooks smooks = new Smooks();
+        ExecutionContextPool pool = smooks.createExecutionContextPool(1);
+        JavaSource source1 = createJavaSource("bean1", "value1");
+        JavaSource source2 = createJavaSource("bean2", "value2");
+
+        ExecutionContext executionContext = pool.acquire();
+        smooks.filterSource(executionContext, source1);
+        assertEquals("value1", executionContext.getBeanContext().getBean("bean1"));
+        pool.release(executionContext);
+        assertEquals("value1", source1.getBeans().get("bean1"));
+
+        ExecutionContext reusedContext = pool.acquire();
+        assertSame(executionContext, reusedContext);
+        smooks.filterSource(reusedContext, source2);
+        assertEquals("value2", reusedContext.getBeanContext().getBean("bean2"));
+        assertNull(reusedContext.getBeanContext().getBean("bean1"));
+        pool.release(reusedContext);
+        assertEquals("value1", source1.getBeans().get("bean1"));
+        assertEquals("value2", source2.getBeans().get("bean2"));
+    }
+
+    @Test
+    public void test_bean_context_reused() {
+        Smooks smooks = new Smooks();
+        ExecutionContextPool pool = smooks.createExecutionContextPool(1);
+        JavaResult result1 = new JavaResult();
+        JavaResult result2 = new JavaResult();
+
+        ExecutionContext executionContext = pool.acquire();
+        smooks.filterSource(executionContext, createJavaSource("bean1", "value1"), result1);
+        BeanContext beanContext = executionContext.getBeanContext();
+        beanContext.addObserver(new BeanContextLifecycleObserver() {
+            public void onBeanLifecycleEvent(BeanContextLifecycleEvent event) {
+                fail("Observer not removed on reset.");
+            }
+        });
+        pool.release(executionContext);
+
+        ExecutionContext reusedContext = pool.acquire();
+        smooks.filterSource(reusedContext, createJavaSource("bean2", "value2"), result2);
+        assertSame(beanContext, reusedContext.getBeanContext());
+
+        // Rebound to the new result...
+        reusedContext.getBeanContext().addBean("bean3", "value3");
+        assertEquals("value3", result2.getBean("bean3"));
+        assertNull(result1.getBean("bean3"));
+        assertEquals("value2", reusedContext.getBeanContext().getBean("bean2"));
+        assertNull(reusedContext.getBeanContext().getBean("bean1"));
+        pool.release(reusedContext);
+
+        assertEquals("value1", result1.getBean("bean1"));
+        assertEquals("value2", result2.getBean("bean2"));
+    }
+
+    private JavaSource createJavaSource(String beanId, Object bean) {
+        JavaSource javaSource = new JavaSource(beanId, bean);
+        javaSource.setEventStreamRequired(false);
+        return javaSource;
+    }
+}
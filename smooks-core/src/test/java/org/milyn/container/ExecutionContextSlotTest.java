@@ -0,0 +1,70 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.container;
+
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ExecutionContextSlotTest {
+
+    private static final ExecutionContextSlot<String> SLOT = ExecutionContextSlot.register("ExecutionContextSlotTest#slot");
+
+    @Test
+    public void test_state_store() {
+        MockExecutionContext executionContext = new MockExecutionContext();
+
+        SLOT.set(executionContext, "value");
+        assertEquals("value", SLOT.get(executionContext));
+        assertEquals("value", executionContext.getState(SLOT));
+        assertNull(executionContext.getAttribute(SLOT));
+
+        SLOT.set(executionContext, null);
+        assertNull(SLOT.get(executionContext));
+    }
+
+    @Test
+    public void test_attribute_fallback() {
+        final Map<Object, Object> attributes = new HashMap<Object, Object>();
+        ExecutionContext executionContext = (ExecutionContext) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[] {ExecutionContext.class}, new InvocationHandler() {
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if(method.getName().equals("setAttribute")) {
+                    return attributes.put(args[0], args[1]);
+                } else if(method.getName().equals("getAttribute")) {
+                    return attributes.get(args[0]);
+                } else if(method.getName().equals("removeAttribute")) {
+                    return attributes.remove(args[0]);
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        // An ExecutionContext implementation that is not an ExecutionStateStore...
+        SLOT.set(executionContext, "value");
+        assertEquals("value", SLOT.get(executionContext));
+        assertEquals("value", attributes.get(SLOT));
+
+        SLOT.set(executionContext, null);
+        assertNull(SLOT.get(executionContext));
+        assertTrue(attributes.isEmpty());
+    }
+}
@@ -22,6 +22,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.milyn.Smooks;
 import org.milyn.SmooksUtil;
+import org.milyn.container.ExecutionContextSlot;
 import org.milyn.profile.DefaultProfileSet;
 
 /**
@@ -45,6 +46,19 @@ public class StandaloneExecutionContextTest
         assertTrue( attributes.containsKey( key ) );
         assertTrue( attributes.contains( value ) );
 	}
+
+	@Test
+	public void getState()
+	{
+        ExecutionContextSlot<String> slot = ExecutionContextSlot.register( "testSlot" );
+
+        assertNull( context.getState( slot ) );
+        context.setState( slot, "testValue" );
+        assertEquals( "testValue", context.getState( slot ) );
+        context.setState( slot, null );
+        assertNull( context.getState( slot ) );
+        assertFalse( context.getAttributes().containsValue( "testValue" ) );
+	}
 	
 	@Before
 	public void setup()
@@ -0,0 +1,157 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.milyn.FilterSettings;
+import org.milyn.Smooks;
+import org.milyn.cdr.SmooksResourceConfiguration;
+import org.milyn.container.ExecutionContext;
+import org.milyn.payload.StringSource;
+import org.milyn.xml.ResettableXMLReader;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class ReaderPoolTest {
+
+    @Before
+    public void setup() {
+        MockResettableReader.instanceCount = 0;
+        MockResettableReader.resetCount = 0;
+    }
+
+    @Test
+    public void test_resettable_reader_pooled_by_default() {
+        Smooks smooks = createSmooks();
+
+        initDeliveryConfig(smooks);
+        for(int i = 0; i < 3; i++) {
+            smooks.filterSource(new StringSource("<a/>"));
+        }
+        assertEquals(1, MockResettableReader.instanceCount);
+        assertEquals(3, MockResettableReader.resetCount);
+    }
+
+    @Test
+    public void test_pooling_off() {
+        Smooks smooks = createSmooks();
+
+        smooks.setFilterSettings(FilterSettings.newSAXSettings().setReaderPoolSize(0));
+        initDeliveryConfig(smooks);
+        for(int i = 0; i < 3; i++) {
+            smooks.filterSource(new StringSource("<a/>"));
+        }
+        assertEquals(3, MockResettableReader.instanceCount);
+    }
+
+    private void initDeliveryConfig(Smooks smooks) {
+        // Building the delivery config creates a reader instance of its own, so only count
+        // the instances created after that...
+        smooks.createExecutionContext();
+        MockResettableReader.instanceCount = 0;
+    }
+
+    private Smooks createSmooks() {
+        Smooks smooks = new Smooks();
+        smooks.addConfiguration(new SmooksResourceConfiguration("org.xml.sax.driver", MockResettableReader.class.getName()));
+        return smooks;
+    }
+
+    public static class MockResettableReader implements ResettableXMLReader {
+
+        private static int instanceCount;
+        private static int resetCount;
+        private ContentHandler handler;
+        private ExecutionContext executionContext;
+
+        public MockResettableReader() {
+            instanceCount++;
+        }
+
+        public void reset() {
+            handler = null;
+            executionContext = null;
+            resetCount++;
+        }
+
+        public void setExecutionContext(ExecutionContext executionContext) {
+            assertNull("Reader not reset.", this.executionContext);
+            this.executionContext = executionContext;
+        }
+
+        public void parse(InputSource input) throws IOException, SAXException {
+            handler.startDocument();
+            handler.endDocument();
+        }
+
+        public void parse(String systemId) throws IOException, SAXException {
+        }
+
+        public void setContentHandler(ContentHandler handler) {
+            this.handler = handler;
+        }
+
+        public ContentHandler getContentHandler() {
+            return handler;
+        }
+
+        public boolean getFeature(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+            return false;
+        }
+
+        public void setFeature(String name, boolean value) throws SAXNotRecognizedException, SAXNotSupportedException {
+        }
+
+        public Object getProperty(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+            return null;
+        }
+
+        public void setProperty(String name, Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+        }
+
+        public void setEntityResolver(EntityResolver resolver) {
+        }
+
+        public EntityResolver getEntityResolver() {
+            return null;
+        }
+
+        public void setDTDHandler(DTDHandler handler) {
+        }
+
+        public DTDHandler getDTDHandler() {
+            return null;
+        }
+
+        public void setErrorHandler(ErrorHandler handler) {
+        }
+
+        public ErrorHandler getErrorHandler() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.chunk;
+
+import org.junit.Test;
+import org.milyn.Smooks;
+import org.milyn.payload.JavaResult;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ChunkedFileFilterTest {
+
+    @Test
+    public void test_split_lines() throws IOException {
+        File file = createFile("a\nbb\r\nccc\rdddd\ne\nff\n");
+
+        try {
+            ChunkedFileFilter filter = new ChunkedFileFilter(new Smooks(), new LineBoundaryScanner()).setThreadCount(3).setMinChunkSize(1);
+            List<FileChunk> chunks = filter.split(file);
+
+            assertEquals("[[index: 0, offset: 0, length: 6, lineOffset: 0, recordOffset: 0], [index: 1, offset: 6, length: 9, lineOffset: 2, recordOffset: 2], [index: 2, offset: 15, length: 5, lineOffset: 4, recordOffset: 4]]", chunks.toString());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void test_split_header_lines() throws IOException {
+        File file = createFile("h1\nh2\na\nbb\nccc\n");
+
+        try {
+            ChunkedFileFilter filter = new ChunkedFileFilter(new Smooks(), new LineBoundaryScanner()).setThreadCount(4).setMinChunkSize(1).setHeaderLines(2);
+            List<FileChunk> chunks = filter.split(file);
+
+            // The first chunk can't end inside the header lines, and the header lines are not records...
+            assertEquals("[[index: 0, offset: 0, length: 8, lineOffset: 0, recordOffset: 0], [index: 1, offset: 8, length: 3, lineOffset: 3, recordOffset: 1], [index: 2, offset: 11, length: 4, lineOffset: 4, recordOffset: 2]]", chunks.toString());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void test_split_not_split() throws IOException {
+        File file = createFile("a\nbb\nccc\n");
+
+        try {
+            ChunkedFileFilter filter = new ChunkedFileFilter(new Smooks(), new LineBoundaryScanner()).setThreadCount(3);
+            List<FileChunk> chunks = filter.split(file);
+
+            assertEquals(1, chunks.size());
+            assertEquals(9, chunks.get(0).getLength());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void test_merge() {
+        JavaResult result1 = new JavaResult();
+        JavaResult result2 = new JavaResult();
+        Map<String, String> map1 = new LinkedHashMap<String, String>();
+        Map<String, String> map2 = new LinkedHashMap<String, String>();
+
+        map1.put("a", "1");
+        map2.put("b", "2");
+        result1.getResultMap().put("list", new ArrayList<String>(Arrays.asList("1", "2")));
+        result1.getResultMap().put("map", map1);
+        result1.getResultMap().put("bean", "x");
+        result2.getResultMap().put("list", new ArrayList<String>(Arrays.asList("3")));
+        result2.getResultMap().put("map", map2);
+        result2.getResultMap().put("bean", "y");
+
+        JavaResult merged = ChunkedFileFilter.merge(Arrays.asList(result1, result2));
+        assertEquals("[1, 2, 3]", merged.getBean("list").toString());
+        assertEquals("{a=1, b=2}", merged.getBean("map").toString());
+        assertEquals("y", merged.getBean("bean"));
+        // The chunk results are not modified...
+        assertEquals("[1, 2]", result1.getBean("list").toString());
+    }
+
+    private File createFile(String content) throws IOException {
+        File file = File.createTempFile("chunked-file", ".txt");
+        FileOutputStream stream = new FileOutputStream(file);
+
+        try {
+            stream.write(content.getBytes("UTF-8"));
+        } finally {
+            stream.close();
+        }
+
+        return file;
+    }
+}
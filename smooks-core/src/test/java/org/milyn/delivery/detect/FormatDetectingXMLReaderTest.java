@@ -0,0 +1,228 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.detect;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.milyn.GenericReaderConfigurator;
+import org.milyn.Smooks;
+import org.milyn.SmooksException;
+import org.milyn.cdr.annotation.ConfigParam;
+import org.milyn.container.ExecutionContext;
+import org.milyn.io.StreamUtils;
+import org.milyn.payload.StringResult;
+import org.milyn.payload.StringSource;
+import org.milyn.xml.ResettableXMLReader;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXNotSupportedException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class FormatDetectingXMLReaderTest {
+
+    @Before
+    public void setup() {
+        MockFormatReader.instanceCount = 0;
+    }
+
+    @Test
+    public void test_sniff() {
+        assertEquals(FormatSniffer.EDIFACT, sniff("UNA:+.? 'UNB+UNOA:1+..."));
+        assertEquals(FormatSniffer.EDIFACT, sniff("\uFEFF\r\n  UNB+UNOA:1+..."));
+        assertEquals(FormatSniffer.X12, sniff("ISA*00*          *00*..."));
+        assertEquals(FormatSniffer.JSON, sniff(" {\"a\": 1}"));
+        assertEquals(FormatSniffer.JSON, sniff("[1, 2]"));
+        assertEquals(FormatSniffer.XML, sniff("<?xml version=\"1.0\"?><a/>"));
+        assertEquals(FormatSniffer.CSV, sniff("a,b,c\r\nd,e,f\r\n\r\ng,h"));
+        assertEquals(FormatSniffer.CSV, sniff("a;\"b;c\";d\ne;f;g\n"));
+        assertEquals(FormatSniffer.CSV, sniff("a|b|c"));
+        assertEquals(null, sniff("a,b,c\nd,e\n"));
+        assertEquals(null, sniff("ISAAC, the first line\nsecond line\n"));
+        assertEquals(null, sniff("hello world"));
+        assertEquals(null, sniff("   "));
+    }
+
+    @Test
+    public void test_character_stream() {
+        Smooks smooks = createSmooks();
+
+        assertEquals("<csv>a,b\nc,d</csv>", filter(smooks, new StringSource("a,b\nc,d")));
+        assertEquals("<json>{\"a\":1}</json>", filter(smooks, new StringSource("{\"a\":1}")));
+        assertEquals("<x>hello</x>", filter(smooks, new StringSource("<x>hello</x>")));
+        assertEquals("<unknown>hello</unknown>", filter(smooks, new StringSource("hello")));
+    }
+
+    @Test
+    public void test_byte_stream() {
+        Smooks smooks = createSmooks();
+
+        assertEquals("<csv>a,b\nc,d</csv>", filter(smooks, new StreamSource(new ByteArrayInputStream("a,b\nc,d".getBytes()))));
+        assertEquals("<x>hello</x>", filter(smooks, new StreamSource(new NoMarkInputStream("<x>hello</x>"))));
+        assertEquals("<json>{\"a\":1}</json>", filter(smooks, new StreamSource(new NoMarkInputStream("{\"a\":1}"))));
+    }
+
+    @Test
+    public void test_format_readers_reused() {
+        Smooks smooks = createSmooks();
+
+        for(int i = 0; i < 3; i++) {
+            assertEquals("<csv>a,b</csv>", filter(smooks, new StringSource("a,b")));
+            assertEquals("<json>[1]</json>", filter(smooks, new StringSource("[1]")));
+        }
+        assertEquals(2, MockFormatReader.instanceCount);
+    }
+
+    @Test
+    public void test_no_default_format() {
+        Smooks smooks = new Smooks();
+
+        smooks.setReaderConfig(new FormatDetectingReaderConfigurator()
+                .addFormat(FormatSniffer.CSV, createFormatConfigurator("csv")));
+        try {
+            filter(smooks, new StringSource("{\"a\":1}"));
+            fail("Expected SmooksException.");
+        } catch(SmooksException e) {
+            assertTrue(e.getCause().getMessage().startsWith("No reader registered for detected message format 'json'"));
+        }
+    }
+
+    private String sniff(String head) {
+        return FormatSniffer.sniff(head.toCharArray(), head.length());
+    }
+
+    private Smooks createSmooks() {
+        Smooks smooks = new Smooks();
+
+        smooks.setReaderConfig(new FormatDetectingReaderConfigurator()
+                .addFormat(FormatSniffer.CSV, createFormatConfigurator("csv"))
+                .addFormat(FormatSniffer.JSON, createFormatConfigurator("json"))
+                .addFormat(FormatDetectingXMLReader.DEFAULT_FORMAT, createFormatConfigurator("unknown")));
+
+        return smooks;
+    }
+
+    private GenericReaderConfigurator createFormatConfigurator(String rootName) {
+        GenericReaderConfigurator configurator = new GenericReaderConfigurator(MockFormatReader.class);
+        configurator.getParameters().setProperty("rootName", rootName);
+        return configurator;
+    }
+
+    private String filter(Smooks smooks, javax.xml.transform.Source source) {
+        StringResult result = new StringResult();
+        smooks.filterSource(source, result);
+        return result.getResult();
+    }
+
+    private static class NoMarkInputStream extends FilterInputStream {
+
+        private NoMarkInputStream(String data) {
+            super(new ByteArrayInputStream(data.getBytes()));
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
+    public static class MockFormatReader implements ResettableXMLReader {
+
+        private static int instanceCount;
+
+        @ConfigParam
+        private String rootName;
+        private ContentHandler contentHandler;
+
+        public MockFormatReader() {
+            instanceCount++;
+        }
+
+        public void setExecutionContext(ExecutionContext executionContext) {
+        }
+
+        public void reset() {
+            contentHandler = null;
+        }
+
+        public void parse(InputSource input) throws IOException, SAXException {
+            String content = StreamUtils.readStream(input.getCharacterStream());
+
+            contentHandler.startDocument();
+            contentHandler.startElement("", rootName, "", new AttributesImpl());
+            contentHandler.characters(content.toCharArray(), 0, content.length());
+            contentHandler.endElement("", rootName, "");
+            contentHandler.endDocument();
+        }
+
+        public void parse(String systemId) throws IOException, SAXException {
+        }
+
+        public boolean getFeature(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+            return false;
+        }
+
+        public void setFeature(String name, boolean value) throws SAXNotRecognizedException, SAXNotSupportedException {
+        }
+
+        public Object getProperty(String name) throws SAXNotRecognizedException, SAXNotSupportedException {
+            return null;
+        }
+
+        public void setProperty(String name, Object value) throws SAXNotRecognizedException, SAXNotSupportedException {
+        }
+
+        public void setEntityResolver(EntityResolver resolver) {
+        }
+
+        public EntityResolver getEntityResolver() {
+            return null;
+        }
+
+        public void setDTDHandler(DTDHandler handler) {
+        }
+
+        public DTDHandler getDTDHandler() {
+            return null;
+        }
+
+        public void setContentHandler(ContentHandler handler) {
+            this.contentHandler = handler;
+        }
+
+        public ContentHandler getContentHandler() {
+            return contentHandler;
+        }
+
+        public void setErrorHandler(ErrorHandler handler) {
+        }
+
+        public ErrorHandler getErrorHandler() {
+            return null;
+        }
+    }
+}
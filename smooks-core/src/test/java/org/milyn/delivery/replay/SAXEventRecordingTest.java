@@ -0,0 +1,109 @@
+package org.milyn.delivery.replay;
+
+import org.junit.Test;
+import org.milyn.GenericReaderConfigurator;
+import org.milyn.Smooks;
+import org.milyn.payload.StringResult;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.XMLReaderFactory;
+
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+
+import static org.junit.Assert.*;
+
+public class SAXEventRecordingTest {
+
+    private static final String MESSAGE = "<a xmlns=\"urn:a\" x=\"1\"><b y=\"&#x4e16;\">h\u00e9llo \uD83D\uDE00</b><b/><c>text</c></a>";
+
+    @Test
+    public void test_replay() throws Exception {
+        SAXEventRecording recording = record(MESSAGE);
+        EventStringBuilder replayed = new EventStringBuilder();
+
+        recording.replay(replayed);
+        assertEquals(parse(MESSAGE), replayed.toString());
+    }
+
+    @Test
+    public void test_write_read() throws Exception {
+        SAXEventRecording recording = record(MESSAGE);
+        ByteArrayOutputStream recordingStream = new ByteArrayOutputStream();
+
+        recording.write(recordingStream);
+
+        SAXEventRecording readRecording = SAXEventRecording.read(new ByteArrayInputStream(recordingStream.toByteArray()));
+        EventStringBuilder replayed = new EventStringBuilder();
+
+        assertEquals(recording.size(), readRecording.size());
+        readRecording.replay(replayed);
+        assertEquals(parse(MESSAGE), replayed.toString());
+    }
+
+    @Test
+    public void test_recording_reader() throws Exception {
+        SAXEventRecording recording = record("<a><b>x</b><b>y</b></a>");
+        ByteArrayOutputStream recordingStream = new ByteArrayOutputStream();
+        Smooks smooks = new Smooks();
+
+        recording.write(recordingStream);
+        smooks.setReaderConfig(new GenericReaderConfigurator(SAXEventRecordingReader.class));
+
+        for(int i = 0; i < 2; i++) {
+            StringResult result = new StringResult();
+
+            smooks.filterSource(new StreamSource(new ByteArrayInputStream(recordingStream.toByteArray())), result);
+            assertEquals("<a><b>x</b><b>y</b></a>", result.getResult());
+        }
+    }
+
+    private SAXEventRecording record(String message) throws Exception {
+        SAXEventRecording recording = new SAXEventRecording();
+        XMLReader reader = XMLReaderFactory.createXMLReader();
+
+        reader.setContentHandler(recording);
+        reader.parse(new InputSource(new StringReader(message)));
+
+        return recording;
+    }
+
+    private String parse(String message) throws Exception {
+        EventStringBuilder events = new EventStringBuilder();
+        XMLReader reader = XMLReaderFactory.createXMLReader();
+
+        reader.setContentHandler(events);
+        reader.parse(new InputSource(new StringReader(message)));
+
+        return events.toString();
+    }
+
+    private static class EventStringBuilder extends DefaultHandler {
+
+        private StringBuilder events = new StringBuilder();
+
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            events.append("<{").append(uri).append('}').append(localName).append('|').append(qName);
+            for(int i = 0; i < attributes.getLength(); i++) {
+                events.append(' ').append(attributes.getQName(i)).append('=').append(attributes.getValue(i));
+            }
+            events.append('>');
+        }
+
+        public void endElement(String uri, String localName, String qName) {
+            events.append("</").append(qName).append('>');
+        }
+
+        public void characters(char[] ch, int start, int length) {
+            events.append(ch, start, length);
+        }
+
+        public String toString() {
+            return events.toString();
+        }
+    }
+}
@@ -117,4 +117,38 @@ public class SAXElementTest {
         // Check saxElement2 OK...
         assertEquals("XXXXXX<![CDATA[yyyyyyyy]]>", saxElement2.getTextContent());
     }
+
+	@Test
+    public void test_reset_and_detach() {
+        AttributesImpl attributes = new AttributesImpl();
+        attributes.addAttribute("", "a", "a", "CDATA", "1");
+
+        SAXElement parent = new SAXElement(null, "p", "p", new AttributesImpl(), null);
+        SAXElement saxElement = new SAXElement(null, "x", "x", attributes, parent);
+
+        saxElement.setCache("cache");
+        saxElement.accumulateText();
+        saxElement.addText("text");
+
+        attributes.clear();
+        attributes.addAttribute("", "b", "b", "CDATA", "2");
+        saxElement.reset(SAXUtil.toQName(null, "y", "y"), attributes, null);
+
+        assertEquals("y", saxElement.getName().getLocalPart());
+        assertEquals("", saxElement.getAttribute("a"));
+        assertEquals("2", saxElement.getAttribute("b"));
+        assertNull(saxElement.getParent());
+        assertNull(saxElement.getCache());
+        assertNull(saxElement.getText());
+
+        // Must have copied the attributes...
+        attributes.clear();
+        assertEquals("2", saxElement.getAttribute("b"));
+
+        saxElement.setParent(parent);
+        assertFalse(saxElement.isDetached());
+        assertSame(saxElement, saxElement.detach());
+        assertTrue(saxElement.isDetached());
+        assertTrue(parent.isDetached());
+    }
 }
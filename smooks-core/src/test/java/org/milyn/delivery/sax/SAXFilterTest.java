@@ -20,6 +20,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.*;
 
+import org.milyn.FilterSettings;
 import org.milyn.Smooks;
 import org.milyn.container.ExecutionContext;
 import org.milyn.io.StreamUtils;
@@ -47,6 +48,18 @@ public class SAXFilterTest {
         String input = new String(StreamUtils.readStream(getClass().getResourceAsStream("test-01.xml")));
         StringWriter writer = new StringWriter();
 
+        smooks.filterSource(execContext, new StreamSource(new StringReader(input)), new StreamResult(writer));
+        assertEquals(StreamUtils.trimLines(new StringReader(input)).toString(), StreamUtils.trimLines(new StringReader(writer.toString())).toString());
+    }
+
+	@Test
+    public void test_reader_writer_recycled_elements() throws SAXException, IOException {
+        Smooks smooks = new Smooks(getClass().getResourceAsStream("smooks-config-01.xml"));
+        smooks.setFilterSettings(FilterSettings.newSAXSettings().setRecycleSAXElements(true));
+        ExecutionContext execContext = smooks.createExecutionContext();
+        String input = new String(StreamUtils.readStream(getClass().getResourceAsStream("test-01.xml")));
+        StringWriter writer = new StringWriter();
+
         smooks.filterSource(execContext, new StreamSource(new StringReader(input)), new StreamResult(writer));
         assertEquals(StreamUtils.trimLines(new StringReader(input)).toString(), StreamUtils.trimLines(new StringReader(writer.toString())).toString());
     }
@@ -0,0 +1,146 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.sax;
+
+import org.junit.Test;
+import org.milyn.FilterSettings;
+import org.milyn.Smooks;
+import org.milyn.SmooksException;
+import org.milyn.container.ExecutionContext;
+
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class SAXParallelFragmentsTest {
+
+    private static final int ITEM_COUNT = 200;
+
+    @Test
+    public void test_ordered() {
+        String input = createInput();
+        CountingVisitor visitor = new CountingVisitor();
+        String result = filter(input, FilterSettings.newSAXSettings().setParallelFragments("item", 4), visitor);
+
+        assertEquals(ITEM_COUNT, visitor.count.get());
+        assertEquals(input, result);
+    }
+
+    @Test
+    public void test_unordered() {
+        String input = createInput();
+        CountingVisitor visitor = new CountingVisitor();
+        String result = filter(input, FilterSettings.newSAXSettings().setParallelFragments("item", 4).setParallelFragmentsOrdered(false), visitor);
+
+        assertEquals(ITEM_COUNT, visitor.count.get());
+        assertEquals(input.length(), result.length());
+        assertTrue(result.startsWith("<order><header>h</header><items>"));
+        assertTrue(result.endsWith("</order>"));
+    }
+
+    @Test
+    public void test_serial() {
+        String input = createInput();
+        CountingVisitor visitor = new CountingVisitor();
+        String result = filter(input, FilterSettings.newSAXSettings(), visitor);
+
+        assertEquals(ITEM_COUNT, visitor.count.get());
+        assertEquals(input, result);
+    }
+
+    @Test
+    public void test_thread_pool_shutdown_on_close() throws InterruptedException {
+        Smooks smooks = new Smooks();
+        CountingVisitor visitor = new CountingVisitor();
+
+        smooks.setFilterSettings(FilterSettings.newSAXSettings().setParallelFragments("item", 4));
+        smooks.addVisitor(visitor, "order/items/item/price");
+
+        ExecutionContext executionContext = smooks.createExecutionContext();
+        smooks.filterSource(executionContext, new StreamSource(new StringReader(createInput())), new StreamResult(new StringWriter()));
+        assertEquals(ITEM_COUNT, visitor.count.get());
+
+        ExecutorService threadPool = ((SAXContentDeliveryConfig) executionContext.getDeliveryConfig()).getParallelFragmentThreadPool();
+        assertFalse(threadPool.isShutdown());
+
+        smooks.close();
+        assertTrue(threadPool.isShutdown());
+        assertTrue(threadPool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void test_attributes_copied() {
+        Smooks smooks = new Smooks();
+        final AtomicInteger attributeCount = new AtomicInteger();
+
+        smooks.setFilterSettings(FilterSettings.newSAXSettings().setParallelFragments("item", 4));
+        smooks.addVisitor(new SAXVisitBefore() {
+            public void visitBefore(SAXElement element, ExecutionContext executionContext) throws SmooksException, IOException {
+                if("value".equals(executionContext.getAttribute("callerAttribute"))) {
+                    attributeCount.incrementAndGet();
+                }
+                executionContext.setAttribute("fragmentAttribute", "value");
+            }
+        }, "order/items/item/price");
+
+        ExecutionContext executionContext = smooks.createExecutionContext();
+        executionContext.setAttribute("callerAttribute", "value");
+        smooks.filterSource(executionContext, new StreamSource(new StringReader(createInput())), new StreamResult(new StringWriter()));
+
+        assertEquals(ITEM_COUNT, attributeCount.get());
+        // Not copied back to the main execution...
+        assertNull(executionContext.getAttribute("fragmentAttribute"));
+    }
+
+    private String filter(String input, FilterSettings filterSettings, CountingVisitor visitor) {
+        Smooks smooks = new Smooks();
+        StringWriter result = new StringWriter();
+
+        smooks.setFilterSettings(filterSettings);
+        smooks.addVisitor(visitor, "order/items/item/price");
+        smooks.filterSource(new StreamSource(new StringReader(input)), new StreamResult(result));
+
+        return result.toString();
+    }
+
+    private String createInput() {
+        StringBuilder input = new StringBuilder();
+
+        input.append("<order><header>h</header><items>");
+        for(int i = 0; i < ITEM_COUNT; i++) {
+            input.append("<item id=\"").append(i).append("\"><price>").append(i).append("</price></item>");
+        }
+        input.append("</items><footer>f</footer></order>");
+
+        return input.toString();
+    }
+
+    private static class CountingVisitor implements SAXVisitBefore {
+
+        private AtomicInteger count = new AtomicInteger();
+
+        public void visitBefore(SAXElement element, ExecutionContext executionContext) throws SmooksException, IOException {
+            count.incrementAndGet();
+        }
+    }
+}
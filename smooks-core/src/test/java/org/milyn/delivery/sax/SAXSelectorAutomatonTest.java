@@ -0,0 +1,87 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.sax;
+
+import org.junit.Test;
+import org.milyn.cdr.SmooksResourceConfiguration;
+import org.xml.sax.helpers.AttributesImpl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SAXSelectorAutomatonTest {
+
+    @Test
+    public void test_isCompilable() {
+        assertFalse(SAXSelectorAutomaton.isCompilable(new SmooksResourceConfiguration("c", "x")));
+        assertTrue(SAXSelectorAutomaton.isCompilable(new SmooksResourceConfiguration("a/b/c", "x")));
+        assertTrue(SAXSelectorAutomaton.isCompilable(new SmooksResourceConfiguration("a/*/c", "x")));
+        assertTrue(SAXSelectorAutomaton.isCompilable(new SmooksResourceConfiguration("/a/b/c", "x")));
+        assertFalse(SAXSelectorAutomaton.isCompilable(new SmooksResourceConfiguration("a/**/c", "x")));
+        assertFalse(SAXSelectorAutomaton.isCompilable(new SmooksResourceConfiguration("a/b/**", "x")));
+    }
+
+    @Test
+    public void test_matchesElementContextWalk() {
+        String[] selectors = new String[] {"a/b/c", "b/c", "a/c", "/a/b/c", "/b/c", "/x/b/c", "*/c", "a/*/c", "/*/b", "a/b", "x/b/c", "A/B/C"};
+        List<SmooksResourceConfiguration> resourceConfigs = new ArrayList<SmooksResourceConfiguration>();
+
+        for(String selector : selectors) {
+            resourceConfigs.add(new SmooksResourceConfiguration(selector, "x"));
+        }
+
+        SAXSelectorAutomaton automaton = new SAXSelectorAutomaton(resourceConfigs);
+        assertEquals(selectors.length, automaton.getSelectorCount());
+
+        // a/b/c/b/c
+        String[] elementNames = new String[] {"a", "b", "c", "b", "c"};
+        SAXElement parent = null;
+        SAXSelectorAutomaton.State contextState = automaton.getInitialState();
+
+        for(String elementName : elementNames) {
+            SAXElement element = new SAXElement(null, elementName, elementName, new AttributesImpl(), parent);
+
+            for(SmooksResourceConfiguration resourceConfig : resourceConfigs) {
+                int selectorIndex = automaton.getSelectorIndex(resourceConfig);
+                boolean expected = resourceConfig.isTargetedAtElement(element, null);
+                boolean actual = resourceConfig.isTargetedAtElement(element, contextState.isContextMatched(selectorIndex), null);
+
+                assertEquals("Selector '" + resourceConfig.getSelector() + "' on element '" + SAXUtil.getXPath(element) + "'.", expected, actual);
+            }
+
+            contextState = contextState.next(element.getName());
+            parent = element;
+        }
+    }
+
+    @Test
+    public void test_statesShared() {
+        List<SmooksResourceConfiguration> resourceConfigs = new ArrayList<SmooksResourceConfiguration>();
+
+        resourceConfigs.add(new SmooksResourceConfiguration("a/b", "x"));
+        SAXSelectorAutomaton automaton = new SAXSelectorAutomaton(resourceConfigs);
+
+        SAXElement a = new SAXElement(null, "a", "a", new AttributesImpl(), null);
+        SAXSelectorAutomaton.State aState = automaton.getInitialState().next(a.getName());
+
+        assertTrue(aState.isContextMatched(0));
+        assertSame(aState, aState.next(a.getName()));
+        assertSame(aState, automaton.getInitialState().next(a.getName()).next(a.getName()).next(a.getName()));
+        assertEquals(-1, automaton.getSelectorIndex(new SmooksResourceConfiguration("a/b", "x")));
+    }
+}
@@ -0,0 +1,219 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.delivery.sax;
+
+import org.junit.Test;
+import org.milyn.FilterSettings;
+import org.milyn.GenericReaderConfigurator;
+import org.milyn.Smooks;
+import org.milyn.cdr.ParameterAccessor;
+import org.milyn.container.ExecutionContext;
+import org.milyn.delivery.Filter;
+import org.milyn.xml.SubtreeSkippingXMLReader;
+import org.milyn.xml.XmlUtil;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.stream.StreamSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SAXSubtreeSkippingTest {
+
+    private static final String INPUT = "<a><x><b><c>1</c></b><c>2</c></x><b><c>3</c><d><c>4</c></d></b><c>5</c></a>";
+
+    @Test
+    public void test_isSkipUntargetedSubtrees() {
+        assertTrue(isSkipUntargetedSubtrees("/a/b/c"));
+        assertTrue(isSkipUntargetedSubtrees("#document"));
+        assertFalse(isSkipUntargetedSubtrees("c"));
+        assertFalse(isSkipUntargetedSubtrees("b/c"));
+        assertFalse(isSkipUntargetedSubtrees("/a/**/c"));
+        assertFalse(isSkipUntargetedSubtrees("/a/b/c", "d/c"));
+    }
+
+    @Test
+    public void test_isSkipUntargetedSubtrees_default() {
+        Smooks smooks = new Smooks();
+
+        smooks.setFilterSettings(FilterSettings.DEFAULT_SAX);
+        smooks.addVisitor(new MockSAXVisitBefore(), "/a/b/c");
+
+        assertFalse(((SAXContentDeliveryConfig) smooks.createExecutionContext().getDeliveryConfig()).isSkipUntargetedSubtrees());
+    }
+
+    @Test
+    public void test_skipped() {
+        MockSAXVisitBefore visitor = filter("/a/b/c", true);
+
+        assertEquals("[c]", visitor.getElements().toString());
+        // The reader was asked to skip the content of <x> and <d>...
+        assertEquals("[x, d]", MockSkippingReader.skipped.toString());
+        assertEquals("[a, x, b, c, d, c]", MockSkippingReader.started.toString());
+    }
+
+    @Test
+    public void test_not_skipped() {
+        MockSAXVisitBefore visitor = filter("/a/b/c", false);
+
+        assertEquals("[c]", visitor.getElements().toString());
+        assertEquals("[]", MockSkippingReader.skipped.toString());
+        assertEquals("[a, x, b, c, c, b, c, d, c, c]", MockSkippingReader.started.toString());
+    }
+
+    private MockSAXVisitBefore filter(String selector, boolean skipUntargetedSubtrees) {
+        Smooks smooks = new Smooks();
+        MockSAXVisitBefore visitor = new MockSAXVisitBefore();
+
+        MockSkippingReader.skipped.clear();
+        MockSkippingReader.started.clear();
+
+        smooks.setFilterSettings(FilterSettings.DEFAULT_SAX);
+        smooks.setReaderConfig(new GenericReaderConfigurator(MockSkippingReader.class));
+        ParameterAccessor.setParameter(Filter.SKIP_UNTARGETED_SUBTREES, Boolean.toString(skipUntargetedSubtrees), smooks);
+        smooks.addVisitor(visitor, selector);
+        smooks.filterSource(new StreamSource(new StringReader(INPUT)));
+
+        return visitor;
+    }
+
+    private boolean isSkipUntargetedSubtrees(String... selectors) {
+        Smooks smooks = new Smooks();
+
+        smooks.setFilterSettings(FilterSettings.DEFAULT_SAX);
+        ParameterAccessor.setParameter(Filter.SKIP_UNTARGETED_SUBTREES, "true", smooks);
+        for(String selector : selectors) {
+            smooks.addVisitor(new MockSAXVisitBefore(), selector);
+        }
+
+        return ((SAXContentDeliveryConfig) smooks.createExecutionContext().getDeliveryConfig()).isSkipUntargetedSubtrees();
+    }
+
+    /**
+     * Walks a parsed DOM, firing the SAX events for it and honoring {@link #skipSubtree()} requests.
+     */
+    public static class MockSkippingReader implements SubtreeSkippingXMLReader {
+
+        private static List<String> skipped = new ArrayList<String>();
+        private static List<String> started = new ArrayList<String>();
+
+        private ContentHandler contentHandler;
+        private boolean skip;
+
+        public void setExecutionContext(ExecutionContext executionContext) {
+        }
+
+        public void skipSubtree() {
+            skip = true;
+        }
+
+        public void parse(InputSource input) throws IOException, SAXException {
+            Element root;
+
+            try {
+                root = XmlUtil.parseStream(input.getCharacterStream()).getDocumentElement();
+            } catch (ParserConfigurationException e) {
+                throw new SAXException(e);
+            }
+
+            contentHandler.startDocument();
+            fireEvents(root);
+            contentHandler.endDocument();
+        }
+
+        private void fireEvents(Element element) throws SAXException {
+            String name = element.getTagName();
+
+            started.add(name);
+            skip = false;
+            contentHandler.startElement("", name, name, new AttributesImpl());
+            if(skip) {
+                skipped.add(name);
+            } else {
+                NodeList children = element.getChildNodes();
+                for(int i = 0; i < children.getLength(); i++) {
+                    Node child = children.item(i);
+                    if(child.getNodeType() == Node.ELEMENT_NODE) {
+                        fireEvents((Element) child);
+                    } else if(child.getNodeType() == Node.TEXT_NODE) {
+                        char[] text = child.getNodeValue().toCharArray();
+                        contentHandler.characters(text, 0, text.length);
+                    }
+                }
+            }
+            contentHandler.endElement("", name, name);
+        }
+
+        public void parse(String systemId) throws IOException, SAXException {
+        }
+
+        public boolean getFeature(String name) {
+            return false;
+        }
+
+        public void setFeature(String name, boolean value) {
+        }
+
+        public Object getProperty(String name) {
+            return null;
+        }
+
+        public void setProperty(String name, Object value) {
+        }
+
+        public void setEntityResolver(EntityResolver resolver) {
+        }
+
+        public EntityResolver getEntityResolver() {
+            return null;
+        }
+
+        public void setDTDHandler(DTDHandler handler) {
+        }
+
+        public DTDHandler getDTDHandler() {
+            return null;
+        }
+
+        public void setContentHandler(ContentHandler handler) {
+            this.contentHandler = handler;
+        }
+
+        public ContentHandler getContentHandler() {
+            return contentHandler;
+        }
+
+        public void setErrorHandler(ErrorHandler handler) {
+        }
+
+        public ErrorHandler getErrorHandler() {
+            return null;
+        }
+    }
+}
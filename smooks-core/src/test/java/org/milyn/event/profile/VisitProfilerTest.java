@@ -0,0 +1,114 @@
+/*
+	Milyn - Copyright (C) 2006 - 2010
+
+	This library is free software; you can redistribute it and/or
+	modify it under the terms of the GNU Lesser General Public
+	License (version 2.1) as published by the Free Software
+	Foundation.
+
+	This library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+
+	See the GNU Lesser General Public License for more details:
+	http://www.gnu.org/licenses/lgpl.txt
+*/
+package org.milyn.event.profile;
+
+import org.junit.Test;
+import org.milyn.Smooks;
+import org.milyn.container.ExecutionContext;
+import org.milyn.delivery.sax.SAXElement;
+import org.milyn.delivery.sax.SAXVisitAfter;
+import org.milyn.delivery.sax.SAXVisitBefore;
+import org.milyn.payload.StringSource;
+
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class VisitProfilerTest {
+
+    @Test
+    public void test_profile() {
+        Smooks smooks = new Smooks();
+        VisitProfiler profiler = new VisitProfiler();
+
+        smooks.addVisitor(new MockVisitor(), "b");
+        profiler.setSampleInterval(2);
+        for(int i = 0; i < 3; i++) {
+            ExecutionContext executionContext = smooks.createExecutionContext();
+            executionContext.setEventListener(profiler);
+            smooks.filterSource(executionContext, new StringSource("<a><b/><b/><c/></a>"));
+        }
+
+        assertEquals(3, profiler.getMessageCount());
+
+        List<VisitStatistics> statistics = profiler.getStatistics();
+        long sampleCount = 0;
+        assertEquals(2, statistics.size());
+        for(VisitStatistics visitStatistics : statistics) {
+            assertEquals(MockVisitor.class.getName(), visitStatistics.getVisitor());
+            assertEquals("b", visitStatistics.getSelector());
+            assertEquals(6, visitStatistics.getCount());
+            assertTrue(visitStatistics.getPercentileNanos(99) >= visitStatistics.getPercentileNanos(50));
+            sampleCount += visitStatistics.getSampleCount();
+        }
+        // Every second visit is timed...
+        assertEquals(6, sampleCount);
+
+        String dump = profiler.dump();
+        assertTrue(dump.startsWith("Messages: 3, Sample Interval: 2"));
+        assertTrue(dump.contains(MockVisitor.class.getName()));
+        assertTrue(dump.contains("VISIT_BEFORE"));
+        assertTrue(dump.contains("VISIT_AFTER"));
+
+        profiler.reset();
+        assertEquals(0, profiler.getMessageCount());
+        assertEquals(0, profiler.getStatistics().get(0).getCount());
+    }
+
+    @Test
+    public void test_histogram() {
+        VisitStatistics statistics = new VisitStatistics("x", "y", VisitType.VISIT_BEFORE);
+
+        statistics.record(-1);
+        statistics.record(0);
+        statistics.record(100);
+        statistics.record(1000);
+        statistics.record(1000);
+
+        assertEquals(5, statistics.getCount());
+        assertEquals(4, statistics.getSampleCount());
+        assertEquals(525, statistics.getMeanNanos());
+        assertEquals(127, statistics.getPercentileNanos(50));
+        assertEquals(1023, statistics.getPercentileNanos(99));
+    }
+
+    @Test
+    public void test_mbean() throws Exception {
+        VisitProfiler profiler = new VisitProfiler();
+        String name = "org.milyn:type=VisitProfiler,name=" + getClass().getSimpleName();
+
+        profiler.registerMBean(name);
+        try {
+            profiler.setSampleInterval(4);
+            assertEquals(4, ManagementFactory.getPlatformMBeanServer().getAttribute(new ObjectName(name), "SampleInterval"));
+        } finally {
+            profiler.unregisterMBean();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(name)));
+    }
+
+    public static class MockVisitor implements SAXVisitBefore, SAXVisitAfter {
+
+        public void visitBefore(SAXElement element, ExecutionContext executionContext) throws IOException {
+        }
+
+        public void visitAfter(SAXElement element, ExecutionContext executionContext) throws IOException {
+        }
+    }
+}
@@ -108,7 +108,7 @@ public class MultiLineToStringBuilderTest {
 			NL +
 			"Attributes : {" + NL +
 			"   \"multiline\" : \"hello" + NL +
-			"               world\"," + NL +
+			"               world\"" + NL +
 			"}";
 
 